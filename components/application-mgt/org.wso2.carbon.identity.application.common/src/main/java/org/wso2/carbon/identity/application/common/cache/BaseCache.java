@@ -30,6 +30,7 @@ import javax.cache.CacheBuilder;
 import javax.cache.CacheConfiguration;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
+import javax.cache.Status;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +38,11 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * A base class for all cache implementations in Identity Application Management modules.
+ * <p/>
+ * The underlying cache is resolved once and kept as a handle, which is resolved again only if the cache has been
+ * stopped. The cache configuration is read from identity.xml once, as it does not change at runtime. Caches are
+ * owned by the super tenant, so a super tenant flow is only started when the calling thread is not already running
+ * as the super tenant.
  */
 public class BaseCache<K extends Serializable, V extends Serializable> {
 
@@ -44,63 +50,85 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
     private CacheBuilder<K, V> cacheBuilder;
     private String cacheName;
     private List<AbstractCacheListener> cacheListeners = new ArrayList<AbstractCacheListener>();
+    private final Object cacheLock = new Object();
+    private volatile Cache<K, V> cacheHandle;
+    private volatile CacheConfigSnapshot cacheConfig;
 
     public BaseCache(String cacheName) {
         this.cacheName = cacheName;
     }
 
+    /**
+     * Returns the underlying cache. Needs to be called within the super tenant flow.
+     *
+     * @return underlying cache
+     */
     private Cache<K, V> getBaseCache() {
 
-        Cache<K, V> cache = null;
-        try {
+        Cache<K, V> cache = cacheHandle;
+        if (cache != null && cache.getStatus() == Status.STARTED) {
+            return cache;
+        }
 
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        synchronized (cacheLock) {
+            cache = cacheHandle;
+            if (cache != null && cache.getStatus() == Status.STARTED) {
+                return cache;
+            }
 
             CacheManager cacheManager = Caching.getCacheManagerFactory()
                     .getCacheManager(CACHE_MANAGER_NAME);
 
             if (getCacheTimeout() > 0 && cacheBuilder == null) {
-                synchronized (cacheName.intern()) {
-                    if (cacheBuilder == null) {
-                        cacheManager.removeCache(cacheName);
-                        cacheBuilder = cacheManager.<K, V>createCacheBuilder(cacheName).
-                                setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
-                                        new CacheConfiguration
-                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
-                                setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
-                                        new CacheConfiguration
-                                                .Duration(TimeUnit.SECONDS, getCacheTimeout())).
-                                setStoreByValue(false);
-                        cache = cacheBuilder.build();
-
-                        for (AbstractCacheListener cacheListener : cacheListeners) {
-                            if (cacheListener.isEnable()) {
-                                this.cacheBuilder.registerCacheEntryListener(cacheListener);
-                            }
-                        }
-
-                        setCapacity((CacheImpl) cache);
-                    } else {
-                        cache = cacheManager.getCache(cacheName);
-                        setCapacity((CacheImpl) cache);
+                cacheManager.removeCache(cacheName);
+                cacheBuilder = cacheManager.<K, V>createCacheBuilder(cacheName).
+                        setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
+                                new CacheConfiguration
+                                        .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                        setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
+                                new CacheConfiguration
+                                        .Duration(TimeUnit.SECONDS, getCacheTimeout())).
+                        setStoreByValue(false);
+                cache = cacheBuilder.build();
+
+                for (AbstractCacheListener cacheListener : cacheListeners) {
+                    if (cacheListener.isEnable()) {
+                        this.cacheBuilder.registerCacheEntryListener(cacheListener);
                     }
                 }
-
             } else {
                 cache = cacheManager.getCache(cacheName);
-                setCapacity((CacheImpl) cache);
+            }
 
+            if (cache != null) {
+                setCapacity((CacheImpl) cache);
             }
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            cacheHandle = cache;
         }
 
         return cache;
     }
 
+    /**
+     * Starts a super tenant flow, unless the calling thread is already running as the super tenant.
+     *
+     * @return whether a tenant flow was started, in which case it has to be ended by the caller
+     */
+    private boolean startSuperTenantFlow() {
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        if (carbonContext.getTenantId() == MultitenantConstants.SUPER_TENANT_ID &&
+            MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(carbonContext.getTenantDomain())) {
+            return false;
+        }
+
+        PrivilegedCarbonContext.startTenantFlow();
+        carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+        return true;
+    }
+
     /**
      * Add a cache entry.
      *
@@ -112,19 +140,16 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
+        boolean tenantFlowStarted = startSuperTenantFlow();
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-            // Element already in the cache. Remove it first
             Cache<K, V> cache = getBaseCache();
             if (cache != null) {
                 cache.put(key, entry);
             }
         } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            if (tenantFlowStarted) {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
         }
     }
 
@@ -143,19 +168,17 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return null;
         }
 
+        boolean tenantFlowStarted = startSuperTenantFlow();
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
             Cache<K, V> cache = getBaseCache();
-            if (cache != null && cache.get(key) != null) {
-                return (V) cache.get(key);
+            if (cache != null) {
+                return cache.get(key);
             }
             return null;
         } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            if (tenantFlowStarted) {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
         }
     }
 
@@ -169,18 +192,16 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
+        boolean tenantFlowStarted = startSuperTenantFlow();
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
             Cache<K, V> cache = getBaseCache();
             if (cache != null) {
                 cache.remove(key);
             }
         } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            if (tenantFlowStarted) {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
         }
     }
 
@@ -192,18 +213,16 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             return;
         }
 
+        boolean tenantFlowStarted = startSuperTenantFlow();
         try {
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext
-                    .getThreadLocalCarbonContext();
-            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
             Cache<K, V> cache = getBaseCache();
             if (cache != null) {
                 cache.removeAll();
             }
         } finally {
-            PrivilegedCarbonContext.endTenantFlow();
+            if (tenantFlowStarted) {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
         }
     }
 
@@ -211,28 +230,26 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
         cacheListeners.add(listener);
     }
 
-    public boolean isEnabled() {
-        IdentityCacheConfig identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
-        if (identityCacheConfig != null) {
-            return identityCacheConfig.isEnabled();
+    private CacheConfigSnapshot getCacheConfig() {
+        CacheConfigSnapshot config = cacheConfig;
+        if (config == null) {
+            config = new CacheConfigSnapshot(
+                    IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName));
+            cacheConfig = config;
         }
-        return true;
+        return config;
+    }
+
+    public boolean isEnabled() {
+        return getCacheConfig().enabled;
     }
 
     public int getCacheTimeout() {
-        IdentityCacheConfig identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
-        if (identityCacheConfig != null && identityCacheConfig.getTimeout() > 0) {
-            return identityCacheConfig.getTimeout();
-        }
-        return -1;
+        return getCacheConfig().timeout;
     }
 
     public int getCapacity() {
-        IdentityCacheConfig identityCacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, cacheName);
-        if (identityCacheConfig != null && identityCacheConfig.getCapacity() > 0) {
-            return identityCacheConfig.getCapacity();
-        }
-        return -1;
+        return getCacheConfig().capacity;
     }
 
     public void setCapacity(CacheImpl cache) {
@@ -240,4 +257,26 @@ public class BaseCache<K extends Serializable, V extends Serializable> {
             cache.setCapacity(getCapacity());
         }
     }
+
+    /**
+     * Values of the cache configuration read at a point of time.
+     */
+    private static class CacheConfigSnapshot {
+
+        private final boolean enabled;
+        private final int timeout;
+        private final int capacity;
+
+        private CacheConfigSnapshot(IdentityCacheConfig identityCacheConfig) {
+            if (identityCacheConfig != null) {
+                enabled = identityCacheConfig.isEnabled();
+                timeout = identityCacheConfig.getTimeout() > 0 ? identityCacheConfig.getTimeout() : -1;
+                capacity = identityCacheConfig.getCapacity() > 0 ? identityCacheConfig.getCapacity() : -1;
+            } else {
+                enabled = true;
+                timeout = -1;
+                capacity = -1;
+            }
+        }
+    }
 }
@@ -45,8 +45,6 @@ import org.wso2.carbon.identity.application.common.model.RequestPathAuthenticato
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCache;
-import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheEntry;
-import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheKey;
 import org.wso2.carbon.identity.application.mgt.dao.ApplicationDAO;
 import org.wso2.carbon.identity.application.mgt.dao.IdentityProviderDAO;
 import org.wso2.carbon.identity.application.mgt.dao.OAuthApplicationDAO;
@@ -64,7 +62,6 @@ import org.wso2.carbon.security.config.SecurityServiceAdmin;
 import org.wso2.carbon.user.api.ClaimMapping;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.utils.ServerConstants;
-import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -252,18 +249,6 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
             }
         }
 
-        try {
-            startTenantFlow(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-
-            IdentityServiceProviderCacheKey cacheKey = new IdentityServiceProviderCacheKey(
-                    tenantDomain, serviceProvider.getApplicationName());
-
-            IdentityServiceProviderCache.getInstance().clearCacheEntry(cacheKey);
-
-        } finally {
-            endTenantFlow();
-        }
-
         try {
             // check whether user is authorized to update the application.
             startTenantFlow(tenantDomain, username);
@@ -279,8 +264,13 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
 
             ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
             String storedAppName = appDAO.getApplicationName(serviceProvider.getApplicationID());
+            // the stored inbound keys are needed to invalidate the cache when they are changed or removed
+            ServiceProvider storedServiceProvider = appDAO.getApplication(storedAppName, tenantDomain);
             appDAO.updateApplication(serviceProvider, tenantDomain);
 
+            IdentityServiceProviderCache.getInstance().clearServiceProvider(storedServiceProvider, tenantDomain);
+            IdentityServiceProviderCache.getInstance().clearServiceProvider(serviceProvider, tenantDomain);
+
             ApplicationPermission[] permissions = serviceProvider.getPermissionAndRoleConfig().getPermissions();
             String applicationNode = ApplicationMgtUtil.getApplicationPermissionPath() + RegistryConstants
                     .PATH_SEPARATOR + storedAppName;
@@ -366,6 +356,7 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
             ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
             ServiceProvider serviceProvider = appDAO.getApplication(applicationName, tenantDomain);
             appDAO.deleteApplication(applicationName);
+            IdentityServiceProviderCache.getInstance().clearServiceProvider(serviceProvider, tenantDomain);
 
             ApplicationMgtUtil.deleteAppRole(applicationName);
             ApplicationMgtUtil.deletePermissions(applicationName);
@@ -550,9 +541,13 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
         }
 
         try {
-            ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
-            name =  appDAO.getServiceProviderNameByClientId(clientId, type, tenantDomain);
-
+            IdentityServiceProviderCache cache = IdentityServiceProviderCache.getInstance();
+            name = cache.getServiceProviderName(clientId, type, tenantDomain);
+            if (name == null) {
+                ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
+                name = appDAO.getServiceProviderNameByClientId(clientId, type, tenantDomain);
+                cache.addServiceProviderName(clientId, type, tenantDomain, name);
+            }
         } catch (Exception e) {
             String error = "Error occurred while retrieving the service provider for client id :  " + clientId;
             throw new IdentityApplicationManagementException(error, e);
@@ -673,8 +668,14 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
             }
         }
 
-        ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
-        name = appDAO.getServiceProviderNameByClientId(clientId, clientType, tenantDomain);
+        IdentityServiceProviderCache cache = IdentityServiceProviderCache.getInstance();
+        name = cache.getServiceProviderName(clientId, clientType, tenantDomain);
+
+        if (name == null) {
+            ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
+            name = appDAO.getServiceProviderNameByClientId(clientId, clientType, tenantDomain);
+            cache.addServiceProviderName(clientId, clientType, tenantDomain, name);
+        }
 
         if (name == null) {
             name = new FileBasedApplicationDAO().getServiceProviderNameByClientId(clientId,
@@ -768,42 +769,20 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
 
         serviceProviderName = getServiceProviderNameByClientId(clientId, clientType, tenantDomain);
 
-        try {
-            startTenantFlow(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-
-            IdentityServiceProviderCacheKey cacheKey = new IdentityServiceProviderCacheKey(
-                    tenantDomain, serviceProviderName);
-            IdentityServiceProviderCacheEntry entry = IdentityServiceProviderCache.getInstance().
-                    getValueFromCache(cacheKey);
-
-            if (entry != null) {
-                return entry.getServiceProvider();
-            }
-
-        } finally {
-            endTenantFlow();
-            startTenantFlow(tenantDomain);
+        serviceProvider = IdentityServiceProviderCache.getInstance().getServiceProvider(serviceProviderName,
+                tenantDomain);
+        if (serviceProvider != null) {
+            return serviceProvider;
         }
 
+        startTenantFlow(tenantDomain);
+
         if (serviceProviderName != null) {
             ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
             serviceProvider = appDAO.getApplication(serviceProviderName, tenantDomain);
 
             if (serviceProvider != null) {
-                // if "Authentication Type" is "Default" we must get the steps from the default SP
-                AuthenticationStep[] authenticationSteps = serviceProvider
-                        .getLocalAndOutBoundAuthenticationConfig().getAuthenticationSteps();
-
-                loadApplicationPermissions(serviceProviderName, serviceProvider);
-
-                if (authenticationSteps == null || authenticationSteps.length == 0) {
-                    ServiceProvider defaultSP = ApplicationManagementServiceComponent
-                            .getFileBasedSPs().get(IdentityApplicationConstants.DEFAULT_SP_CONFIG);
-                    authenticationSteps = defaultSP.getLocalAndOutBoundAuthenticationConfig()
-                            .getAuthenticationSteps();
-                    serviceProvider.getLocalAndOutBoundAuthenticationConfig()
-                            .setAuthenticationSteps(authenticationSteps);
-                }
+                prepareServiceProvider(serviceProvider);
             }
         }
 
@@ -817,17 +796,7 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
 
         endTenantFlow();
 
-        try {
-            startTenantFlow(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-
-            IdentityServiceProviderCacheKey cacheKey = new IdentityServiceProviderCacheKey(
-                    tenantDomain, serviceProviderName);
-            IdentityServiceProviderCacheEntry entry = new IdentityServiceProviderCacheEntry();
-            entry.setServiceProvider(serviceProvider);
-            IdentityServiceProviderCache.getInstance().addToCache(cacheKey, entry);
-        } finally {
-            endTenantFlow();
-        }
+        IdentityServiceProviderCache.getInstance().addServiceProvider(serviceProvider, tenantDomain);
 
         for (ApplicationMgtListener listener : listeners) {
             if (!listener.doPostGetServiceProviderByClientId(serviceProvider, clientId, clientType, tenantDomain)) {
@@ -838,6 +807,65 @@ public class ApplicationManagementServiceImpl extends ApplicationManagementServi
         return serviceProvider;
     }
 
+    /**
+     * Loads all the applications of the given tenant into the service provider cache, in the same form as
+     * {@link #getServiceProviderByClientId(String, String, String)} caches them.
+     *
+     * @param tenantDomain tenant domain
+     * @throws IdentityApplicationManagementException
+     */
+    public void warmUpServiceProviderCache(String tenantDomain) throws IdentityApplicationManagementException {
+
+        IdentityServiceProviderCache cache = IdentityServiceProviderCache.getInstance();
+        if (!cache.isEnabled()) {
+            return;
+        }
+
+        startTenantFlow(tenantDomain);
+        try {
+            ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
+            ServiceProvider[] serviceProviders = appDAO.getAllApplications(tenantDomain);
+
+            for (ServiceProvider serviceProvider : serviceProviders) {
+                prepareServiceProvider(serviceProvider);
+                cache.addServiceProvider(serviceProvider, tenantDomain);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Loaded " + serviceProviders.length + " service providers of tenant " + tenantDomain
+                          + " into the cache");
+            }
+        } finally {
+            endTenantFlow();
+        }
+    }
+
+    /**
+     * Completes a service provider read from the database for runtime use, with its permissions and the
+     * authentication steps of the default service provider if it has none of its own.
+     *
+     * @param serviceProvider service provider
+     * @throws IdentityApplicationManagementException
+     */
+    private void prepareServiceProvider(ServiceProvider serviceProvider)
+            throws IdentityApplicationManagementException {
+
+        // if "Authentication Type" is "Default" we must get the steps from the default SP
+        AuthenticationStep[] authenticationSteps = serviceProvider
+                .getLocalAndOutBoundAuthenticationConfig().getAuthenticationSteps();
+
+        loadApplicationPermissions(serviceProvider.getApplicationName(), serviceProvider);
+
+        if (authenticationSteps == null || authenticationSteps.length == 0) {
+            ServiceProvider defaultSP = ApplicationManagementServiceComponent
+                    .getFileBasedSPs().get(IdentityApplicationConstants.DEFAULT_SP_CONFIG);
+            authenticationSteps = defaultSP.getLocalAndOutBoundAuthenticationConfig()
+                    .getAuthenticationSteps();
+            serviceProvider.getLocalAndOutBoundAuthenticationConfig()
+                    .setAuthenticationSteps(authenticationSteps);
+        }
+    }
+
     private void loadApplicationPermissions(String serviceProviderName, ServiceProvider serviceProvider)
             throws IdentityApplicationManagementException {
         List<ApplicationPermission> permissionList = ApplicationMgtUtil.loadPermissions(serviceProviderName);
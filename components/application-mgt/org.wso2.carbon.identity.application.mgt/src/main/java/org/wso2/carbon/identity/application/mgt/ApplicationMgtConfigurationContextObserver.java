@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.AbstractAxis2ConfigurationContextObserver;
+
+/**
+ * Observer for tenant ConfigurationContext creations. Loads the service providers of each tenant into the service
+ * provider cache as the tenant is loaded, so that the first authentication requests of the tenant do not have to
+ * read them from the database one by one.
+ */
+public class ApplicationMgtConfigurationContextObserver extends AbstractAxis2ConfigurationContextObserver {
+
+    private static final Log log = LogFactory.getLog(ApplicationMgtConfigurationContextObserver.class);
+
+    private static boolean cacheWarmUpEnabled = true;
+
+    static {
+        String cacheWarmUp = IdentityUtil.getProperty("ApplicationMgt.ServiceProviderCacheWarmUp");
+        if (StringUtils.isNotBlank(cacheWarmUp)) {
+            cacheWarmUpEnabled = Boolean.parseBoolean(cacheWarmUp.trim());
+        }
+    }
+
+    @Override
+    public void createdConfigurationContext(ConfigurationContext configurationContext) {
+
+        if (!cacheWarmUpEnabled) {
+            return;
+        }
+
+        int tenantID = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Loading the service providers of tenant: " + tenantDomain + "[" + tenantID + "]");
+            }
+            ApplicationManagementServiceImpl.getInstance().warmUpServiceProviderCache(tenantDomain);
+        } catch (IdentityApplicationManagementException e) {
+            String msg = "Failed to load the service providers of tenant: " + tenantDomain + "[" + tenantID + "]";
+            log.error(msg, e);
+        }
+    }
+}
@@ -80,8 +80,8 @@ public class ApplicationMgtDBQueries {
     public static final String LOAD_BASIC_APP_INFO_BY_APP_NAME = "SELECT ID, TENANT_ID, APP_NAME, USER_STORE, " +
             "USERNAME, DESCRIPTION, ROLE_CLAIM, AUTH_TYPE, PROVISIONING_USERSTORE_DOMAIN, IS_LOCAL_CLAIM_DIALECT," +
             "IS_SEND_LOCAL_SUBJECT_ID, IS_SEND_AUTH_LIST_OF_IDPS, IS_USE_TENANT_DOMAIN_SUBJECT, " +
-            "IS_USE_USER_DOMAIN_SUBJECT, SUBJECT_CLAIM_URI, IS_SAAS_APP FROM SP_APP WHERE APP_NAME = ? AND TENANT_ID=" +
-            " ?";
+            "IS_USE_USER_DOMAIN_SUBJECT, SUBJECT_CLAIM_URI, IS_SAAS_APP, IS_DUMB_MODE FROM SP_APP WHERE APP_NAME = ? " +
+            "AND TENANT_ID= ?";
     public static final String LOAD_AUTH_TYPE_BY_APP_ID = "SELECT AUTH_TYPE FROM SP_APP WHERE ID = ? AND TENANT_ID = ?";
     public static final String LOAD_APP_NAME_BY_APP_ID = "SELECT APP_NAME FROM SP_APP WHERE ID = ? AND TENANT_ID = ?";
     public static final String LOAD_CLIENTS_INFO_BY_APP_ID = "SELECT INBOUND_AUTH_KEY, INBOUND_AUTH_TYPE, PROP_NAME, " +
@@ -115,6 +115,43 @@ public class ApplicationMgtDBQueries {
             "SP_APP WHERE TENANT_ID= ? AND ID = ?";
     public static final String LOAD_PRO_CONNECTORS_BY_APP_ID = "SELECT IDP_NAME, CONNECTOR_NAME, IS_JIT_ENABLED, " +
             "BLOCKING FROM SP_PROVISIONING_CONNECTOR WHERE APP_ID = ? AND TENANT_ID = ?";
+    // Set based LOAD Queries. Each of these is completed with one of the application filters and returns the ID of
+    // the owning application as the first column.
+    public static final String APP_ID_FILTER = "SP_APP.ID = ? AND SP_APP.TENANT_ID = ?";
+    public static final String TENANT_APPS_FILTER = "SP_APP.TENANT_ID = ?";
+
+    public static final String LOAD_BASIC_APP_INFO = "SELECT ID, TENANT_ID, APP_NAME, USER_STORE, USERNAME, " +
+            "DESCRIPTION, ROLE_CLAIM, AUTH_TYPE, PROVISIONING_USERSTORE_DOMAIN, IS_LOCAL_CLAIM_DIALECT, " +
+            "IS_SEND_LOCAL_SUBJECT_ID, IS_SEND_AUTH_LIST_OF_IDPS, IS_USE_TENANT_DOMAIN_SUBJECT, " +
+            "IS_USE_USER_DOMAIN_SUBJECT, SUBJECT_CLAIM_URI, IS_SAAS_APP, IS_DUMB_MODE FROM SP_APP WHERE ";
+    public static final String LOAD_CLIENTS_INFO = "SELECT SP_INBOUND_AUTH.APP_ID, INBOUND_AUTH_KEY, " +
+            "INBOUND_AUTH_TYPE, PROP_NAME, PROP_VALUE FROM SP_INBOUND_AUTH INNER JOIN SP_APP ON " +
+            "SP_INBOUND_AUTH.APP_ID = SP_APP.ID AND SP_INBOUND_AUTH.TENANT_ID = SP_APP.TENANT_ID WHERE ";
+    public static final String LOAD_STEPS_INFO = "SELECT SP_AUTH_STEP.APP_ID, STEP_ORDER, IS_SUBJECT_STEP, " +
+            "IS_ATTRIBUTE_STEP, IDP.NAME, IDP_AUTHENTICATOR.NAME, IDP_AUTHENTICATOR.DISPLAY_NAME, " +
+            "IDP.IS_FEDERATION_HUB, IDP.TENANT_ID, SP_APP.TENANT_ID "
+            + "FROM SP_AUTH_STEP INNER JOIN SP_FEDERATED_IDP ON SP_AUTH_STEP.ID = SP_FEDERATED_IDP.ID "
+            + "INNER JOIN IDP_AUTHENTICATOR ON SP_FEDERATED_IDP.AUTHENTICATOR_ID = IDP_AUTHENTICATOR.ID "
+            + "INNER JOIN IDP ON IDP_AUTHENTICATOR.IDP_ID = IDP.ID "
+            + "INNER JOIN SP_APP ON SP_AUTH_STEP.APP_ID = SP_APP.ID "
+            + "WHERE ((IDP.TENANT_ID = SP_APP.TENANT_ID AND IDP_AUTHENTICATOR.TENANT_ID = SP_APP.TENANT_ID) OR "
+            + "(IDP.TENANT_ID = ? AND IDP.NAME LIKE 'SHARED_%' AND IDP_AUTHENTICATOR.TENANT_ID = ?)) AND ";
+    public static final String LOAD_CLAIM_MAPPINGS = "SELECT SP_CLAIM_MAPPING.APP_ID, IDP_CLAIM, SP_CLAIM, " +
+            "IS_REQUESTED, DEFAULT_VALUE FROM SP_CLAIM_MAPPING INNER JOIN SP_APP ON SP_CLAIM_MAPPING.APP_ID = " +
+            "SP_APP.ID AND SP_CLAIM_MAPPING.TENANT_ID = SP_APP.TENANT_ID WHERE ";
+    public static final String LOAD_ROLE_MAPPINGS = "SELECT SP_ROLE_MAPPING.APP_ID, IDP_ROLE, SP_ROLE FROM " +
+            "SP_ROLE_MAPPING INNER JOIN SP_APP ON SP_ROLE_MAPPING.APP_ID = SP_APP.ID AND SP_ROLE_MAPPING.TENANT_ID = " +
+            "SP_APP.TENANT_ID WHERE ";
+    public static final String LOAD_REQ_PATH_AUTHENTICATORS = "SELECT SP_REQ_PATH_AUTHENTICATOR.APP_ID, " +
+            "AUTHENTICATOR_NAME FROM SP_REQ_PATH_AUTHENTICATOR INNER JOIN SP_APP ON SP_REQ_PATH_AUTHENTICATOR.APP_ID " +
+            "= SP_APP.ID AND SP_REQ_PATH_AUTHENTICATOR.TENANT_ID = SP_APP.TENANT_ID WHERE ";
+    public static final String LOAD_PRO_CONNECTORS = "SELECT SP_PROVISIONING_CONNECTOR.APP_ID, IDP_NAME, " +
+            "CONNECTOR_NAME, IS_JIT_ENABLED, BLOCKING FROM SP_PROVISIONING_CONNECTOR INNER JOIN SP_APP ON " +
+            "SP_PROVISIONING_CONNECTOR.APP_ID = SP_APP.ID AND SP_PROVISIONING_CONNECTOR.TENANT_ID = SP_APP.TENANT_ID " +
+            "WHERE ";
+    public static final String LOAD_SP_METADATA = "SELECT SP_METADATA.SP_ID, SP_METADATA.NAME, SP_METADATA.VALUE, " +
+            "SP_METADATA.DISPLAY_NAME FROM SP_METADATA INNER JOIN SP_APP ON SP_METADATA.SP_ID = SP_APP.ID WHERE ";
+
     public static final String LOAD_UM_PERMISSIONS = "SELECT UM_ID, UM_RESOURCE_ID FROM UM_PERMISSION WHERE " +
             "UM_RESOURCE_ID LIKE ?";
     public static final String LOAD_UM_PERMISSIONS_W = "SELECT UM_ID FROM UM_PERMISSION WHERE UM_RESOURCE_ID = ?";
@@ -20,7 +20,15 @@
 package org.wso2.carbon.identity.application.mgt.cache;
 
 import org.wso2.carbon.identity.application.common.cache.BaseCache;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationRequestConfig;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 
+/**
+ * Caches service providers by tenant domain and application name. Applications are also indexed by their inbound
+ * authentication keys through {@link ServiceProviderByInboundKeyCache}, and the helper methods of this class keep
+ * both indexes in step when an application is cached or invalidated.
+ */
 public class IdentityServiceProviderCache extends
         BaseCache<IdentityServiceProviderCacheKey, IdentityServiceProviderCacheEntry> {
 
@@ -42,4 +50,116 @@ public class IdentityServiceProviderCache extends
         }
         return instance;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the name of the application owning the given inbound auth key, if it is cached.
+     *
+     * @param inboundAuthKey  Inbound auth key, e.g. the OAuth client id or the SAML issuer
+     * @param inboundAuthType Inbound auth type
+     * @param tenantDomain    Tenant domain of the application
+     * @return application name or null if not cached
+     */
+    public String getServiceProviderName(String inboundAuthKey, String inboundAuthType, String tenantDomain) {
+
+        if (inboundAuthKey == null || inboundAuthType == null || tenantDomain == null) {
+            return null;
+        }
+        ServiceProviderByInboundKeyCacheEntry entry = ServiceProviderByInboundKeyCache.getInstance()
+                .getValueFromCache(new ServiceProviderByInboundKeyCacheKey(inboundAuthKey, inboundAuthType,
+                        tenantDomain));
+        return entry != null ? entry.getServiceProviderName() : null;
+    }
+
+    /**
+     * Indexes the given inbound auth key against the name of the application owning it.
+     *
+     * @param inboundAuthKey      Inbound auth key
+     * @param inboundAuthType     Inbound auth type
+     * @param tenantDomain        Tenant domain of the application
+     * @param serviceProviderName Application name
+     */
+    public void addServiceProviderName(String inboundAuthKey, String inboundAuthType, String tenantDomain,
+                                       String serviceProviderName) {
+
+        if (inboundAuthKey == null || inboundAuthType == null || tenantDomain == null ||
+            serviceProviderName == null) {
+            return;
+        }
+        ServiceProviderByInboundKeyCache.getInstance().addToCache(
+                new ServiceProviderByInboundKeyCacheKey(inboundAuthKey, inboundAuthType, tenantDomain),
+                new ServiceProviderByInboundKeyCacheEntry(serviceProviderName));
+    }
+
+    /**
+     * Returns the cached service provider with the given name.
+     *
+     * @param serviceProviderName Application name
+     * @param tenantDomain        Tenant domain of the application
+     * @return service provider or null if not cached
+     */
+    public ServiceProvider getServiceProvider(String serviceProviderName, String tenantDomain) {
+
+        if (serviceProviderName == null || tenantDomain == null) {
+            return null;
+        }
+        IdentityServiceProviderCacheEntry entry = getValueFromCache(
+                new IdentityServiceProviderCacheKey(serviceProviderName, tenantDomain));
+        return entry != null ? entry.getServiceProvider() : null;
+    }
+
+    /**
+     * Caches the given service provider by its name and by each of its inbound auth keys.
+     *
+     * @param serviceProvider Service provider
+     * @param tenantDomain    Tenant domain of the application
+     */
+    public void addServiceProvider(ServiceProvider serviceProvider, String tenantDomain) {
+
+        if (serviceProvider == null || serviceProvider.getApplicationName() == null || tenantDomain == null) {
+            return;
+        }
+        IdentityServiceProviderCacheEntry entry = new IdentityServiceProviderCacheEntry();
+        entry.setServiceProvider(serviceProvider);
+        addToCache(new IdentityServiceProviderCacheKey(serviceProvider.getApplicationName(), tenantDomain), entry);
+
+        for (InboundAuthenticationRequestConfig config : getInboundAuthenticationRequestConfigs(serviceProvider)) {
+            addServiceProviderName(config.getInboundAuthKey(), config.getInboundAuthType(), tenantDomain,
+                    serviceProvider.getApplicationName());
+        }
+    }
+
+    /**
+     * Invalidates the given service provider in all indexes. The inbound auth keys to invalidate are taken from the
+     * given service provider, so the stored state of the application has to be passed in when the keys are changing.
+     *
+     * @param serviceProvider Service provider
+     * @param tenantDomain    Tenant domain of the application
+     */
+    public void clearServiceProvider(ServiceProvider serviceProvider, String tenantDomain) {
+
+        if (serviceProvider == null || tenantDomain == null) {
+            return;
+        }
+        if (serviceProvider.getApplicationName() != null) {
+            clearCacheEntry(new IdentityServiceProviderCacheKey(serviceProvider.getApplicationName(), tenantDomain));
+        }
+
+        for (InboundAuthenticationRequestConfig config : getInboundAuthenticationRequestConfigs(serviceProvider)) {
+            if (config.getInboundAuthKey() != null && config.getInboundAuthType() != null) {
+                ServiceProviderByInboundKeyCache.getInstance().clearCacheEntry(
+                        new ServiceProviderByInboundKeyCacheKey(config.getInboundAuthKey(),
+                                config.getInboundAuthType(), tenantDomain));
+            }
+        }
+    }
+
+    private static InboundAuthenticationRequestConfig[] getInboundAuthenticationRequestConfigs(
+            ServiceProvider serviceProvider) {
+
+        InboundAuthenticationConfig inboundAuthConfig = serviceProvider.getInboundAuthenticationConfig();
+        if (inboundAuthConfig == null || inboundAuthConfig.getInboundAuthenticationRequestConfigs() == null) {
+            return new InboundAuthenticationRequestConfig[0];
+        }
+        return inboundAuthConfig.getInboundAuthenticationRequestConfigs();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+
+/**
+ * Secondary index of {@link IdentityServiceProviderCache}, resolving an inbound auth key to the name of the owning
+ * application. Entries are added and invalidated through {@link IdentityServiceProviderCache} only, so that both
+ * indexes are kept in step.
+ */
+public class ServiceProviderByInboundKeyCache extends
+        BaseCache<ServiceProviderByInboundKeyCacheKey, ServiceProviderByInboundKeyCacheEntry> {
+
+    public static final String SP_BY_INBOUND_KEY_CACHE_NAME = "ServiceProviderByInboundKeyCache";
+
+    private static volatile ServiceProviderByInboundKeyCache instance;
+
+    private ServiceProviderByInboundKeyCache() {
+        super(SP_BY_INBOUND_KEY_CACHE_NAME);
+    }
+
+    public static ServiceProviderByInboundKeyCache getInstance() {
+        if (instance == null) {
+            synchronized (ServiceProviderByInboundKeyCache.class) {
+                if (instance == null) {
+                    instance = new ServiceProviderByInboundKeyCache();
+                }
+            }
+        }
+        return instance;
+    }
+}
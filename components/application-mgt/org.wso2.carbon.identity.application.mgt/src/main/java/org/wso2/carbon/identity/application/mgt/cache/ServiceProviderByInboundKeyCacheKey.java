@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2014, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.wso2.carbon.identity.application.common.cache.CacheKey;
+
+/**
+ * Secondary index key of the service provider cache. Identifies an application by one of its inbound
+ * authentication configurations, i.e. the inbound auth type together with the inbound auth key (client id, issuer).
+ */
+public class ServiceProviderByInboundKeyCacheKey extends CacheKey {
+
+    private static final long serialVersionUID = -2977524029670977142L;
+
+    private String inboundAuthType;
+    private String inboundAuthKey;
+
+    /**
+     * @param inboundAuthKey
+     * @param inboundAuthType
+     * @param tenantDomain
+     */
+    public ServiceProviderByInboundKeyCacheKey(String inboundAuthKey, String inboundAuthType, String tenantDomain) {
+        this.inboundAuthKey = inboundAuthKey;
+        this.inboundAuthType = inboundAuthType;
+        this.tenantDomain = tenantDomain.toLowerCase();
+    }
+
+    public String getInboundAuthKey() {
+        return inboundAuthKey;
+    }
+
+    public String getInboundAuthType() {
+        return inboundAuthType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+
+        ServiceProviderByInboundKeyCacheKey that = (ServiceProviderByInboundKeyCacheKey) o;
+
+        if (!inboundAuthKey.equals(that.inboundAuthKey)) return false;
+        if (!inboundAuthType.equals(that.inboundAuthType)) return false;
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = super.hashCode();
+        result = 31 * result + inboundAuthKey.hashCode();
+        result = 31 * result + inboundAuthType.hashCode();
+        return result;
+    }
+}
@@ -42,6 +42,15 @@ public interface ApplicationDAO {
      */
     ServiceProvider getApplication(String applicationName, String tenantDomain) throws IdentityApplicationManagementException;
 
+    /**
+     * Returns all the applications of the given tenant with their complete configurations.
+     *
+     * @param tenantDomain
+     * @return
+     * @throws IdentityApplicationManagementException
+     */
+    ServiceProvider[] getAllApplications(String tenantDomain) throws IdentityApplicationManagementException;
+
     /**
      * @return
      * @throws IdentityApplicationManagementException
@@ -74,12 +74,15 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * This class access the IDN_APPMGT database to store/update and delete application configurations.
@@ -112,37 +115,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         return !standardInboundAuthTypes.contains(authType);
     }
 
-    /**
-     * Get Service provider properties
-     * @param dbConnection database connection
-     * @param SpId SP Id
-     * @return service provider properties
-     */
-    private List<ServiceProviderProperty> getServicePropertiesBySpId(Connection dbConnection, int SpId)
-            throws SQLException {
-
-        String sqlStmt = ApplicationMgtDBQueries.GET_SP_METADATA_BY_SP_ID;
-        PreparedStatement prepStmt = null;
-        ResultSet rs = null;
-        List<ServiceProviderProperty> idpProperties = new ArrayList<ServiceProviderProperty>();
-        try {
-            prepStmt = dbConnection.prepareStatement(sqlStmt);
-            prepStmt.setInt(1, SpId);
-            rs = prepStmt.executeQuery();
-            while (rs.next()) {
-                ServiceProviderProperty property = new ServiceProviderProperty();
-                property.setName(rs.getString("NAME"));
-                property.setValue(rs.getString("VALUE"));
-                property.setDisplayName(rs.getString("DISPLAY_NAME"));
-                idpProperties.add(property);
-            }
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(prepStmt);
-            IdentityApplicationManagementUtil.closeResultSet(rs);
-        }
-        return idpProperties;
-    }
-
     /**
      * Add Service provider properties
      *
@@ -638,98 +610,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         }
     }
 
-    /**
-     * @param applicationId
-     * @param connection
-     * @return
-     * @throws SQLException
-     */
-    private InboundProvisioningConfig getInboundProvisioningConfiguration(int applicationId,
-                                                                          Connection connection, int tenantID) throws SQLException {
-
-        PreparedStatement inboundProConfigPrepStmt = null;
-        InboundProvisioningConfig inBoundProvisioningConfig = new InboundProvisioningConfig();
-        ResultSet resultSet = null;
-
-        try {
-
-            inboundProConfigPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_PRO_PROPERTIES_BY_APP_ID);
-            // PROVISIONING_USERSTORE_DOMAIN
-            inboundProConfigPrepStmt.setInt(1, tenantID);
-            inboundProConfigPrepStmt.setInt(2, applicationId);
-            resultSet = inboundProConfigPrepStmt.executeQuery();
-
-            while (resultSet.next()) {
-                inBoundProvisioningConfig.setProvisioningUserStore(resultSet.getString(1));
-                inBoundProvisioningConfig.setDumbMode("1".equals(resultSet.getString(2)));
-            }
-
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(inboundProConfigPrepStmt);
-        }
-        return inBoundProvisioningConfig;
-    }
-
-    /**
-     * @param applicationId
-     * @param connection
-     * @return
-     * @throws SQLException
-     */
-    private OutboundProvisioningConfig getOutboundProvisioningConfiguration(int applicationId,
-                                                                            Connection connection, int tenantID) throws SQLException {
-
-        PreparedStatement outboundProConfigPrepStmt = null;
-        OutboundProvisioningConfig outBoundProvisioningConfig = new OutboundProvisioningConfig();
-        ResultSet resultSet = null;
-        List<IdentityProvider> idpProConnectors = new ArrayList<IdentityProvider>();
-
-        try {
-
-            outboundProConfigPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_PRO_CONNECTORS_BY_APP_ID);
-            // IDP_NAME, CONNECTOR_NAM
-            outboundProConfigPrepStmt.setInt(1, applicationId);
-            outboundProConfigPrepStmt.setInt(2, tenantID);
-            resultSet = outboundProConfigPrepStmt.executeQuery();
-
-            while (resultSet.next()) {
-                ProvisioningConnectorConfig proConnector = null;
-                IdentityProvider fedIdp = null;
-
-                fedIdp = new IdentityProvider();
-                fedIdp.setIdentityProviderName(resultSet.getString(1));
-
-                proConnector = new ProvisioningConnectorConfig();
-                proConnector.setName(resultSet.getString(2));
-
-                if ("1".equals(resultSet.getString(3))) {
-                    JustInTimeProvisioningConfig jitConfig = new JustInTimeProvisioningConfig();
-                    jitConfig.setProvisioningEnabled(true);
-                    fedIdp.setJustInTimeProvisioningConfig(jitConfig);
-                }
-
-                if ("1".equals(resultSet.getString(4))) {
-                    proConnector.setBlocking(true);
-                } else {
-                    proConnector.setBlocking(false);
-                }
-
-                fedIdp.setDefaultProvisioningConnectorConfig(proConnector);
-                idpProConnectors.add(fedIdp);
-
-            }
-
-            outBoundProvisioningConfig.setProvisioningIdentityProviders(idpProConnectors
-                    .toArray(new IdentityProvider[idpProConnectors.size()]));
-
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(outboundProConfigPrepStmt);
-        }
-        return outBoundProvisioningConfig;
-    }
-
     /**
      * @param applicationId
      * @param localAndOutboundAuthConfig
@@ -1209,42 +1089,74 @@ public class ApplicationDAOImpl implements ApplicationDAO {
 
             applicationId = serviceProvider.getApplicationID();
 
-            serviceProvider.setInboundAuthenticationConfig(getInboundAuthenticationConfig(
-                    applicationId, connection, tenantID));
-            serviceProvider
-                    .setLocalAndOutBoundAuthenticationConfig(getLocalAndOutboundAuthenticationConfig(
-                            applicationId, connection, tenantID));
+            Map<Integer, ServiceProvider> serviceProviders = new HashMap<Integer, ServiceProvider>();
+            serviceProviders.put(applicationId, serviceProvider);
+            loadApplicationConfigs(connection, serviceProviders, ApplicationMgtDBQueries.APP_ID_FILTER,
+                    applicationId, tenantID);
+
+            return serviceProvider;
 
-            serviceProvider.setInboundProvisioningConfig(getInboundProvisioningConfiguration(
-                    applicationId, connection, tenantID));
+        } catch (SQLException e) {
+            throw new IdentityApplicationManagementException("Failed to update service provider "
+                    + applicationId, e);
+        } finally {
+            IdentityApplicationManagementUtil.closeConnection(connection);
+        }
+    }
 
-            serviceProvider.setOutboundProvisioningConfig(getOutboundProvisioningConfiguration(
-                    applicationId, connection, tenantID));
+    /**
+     * Loads all the applications of the given tenant. The applications are read with a fixed number of queries,
+     * regardless of how many applications the tenant has.
+     *
+     * @param tenantDomain
+     * @return
+     * @throws IdentityApplicationManagementException
+     */
+    @Override
+    public ServiceProvider[] getAllApplications(String tenantDomain)
+            throws IdentityApplicationManagementException {
 
-            // Load Claim Mapping
-            serviceProvider.setClaimConfig(getClaimConfiguration(applicationId, connection,
-                    tenantID));
+        int tenantID = MultitenantConstants.SUPER_TENANT_ID;
+        if (tenantDomain != null) {
+            try {
+                tenantID = ApplicationManagementServiceComponentHolder.getInstance().getRealmService()
+                        .getTenantManager().getTenantId(tenantDomain);
+            } catch (UserStoreException e1) {
+                log.error("Error in reading applications", e1);
+                throw new IdentityApplicationManagementException("Error while reading applications", e1);
+            }
+        }
 
-            // Load Role Mappings
-            List<RoleMapping> roleMappings = getRoleMappingOfApplication(applicationId, connection,
-                    tenantID);
-            PermissionsAndRoleConfig permissionAndRoleConfig = new PermissionsAndRoleConfig();
-            permissionAndRoleConfig.setRoleMappings(roleMappings
-                    .toArray(new RoleMapping[roleMappings.size()]));
-            serviceProvider.setPermissionAndRoleConfig(permissionAndRoleConfig);
+        if (log.isDebugEnabled()) {
+            log.debug("Loading all Applications of Tenant " + tenantID);
+        }
 
-            RequestPathAuthenticatorConfig[] requestPathAuthenticators = getRequestPathAuthenticators(
-                    applicationId, connection, tenantID);
-            serviceProvider.setRequestPathAuthenticatorConfigs(requestPathAuthenticators);
+        Map<Integer, ServiceProvider> serviceProviders = new LinkedHashMap<Integer, ServiceProvider>();
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            PreparedStatement loadBasicAppInfoStmt = null;
+            ResultSet basicAppDataResultSet = null;
+            try {
+                loadBasicAppInfoStmt = prepareLoadStatement(connection, ApplicationMgtDBQueries.LOAD_BASIC_APP_INFO,
+                        ApplicationMgtDBQueries.TENANT_APPS_FILTER, tenantID);
+                basicAppDataResultSet = loadBasicAppInfoStmt.executeQuery();
 
-            List<ServiceProviderProperty> propertyList = getServicePropertiesBySpId(connection, applicationId);
-            serviceProvider.setSpProperties(propertyList.toArray(new ServiceProviderProperty[propertyList.size()]));
+                while (basicAppDataResultSet.next()) {
+                    ServiceProvider serviceProvider = buildServiceProvider(basicAppDataResultSet);
+                    serviceProviders.put(serviceProvider.getApplicationID(), serviceProvider);
+                }
+            } finally {
+                IdentityApplicationManagementUtil.closeResultSet(basicAppDataResultSet);
+                IdentityApplicationManagementUtil.closeStatement(loadBasicAppInfoStmt);
+            }
 
-            return serviceProvider;
+            loadApplicationConfigs(connection, serviceProviders, ApplicationMgtDBQueries.TENANT_APPS_FILTER,
+                    tenantID);
 
+            return serviceProviders.values().toArray(new ServiceProvider[serviceProviders.size()]);
         } catch (SQLException e) {
-            throw new IdentityApplicationManagementException("Failed to update service provider "
-                    + applicationId, e);
+            throw new IdentityApplicationManagementException("Error while reading applications of tenant "
+                    + tenantDomain, e);
         } finally {
             IdentityApplicationManagementUtil.closeConnection(connection);
         }
@@ -1275,58 +1187,8 @@ public class ApplicationDAOImpl implements ApplicationDAO {
             loadBasicAppInfoStmt.setString(1, applicationName);
             loadBasicAppInfoStmt.setInt(2, tenantID);
             basicAppDataResultSet = loadBasicAppInfoStmt.executeQuery();
-            // ID, TENANT_ID, APP_NAME, USER_STORE, USERNAME, DESCRIPTION, ROLE_CLAIM, AUTH_TYPE,
-            // PROVISIONING_USERSTORE_DOMAIN, IS_LOCAL_CLAIM_DIALECT, IS_SEND_LOCAL_SUBJECT_ID,
-            // IS_SEND_AUTH_LIST_OF_IDPS, SUBJECT_CLAIM_URI, IS_SAAS_APP
-
             if (basicAppDataResultSet.next()) {
-                serviceProvider = new ServiceProvider();
-                serviceProvider.setApplicationID(basicAppDataResultSet.getInt(1));
-                serviceProvider.setApplicationName(basicAppDataResultSet.getString(3));
-                serviceProvider.setDescription(basicAppDataResultSet.getString(6));
-
-                String tenantDomain;
-                try {
-                    tenantDomain = ApplicationManagementServiceComponentHolder.getInstance().getRealmService()
-                            .getTenantManager()
-                            .getDomain(
-                                    basicAppDataResultSet.getInt(2));
-                } catch (UserStoreException e) {
-                    log.error("Error while reading tenantDomain", e);
-                    throw new IdentityApplicationManagementException("Error while reading tenant " +
-                            "domain for application " +
-                            applicationName);
-                }
-
-                User owner = new User();
-                owner.setUserName(basicAppDataResultSet.getString(5));
-                owner.setTenantDomain(tenantDomain);
-                owner.setUserStoreDomain(basicAppDataResultSet.getString(4));
-                serviceProvider.setOwner(owner);
-
-                ClaimConfig claimConfig = new ClaimConfig();
-                claimConfig.setRoleClaimURI(basicAppDataResultSet.getString(7));
-                claimConfig.setLocalClaimDialect("1".equals(basicAppDataResultSet.getString(10)));
-                claimConfig.setAlwaysSendMappedLocalSubjectId("1".equals(basicAppDataResultSet
-                        .getString(11)));
-                serviceProvider.setClaimConfig(claimConfig);
-
-                LocalAndOutboundAuthenticationConfig localAndOutboundAuthenticationConfig = new LocalAndOutboundAuthenticationConfig();
-                localAndOutboundAuthenticationConfig.setAlwaysSendBackAuthenticatedListOfIdPs("1"
-                        .equals(basicAppDataResultSet.getString(12)));
-                localAndOutboundAuthenticationConfig.setSubjectClaimUri(basicAppDataResultSet
-                        .getString(15));
-                serviceProvider
-                        .setLocalAndOutBoundAuthenticationConfig(localAndOutboundAuthenticationConfig);
-
-                serviceProvider.setSaasApp("1".equals(basicAppDataResultSet.getString(16)));
-
-                if (log.isDebugEnabled()) {
-                    log.debug("ApplicationID: " + serviceProvider.getApplicationID()
-                            + " ApplicationName: " + serviceProvider.getApplicationName()
-                            + " UserName: " + serviceProvider.getOwner().getUserName()
-                            + " TenantDomain: " + serviceProvider.getOwner().getTenantDomain());
-                }
+                serviceProvider = buildServiceProvider(basicAppDataResultSet);
             }
 
             return serviceProvider;
@@ -1338,236 +1200,188 @@ public class ApplicationDAOImpl implements ApplicationDAO {
     }
 
     /**
-     * @param applicationid
-     * @param connection
+     * Builds a service provider out of a row of {@link ApplicationMgtDBQueries#LOAD_BASIC_APP_INFO}, with the
+     * configurations kept in SP_APP itself. The remaining configurations are left empty, to be filled by
+     * {@link #loadApplicationConfigs(Connection, Map, String, int...)}.
+     *
+     * @param basicAppDataResultSet
      * @return
      * @throws SQLException
+     * @throws IdentityApplicationManagementException
      */
-    private String getAuthenticationType(int applicationid, Connection connection)
-            throws SQLException {
+    private ServiceProvider buildServiceProvider(ResultSet basicAppDataResultSet)
+            throws SQLException, IdentityApplicationManagementException {
 
-        int tenantID = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        // ID, TENANT_ID, APP_NAME, USER_STORE, USERNAME, DESCRIPTION, ROLE_CLAIM, AUTH_TYPE,
+        // PROVISIONING_USERSTORE_DOMAIN, IS_LOCAL_CLAIM_DIALECT, IS_SEND_LOCAL_SUBJECT_ID,
+        // IS_SEND_AUTH_LIST_OF_IDPS, IS_USE_TENANT_DOMAIN_SUBJECT, IS_USE_USER_DOMAIN_SUBJECT,
+        // SUBJECT_CLAIM_URI, IS_SAAS_APP, IS_DUMB_MODE
+        ServiceProvider serviceProvider = new ServiceProvider();
+        serviceProvider.setApplicationID(basicAppDataResultSet.getInt(1));
+        serviceProvider.setApplicationName(basicAppDataResultSet.getString(3));
+        serviceProvider.setDescription(basicAppDataResultSet.getString(6));
 
-        PreparedStatement authTypeStmt = null;
-        ResultSet authTypeResultSet = null;
+        String tenantDomain;
         try {
-            authTypeStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_AUTH_TYPE_BY_APP_ID);
-            authTypeStmt.setInt(1, applicationid);
-            authTypeStmt.setInt(2, tenantID);
-            authTypeResultSet = authTypeStmt.executeQuery();
-
-            if (authTypeResultSet.next()) {
-                return authTypeResultSet.getString(1);
-            }
+            tenantDomain = ApplicationManagementServiceComponentHolder.getInstance().getRealmService()
+                    .getTenantManager()
+                    .getDomain(
+                            basicAppDataResultSet.getInt(2));
+        } catch (UserStoreException e) {
+            log.error("Error while reading tenantDomain", e);
+            throw new IdentityApplicationManagementException("Error while reading tenant " +
+                    "domain for application " +
+                    serviceProvider.getApplicationName());
+        }
+
+        User owner = new User();
+        owner.setUserName(basicAppDataResultSet.getString(5));
+        owner.setTenantDomain(tenantDomain);
+        owner.setUserStoreDomain(basicAppDataResultSet.getString(4));
+        serviceProvider.setOwner(owner);
 
-            return ApplicationConstants.AUTH_TYPE_DEFAULT;
+        ClaimConfig claimConfig = new ClaimConfig();
+        claimConfig.setRoleClaimURI(basicAppDataResultSet.getString(7));
+        claimConfig.setLocalClaimDialect("1".equals(basicAppDataResultSet.getString(10)));
+        claimConfig.setAlwaysSendMappedLocalSubjectId("1".equals(basicAppDataResultSet
+                .getString(11)));
+        claimConfig.setClaimMappings(new ClaimMapping[0]);
+        serviceProvider.setClaimConfig(claimConfig);
+
+        LocalAndOutboundAuthenticationConfig localAndOutboundAuthenticationConfig = new LocalAndOutboundAuthenticationConfig();
+        localAndOutboundAuthenticationConfig.setAuthenticationType(basicAppDataResultSet.getString(8));
+        localAndOutboundAuthenticationConfig.setAlwaysSendBackAuthenticatedListOfIdPs("1"
+                .equals(basicAppDataResultSet.getString(12)));
+        localAndOutboundAuthenticationConfig.setUseTenantDomainInLocalSubjectIdentifier("1"
+                .equals(basicAppDataResultSet.getString(13)));
+        localAndOutboundAuthenticationConfig.setUseUserstoreDomainInLocalSubjectIdentifier("1"
+                .equals(basicAppDataResultSet.getString(14)));
+        localAndOutboundAuthenticationConfig.setSubjectClaimUri(basicAppDataResultSet
+                .getString(15));
+        localAndOutboundAuthenticationConfig.setAuthenticationSteps(new AuthenticationStep[0]);
+        serviceProvider
+                .setLocalAndOutBoundAuthenticationConfig(localAndOutboundAuthenticationConfig);
 
-        } finally {
-            IdentityApplicationManagementUtil.closeResultSet(authTypeResultSet);
-            IdentityApplicationManagementUtil.closeStatement(authTypeStmt);
+        InboundProvisioningConfig inBoundProvisioningConfig = new InboundProvisioningConfig();
+        inBoundProvisioningConfig.setProvisioningUserStore(basicAppDataResultSet.getString(9));
+        inBoundProvisioningConfig.setDumbMode("1".equals(basicAppDataResultSet.getString(17)));
+        serviceProvider.setInboundProvisioningConfig(inBoundProvisioningConfig);
+
+        OutboundProvisioningConfig outBoundProvisioningConfig = new OutboundProvisioningConfig();
+        outBoundProvisioningConfig.setProvisioningIdentityProviders(new IdentityProvider[0]);
+        serviceProvider.setOutboundProvisioningConfig(outBoundProvisioningConfig);
+
+        PermissionsAndRoleConfig permissionAndRoleConfig = new PermissionsAndRoleConfig();
+        permissionAndRoleConfig.setRoleMappings(new RoleMapping[0]);
+        serviceProvider.setPermissionAndRoleConfig(permissionAndRoleConfig);
+
+        serviceProvider.setRequestPathAuthenticatorConfigs(new RequestPathAuthenticatorConfig[0]);
+        serviceProvider.setSpProperties(new ServiceProviderProperty[0]);
+        serviceProvider.setSaasApp("1".equals(basicAppDataResultSet.getString(16)));
+
+        if (log.isDebugEnabled()) {
+            log.debug("ApplicationID: " + serviceProvider.getApplicationID()
+                    + " ApplicationName: " + serviceProvider.getApplicationName()
+                    + " UserName: " + serviceProvider.getOwner().getUserName()
+                    + " TenantDomain: " + serviceProvider.getOwner().getTenantDomain());
         }
 
+        return serviceProvider;
     }
 
     /**
-     * This method will be heavily used by the Authentication Framework. The framework would ask for
-     * application data with the given client key and secrete
+     * Loads the configurations of the given service providers. Each kind of configuration is read with a single
+     * query covering all the service providers, so the number of queries does not grow with the number of
+     * applications.
      *
-     * @param clientId
-     * @param type
-     * @param tenantDomain
-     * @return
-     * @throws IdentityApplicationManagementException
+     * @param connection
+     * @param serviceProviders service providers built by {@link #buildServiceProvider(ResultSet)}, by application ID
+     * @param appFilter        one of the application filters of {@link ApplicationMgtDBQueries}
+     * @param filterParams     parameters of the application filter
+     * @throws SQLException
      */
-    public ServiceProvider getApplicationData(String clientId, String type, String tenantDomain)
-            throws IdentityApplicationManagementException {
-
-        if (log.isDebugEnabled()) {
-            log.debug("Loading Application Data of Client " + clientId);
-        }
-
-        int tenantID = -123;
+    private void loadApplicationConfigs(Connection connection, Map<Integer, ServiceProvider> serviceProviders,
+                                        String appFilter, int... filterParams) throws SQLException {
 
-        try {
-            tenantID = ApplicationManagementServiceComponentHolder.getInstance().getRealmService()
-                    .getTenantManager().getTenantId(tenantDomain);
-        } catch (UserStoreException e1) {
-            log.error("Error while reading application", e1);
-            throw new IdentityApplicationManagementException("Error while reading application", e1);
+        if (serviceProviders.isEmpty()) {
+            return;
         }
 
-        String applicationName = null;
-
-        // Reading application name from the database
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
-        PreparedStatement storeAppPrepStmt = null;
-        ResultSet appNameResult = null;
-        try {
-            storeAppPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_APPLICATION_NAME_BY_CLIENT_ID_AND_TYPE);
-            storeAppPrepStmt.setString(1, clientId);
-            storeAppPrepStmt.setString(2, type);
-            storeAppPrepStmt.setInt(3, tenantID);
-            appNameResult = storeAppPrepStmt.executeQuery();
-            connection.commit();
-            if (appNameResult.next()) {
-                applicationName = appNameResult.getString(1);
-            }
-
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException("Error while reading application", e);
-        } finally {
-            IdentityApplicationManagementUtil.closeResultSet(appNameResult);
-            IdentityApplicationManagementUtil.closeStatement(storeAppPrepStmt);
-            IdentityApplicationManagementUtil.closeConnection(connection);
+        Map<Integer, InboundAuthenticationConfig> inboundAuthConfigs = loadInboundAuthenticationConfigs(connection,
+                serviceProviders.keySet(), appFilter, filterParams);
+        for (Entry<Integer, ServiceProvider> entry : serviceProviders.entrySet()) {
+            entry.getValue().setInboundAuthenticationConfig(inboundAuthConfigs.get(entry.getKey()));
         }
 
-        return getApplication(applicationName, tenantDomain);
+        loadAuthenticationSteps(connection, serviceProviders, appFilter, filterParams);
+        loadClaimMappings(connection, serviceProviders, appFilter, filterParams);
+        loadRoleMappings(connection, serviceProviders, appFilter, filterParams);
+        loadRequestPathAuthenticators(connection, serviceProviders, appFilter, filterParams);
+        loadOutboundProvisioningConnectors(connection, serviceProviders, appFilter, filterParams);
+        loadServiceProviderProperties(connection, serviceProviders, appFilter, filterParams);
     }
 
-    /**
-     * @param applicationID
-     * @return
-     * @throws IdentityApplicationManagementException
-     */
-    @Override
-    public String getApplicationName(int applicationID)
-            throws IdentityApplicationManagementException {
-        Connection connection = IdentityDatabaseUtil.getDBConnection();
-        try {
-            return getApplicationName(applicationID, connection);
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException("Failed loading the application with "
-                    + applicationID, e);
-        } finally {
-            IdentityApplicationManagementUtil.closeConnection(connection);
+    private PreparedStatement prepareLoadStatement(Connection connection, String sqlStmt, String appFilter,
+                                                   int... params) throws SQLException {
+
+        PreparedStatement prepStmt = connection.prepareStatement(sqlStmt + appFilter);
+        for (int i = 0; i < params.length; i++) {
+            prepStmt.setInt(i + 1, params[i]);
         }
+        return prepStmt;
     }
 
     /**
-     * Reads back the basic application data
-     *
-     * @param applicationID
      * @param connection
-     * @return
-     * @throws IdentityApplicationManagementException
+     * @param applicationIds
+     * @param appFilter
+     * @param filterParams
+     * @return inbound authentication configuration of each of the given applications
+     * @throws SQLException
      */
-    private String getApplicationName(int applicationID, Connection connection) throws SQLException {
+    private Map<Integer, InboundAuthenticationConfig> loadInboundAuthenticationConfigs(
+            Connection connection, Set<Integer> applicationIds, String appFilter, int... filterParams)
+            throws SQLException {
 
-        int tenantID = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Map<Integer, Map<String, InboundAuthenticationRequestConfig>> appAuthRequests =
+                new HashMap<Integer, Map<String, InboundAuthenticationRequestConfig>>();
+        Map<Integer, Map<String, List<String>>> appCustomAuthenticators =
+                new HashMap<Integer, Map<String, List<String>>>();
+        for (Integer applicationId : applicationIds) {
+            appAuthRequests.put(applicationId, new HashMap<String, InboundAuthenticationRequestConfig>());
+            appCustomAuthenticators.put(applicationId, new HashMap<String, List<String>>());
+        }
 
         if (log.isDebugEnabled()) {
-            log.debug("Loading Application Name for ID: " + applicationID);
+            log.debug("Reading Clients of Applications " + applicationIds);
         }
 
-        PreparedStatement loadBasicAppInfoStmt = null;
-        ResultSet appNameResultSet = null;
-        String applicationName = null;
+        PreparedStatement getClientInfo = null;
+        ResultSet resultSet = null;
 
         try {
-            loadBasicAppInfoStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_APP_NAME_BY_APP_ID);
-            loadBasicAppInfoStmt.setInt(1, applicationID);
-            loadBasicAppInfoStmt.setInt(2, tenantID);
-            appNameResultSet = loadBasicAppInfoStmt.executeQuery();
 
-            if (appNameResultSet.next()) {
-                applicationName = appNameResultSet.getString(1);
-            }
+            // APP_ID, INBOUND_AUTH_KEY, INBOUND_AUTH_TYPE, PROP_NAME, PROP_VALUE
+            getClientInfo = prepareLoadStatement(connection, ApplicationMgtDBQueries.LOAD_CLIENTS_INFO, appFilter,
+                    filterParams);
+            resultSet = getClientInfo.executeQuery();
 
-            if (log.isDebugEnabled()) {
-                log.debug("ApplicationName : " + applicationName);
-            }
-            return applicationName;
+            while (resultSet.next()) {
 
-        } finally {
-            IdentityApplicationManagementUtil.closeResultSet(appNameResultSet);
-            IdentityApplicationManagementUtil.closeStatement(loadBasicAppInfoStmt);
-        }
-    }
-
-    /**
-     * Returns the application ID for a given application name
-     *
-     * @param applicationName
-     * @param tenantID
-     * @param connection
-     * @return
-     * @throws IdentityApplicationManagementException
-     */
-    private int getApplicationIDByName(String applicationName, int tenantID, Connection connection)
-            throws IdentityApplicationManagementException {
-
-        int applicationId = 0;
-        PreparedStatement getAppIDPrepStmt = null;
-        ResultSet appidResult = null;
-
-        try {
-            getAppIDPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_APP_ID_BY_APP_NAME);
-            getAppIDPrepStmt.setString(1, applicationName);
-            getAppIDPrepStmt.setInt(2, tenantID);
-            appidResult = getAppIDPrepStmt.executeQuery();
-
-            if (!connection.getAutoCommit()) {
-                connection.commit();
-            }
-
-            if (appidResult.next()) {
-                applicationId = appidResult.getInt(1);
-            }
-
-        } catch (SQLException e) {
-            IdentityApplicationManagementUtil.closeConnection(connection);
-            log.error("Error in storing the application", e);
-            throw new IdentityApplicationManagementException("Error while storing application", e);
-        } finally {
-            IdentityApplicationManagementUtil.closeResultSet(appidResult);
-            IdentityApplicationManagementUtil.closeStatement(getAppIDPrepStmt);
-        }
-
-        return applicationId;
-    }
-
-    /**
-     * @param applicationId
-     * @param connection
-     * @return
-     * @throws SQLException
-     */
-    private InboundAuthenticationConfig getInboundAuthenticationConfig(int applicationId,
-                                                                       Connection connection, int tenantID) throws SQLException {
-
-        Map<String, InboundAuthenticationRequestConfig> authRequestMap = new HashMap<String, InboundAuthenticationRequestConfig>();
-
-        if (log.isDebugEnabled()) {
-            log.debug("Reading Clients of Application " + applicationId);
-        }
-
-        PreparedStatement getClientInfo = null;
-        ResultSet resultSet = null;
-        Map<String, List<String>> customAuthenticatorsAlreadyIn = new HashMap<String, List<String>>();
-
-        try {
-
-            // INBOUND_AUTH_KEY, INBOUND_AUTH_TYPE, PROP_NAME, PROP_VALUE
-            getClientInfo = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_CLIENTS_INFO_BY_APP_ID);
-
-            getClientInfo.setInt(1, applicationId);
-            getClientInfo.setInt(2, tenantID);
-            resultSet = getClientInfo.executeQuery();
-
-            while (resultSet.next()) {
+                int applicationId = resultSet.getInt(1);
+                Map<String, InboundAuthenticationRequestConfig> authRequestMap = appAuthRequests.get(applicationId);
+                if (authRequestMap == null) {
+                    continue;
+                }
+                Map<String, List<String>> customAuthenticatorsAlreadyIn = appCustomAuthenticators.get(applicationId);
 
                 InboundAuthenticationRequestConfig inbountAuthRequest = null;
-                String authKey = resultSet.getString(1);
+                String authKey = resultSet.getString(2);
                 //this is done to handle empty string added to oracle database as null.
                 if (authKey == null){
                     authKey = "";
                 }
-                String authType = resultSet.getString(2);
+                String authType = resultSet.getString(3);
                 String mapKey = authType + ":" + authKey;
                 boolean isCustomAuthenticator = isCustomInboundAuthType(authType);
 
@@ -1581,12 +1395,12 @@ public class ApplicationDAOImpl implements ApplicationDAO {
 
                 inbountAuthRequest = authRequestMap.get(mapKey);
 
-                String propName = resultSet.getString(3);
+                String propName = resultSet.getString(4);
 
                 if (propName != null) {
                     Property prop = new Property();
                     prop.setName(propName);
-                    prop.setValue(resultSet.getString(4));
+                    prop.setValue(resultSet.getString(5));
 
                     if (isCustomAuthenticator) {
                         AbstractInboundAuthenticatorConfig customAuthenticator = ApplicationManagementServiceComponentHolder
@@ -1625,6 +1439,25 @@ public class ApplicationDAOImpl implements ApplicationDAO {
             IdentityApplicationManagementUtil.closeResultSet(resultSet);
         }
 
+        Map<Integer, InboundAuthenticationConfig> inboundAuthConfigs = new HashMap<Integer, InboundAuthenticationConfig>();
+        for (Integer applicationId : applicationIds) {
+            inboundAuthConfigs.put(applicationId, buildInboundAuthenticationConfig(appAuthRequests.get(applicationId),
+                    appCustomAuthenticators.get(applicationId)));
+        }
+        return inboundAuthConfigs;
+    }
+
+    /**
+     * Adds the custom inbound authenticators to the inbound authentication requests read for an application.
+     *
+     * @param authRequestMap                inbound authentication requests read, by type and key
+     * @param customAuthenticatorsAlreadyIn names of the properties read, by custom authenticator
+     * @return
+     */
+    private InboundAuthenticationConfig buildInboundAuthenticationConfig(
+            Map<String, InboundAuthenticationRequestConfig> authRequestMap,
+            Map<String, List<String>> customAuthenticatorsAlreadyIn) {
+
         Map<String, AbstractInboundAuthenticatorConfig> allCustomAuthenticators = ApplicationManagementServiceComponentHolder
                 .getAllInboundAuthenticatorConfig();
 
@@ -1661,97 +1494,113 @@ public class ApplicationDAOImpl implements ApplicationDAO {
     }
 
     /**
-     * @param applicationId
+     * Loads the authentication steps of the given service providers, together with the names of the step
+     * authenticators and their identity providers.
+     *
      * @param connection
-     * @return
+     * @param serviceProviders
+     * @param appFilter
+     * @param filterParams
      * @throws SQLException
      */
-    private LocalAndOutboundAuthenticationConfig getLocalAndOutboundAuthenticationConfig(
-            int applicationId, Connection connection, int tenantId) throws SQLException {
+    private void loadAuthenticationSteps(Connection connection, Map<Integer, ServiceProvider> serviceProviders,
+                                         String appFilter, int... filterParams) throws SQLException {
+
+        // shared identity providers of the super tenant are matched ahead of the application filter
+        int[] params = new int[filterParams.length + 2];
+        params[0] = MultitenantConstants.SUPER_TENANT_ID;
+        params[1] = MultitenantConstants.SUPER_TENANT_ID;
+        System.arraycopy(filterParams, 0, params, 2, filterParams.length);
+
+        // steps are keyed by <application ID>:<step order> and identity providers by <application ID>:<IdP name>
+        Map<Integer, List<String>> appSteps = new HashMap<Integer, List<String>>();
+        Map<String, AuthenticationStep> authSteps = new HashMap<String, AuthenticationStep>();
+        Map<String, Map<String, List<FederatedAuthenticatorConfig>>> stepFedIdPAuthenticators = new HashMap<String, Map<String, List<FederatedAuthenticatorConfig>>>();
+        Map<String, List<LocalAuthenticatorConfig>> stepLocalAuth = new HashMap<String, List<LocalAuthenticatorConfig>>();
+        Map<String, Boolean> federationHubIdPs = new HashMap<String, Boolean>();
+
         PreparedStatement getStepInfoPrepStmt = null;
         ResultSet stepInfoResultSet = null;
 
-        if (log.isDebugEnabled()) {
-            log.debug("Reading Steps of Application " + applicationId);
-        }
-
         try {
-            getStepInfoPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_STEPS_INFO_BY_APP_ID);
-            // STEP_ORDER, AUTHENTICATOR_ID, IS_SUBJECT_STEP, IS_ATTRIBUTE_STEP
-            getStepInfoPrepStmt.setInt(1, applicationId);
+            // APP_ID, STEP_ORDER, IS_SUBJECT_STEP, IS_ATTRIBUTE_STEP, IDP_NAME, AUTHENTICATOR_NAME,
+            // AUTHENTICATOR_DISPLAY_NAME, IS_FEDERATION_HUB, IDP_TENANT_ID, APP_TENANT_ID
+            getStepInfoPrepStmt = prepareLoadStatement(connection, ApplicationMgtDBQueries.LOAD_STEPS_INFO,
+                    appFilter, params);
             stepInfoResultSet = getStepInfoPrepStmt.executeQuery();
 
-            Map<String, AuthenticationStep> authSteps = new HashMap<String, AuthenticationStep>();
-            Map<String, Map<String, List<FederatedAuthenticatorConfig>>> stepFedIdPAuthenticators = new HashMap<String, Map<String, List<FederatedAuthenticatorConfig>>>();
-            Map<String, List<LocalAuthenticatorConfig>> stepLocalAuth = new HashMap<String, List<LocalAuthenticatorConfig>>();
-
             while (stepInfoResultSet.next()) {
 
-                String step = String.valueOf(stepInfoResultSet.getInt(1));
-                AuthenticationStep authStep;
+                int applicationId = stepInfoResultSet.getInt(1);
+                if (!serviceProviders.containsKey(applicationId)) {
+                    continue;
+                }
 
-                if (authSteps.containsKey(step)) {
-                    authStep = authSteps.get(step);
-                } else {
+                String step = applicationId + ":" + stepInfoResultSet.getInt(2);
+                AuthenticationStep authStep = authSteps.get(step);
+
+                if (authStep == null) {
                     authStep = new AuthenticationStep();
-                    authStep.setStepOrder(stepInfoResultSet.getInt(1));
+                    authStep.setStepOrder(stepInfoResultSet.getInt(2));
+                    authSteps.put(step, authStep);
                     stepLocalAuth.put(step, new ArrayList<LocalAuthenticatorConfig>());
                     stepFedIdPAuthenticators.put(step,
                             new HashMap<String, List<FederatedAuthenticatorConfig>>());
+
+                    if (!appSteps.containsKey(applicationId)) {
+                        appSteps.put(applicationId, new ArrayList<String>());
+                    }
+                    appSteps.get(applicationId).add(step);
                 }
 
-                int authenticatorId = stepInfoResultSet.getInt(2);
-                Map<String, String> authenticatorInfo = getAuthenticatorInfo(connection, tenantId,
-                        authenticatorId);
+                String idpName = stepInfoResultSet.getString(5);
 
-                if (authenticatorInfo != null
-                        && authenticatorInfo.get(ApplicationConstants.IDP_NAME) != null
-                        && ApplicationConstants.LOCAL_IDP_NAME.equals(authenticatorInfo
-                        .get("idpName"))) {
+                if (ApplicationConstants.LOCAL_IDP_NAME.equals(idpName)) {
                     LocalAuthenticatorConfig localAuthenticator = new LocalAuthenticatorConfig();
-                    localAuthenticator.setName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_NAME));
-                    localAuthenticator.setDisplayName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME));
+                    localAuthenticator.setName(stepInfoResultSet.getString(6));
+                    localAuthenticator.setDisplayName(stepInfoResultSet.getString(7));
                     stepLocalAuth.get(step).add(localAuthenticator);
                 } else {
                     Map<String, List<FederatedAuthenticatorConfig>> stepFedIdps = stepFedIdPAuthenticators
                             .get(step);
 
-                    if (!stepFedIdps.containsKey(authenticatorInfo
-                            .get(ApplicationConstants.IDP_NAME))) {
-                        stepFedIdps.put(authenticatorInfo.get(ApplicationConstants.IDP_NAME),
-                                new ArrayList<FederatedAuthenticatorConfig>());
+                    if (!stepFedIdps.containsKey(idpName)) {
+                        stepFedIdps.put(idpName, new ArrayList<FederatedAuthenticatorConfig>());
                     }
 
-                    List<FederatedAuthenticatorConfig> idpAuths = stepFedIdps.get(authenticatorInfo
-                            .get(ApplicationConstants.IDP_NAME));
                     FederatedAuthenticatorConfig fedAuthenticator = new FederatedAuthenticatorConfig();
-                    fedAuthenticator.setName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_NAME));
-                    fedAuthenticator.setDisplayName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME));
-                    idpAuths.add(fedAuthenticator);
+                    fedAuthenticator.setName(stepInfoResultSet.getString(6));
+                    fedAuthenticator.setDisplayName(stepInfoResultSet.getString(7));
+                    stepFedIdps.get(idpName).add(fedAuthenticator);
+
+                    // only an identity provider of the application's own tenant can be a federation hub
+                    federationHubIdPs.put(applicationId + ":" + idpName,
+                            "1".equals(stepInfoResultSet.getString(8)) &&
+                            stepInfoResultSet.getInt(9) == stepInfoResultSet.getInt(10));
                 }
 
                 authStep.setSubjectStep("1".equals(stepInfoResultSet.getString(3)));
                 authStep.setAttributeStep("1".equals(stepInfoResultSet.getString(4)));
-
-                authSteps.put(step, authStep);
             }
+        } finally {
+            IdentityApplicationManagementUtil.closeStatement(getStepInfoPrepStmt);
+            IdentityApplicationManagementUtil.closeResultSet(stepInfoResultSet);
+        }
 
-            LocalAndOutboundAuthenticationConfig localAndOutboundConfiguration
-                    = new LocalAndOutboundAuthenticationConfig();
+        Comparator<AuthenticationStep> comparator = new Comparator<AuthenticationStep>() {
+            public int compare(AuthenticationStep step1, AuthenticationStep step2) {
+                return step1.getStepOrder() - step2.getStepOrder();
+            }
+        };
 
-            AuthenticationStep[] authenticationSteps = new AuthenticationStep[authSteps.size()];
+        for (Entry<Integer, List<String>> appEntry : appSteps.entrySet()) {
 
+            AuthenticationStep[] authenticationSteps = new AuthenticationStep[appEntry.getValue().size()];
             int authStepCount = 0;
 
-            for (Entry<String, AuthenticationStep> entry : authSteps.entrySet()) {
+            for (String stepId : appEntry.getValue()) {
 
-                AuthenticationStep authStep = entry.getValue();
-                String stepId = entry.getKey();
+                AuthenticationStep authStep = authSteps.get(stepId);
 
                 List<LocalAuthenticatorConfig> localAuthenticatorList = stepLocalAuth.get(stepId);
 
@@ -1773,7 +1622,8 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                         List<FederatedAuthenticatorConfig> fedAuthenticators = idpEntry.getValue();
                         IdentityProvider idp = new IdentityProvider();
                         idp.setIdentityProviderName(idpName);
-                        idp.setFederationHub(isFederationHubIdP(idpName, connection, tenantId));
+                        idp.setFederationHub(Boolean.TRUE.equals(
+                                federationHubIdPs.get(appEntry.getKey() + ":" + idpName)));
                         idp.setFederatedAuthenticatorConfigs(
                                 fedAuthenticators.toArray(new FederatedAuthenticatorConfig[fedAuthenticators.size()]));
                         idp.setDefaultAuthenticatorConfig(idp.getFederatedAuthenticatorConfigs()[0]);
@@ -1785,110 +1635,47 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                 authenticationSteps[authStepCount++] = authStep;
             }
 
-            Comparator<AuthenticationStep> comparator = new Comparator<AuthenticationStep>() {
-                public int compare(AuthenticationStep step1, AuthenticationStep step2) {
-                    return step1.getStepOrder() - step2.getStepOrder();
-                }
-            };
-
             Arrays.sort(authenticationSteps, comparator);
 
-            localAndOutboundConfiguration.setAuthenticationSteps(authenticationSteps);
-
-            String authType = getAuthenticationType(applicationId, connection);
-            localAndOutboundConfiguration.setAuthenticationType(authType);
-
-            PreparedStatement localAndOutboundConfigPrepStmt = null;
-            ResultSet localAndOutboundConfigResultSet = null;
-
-            try {
-                localAndOutboundConfigPrepStmt = connection
-                        .prepareStatement(ApplicationMgtDBQueries.LOAD_LOCAL_AND_OUTBOUND_CONFIG_BY_APP_ID);
-                localAndOutboundConfigPrepStmt.setInt(1, tenantId);
-                localAndOutboundConfigPrepStmt.setInt(2, applicationId);
-                localAndOutboundConfigResultSet = localAndOutboundConfigPrepStmt.executeQuery();
-
-                if (localAndOutboundConfigResultSet.next()) {
-                    localAndOutboundConfiguration.setUseTenantDomainInLocalSubjectIdentifier("1"
-                           .equals(localAndOutboundConfigResultSet.getString(1)));
-                    localAndOutboundConfiguration.setUseUserstoreDomainInLocalSubjectIdentifier("1"
-                           .equals(localAndOutboundConfigResultSet.getString(2)));
-                    localAndOutboundConfiguration.setAlwaysSendBackAuthenticatedListOfIdPs("1"
-                           .equals(localAndOutboundConfigResultSet.getString(3)));
-                    localAndOutboundConfiguration.setSubjectClaimUri(localAndOutboundConfigResultSet
-                           .getString(4));
-                }
-            } finally {
-                IdentityApplicationManagementUtil.closeStatement(localAndOutboundConfigPrepStmt);
-                IdentityApplicationManagementUtil.closeResultSet(localAndOutboundConfigResultSet);
-            }
-
-            return localAndOutboundConfiguration;
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(getStepInfoPrepStmt);
-            IdentityApplicationManagementUtil.closeResultSet(stepInfoResultSet);
+            serviceProviders.get(appEntry.getKey()).getLocalAndOutBoundAuthenticationConfig()
+                    .setAuthenticationSteps(authenticationSteps);
         }
     }
 
-    private boolean isFederationHubIdP(String idPName, Connection connection, int tenantId)
-            throws SQLException {
-
-        PreparedStatement get = null;
-        ResultSet resultSet = null;
-
-        try {
-            get = connection.prepareStatement(ApplicationMgtDBQueries.LOAD_HUB_IDP_BY_NAME);
-
-            get.setString(1, idPName);
-            get.setInt(2, tenantId);
-            resultSet = get.executeQuery();
-
-            if (resultSet.next()) {
-                return "1".equals(resultSet.getString(1));
-            }
-
-            return false;
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(get);
-            IdentityApplicationManagementUtil.closeResultSet(resultSet);
-        }
-
-    }
-
     /**
-     * @param applicationId
      * @param connection
-     * @return
-     * @throws IdentityApplicationManagementException
+     * @param serviceProviders
+     * @param appFilter
+     * @param filterParams
+     * @throws SQLException
      */
-    private ClaimConfig getClaimConfiguration(int applicationId, Connection connection, int tenantID)
-            throws IdentityApplicationManagementException {
-
-        ClaimConfig claimConfig = new ClaimConfig();
-        ArrayList<ClaimMapping> claimMappingList = new ArrayList<ClaimMapping>();
+    private void loadClaimMappings(Connection connection, Map<Integer, ServiceProvider> serviceProviders,
+                                   String appFilter, int... filterParams) throws SQLException {
 
-        if (log.isDebugEnabled()) {
-            log.debug("Reading Claim Mappings of Application " + applicationId);
-        }
+        Map<Integer, List<ClaimMapping>> appClaimMappings = new HashMap<Integer, List<ClaimMapping>>();
 
         PreparedStatement get = null;
         ResultSet resultSet = null;
         try {
-            get = connection.prepareStatement(ApplicationMgtDBQueries.LOAD_CLAIM_MAPPING_BY_APP_ID);
-            // IDP_CLAIM, SP_CLAIM, IS_REQUESTED
-            get.setInt(1, applicationId);
-            get.setInt(2, tenantID);
+            // APP_ID, IDP_CLAIM, SP_CLAIM, IS_REQUESTED, DEFAULT_VALUE
+            get = prepareLoadStatement(connection, ApplicationMgtDBQueries.LOAD_CLAIM_MAPPINGS, appFilter,
+                    filterParams);
             resultSet = get.executeQuery();
 
             while (resultSet.next()) {
+                int applicationId = resultSet.getInt(1);
+                if (!serviceProviders.containsKey(applicationId)) {
+                    continue;
+                }
+
                 ClaimMapping claimMapping = new ClaimMapping();
                 Claim localClaim = new Claim();
                 Claim remoteClaim = new Claim();
 
-                localClaim.setClaimUri(resultSet.getString(1));
-                remoteClaim.setClaimUri(resultSet.getString(2));
+                localClaim.setClaimUri(resultSet.getString(2));
+                remoteClaim.setClaimUri(resultSet.getString(3));
 
-                String requested = resultSet.getString(3);
+                String requested = resultSet.getString(4);
 
                 if ("1".equalsIgnoreCase(requested)) {
                     claimMapping.setRequested(true);
@@ -1906,89 +1693,418 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                     localClaim.setClaimUri(remoteClaim.getClaimUri());
                 }
 
-                claimMapping.setDefaultValue(resultSet.getString(4));
+                claimMapping.setDefaultValue(resultSet.getString(5));
 
                 claimMapping.setLocalClaim(localClaim);
                 claimMapping.setRemoteClaim(remoteClaim);
 
-                claimMappingList.add(claimMapping);
+                if (!appClaimMappings.containsKey(applicationId)) {
+                    appClaimMappings.put(applicationId, new ArrayList<ClaimMapping>());
+                }
+                appClaimMappings.get(applicationId).add(claimMapping);
 
                 if (log.isDebugEnabled()) {
                     log.debug("Local Claim: " + claimMapping.getLocalClaim().getClaimUri()
                             + " SPClaim: " + claimMapping.getRemoteClaim().getClaimUri());
                 }
             }
-
-            claimConfig.setClaimMappings(claimMappingList.toArray(new ClaimMapping[claimMappingList
-                    .size()]));
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException(
-                    "Error while retrieving all application");
         } finally {
             IdentityApplicationManagementUtil.closeStatement(get);
             IdentityApplicationManagementUtil.closeResultSet(resultSet);
         }
 
-        PreparedStatement loadClaimConfigsPrepStmt = null;
-        ResultSet loadClaimConfigsResultSet = null;
+        for (Entry<Integer, List<ClaimMapping>> entry : appClaimMappings.entrySet()) {
+            List<ClaimMapping> claimMappingList = entry.getValue();
+            serviceProviders.get(entry.getKey()).getClaimConfig().setClaimMappings(
+                    claimMappingList.toArray(new ClaimMapping[claimMappingList.size()]));
+        }
+    }
+
+    /**
+     * @param connection
+     * @param serviceProviders
+     * @param appFilter
+     * @param filterParams
+     * @throws SQLException
+     */
+    private void loadRoleMappings(Connection connection, Map<Integer, ServiceProvider> serviceProviders,
+                                  String appFilter, int... filterParams) throws SQLException {
+
+        Map<Integer, List<RoleMapping>> appRoleMappings = new HashMap<Integer, List<RoleMapping>>();
 
+        PreparedStatement getRoleMappings = null;
+        ResultSet resultSet = null;
         try {
-            loadClaimConfigsPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_CLAIM_CONIFG_BY_APP_ID);
-            loadClaimConfigsPrepStmt.setInt(1, tenantID);
-            loadClaimConfigsPrepStmt.setInt(2, applicationId);
-            loadClaimConfigsResultSet = loadClaimConfigsPrepStmt.executeQuery();
-
-            while (loadClaimConfigsResultSet.next()) {
-                claimConfig.setRoleClaimURI(loadClaimConfigsResultSet.getString(1));
-                claimConfig.setLocalClaimDialect("1".equals(loadClaimConfigsResultSet.getString(2)));
-                claimConfig.setAlwaysSendMappedLocalSubjectId("1".equals(loadClaimConfigsResultSet
-                                                                                 .getString(3)));
+            // APP_ID, IDP_ROLE, SP_ROLE
+            getRoleMappings = prepareLoadStatement(connection, ApplicationMgtDBQueries.LOAD_ROLE_MAPPINGS,
+                    appFilter, filterParams);
+            resultSet = getRoleMappings.executeQuery();
+
+            while (resultSet.next()) {
+                int applicationId = resultSet.getInt(1);
+                if (!serviceProviders.containsKey(applicationId)) {
+                    continue;
+                }
+
+                RoleMapping roleMapping = new RoleMapping();
+                LocalRole localRole = new LocalRole();
+                localRole.setLocalRoleName(resultSet.getString(2));
+                roleMapping.setLocalRole(localRole);
+                roleMapping.setRemoteRole(resultSet.getString(3));
+
+                if (!appRoleMappings.containsKey(applicationId)) {
+                    appRoleMappings.put(applicationId, new ArrayList<RoleMapping>());
+                }
+                appRoleMappings.get(applicationId).add(roleMapping);
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Local Role: " + roleMapping.getLocalRole().getLocalRoleName()
+                            + " SPRole: " + roleMapping.getRemoteRole());
+                }
             }
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException("Error while retrieving all application");
         } finally {
-            IdentityApplicationManagementUtil.closeStatement(loadClaimConfigsPrepStmt);
-            IdentityApplicationManagementUtil.closeResultSet(loadClaimConfigsResultSet);
+            IdentityApplicationManagementUtil.closeStatement(getRoleMappings);
+            IdentityApplicationManagementUtil.closeResultSet(resultSet);
         }
 
-        return claimConfig;
+        for (Entry<Integer, List<RoleMapping>> entry : appRoleMappings.entrySet()) {
+            List<RoleMapping> roleMappingList = entry.getValue();
+            serviceProviders.get(entry.getKey()).getPermissionAndRoleConfig().setRoleMappings(
+                    roleMappingList.toArray(new RoleMapping[roleMappingList.size()]));
+        }
     }
 
     /**
-     * @param applicationId
      * @param connection
-     * @return
-     * @throws IdentityApplicationManagementException
+     * @param serviceProviders
+     * @param appFilter
+     * @param filterParams
+     * @throws SQLException
      */
-    private RequestPathAuthenticatorConfig[] getRequestPathAuthenticators(int applicationId,
-                                                                          Connection connection, int tenantID) throws IdentityApplicationManagementException {
+    private void loadRequestPathAuthenticators(Connection connection, Map<Integer, ServiceProvider> serviceProviders,
+                                               String appFilter, int... filterParams) throws SQLException {
+
+        Map<Integer, List<RequestPathAuthenticatorConfig>> appAuthenticators =
+                new HashMap<Integer, List<RequestPathAuthenticatorConfig>>();
 
         PreparedStatement loadReqPathAuthenticators = null;
         ResultSet authResultSet = null;
-        List<RequestPathAuthenticatorConfig> authenticators = new ArrayList<RequestPathAuthenticatorConfig>();
-
         try {
-            loadReqPathAuthenticators = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_REQ_PATH_AUTHENTICATORS_BY_APP_ID);
-            loadReqPathAuthenticators.setInt(1, applicationId);
-            loadReqPathAuthenticators.setInt(2, tenantID);
+            // APP_ID, AUTHENTICATOR_NAME
+            loadReqPathAuthenticators = prepareLoadStatement(connection,
+                    ApplicationMgtDBQueries.LOAD_REQ_PATH_AUTHENTICATORS, appFilter, filterParams);
             authResultSet = loadReqPathAuthenticators.executeQuery();
 
             while (authResultSet.next()) {
+                int applicationId = authResultSet.getInt(1);
+                if (!serviceProviders.containsKey(applicationId)) {
+                    continue;
+                }
+
                 RequestPathAuthenticatorConfig reqAuth = new RequestPathAuthenticatorConfig();
-                reqAuth.setName(authResultSet.getString(1));
-                authenticators.add(reqAuth);
+                reqAuth.setName(authResultSet.getString(2));
+
+                if (!appAuthenticators.containsKey(applicationId)) {
+                    appAuthenticators.put(applicationId, new ArrayList<RequestPathAuthenticatorConfig>());
+                }
+                appAuthenticators.get(applicationId).add(reqAuth);
             }
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException(
-                    "Error while retrieving all application");
         } finally {
             IdentityApplicationManagementUtil.closeStatement(loadReqPathAuthenticators);
             IdentityApplicationManagementUtil.closeResultSet(authResultSet);
         }
 
-        return authenticators.toArray(new RequestPathAuthenticatorConfig[authenticators.size()]);
+        for (Entry<Integer, List<RequestPathAuthenticatorConfig>> entry : appAuthenticators.entrySet()) {
+            List<RequestPathAuthenticatorConfig> authenticators = entry.getValue();
+            serviceProviders.get(entry.getKey()).setRequestPathAuthenticatorConfigs(
+                    authenticators.toArray(new RequestPathAuthenticatorConfig[authenticators.size()]));
+        }
+    }
+
+    /**
+     * @param connection
+     * @param serviceProviders
+     * @param appFilter
+     * @param filterParams
+     * @throws SQLException
+     */
+    private void loadOutboundProvisioningConnectors(Connection connection,
+                                                    Map<Integer, ServiceProvider> serviceProviders,
+                                                    String appFilter, int... filterParams) throws SQLException {
+
+        Map<Integer, List<IdentityProvider>> appIdPProConnectors = new HashMap<Integer, List<IdentityProvider>>();
+
+        PreparedStatement outboundProConfigPrepStmt = null;
+        ResultSet resultSet = null;
+        try {
+            // APP_ID, IDP_NAME, CONNECTOR_NAME, IS_JIT_ENABLED, BLOCKING
+            outboundProConfigPrepStmt = prepareLoadStatement(connection,
+                    ApplicationMgtDBQueries.LOAD_PRO_CONNECTORS, appFilter, filterParams);
+            resultSet = outboundProConfigPrepStmt.executeQuery();
+
+            while (resultSet.next()) {
+                int applicationId = resultSet.getInt(1);
+                if (!serviceProviders.containsKey(applicationId)) {
+                    continue;
+                }
+
+                IdentityProvider fedIdp = new IdentityProvider();
+                fedIdp.setIdentityProviderName(resultSet.getString(2));
+
+                ProvisioningConnectorConfig proConnector = new ProvisioningConnectorConfig();
+                proConnector.setName(resultSet.getString(3));
+
+                if ("1".equals(resultSet.getString(4))) {
+                    JustInTimeProvisioningConfig jitConfig = new JustInTimeProvisioningConfig();
+                    jitConfig.setProvisioningEnabled(true);
+                    fedIdp.setJustInTimeProvisioningConfig(jitConfig);
+                }
+
+                if ("1".equals(resultSet.getString(5))) {
+                    proConnector.setBlocking(true);
+                } else {
+                    proConnector.setBlocking(false);
+                }
+
+                fedIdp.setDefaultProvisioningConnectorConfig(proConnector);
+
+                if (!appIdPProConnectors.containsKey(applicationId)) {
+                    appIdPProConnectors.put(applicationId, new ArrayList<IdentityProvider>());
+                }
+                appIdPProConnectors.get(applicationId).add(fedIdp);
+            }
+        } finally {
+            IdentityApplicationManagementUtil.closeStatement(outboundProConfigPrepStmt);
+            IdentityApplicationManagementUtil.closeResultSet(resultSet);
+        }
+
+        for (Entry<Integer, List<IdentityProvider>> entry : appIdPProConnectors.entrySet()) {
+            List<IdentityProvider> idpProConnectors = entry.getValue();
+            serviceProviders.get(entry.getKey()).getOutboundProvisioningConfig().setProvisioningIdentityProviders(
+                    idpProConnectors.toArray(new IdentityProvider[idpProConnectors.size()]));
+        }
+    }
+
+    /**
+     * @param connection
+     * @param serviceProviders
+     * @param appFilter
+     * @param filterParams
+     * @throws SQLException
+     */
+    private void loadServiceProviderProperties(Connection connection, Map<Integer, ServiceProvider> serviceProviders,
+                                               String appFilter, int... filterParams) throws SQLException {
+
+        Map<Integer, List<ServiceProviderProperty>> appProperties =
+                new HashMap<Integer, List<ServiceProviderProperty>>();
+
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        try {
+            // SP_ID, NAME, VALUE, DISPLAY_NAME
+            prepStmt = prepareLoadStatement(connection, ApplicationMgtDBQueries.LOAD_SP_METADATA, appFilter,
+                    filterParams);
+            rs = prepStmt.executeQuery();
+
+            while (rs.next()) {
+                int applicationId = rs.getInt(1);
+                if (!serviceProviders.containsKey(applicationId)) {
+                    continue;
+                }
+
+                ServiceProviderProperty property = new ServiceProviderProperty();
+                property.setName(rs.getString(2));
+                property.setValue(rs.getString(3));
+                property.setDisplayName(rs.getString(4));
+
+                if (!appProperties.containsKey(applicationId)) {
+                    appProperties.put(applicationId, new ArrayList<ServiceProviderProperty>());
+                }
+                appProperties.get(applicationId).add(property);
+            }
+        } finally {
+            IdentityApplicationManagementUtil.closeStatement(prepStmt);
+            IdentityApplicationManagementUtil.closeResultSet(rs);
+        }
+
+        for (Entry<Integer, List<ServiceProviderProperty>> entry : appProperties.entrySet()) {
+            List<ServiceProviderProperty> propertyList = entry.getValue();
+            serviceProviders.get(entry.getKey()).setSpProperties(
+                    propertyList.toArray(new ServiceProviderProperty[propertyList.size()]));
+        }
+    }
+
+    /**
+     * This method will be heavily used by the Authentication Framework. The framework would ask for
+     * application data with the given client key and secrete
+     *
+     * @param clientId
+     * @param type
+     * @param tenantDomain
+     * @return
+     * @throws IdentityApplicationManagementException
+     */
+    public ServiceProvider getApplicationData(String clientId, String type, String tenantDomain)
+            throws IdentityApplicationManagementException {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loading Application Data of Client " + clientId);
+        }
+
+        int tenantID = -123;
+
+        try {
+            tenantID = ApplicationManagementServiceComponentHolder.getInstance().getRealmService()
+                    .getTenantManager().getTenantId(tenantDomain);
+        } catch (UserStoreException e1) {
+            log.error("Error while reading application", e1);
+            throw new IdentityApplicationManagementException("Error while reading application", e1);
+        }
+
+        String applicationName = null;
+
+        // Reading application name from the database
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement storeAppPrepStmt = null;
+        ResultSet appNameResult = null;
+        try {
+            storeAppPrepStmt = connection
+                    .prepareStatement(ApplicationMgtDBQueries.LOAD_APPLICATION_NAME_BY_CLIENT_ID_AND_TYPE);
+            storeAppPrepStmt.setString(1, clientId);
+            storeAppPrepStmt.setString(2, type);
+            storeAppPrepStmt.setInt(3, tenantID);
+            appNameResult = storeAppPrepStmt.executeQuery();
+            connection.commit();
+            if (appNameResult.next()) {
+                applicationName = appNameResult.getString(1);
+            }
+
+        } catch (SQLException e) {
+            throw new IdentityApplicationManagementException("Error while reading application", e);
+        } finally {
+            IdentityApplicationManagementUtil.closeResultSet(appNameResult);
+            IdentityApplicationManagementUtil.closeStatement(storeAppPrepStmt);
+            IdentityApplicationManagementUtil.closeConnection(connection);
+        }
+
+        return getApplication(applicationName, tenantDomain);
+    }
+
+    /**
+     * @param applicationID
+     * @return
+     * @throws IdentityApplicationManagementException
+     */
+    @Override
+    public String getApplicationName(int applicationID)
+            throws IdentityApplicationManagementException {
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            return getApplicationName(applicationID, connection);
+        } catch (SQLException e) {
+            throw new IdentityApplicationManagementException("Failed loading the application with "
+                    + applicationID, e);
+        } finally {
+            IdentityApplicationManagementUtil.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Reads back the basic application data
+     *
+     * @param applicationID
+     * @param connection
+     * @return
+     * @throws IdentityApplicationManagementException
+     */
+    private String getApplicationName(int applicationID, Connection connection) throws SQLException {
+
+        int tenantID = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loading Application Name for ID: " + applicationID);
+        }
+
+        PreparedStatement loadBasicAppInfoStmt = null;
+        ResultSet appNameResultSet = null;
+        String applicationName = null;
+
+        try {
+            loadBasicAppInfoStmt = connection
+                    .prepareStatement(ApplicationMgtDBQueries.LOAD_APP_NAME_BY_APP_ID);
+            loadBasicAppInfoStmt.setInt(1, applicationID);
+            loadBasicAppInfoStmt.setInt(2, tenantID);
+            appNameResultSet = loadBasicAppInfoStmt.executeQuery();
+
+            if (appNameResultSet.next()) {
+                applicationName = appNameResultSet.getString(1);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("ApplicationName : " + applicationName);
+            }
+            return applicationName;
+
+        } finally {
+            IdentityApplicationManagementUtil.closeResultSet(appNameResultSet);
+            IdentityApplicationManagementUtil.closeStatement(loadBasicAppInfoStmt);
+        }
+    }
+
+    /**
+     * Returns the application ID for a given application name
+     *
+     * @param applicationName
+     * @param tenantID
+     * @param connection
+     * @return
+     * @throws IdentityApplicationManagementException
+     */
+    private int getApplicationIDByName(String applicationName, int tenantID, Connection connection)
+            throws IdentityApplicationManagementException {
+
+        int applicationId = 0;
+        PreparedStatement getAppIDPrepStmt = null;
+        ResultSet appidResult = null;
+
+        try {
+            getAppIDPrepStmt = connection
+                    .prepareStatement(ApplicationMgtDBQueries.LOAD_APP_ID_BY_APP_NAME);
+            getAppIDPrepStmt.setString(1, applicationName);
+            getAppIDPrepStmt.setInt(2, tenantID);
+            appidResult = getAppIDPrepStmt.executeQuery();
+
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+
+            if (appidResult.next()) {
+                applicationId = appidResult.getInt(1);
+            }
+
+        } catch (SQLException e) {
+            IdentityApplicationManagementUtil.closeConnection(connection);
+            log.error("Error in storing the application", e);
+            throw new IdentityApplicationManagementException("Error while storing application", e);
+        } finally {
+            IdentityApplicationManagementUtil.closeResultSet(appidResult);
+            IdentityApplicationManagementUtil.closeStatement(getAppIDPrepStmt);
+        }
+
+        return applicationId;
+    }
+
+    /**
+     * @param applicationId
+     * @param connection
+     * @return
+     * @throws SQLException
+     */
+    private InboundAuthenticationConfig getInboundAuthenticationConfig(int applicationId,
+                                                                       Connection connection, int tenantID) throws SQLException {
+
+        return loadInboundAuthenticationConfigs(connection, Collections.singleton(applicationId),
+                ApplicationMgtDBQueries.APP_ID_FILTER, applicationId, tenantID).get(applicationId);
     }
 
     /**
@@ -2052,57 +2168,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         }
     }
 
-    /**
-     * Reads the claim mappings for a given appID
-     *
-     * @param applicationId
-     * @param connection
-     * @return
-     * @throws IdentityApplicationManagementException
-     */
-    private List<RoleMapping> getRoleMappingOfApplication(int applicationId, Connection connection,
-                                                          int tenantID) throws IdentityApplicationManagementException {
-
-        ArrayList<RoleMapping> roleMappingList = new ArrayList<RoleMapping>();
-
-        if (log.isDebugEnabled()) {
-            log.debug("Reading Role Mapping of Application " + applicationId);
-        }
-
-        PreparedStatement getClientInfo = null;
-        ResultSet resultSet = null;
-        try {
-            getClientInfo = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_ROLE_MAPPING_BY_APP_ID);
-            // IDP_ROLE, SP_ROLE
-            getClientInfo.setInt(1, applicationId);
-            getClientInfo.setInt(2, tenantID);
-            resultSet = getClientInfo.executeQuery();
-
-            while (resultSet.next()) {
-                RoleMapping roleMapping = new RoleMapping();
-                LocalRole localRole = new LocalRole();
-                localRole.setLocalRoleName(resultSet.getString(1));
-                roleMapping.setLocalRole(localRole);
-                roleMapping.setRemoteRole(resultSet.getString(2));
-                roleMappingList.add(roleMapping);
-
-                if (log.isDebugEnabled()) {
-                    log.debug("Local Role: " + roleMapping.getLocalRole().getLocalRoleName()
-                            + " SPRole: " + roleMapping.getRemoteRole());
-                }
-            }
-
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException(
-                    "Error while retrieving all application");
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(getClientInfo);
-            IdentityApplicationManagementUtil.closeResultSet(resultSet);
-        }
-        return roleMappingList;
-    }
-
     /**
      * Get application Names for user
      *
@@ -2662,39 +2727,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         return authId;
     }
 
-    /**
-     * @param conn
-     * @param tenantId
-     * @param authenticatorId
-     * @return
-     * @throws SQLException
-     */
-    private Map<String, String> getAuthenticatorInfo(Connection conn, int tenantId,
-                                                     int authenticatorId) throws SQLException {
-        PreparedStatement prepStmt = null;
-        ResultSet rs = null;
-        String sqlStmt = ApplicationMgtDBQueries.LOAD_IDP_AND_AUTHENTICATOR_NAMES;
-        Map<String, String> returnData = new HashMap<String, String>();
-        try {
-            prepStmt = conn.prepareStatement(sqlStmt);
-            prepStmt.setInt(1, authenticatorId);
-            prepStmt.setInt(2, tenantId);
-            prepStmt.setInt(3, tenantId);
-            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
-            prepStmt.setInt(5, MultitenantConstants.SUPER_TENANT_ID);
-            rs = prepStmt.executeQuery();
-            while (rs.next()) {
-                returnData.put(ApplicationConstants.IDP_NAME, rs.getString(1));
-                returnData.put(ApplicationConstants.IDP_AUTHENTICATOR_NAME, rs.getString(2));
-                returnData
-                        .put(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME, rs.getString(3));
-            }
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(prepStmt);
-        }
-        return returnData;
-    }
-
     /**
      * @param conn
      * @param tenantId
@@ -48,6 +48,14 @@ public class FileBasedApplicationDAO implements ApplicationDAO {
         return ApplicationManagementServiceComponent.getFileBasedSPs().get(applicationName);
     }
 
+    @Override
+    public ServiceProvider[] getAllApplications(String tenantDomain)
+            throws IdentityApplicationManagementException {
+        Map<String, ServiceProvider> spMap = ApplicationManagementServiceComponent
+                .getFileBasedSPs();
+        return spMap.values().toArray(new ServiceProvider[spMap.size()]);
+    }
+
     @Override
     public ApplicationBasicInfo[] getAllApplicationBasicInfo()
             throws IdentityApplicationManagementException {
@@ -77,48 +77,7 @@ public class IdentityProviderDAOImpl implements IdentityProviderDAO {
             IdentityProvider idp = idpManager.getIdPByName(idpName, CarbonContext
                     .getThreadLocalCarbonContext().getTenantDomain());
 
-            IdentityProvider identityProvider = new IdentityProvider();
-            identityProvider.setIdentityProviderName(idp.getIdentityProviderName());
-
-            FederatedAuthenticatorConfig defaultAuthenticator = new FederatedAuthenticatorConfig();
-            defaultAuthenticator.setName(getDefaultAuthenticator(idp.getIdentityProviderName()));
-
-            List<FederatedAuthenticatorConfig> federatedAuthenticators = new ArrayList<FederatedAuthenticatorConfig>();
-
-            FederatedAuthenticatorConfig[] federatedAuthenticatorConfigs = idp
-                    .getFederatedAuthenticatorConfigs();
-            if (federatedAuthenticatorConfigs != null && federatedAuthenticatorConfigs.length > 0) {
-                for (FederatedAuthenticatorConfig config : federatedAuthenticatorConfigs) {
-                    if (config.isEnabled()) {
-                        federatedAuthenticators.add(config);
-                    }
-                }
-            }
-
-            if (CollectionUtils.isNotEmpty(federatedAuthenticators)) {
-                identityProvider.setFederatedAuthenticatorConfigs(federatedAuthenticators
-                        .toArray(new FederatedAuthenticatorConfig[federatedAuthenticators.size()]));
-            }
-
-            List<ProvisioningConnectorConfig> provisioningConnectors = new ArrayList<ProvisioningConnectorConfig>();
-
-            ProvisioningConnectorConfig[] provisioningConnectorConfigs = idp.getProvisioningConnectorConfigs();
-            if (provisioningConnectorConfigs != null && provisioningConnectorConfigs.length > 0) {
-                for (ProvisioningConnectorConfig config : provisioningConnectorConfigs) {
-                    if (config.isEnabled()) {
-                        provisioningConnectors.add(config);
-                    }
-                }
-            }
-
-            if (CollectionUtils.isNotEmpty(provisioningConnectors)) {
-                identityProvider.setProvisioningConnectorConfigs(provisioningConnectors
-                        .toArray(new ProvisioningConnectorConfig[provisioningConnectors.size()]));
-            }
-
-            identityProvider.setEnable(idp.isEnable());
-
-            return identityProvider;
+            return getEnabledConfigs(idp);
 
         } catch (IdentityProviderManagementException e) {
             throw new IdentityApplicationManagementException("Error when retrieving identity provider "+ idpName, e);
@@ -136,8 +95,9 @@ public class IdentityProviderDAOImpl implements IdentityProviderDAO {
 
         List<IdentityProvider> idps;
         try {
+            // all the identity providers are loaded at once, instead of by name one by one
             idps = idpManager
-                    .getIdPs(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+                    .getIdPsWithConfigs(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
         } catch (IdentityProviderManagementException e) {
             throw new IdentityApplicationManagementException("Error when retrieving all identity providers in " +
                     CarbonContext.getThreadLocalCarbonContext().getTenantDomain() +" tenant domain.", e);
@@ -147,7 +107,7 @@ public class IdentityProviderDAOImpl implements IdentityProviderDAO {
 
         if (idps != null && !idps.isEmpty()) {
             for (IdentityProvider idp : idps) {
-                federatedIdentityProviders.add(getIdentityProvider(idp.getIdentityProviderName()));
+                federatedIdentityProviders.add(getEnabledConfigs(idp));
             }
         }
 
@@ -174,4 +134,52 @@ public class IdentityProviderDAOImpl implements IdentityProviderDAO {
 
     }
 
+    /**
+     * Copy the identity provider with its enabled federated authenticators and provisioning connectors only
+     *
+     * @param idp identity provider
+     * @return copy of the identity provider
+     */
+    private IdentityProvider getEnabledConfigs(IdentityProvider idp) {
+
+        IdentityProvider identityProvider = new IdentityProvider();
+        identityProvider.setIdentityProviderName(idp.getIdentityProviderName());
+
+        List<FederatedAuthenticatorConfig> federatedAuthenticators = new ArrayList<FederatedAuthenticatorConfig>();
+
+        FederatedAuthenticatorConfig[] federatedAuthenticatorConfigs = idp
+                .getFederatedAuthenticatorConfigs();
+        if (federatedAuthenticatorConfigs != null && federatedAuthenticatorConfigs.length > 0) {
+            for (FederatedAuthenticatorConfig config : federatedAuthenticatorConfigs) {
+                if (config.isEnabled()) {
+                    federatedAuthenticators.add(config);
+                }
+            }
+        }
+
+        if (CollectionUtils.isNotEmpty(federatedAuthenticators)) {
+            identityProvider.setFederatedAuthenticatorConfigs(federatedAuthenticators
+                    .toArray(new FederatedAuthenticatorConfig[federatedAuthenticators.size()]));
+        }
+
+        List<ProvisioningConnectorConfig> provisioningConnectors = new ArrayList<ProvisioningConnectorConfig>();
+
+        ProvisioningConnectorConfig[] provisioningConnectorConfigs = idp.getProvisioningConnectorConfigs();
+        if (provisioningConnectorConfigs != null && provisioningConnectorConfigs.length > 0) {
+            for (ProvisioningConnectorConfig config : provisioningConnectorConfigs) {
+                if (config.isEnabled()) {
+                    provisioningConnectors.add(config);
+                }
+            }
+        }
+
+        if (CollectionUtils.isNotEmpty(provisioningConnectors)) {
+            identityProvider.setProvisioningConnectorConfigs(provisioningConnectors
+                    .toArray(new ProvisioningConnectorConfig[provisioningConnectors.size()]));
+        }
+
+        identityProvider.setEnable(idp.isEnable());
+
+        return identityProvider;
+    }
 }
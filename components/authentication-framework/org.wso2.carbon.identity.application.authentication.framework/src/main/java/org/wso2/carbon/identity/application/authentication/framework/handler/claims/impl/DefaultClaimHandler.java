@@ -38,6 +38,7 @@ import org.wso2.carbon.identity.application.authentication.framework.util.Framew
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.mgt.ApplicationConstants;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.application.common.model.ClaimConfig;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
 import org.wso2.carbon.user.api.ClaimManager;
@@ -48,19 +49,56 @@ import org.wso2.carbon.user.core.UserRealm;
 import org.wso2.carbon.user.core.UserStoreConfigConstants;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DefaultClaimHandler implements ClaimHandler {
 
     public static final String SERVICE_PROVIDER_SUBJECT_CLAIM_VALUE = "ServiceProviderSubjectClaimValue";
     private static final Log log = LogFactory.getLog(DefaultClaimHandler.class);
+    private static final String REQUESTED_CLAIMS_ONLY = "ClaimHandler.RequestedClaimsOnly";
+    private static final String DIALECT_MAPPING_CACHE_TIMEOUT = "ClaimHandler.DialectMappingCacheTimeout";
+    // in seconds, claim mappings are not kept in memory by default as they are not invalidated when changed
+    private static final long DEFAULT_DIALECT_MAPPING_CACHE_TIMEOUT = 0;
+    private static final char KEY_SEPARATOR = '\u0000';
     private static volatile DefaultClaimHandler instance;
 
+    private boolean requestedClaimsOnly;
+    private long dialectMappingCacheTimeoutInMillis = DEFAULT_DIALECT_MAPPING_CACHE_TIMEOUT * 1000;
+    // tenant domain, dialect and key direction -> claim mappings of the whole dialect
+    private final ConcurrentMap<String, MemoizedValue<Map<String, String>>> dialectMappings =
+            new ConcurrentHashMap<>();
+    // tenant domain -> local claim URIs
+    private final ConcurrentMap<String, MemoizedValue<String[]>> localClaimURIs = new ConcurrentHashMap<>();
+
+    private final AtomicLong localClaimFetchCount = new AtomicLong();
+    private final AtomicLong fetchedLocalClaimURICount = new AtomicLong();
+    private final AtomicLong fetchedLocalClaimValueCount = new AtomicLong();
+
+    public DefaultClaimHandler() {
+
+        requestedClaimsOnly = Boolean.parseBoolean(IdentityUtil.getProperty(REQUESTED_CLAIMS_ONLY));
+        String dialectMappingCacheTimeout = IdentityUtil.getProperty(DIALECT_MAPPING_CACHE_TIMEOUT);
+        if (StringUtils.isNotBlank(dialectMappingCacheTimeout)) {
+            try {
+                dialectMappingCacheTimeoutInMillis = Long.parseLong(dialectMappingCacheTimeout.trim()) * 1000;
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value : " + dialectMappingCacheTimeout + " for " + DIALECT_MAPPING_CACHE_TIMEOUT +
+                         ". Using default value : " + DEFAULT_DIALECT_MAPPING_CACHE_TIMEOUT + "s");
+            }
+        }
+    }
+
     public static DefaultClaimHandler getInstance() {
         if (instance == null) {
             synchronized (DefaultClaimHandler.class) {
@@ -348,12 +386,6 @@ public class DefaultClaimHandler implements ClaimHandler {
         // key:value -> sp_dialect:claim_value
         Map<String, String> spRequestedClaims = new HashMap<>();
 
-        // Retrieve all non-null user claim values against local claim uris.
-        allLocalClaims = retrieveAllNunNullUserClaimValues(authenticatedUser, tenantDomain, tenantAwareUserName,
-                                                           claimManager, userStore);
-
-        context.setProperty(FrameworkConstants.UNFILTERED_LOCAL_CLAIM_VALUES, allLocalClaims);
-
         // if standard dialect get all claim mappings from standard dialect to carbon dialect
         spToLocalClaimMappings = getStanderDialectToCarbonMapping(spStandardDialect, context, spToLocalClaimMappings,
                                                                   tenantDomain);
@@ -365,6 +397,23 @@ public class DefaultClaimHandler implements ClaimHandler {
                     carbonToStandardClaimMapping);
         }
 
+        String[] requiredLocalClaimURIs = null;
+        if (requestedClaimsOnly) {
+            requiredLocalClaimURIs = getRequiredLocalClaimURIs(appConfig, context.getRequestType(),
+                                                               spToLocalClaimMappings, requestedClaimMappings);
+        }
+        if (requiredLocalClaimURIs != null) {
+            // Retrieve non-null user claim values against the local claim uris the service provider needs.
+            allLocalClaims = retrieveUserClaimValues(authenticatedUser, tenantDomain, tenantAwareUserName,
+                                                     userStore, requiredLocalClaimURIs);
+        } else {
+            // Retrieve all non-null user claim values against local claim uris.
+            allLocalClaims = retrieveAllNunNullUserClaimValues(authenticatedUser, tenantDomain, tenantAwareUserName,
+                                                               claimManager, userStore);
+        }
+
+        context.setProperty(FrameworkConstants.UNFILTERED_LOCAL_CLAIM_VALUES, allLocalClaims);
+
         mapSPClaimsAndFilterRequestedClaims(spToLocalClaimMappings, requestedClaimMappings, allLocalClaims,
                                             allSPMappedClaims, spRequestedClaims);
 
@@ -485,24 +534,76 @@ public class DefaultClaimHandler implements ClaimHandler {
         return spToLocalClaimMappings;
     }
 
+    /**
+     * Finds the local claims needed to build the claims of the service provider, which are the local claims of the
+     * requested claims, the subject claim and the role claim.
+     *
+     * @return local claim URIs, or null if all local claims are needed
+     */
+    private String[] getRequiredLocalClaimURIs(ApplicationConfig appConfig, String requestType,
+                                               Map<String, String> spToLocalClaimMappings,
+                                               Map<String, String> requestedClaimMappings) {
+
+        // all service provider mapped claims are returned to OpenID relying parties and when no claims are requested
+        if (FrameworkConstants.RequestType.CLAIM_TYPE_OPENID.equals(requestType) ||
+            requestedClaimMappings.isEmpty()) {
+            return null;
+        }
+
+        Set<String> requiredLocalClaimURIs = new LinkedHashSet<>();
+        for (String spClaimURI : requestedClaimMappings.keySet()) {
+            String localClaimURI = spToLocalClaimMappings.get(spClaimURI);
+            if (localClaimURI != null) {
+                requiredLocalClaimURIs.add(localClaimURI);
+            }
+        }
+        addLocalClaimURIs(appConfig.getSubjectClaimUri(), appConfig, spToLocalClaimMappings, requiredLocalClaimURIs);
+        addLocalClaimURIs(appConfig.getRoleClaim(), appConfig, spToLocalClaimMappings, requiredLocalClaimURIs);
+        requiredLocalClaimURIs.add(FrameworkConstants.LOCAL_ROLE_CLAIM_URI);
+        return requiredLocalClaimURIs.toArray(new String[requiredLocalClaimURIs.size()]);
+    }
+
+    private void addLocalClaimURIs(String claimURI, ApplicationConfig appConfig,
+                                   Map<String, String> spToLocalClaimMappings, Set<String> localClaimURIs) {
+
+        if (StringUtils.isBlank(claimURI)) {
+            return;
+        }
+        claimURI = claimURI.trim();
+        // the claim may be given in the local dialect or in the dialect of the service provider
+        localClaimURIs.add(claimURI);
+        if (spToLocalClaimMappings.get(claimURI) != null) {
+            localClaimURIs.add(spToLocalClaimMappings.get(claimURI));
+        }
+        if (appConfig.getClaimMappings() != null && appConfig.getClaimMappings().get(claimURI) != null) {
+            localClaimURIs.add(appConfig.getClaimMappings().get(claimURI));
+        }
+    }
+
     private Map<String, String> retrieveAllNunNullUserClaimValues(AuthenticatedUser authenticatedUser,
                                                                   String tenantDomain,
                                                                   String tenantAwareUserName, ClaimManager claimManager,
                                                                   UserStoreManager userStore)
             throws FrameworkException {
 
-        Map<String, String> allLocalClaims = new HashMap<>();
+        String[] allLocalClaimURIs;
         try {
+            allLocalClaimURIs = getLocalClaimURIs(tenantDomain, claimManager);
+        } catch (UserStoreException e) {
+            throw new FrameworkException("Error occurred while getting all local claims in " + tenantDomain, e);
+        }
+        return retrieveUserClaimValues(authenticatedUser, tenantDomain, tenantAwareUserName, userStore,
+                                       allLocalClaimURIs);
+    }
 
-            org.wso2.carbon.user.api.ClaimMapping[] claimMappings = claimManager
-                    .getAllClaimMappings(ApplicationConstants.LOCAL_IDP_DEFAULT_CLAIM_DIALECT);
-            List<String> localClaimURIs = new ArrayList<>();
-            for (org.wso2.carbon.user.api.ClaimMapping mapping : claimMappings) {
-                String claimURI = mapping.getClaim().getClaimUri();
-                localClaimURIs.add(claimURI);
-            }
-            allLocalClaims = userStore.getUserClaimValues(tenantAwareUserName,
-                    localClaimURIs.toArray(new String[localClaimURIs.size()]), null);
+    private Map<String, String> retrieveUserClaimValues(AuthenticatedUser authenticatedUser, String tenantDomain,
+                                                        String tenantAwareUserName, UserStoreManager userStore,
+                                                        String[] localClaimURIs)
+            throws FrameworkException {
+
+        Map<String, String> allLocalClaims = new HashMap<>();
+        try {
+            allLocalClaims = userStore.getUserClaimValues(tenantAwareUserName, localClaimURIs, null);
         } catch (UserStoreException e) {
             if (e.getMessage().contains("UserNotFound")) {
                 if (log.isDebugEnabled()) {
@@ -516,9 +617,33 @@ public class DefaultClaimHandler implements ClaimHandler {
         if (allLocalClaims == null) {
             allLocalClaims = new HashMap<>();
         }
+        localClaimFetchCount.incrementAndGet();
+        fetchedLocalClaimURICount.addAndGet(localClaimURIs.length);
+        fetchedLocalClaimValueCount.addAndGet(allLocalClaims.size());
         return allLocalClaims;
     }
 
+    private String[] getLocalClaimURIs(String tenantDomain, ClaimManager claimManager) throws UserStoreException {
+
+        MemoizedValue<String[]> memoizedURIs = localClaimURIs.get(tenantDomain);
+        if (memoizedURIs != null && !memoizedURIs.isExpired()) {
+            return memoizedURIs.value;
+        }
+        org.wso2.carbon.user.api.ClaimMapping[] claimMappings = claimManager
+                .getAllClaimMappings(ApplicationConstants.LOCAL_IDP_DEFAULT_CLAIM_DIALECT);
+        List<String> claimURIs = new ArrayList<>();
+        if (claimMappings != null) {
+            for (org.wso2.carbon.user.api.ClaimMapping mapping : claimMappings) {
+                claimURIs.add(mapping.getClaim().getClaimUri());
+            }
+        }
+        String[] uris = claimURIs.toArray(new String[claimURIs.size()]);
+        if (dialectMappingCacheTimeoutInMillis > 0) {
+            localClaimURIs.put(tenantDomain, new MemoizedValue<>(uris, dialectMappingCacheTimeoutInMillis));
+        }
+        return uris;
+    }
+
     private UserStoreManager getUserStoreManager(String tenantDomain, UserRealm realm, String userDomain) throws
             FrameworkException {
         UserStoreManager userStore = null;
@@ -704,6 +829,16 @@ public class DefaultClaimHandler implements ClaimHandler {
                                                  String tenantDomain, boolean useLocalDialectAsKey)
             throws FrameworkException {
 
+        // mappings of a whole dialect are the same for every login of the tenant, and are memoized for a while
+        String memoKey = null;
+        if (keySet == null && dialectMappingCacheTimeoutInMillis > 0) {
+            memoKey = tenantDomain + KEY_SEPARATOR + otherDialect + KEY_SEPARATOR + useLocalDialectAsKey;
+            MemoizedValue<Map<String, String>> memoizedMapping = dialectMappings.get(memoKey);
+            if (memoizedMapping != null && !memoizedMapping.isExpired()) {
+                return memoizedMapping.value;
+            }
+        }
+
         Map<String, String> claimMapping = null;
         try {
             claimMapping = ClaimManagerHandler.getInstance()
@@ -717,9 +852,31 @@ public class DefaultClaimHandler implements ClaimHandler {
             claimMapping = new HashMap<>();
         }
 
+        if (memoKey != null) {
+            claimMapping = Collections.unmodifiableMap(claimMapping);
+            dialectMappings.put(memoKey, new MemoizedValue<>(claimMapping, dialectMappingCacheTimeoutInMillis));
+        }
         return claimMapping;
     }
 
+    public long getLocalClaimFetchCount() {
+        return localClaimFetchCount.get();
+    }
+
+    /**
+     * @return number of local claim URIs requested from user stores over all local claim fetches
+     */
+    public long getFetchedLocalClaimURICount() {
+        return fetchedLocalClaimURICount.get();
+    }
+
+    /**
+     * @return number of non-null claim values returned by user stores over all local claim fetches
+     */
+    public long getFetchedLocalClaimValueCount() {
+        return fetchedLocalClaimValueCount.get();
+    }
+
     /**
      * Returns the claim dialect URI based on the client type
      *
@@ -831,4 +988,19 @@ public class DefaultClaimHandler implements ClaimHandler {
         log.debug(FrameworkConstants.UNFILTERED_SP_CLAIM_VALUES +
                   " map property set to " + sb.toString());
     }
+
+    private static class MemoizedValue<T> {
+
+        private final T value;
+        private final long expiryTime;
+
+        private MemoizedValue(T value, long timeoutInMillis) {
+            this.value = value;
+            this.expiryTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiryTime >= 0;
+        }
+    }
 }
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorFlowStatus;
+import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorStateInfo;
+import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorStatus;
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationContextCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationRequestCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.cache.AuthenticationResultCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SessionContextCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ApplicationConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.ExternalIdPConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.StepConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.AuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.context.SessionContext;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.InboundAuthenticationContext;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.InboundAuthenticationContextCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.InboundAuthenticationRequest;
+import org.wso2.carbon.identity.application.authentication.framework.inbound.InboundAuthenticationResponse;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedIdPData;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationRequest;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticationResult;
+import org.wso2.carbon.identity.application.common.cache.CacheEntry;
+import org.wso2.carbon.identity.application.common.model.ApplicationPermission;
+import org.wso2.carbon.identity.application.common.model.AuthenticationStep;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimConfig;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.identity.application.common.model.IdentityProviderProperty;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.InboundAuthenticationRequestConfig;
+import org.wso2.carbon.identity.application.common.model.InboundProvisioningConfig;
+import org.wso2.carbon.identity.application.common.model.JustInTimeProvisioningConfig;
+import org.wso2.carbon.identity.application.common.model.LocalAndOutboundAuthenticationConfig;
+import org.wso2.carbon.identity.application.common.model.LocalAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.LocalRole;
+import org.wso2.carbon.identity.application.common.model.OutboundProvisioningConfig;
+import org.wso2.carbon.identity.application.common.model.PermissionsAndRoleConfig;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.application.common.model.ProvisioningConnectorConfig;
+import org.wso2.carbon.identity.application.common.model.RequestPathAuthenticatorConfig;
+import org.wso2.carbon.identity.application.common.model.RoleMapping;
+import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.common.model.ServiceProviderProperty;
+import org.wso2.carbon.identity.application.common.model.User;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compact session serializer built on Java serialization, which avoids writing full class descriptors.
+ * <p/>
+ * This is still Java serialization, not a separate codec. The object graph is written and read by
+ * {@link ObjectOutputStream} and {@link ObjectInputStream}, with the fields, writeObject and readObject methods of
+ * each class, and only the class descriptors are replaced. The output is smaller than that of the default serializer,
+ * but the cost of reflective field access remains, and reading a stream is as safe as reading any other Java
+ * serialized data. Only streams written by trusted nodes must be read.
+ * <p/>
+ * The classes of the framework context and model graphs, and the common JDK classes used in them, are registered and
+ * written as a small id. Other serializable classes are written by name. A fingerprint of the serialVersionUID and
+ * the serializable fields of each class is written along with it, and a class is read with its local class
+ * descriptor only if the fingerprints match, so a changed class fails to load instead of being read incorrectly.
+ * Classes which can not be described by name, such as proxies and non-serializable classes, are written with their
+ * full class descriptor.
+ * <p/>
+ * This serializer is not used unless it is configured as JDBCPersistenceManager.SessionDataPersist.Serializer in
+ * identity.xml. Objects written with it can only be read by nodes which have it.
+ */
+public class CompactSessionSerializer implements SessionSerializer {
+
+    public static final byte FORMAT_ID = 2;
+
+    private static final int STREAM_VERSION = 1;
+
+    private static final int TYPE_FAT_DESCRIPTOR = 0;
+    private static final int TYPE_REGISTERED_DESCRIPTOR = 1;
+    private static final int TYPE_THIN_DESCRIPTOR = 2;
+
+    /**
+     * Registered classes. The position of a class in this array is its id in the serialized form, so classes must
+     * only be appended to this array.
+     */
+    private static final Class<?>[] REGISTERED_CLASSES = {
+            // framework context and model classes
+            SessionContext.class,
+            AuthenticationContext.class,
+            SequenceConfig.class,
+            StepConfig.class,
+            AuthenticatorConfig.class,
+            ApplicationConfig.class,
+            ExternalIdPConfig.class,
+            AuthenticatedUser.class,
+            AuthenticatedIdPData.class,
+            AuthenticationRequest.class,
+            AuthenticationResult.class,
+            AuthenticatorStateInfo.class,
+            AuthenticatorStatus.class,
+            AuthenticatorFlowStatus.class,
+            SessionContextCacheEntry.class,
+            AuthenticationContextCacheEntry.class,
+            AuthenticationRequestCacheEntry.class,
+            AuthenticationResultCacheEntry.class,
+            InboundAuthenticationContextCacheEntry.class,
+            InboundAuthenticationContext.class,
+            InboundAuthenticationRequest.class,
+            InboundAuthenticationResponse.class,
+            // application common model classes
+            CacheEntry.class,
+            User.class,
+            ServiceProvider.class,
+            ServiceProviderProperty.class,
+            IdentityProvider.class,
+            IdentityProviderProperty.class,
+            ClaimConfig.class,
+            ClaimMapping.class,
+            Claim.class,
+            LocalAndOutboundAuthenticationConfig.class,
+            AuthenticationStep.class,
+            LocalAuthenticatorConfig.class,
+            FederatedAuthenticatorConfig.class,
+            RequestPathAuthenticatorConfig.class,
+            Property.class,
+            PermissionsAndRoleConfig.class,
+            ApplicationPermission.class,
+            RoleMapping.class,
+            LocalRole.class,
+            InboundAuthenticationConfig.class,
+            InboundAuthenticationRequestConfig.class,
+            InboundProvisioningConfig.class,
+            OutboundProvisioningConfig.class,
+            ProvisioningConnectorConfig.class,
+            JustInTimeProvisioningConfig.class,
+            ClaimMapping[].class,
+            Claim[].class,
+            AuthenticationStep[].class,
+            LocalAuthenticatorConfig[].class,
+            FederatedAuthenticatorConfig[].class,
+            RequestPathAuthenticatorConfig[].class,
+            IdentityProvider[].class,
+            Property[].class,
+            RoleMapping[].class,
+            ApplicationPermission[].class,
+            InboundAuthenticationRequestConfig[].class,
+            ServiceProviderProperty[].class,
+            IdentityProviderProperty[].class,
+            // JDK classes
+            HashMap.class,
+            LinkedHashMap.class,
+            TreeMap.class,
+            ConcurrentHashMap.class,
+            ArrayList.class,
+            LinkedList.class,
+            HashSet.class,
+            LinkedHashSet.class,
+            Boolean.class,
+            Integer.class,
+            Long.class,
+            Number.class,
+            Enum.class,
+            Date.class,
+            Timestamp.class,
+            String[].class,
+            Object[].class,
+            byte[].class
+    };
+
+    private static final Map<Class<?>, Integer> classIds = new HashMap<Class<?>, Integer>();
+    private static final Map<String, Class<?>> registeredClassNames = new HashMap<String, Class<?>>();
+    private static final ConcurrentMap<Class<?>, Long> fingerprints = new ConcurrentHashMap<Class<?>, Long>();
+
+    static {
+        for (int i = 0; i < REGISTERED_CLASSES.length; i++) {
+            classIds.put(REGISTERED_CLASSES[i], i);
+            registeredClassNames.put(REGISTERED_CLASSES[i].getName(), REGISTERED_CLASSES[i]);
+        }
+    }
+
+    @Override
+    public byte getFormatId() {
+        return FORMAT_ID;
+    }
+
+    @Override
+    public void serialize(Object object, OutputStream outputStream) throws IOException {
+        ObjectOutputStream oos = new CompactObjectOutputStream(outputStream);
+        oos.writeObject(object);
+        oos.flush();
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream) throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new CompactObjectInputStream(inputStream);
+        return ois.readObject();
+    }
+
+    private static long getFingerprint(Class<?> clazz) {
+
+        Long fingerprint = fingerprints.get(clazz);
+        if (fingerprint == null) {
+            ObjectStreamClass desc = ObjectStreamClass.lookupAny(clazz);
+            long hash = desc.getSerialVersionUID();
+            for (ObjectStreamField field : desc.getFields()) {
+                hash = 31 * hash + field.getName().hashCode();
+                hash = 31 * hash + field.getTypeCode();
+                hash = 31 * hash + String.valueOf(field.getTypeString()).hashCode();
+            }
+            fingerprint = hash;
+            fingerprints.putIfAbsent(clazz, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static boolean isThinDescriptorSupported(ObjectStreamClass desc) {
+        Class<?> clazz = desc.forClass();
+        return clazz != null && !clazz.isPrimitive() && !clazz.isInterface() && !clazz.isArray() &&
+               !Proxy.isProxyClass(clazz) && desc.getSerialVersionUID() != 0;
+    }
+
+    private static class CompactObjectOutputStream extends ObjectOutputStream {
+
+        private CompactObjectOutputStream(OutputStream outputStream) throws IOException {
+            super(outputStream);
+        }
+
+        @Override
+        protected void writeStreamHeader() throws IOException {
+            writeByte(STREAM_VERSION);
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+
+            Class<?> clazz = desc.forClass();
+            Integer classId = clazz != null ? classIds.get(clazz) : null;
+            if (classId != null) {
+                write(TYPE_REGISTERED_DESCRIPTOR);
+                writeShort(classId);
+                writeLong(getFingerprint(clazz));
+            } else if (isThinDescriptorSupported(desc)) {
+                write(TYPE_THIN_DESCRIPTOR);
+                writeUTF(desc.getName());
+                writeLong(getFingerprint(clazz));
+            } else {
+                write(TYPE_FAT_DESCRIPTOR);
+                super.writeClassDescriptor(desc);
+            }
+        }
+    }
+
+    private static class CompactObjectInputStream extends ObjectInputStream {
+
+        private CompactObjectInputStream(InputStream inputStream) throws IOException {
+            super(inputStream);
+        }
+
+        @Override
+        protected void readStreamHeader() throws IOException {
+            int version = readByte() & 0xFF;
+            if (version != STREAM_VERSION) {
+                throw new StreamCorruptedException("Unsupported compact session stream version : " + version);
+            }
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+
+            int type = read();
+            switch (type) {
+                case TYPE_FAT_DESCRIPTOR:
+                    return super.readClassDescriptor();
+                case TYPE_REGISTERED_DESCRIPTOR:
+                    int classId = readUnsignedShort();
+                    if (classId >= REGISTERED_CLASSES.length) {
+                        throw new ClassNotFoundException("Unknown registered class id : " + classId);
+                    }
+                    return lookupDescriptor(REGISTERED_CLASSES[classId], readLong());
+                case TYPE_THIN_DESCRIPTOR:
+                    String className = readUTF();
+                    return lookupDescriptor(loadClass(className), readLong());
+                default:
+                    throw new StreamCorruptedException("Unexpected class descriptor type : " + type);
+            }
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+
+            Class<?> clazz = registeredClassNames.get(desc.getName());
+            if (clazz != null) {
+                return clazz;
+            }
+            try {
+                return loadClass(desc.getName());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+
+        private ObjectStreamClass lookupDescriptor(Class<?> clazz, long fingerprint) throws InvalidClassException {
+            if (getFingerprint(clazz) != fingerprint) {
+                throw new InvalidClassException(clazz.getName(), "Serialized form does not match the local class");
+            }
+            return ObjectStreamClass.lookupAny(clazz);
+        }
+
+        private Class<?> loadClass(String className) throws ClassNotFoundException {
+            Class<?> clazz = registeredClassNames.get(className);
+            if (clazz != null) {
+                return clazz;
+            }
+            return Class.forName(className, false, CompactSessionSerializer.class.getClassLoader());
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityRuntimeException;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes expired rows of IDN_AUTH_SESSION_STORE in bounded chunks instead of single statements over the whole
+ * table, so that a cleanup run does not hold locks on the table for long.
+ * <p/>
+ * Each chunk selects the oldest rows to be removed in TIME_CREATED order, limited to the chunk size with the limit
+ * syntax of the database, and removes them in its own transaction. Chunks are separated by a pause, and a run stops
+ * once its row or time budget is used up, leaving the remaining rows to the next run.
+ */
+public class SessionDataCleaner {
+
+    private static final Log log = LogFactory.getLog(SessionDataCleaner.class);
+
+    private static final String OPERATION_DELETE = "DELETE";
+    private static final String OPERATION_STORE = "STORE";
+
+    private static final String EXPIRED_DATA_CONDITION = "TIME_CREATED < ?";
+    private static final String EXPIRED_DELETE_OPERATIONS_CONDITION =
+            "OPERATION = '" + OPERATION_DELETE + "' AND TIME_CREATED < ?";
+    private static final String SQL_DELETE_EXPIRED_DATA_CHUNK =
+            "DELETE FROM IDN_AUTH_SESSION_STORE WHERE TIME_CREATED < ?";
+    private static final String SQL_DELETE_STORE_OPERATIONS_OF_SESSION =
+            "DELETE FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID = ? AND OPERATION = '" + OPERATION_STORE + "'";
+    private static final String SQL_DELETE_DELETE_OPERATIONS_OF_SESSION =
+            "DELETE FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID = ? AND OPERATION = '" + OPERATION_DELETE +
+            "' AND TIME_CREATED < ?";
+
+    private final int chunkSize;
+    private final long chunkPause;
+    private final long maxRowsPerRun;
+    private final long maxTimePerRun;
+
+    private volatile String sqlSelectExpiredDataChunk;
+    private volatile String sqlSelectExpiredDeleteOperationsChunk;
+
+    private final AtomicLong deletedRowCount = new AtomicLong();
+    private final AtomicLong chunkCount = new AtomicLong();
+    private volatile long lastRunDeletedRows;
+    private volatile long lastRunDuration;
+    private volatile boolean lastRunCompleted = true;
+
+    /**
+     * @param chunkSize     maximum number of rows selected for removal in a chunk
+     * @param chunkPause    pause between chunks in milliseconds
+     * @param maxRowsPerRun maximum number of rows removed in a run, or 0 for no limit
+     * @param maxTimePerRun maximum duration of a run in seconds, or 0 for no limit
+     */
+    public SessionDataCleaner(int chunkSize, long chunkPause, long maxRowsPerRun, long maxTimePerRun) {
+        this.chunkSize = chunkSize;
+        this.chunkPause = chunkPause > 0 ? chunkPause : 0;
+        this.maxRowsPerRun = maxRowsPerRun > 0 ? maxRowsPerRun : Long.MAX_VALUE;
+        this.maxTimePerRun = maxTimePerRun > 0 ? TimeUnit.SECONDS.toMillis(maxTimePerRun) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Removes all operations created before the given time.
+     *
+     * @param timeCreatedLimit TIME_CREATED value before which operations are removed
+     */
+    public void removeExpiredSessionData(long timeCreatedLimit) {
+
+        long startTime = System.currentTimeMillis();
+        long deletedRows = 0;
+        boolean completed = false;
+        while (hasBudget(startTime, deletedRows)) {
+            Connection connection;
+            try {
+                connection = IdentityDatabaseUtil.getDBConnection();
+            } catch (IdentityRuntimeException e) {
+                log.error(e.getMessage(), e);
+                break;
+            }
+            PreparedStatement selectStatement = null;
+            PreparedStatement deleteStatement = null;
+            ResultSet resultSet = null;
+            int selectedRows = 0;
+            try {
+                if (sqlSelectExpiredDataChunk == null) {
+                    sqlSelectExpiredDataChunk = getChunkSelectSQL(connection, "TIME_CREATED",
+                                                                  EXPIRED_DATA_CONDITION);
+                }
+                selectStatement = connection.prepareStatement(sqlSelectExpiredDataChunk);
+                selectStatement.setLong(1, timeCreatedLimit);
+                resultSet = selectStatement.executeQuery();
+                long lastTimeCreated = 0;
+                while (resultSet.next()) {
+                    lastTimeCreated = resultSet.getLong(1);
+                    selectedRows++;
+                }
+                if (selectedRows == 0) {
+                    completed = true;
+                    break;
+                }
+
+                // rows created at the same time as the last selected row are removed along with the chunk
+                deleteStatement = connection.prepareStatement(SQL_DELETE_EXPIRED_DATA_CHUNK);
+                deleteStatement.setLong(1, selectedRows < chunkSize ? timeCreatedLimit :
+                                           Math.min(lastTimeCreated + 1, timeCreatedLimit));
+                deletedRows += deleteStatement.executeUpdate();
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                IdentityDatabaseUtil.rollBack(connection);
+                log.error("Error while removing a chunk of session data from the database", e);
+                break;
+            } finally {
+                IdentityDatabaseUtil.closeStatement(deleteStatement);
+                IdentityDatabaseUtil.closeAllConnections(connection, resultSet, selectStatement);
+            }
+            chunkCount.incrementAndGet();
+            if (selectedRows < chunkSize) {
+                completed = true;
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        recordRun("session data", startTime, deletedRows, completed);
+    }
+
+    /**
+     * Removes the DELETE operations created before the given time, along with the STORE operations of their
+     * sessions.
+     *
+     * @param timeCreatedLimit TIME_CREATED value before which DELETE operations are removed
+     */
+    public void removeExpiredOperationData(long timeCreatedLimit) {
+
+        long startTime = System.currentTimeMillis();
+        long deletedRows = 0;
+        boolean completed = false;
+        while (hasBudget(startTime, deletedRows)) {
+            Connection connection;
+            try {
+                connection = IdentityDatabaseUtil.getDBConnection();
+            } catch (IdentityRuntimeException e) {
+                log.error(e.getMessage(), e);
+                break;
+            }
+            PreparedStatement selectStatement = null;
+            PreparedStatement storeDeleteStatement = null;
+            PreparedStatement deleteDeleteStatement = null;
+            ResultSet resultSet = null;
+            int selectedRows = 0;
+            try {
+                if (sqlSelectExpiredDeleteOperationsChunk == null) {
+                    sqlSelectExpiredDeleteOperationsChunk = getChunkSelectSQL(connection,
+                            "SESSION_ID, TIME_CREATED", EXPIRED_DELETE_OPERATIONS_CONDITION);
+                }
+                selectStatement = connection.prepareStatement(sqlSelectExpiredDeleteOperationsChunk);
+                selectStatement.setLong(1, timeCreatedLimit);
+                resultSet = selectStatement.executeQuery();
+                Set<String> sessionIds = new LinkedHashSet<>();
+                while (resultSet.next()) {
+                    sessionIds.add(resultSet.getString(1));
+                    selectedRows++;
+                }
+                if (selectedRows == 0) {
+                    completed = true;
+                    break;
+                }
+
+                storeDeleteStatement = connection.prepareStatement(SQL_DELETE_STORE_OPERATIONS_OF_SESSION);
+                deleteDeleteStatement = connection.prepareStatement(SQL_DELETE_DELETE_OPERATIONS_OF_SESSION);
+                for (String sessionId : sessionIds) {
+                    storeDeleteStatement.setString(1, sessionId);
+                    storeDeleteStatement.addBatch();
+                    deleteDeleteStatement.setString(1, sessionId);
+                    deleteDeleteStatement.setLong(2, timeCreatedLimit);
+                    deleteDeleteStatement.addBatch();
+                }
+                deletedRows += sum(storeDeleteStatement.executeBatch());
+                deletedRows += sum(deleteDeleteStatement.executeBatch());
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } catch (SQLException e) {
+                IdentityDatabaseUtil.rollBack(connection);
+                log.error("Error while removing a chunk of session operation data from the database", e);
+                break;
+            } finally {
+                IdentityDatabaseUtil.closeStatement(storeDeleteStatement);
+                IdentityDatabaseUtil.closeStatement(deleteDeleteStatement);
+                IdentityDatabaseUtil.closeAllConnections(connection, resultSet, selectStatement);
+            }
+            chunkCount.incrementAndGet();
+            if (selectedRows < chunkSize) {
+                completed = true;
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        recordRun("session operation data", startTime, deletedRows, completed);
+    }
+
+    public long getDeletedRowCount() {
+        return deletedRowCount.get();
+    }
+
+    public long getChunkCount() {
+        return chunkCount.get();
+    }
+
+    public long getLastRunDeletedRows() {
+        return lastRunDeletedRows;
+    }
+
+    /**
+     * @return duration of the last run in milliseconds
+     */
+    public long getLastRunDuration() {
+        return lastRunDuration;
+    }
+
+    /**
+     * @return false if the last run stopped before removing all expired rows, because of its budget or an error
+     */
+    public boolean isLastRunCompleted() {
+        return lastRunCompleted;
+    }
+
+    /**
+     * Builds a query selecting the given column of the oldest rows matching the given condition, limited to the
+     * chunk size with the limit syntax of the database.
+     */
+    private String getChunkSelectSQL(Connection connection, String column, String condition) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        String select = column + " FROM IDN_AUTH_SESSION_STORE WHERE " + condition + " ORDER BY TIME_CREATED";
+        if (metaData.getDriverName().contains("MySQL") || metaData.getDriverName().contains("H2") ||
+            metaData.getDriverName().contains("PostgreSQL")) {
+            return "SELECT " + select + " LIMIT " + chunkSize;
+        } else if (metaData.getDatabaseProductName().contains("DB2")) {
+            return "SELECT " + select + " FETCH FIRST " + chunkSize + " ROWS ONLY";
+        } else if (metaData.getDriverName().contains("MS SQL") || metaData.getDriverName().contains("Microsoft")) {
+            return "SELECT TOP " + chunkSize + " " + select;
+        } else if (metaData.getDriverName().contains("Informix")) {
+            return "SELECT FIRST " + chunkSize + " " + select;
+        } else {
+            return "SELECT " + column + " FROM (SELECT " + select + ") WHERE ROWNUM <= " + chunkSize;
+        }
+    }
+
+    private boolean hasBudget(long startTime, long deletedRows) {
+        return deletedRows < maxRowsPerRun && System.currentTimeMillis() - startTime < maxTimePerRun;
+    }
+
+    private boolean pause() {
+
+        if (chunkPause == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(chunkPause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void recordRun(String data, long startTime, long deletedRows, boolean completed) {
+
+        lastRunDuration = System.currentTimeMillis() - startTime;
+        lastRunDeletedRows = deletedRows;
+        lastRunCompleted = completed;
+        deletedRowCount.addAndGet(deletedRows);
+        if (completed) {
+            log.info("Removed " + deletedRows + " rows of expired " + data + " in " + lastRunDuration + "ms");
+        } else {
+            log.info("Removed " + deletedRows + " rows of expired " + data + " in " + lastRunDuration + "ms. " +
+                     "Remaining rows will be removed in the next run");
+        }
+    }
+
+    private static long sum(int[] updateCounts) {
+
+        long sum = 0;
+        for (int updateCount : updateCounts) {
+            // drivers may report Statement.SUCCESS_NO_INFO instead of a row count
+            if (updateCount > 0) {
+                sum += updateCount;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalescing write-behind queue of session data operations. Only the newest STORE or DELETE operation of a
+ * (session id, session type) key is kept until it is taken by a {@link SessionDataPersistTask}, so repeated writes
+ * of the same session within the linger time result in a single row.
+ * <p/>
+ * An operation is taken once the linger time has elapsed since its key was first queued, or once a full batch is
+ * available. Operations of a key are never taken while an earlier operation of the same key is being persisted, so
+ * the operations of a key are persisted in order. Such operations are held aside until the earlier operation is
+ * persisted, so that batches are always taken from the head of the queue. Adding an operation of a new key blocks
+ * while the queue is full.
+ */
+public class SessionDataPersistQueue {
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * queued operations which can be taken, by key, in the order their keys became ready to be taken
+     */
+    private final LinkedHashMap<String, QueuedOperation> queuedOperations = new LinkedHashMap<>();
+    /**
+     * queued operations of the keys which have an operation in flight, by key
+     */
+    private final Map<String, QueuedOperation> blockedOperations = new HashMap<>();
+    /**
+     * operations which are taken and not yet persisted, by key
+     */
+    private final Map<String, SessionContextDO> inFlightOperations = new HashMap<>();
+
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerTime;
+
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private volatile long lastBatchLag;
+
+    public SessionDataPersistQueue(int capacity, int batchSize, long lingerTime) {
+        this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+        this.batchSize = batchSize > 0 ? batchSize : 1;
+        this.lingerTime = lingerTime > 0 ? lingerTime : 0;
+    }
+
+    /**
+     * Queues a session data operation, replacing the queued operation of the same key if there is one.
+     *
+     * @param sessionContextDO STORE operation, or DELETE operation if the entry is null
+     * @throws InterruptedException if interrupted while waiting for space in the queue
+     */
+    public void put(SessionContextDO sessionContextDO) throws InterruptedException {
+
+        String key = getKey(sessionContextDO.getKey(), sessionContextDO.getType());
+        lock.lockInterruptibly();
+        try {
+            QueuedOperation queuedOperation = queuedOperations.get(key);
+            if (queuedOperation == null) {
+                queuedOperation = blockedOperations.get(key);
+            }
+            if (queuedOperation != null) {
+                queuedOperation.operation = sessionContextDO;
+                coalescedCount.incrementAndGet();
+            } else {
+                while (queuedOperations.size() + blockedOperations.size() >= capacity) {
+                    notFull.await();
+                }
+                if (inFlightOperations.containsKey(key)) {
+                    blockedOperations.put(key, new QueuedOperation(sessionContextDO));
+                } else {
+                    queuedOperations.put(key, new QueuedOperation(sessionContextDO));
+                    notEmpty.signal();
+                }
+            }
+            queuedCount.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next batch of operations to be persisted, waiting until one is available. The batch must be
+     * handed back through {@link #complete(List)} once it is persisted.
+     *
+     * @return operations to be persisted, at most one per key
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<SessionContextDO> take() throws InterruptedException {
+
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (queuedOperations.isEmpty()) {
+                    notEmpty.await();
+                    continue;
+                }
+                QueuedOperation oldest = queuedOperations.values().iterator().next();
+                long remaining = oldest.queuedTime + TimeUnit.MILLISECONDS.toNanos(lingerTime) - System.nanoTime();
+                if (remaining > 0 && queuedOperations.size() < batchSize) {
+                    notEmpty.awaitNanos(remaining);
+                    continue;
+                }
+                return drain(oldest);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the keys of a persisted batch, so that their newer operations can be taken.
+     *
+     * @param batch batch returned by {@link #take()}
+     */
+    public void complete(List<SessionContextDO> batch) {
+
+        lock.lock();
+        try {
+            for (SessionContextDO sessionContextDO : batch) {
+                String key = getKey(sessionContextDO.getKey(), sessionContextDO.getType());
+                inFlightOperations.remove(key);
+                QueuedOperation blockedOperation = blockedOperations.remove(key);
+                if (blockedOperation != null) {
+                    queuedOperations.put(key, blockedOperation);
+                }
+            }
+            if (!queuedOperations.isEmpty()) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the newest operation of the given key which is not yet persisted.
+     *
+     * @param key  session id
+     * @param type session type
+     * @return queued or in flight operation, or null if there is none
+     */
+    public SessionContextDO getPendingOperation(String key, String type) {
+
+        String queueKey = getKey(key, type);
+        lock.lock();
+        try {
+            QueuedOperation queuedOperation = queuedOperations.get(queueKey);
+            if (queuedOperation == null) {
+                queuedOperation = blockedOperations.get(queueKey);
+            }
+            if (queuedOperation != null) {
+                return queuedOperation.operation;
+            }
+            return inFlightOperations.get(queueKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+
+        lock.lock();
+        try {
+            return queuedOperations.size() + blockedOperations.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Returns the fraction of queued operations which were replaced by a newer operation of the same key, and so
+     * were never persisted.
+     *
+     * @return coalescing ratio between 0 and 1
+     */
+    public double getCoalescingRatio() {
+        long queued = queuedCount.get();
+        return queued == 0 ? 0 : (double) coalescedCount.get() / queued;
+    }
+
+    /**
+     * Returns the time the oldest operation of the last taken batch had been waiting in the queue.
+     *
+     * @return lag in milliseconds
+     */
+    public long getLastBatchLag() {
+        return lastBatchLag;
+    }
+
+    /**
+     * Returns the time the oldest queued operation has been waiting in the queue.
+     *
+     * @return lag in milliseconds, or 0 if the queue is empty
+     */
+    public long getCurrentLag() {
+
+        lock.lock();
+        try {
+            long oldestQueuedTime = System.nanoTime();
+            if (!queuedOperations.isEmpty()) {
+                oldestQueuedTime = queuedOperations.values().iterator().next().queuedTime;
+            }
+            // at most one blocked operation per in flight key
+            for (QueuedOperation blockedOperation : blockedOperations.values()) {
+                oldestQueuedTime = Math.min(oldestQueuedTime, blockedOperation.queuedTime);
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestQueuedTime);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<SessionContextDO> drain(QueuedOperation oldest) {
+
+        List<SessionContextDO> batch = new ArrayList<>(Math.min(batchSize, queuedOperations.size()));
+        Iterator<Map.Entry<String, QueuedOperation>> iterator = queuedOperations.entrySet().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            Map.Entry<String, QueuedOperation> entry = iterator.next();
+            iterator.remove();
+            SessionContextDO operation = entry.getValue().operation;
+            inFlightOperations.put(entry.getKey(), operation);
+            batch.add(operation);
+        }
+        lastBatchLag = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.queuedTime);
+        notFull.signalAll();
+        return batch;
+    }
+
+    private static String getKey(String key, String type) {
+        return key + KEY_SEPARATOR + type;
+    }
+
+    private static class QueuedOperation {
+
+        private final long queuedTime = System.nanoTime();
+        private SessionContextDO operation;
+
+        private QueuedOperation(SessionContextDO operation) {
+            this.operation = operation;
+        }
+    }
+}
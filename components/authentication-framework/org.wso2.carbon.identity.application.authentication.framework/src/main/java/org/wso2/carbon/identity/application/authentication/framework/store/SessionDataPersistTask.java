@@ -21,18 +21,26 @@ package org.wso2.carbon.identity.application.authentication.framework.store;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.concurrent.BlockingDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Task to persist and remove session data
+ * Task to persist and remove session data. Operations are taken from the coalescing
+ * {@link SessionDataPersistQueue} in batches, and each batch is written through
+ * {@link SessionDataStore#persistSessionData(List)}.
  */
 public class SessionDataPersistTask implements Runnable {
 
     private static final Log log = LogFactory.getLog(SessionDataPersistTask.class);
-    private BlockingDeque<SessionContextDO> sessionContextQueue;
 
-    public SessionDataPersistTask(BlockingDeque<SessionContextDO> sessionContextQueue) {
-        this.sessionContextQueue = sessionContextQueue;
+    private static final AtomicLong persistedBatchCount = new AtomicLong();
+    private static final AtomicLong persistedOperationCount = new AtomicLong();
+    private static volatile long lastBatchLatency;
+
+    private SessionDataPersistQueue sessionDataPersistQueue;
+
+    public SessionDataPersistTask(SessionDataPersistQueue sessionDataPersistQueue) {
+        this.sessionDataPersistQueue = sessionDataPersistQueue;
     }
 
     @Override
@@ -42,26 +50,43 @@ public class SessionDataPersistTask implements Runnable {
 
         while (true) {
 
+            List<SessionContextDO> batch = null;
             try {
-                SessionContextDO sessionContextDO = sessionContextQueue.take();
-                if (sessionContextDO != null) {
-                    if (sessionContextDO.getEntry() == null) {
-                        log.debug("Session Data removing Task is started to run");
-                        SessionDataStore.getInstance().removeSessionData(
-                                sessionContextDO.getKey(), sessionContextDO.getType(), sessionContextDO.getTimestamp());
-                    } else {
-                        log.debug("Session Data persisting Task is started to run");
-                        SessionDataStore.getInstance().persistSessionData(
-                                sessionContextDO.getKey(),sessionContextDO.getType(),
-                                sessionContextDO.getEntry(), sessionContextDO.getTimestamp(),
-                                sessionContextDO.getTenantId());
-                    }
+                batch = sessionDataPersistQueue.take();
+                long startTime = System.currentTimeMillis();
+                SessionDataStore.getInstance().persistSessionData(batch);
+                lastBatchLatency = System.currentTimeMillis() - startTime;
+                persistedBatchCount.incrementAndGet();
+                persistedOperationCount.addAndGet(batch.size());
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Persisted a batch of " + batch.size() + " session data operations in " +
+                              lastBatchLatency + "ms. Queue lag : " + sessionDataPersistQueue.getLastBatchLag() +
+                              "ms, queue depth : " + sessionDataPersistQueue.size());
                 }
             } catch (InterruptedException e) {
                 //ignore
                 log.error(e);
+            } catch (RuntimeException e) {
+                log.error("Error while persisting session data", e);
+            } finally {
+                if (batch != null) {
+                    sessionDataPersistQueue.complete(batch);
+                }
             }
 
         }
     }
+
+    public static long getPersistedBatchCount() {
+        return persistedBatchCount.get();
+    }
+
+    public static long getPersistedOperationCount() {
+        return persistedOperationCount.get();
+    }
+
+    public static long getLastBatchLatency() {
+        return lastBatchLatency;
+    }
 }
@@ -28,23 +28,23 @@ import org.wso2.carbon.identity.application.common.IdentityApplicationManagement
 import org.wso2.carbon.identity.base.IdentityRuntimeException;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectInput;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Date;
-import java.util.concurrent.BlockingDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 
 /**
  * Data will be persisted or stored date will be removed from the store. These two events are considered as STORE operation
@@ -52,6 +52,8 @@ import java.util.concurrent.LinkedBlockingDeque;
  * And these events are stored with unique sessionId, operation type and operation initiated timestamp.
  * Expired DELETE operations and related STORE operations will be deleted by a OperationCleanUpService task.
  * All expired operations will be deleted by SessionCleanUpService task.
+ * Operations are persisted asynchronously through a coalescing {@link SessionDataPersistQueue}, which keeps only the
+ * newest operation of a session until it is written, and writes them in JDBC batches.
  *
  */
 public class SessionDataStore {
@@ -96,11 +98,21 @@ public class SessionDataStore {
     private static final String SQL_DELETE_EXPIRED_DATA_TASK =
             "DELETE FROM IDN_AUTH_SESSION_STORE WHERE TIME_CREATED<?";
 
+    /**
+     * Marks a session data object written by a session serializer. The marker can not be the start of a Java
+     * serialization stream, which starts with 0xACED.
+     */
+    private static final byte[] SERIALIZED_FORMAT_MARKER = {(byte) 0x57, (byte) 0x53};
+    private static final SessionSerializer JAVA_SESSION_SERIALIZER = new JavaSessionSerializer();
+
     private static int maxPoolSize = 100;
+    private static int queueSize = 10000;
+    private static int batchSize = 100;
+    private static long batchLingerTime = 50;
     private long operationCleanUpPeriod = 720;
     private String defaultCleanUpEnabled ="true";
     private String defaultOperationCleanUpEnabled ="false";
-    private static BlockingDeque<SessionContextDO> sessionContextQueue = new LinkedBlockingDeque();
+    private static SessionDataPersistQueue sessionDataPersistQueue;
     private static volatile SessionDataStore instance;
     private boolean enablePersist;
     private String sqlInsertSTORE;
@@ -109,6 +121,11 @@ public class SessionDataStore {
     private String sqlDeleteDELETETask;
     private String sqlSelect;
     private String sqlDeleteExpiredDataTask;
+    private SessionDataCleaner sessionDataCleaner;
+    private boolean customExpiredDataCleanUpSQL;
+    private boolean customOperationCleanUpSQL;
+    private SessionSerializer sessionSerializer;
+    private Map<Byte, SessionSerializer> sessionSerializers = new HashMap<Byte, SessionSerializer>();
 
     static {
         try {
@@ -122,12 +139,37 @@ public class SessionDataStore {
             }
             log.warn("Session data persistence pool size is not configured. Using default value.");
         }
+        try {
+            String queueSizeConfigValue = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist" +
+                                                                   ".QueueSize");
+            if (StringUtils.isNotBlank(queueSizeConfigValue)) {
+                queueSize = Integer.parseInt(queueSizeConfigValue);
+            }
+            String batchSizeConfigValue = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist" +
+                                                                   ".Batch.Size");
+            if (StringUtils.isNotBlank(batchSizeConfigValue)) {
+                batchSize = Integer.parseInt(batchSizeConfigValue);
+            }
+            String lingerTimeConfigValue = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist" +
+                                                                    ".Batch.LingerTime");
+            if (StringUtils.isNotBlank(lingerTimeConfigValue)) {
+                batchLingerTime = Long.parseLong(lingerTimeConfigValue);
+            }
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Exception ignored : ", e);
+            }
+            log.warn("Session data persistence batch configuration is invalid. Using default values.");
+        }
         if (maxPoolSize > 0) {
             log.info("Thread pool size for session persistent consumer : " + maxPoolSize);
+            log.info("Session data persistence queue size : " + queueSize + ", batch size : " + batchSize +
+                     " and linger time : " + batchLingerTime + "ms");
 
+            sessionDataPersistQueue = new SessionDataPersistQueue(queueSize, batchSize, batchLingerTime);
             ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
             for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new SessionDataPersistTask(sessionContextQueue));
+                threadPool.execute(new SessionDataPersistTask(sessionDataPersistQueue));
             }
         }
     }
@@ -162,10 +204,12 @@ public class SessionDataStore {
         }
         if (!StringUtils.isBlank(deleteSTORETaskSQL)) {
             sqlDeleteSTORETask = deleteSTORETaskSQL;
+            customOperationCleanUpSQL = true;
         }
 
         if (!StringUtils.isBlank(deleteDELETETaskSQL)) {
             sqlDeleteDELETETask = deleteDELETETaskSQL;
+            customOperationCleanUpSQL = true;
         } else {
             sqlDeleteDELETETask = SQL_DELETE_DELETE_OPERATIONS_TASK;
         }
@@ -175,10 +219,14 @@ public class SessionDataStore {
 
         if (!StringUtils.isBlank(deleteExpiredDataTaskSQL)) {
             sqlDeleteExpiredDataTask = deleteExpiredDataTaskSQL;
+            customExpiredDataCleanUpSQL = true;
         } else {
             sqlDeleteExpiredDataTask = SQL_DELETE_EXPIRED_DATA_TASK;
         }
 
+        initSessionSerializers();
+        initSessionDataCleaner();
+
         if (!enablePersist) {
             log.info("Session Data Persistence of Authentication framework is not enabled.");
         }
@@ -216,6 +264,78 @@ public class SessionDataStore {
         }
     }
 
+    private void initSessionDataCleaner() {
+
+        int chunkSize = 10000;
+        long chunkPause = 100;
+        long maxRowsPerRun = 0;
+        long maxTimePerRun = 0;
+        try {
+            String chunkSizeVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.CleanUpChunk" +
+                                                           ".Size");
+            if (StringUtils.isNotBlank(chunkSizeVal)) {
+                chunkSize = Integer.parseInt(chunkSizeVal);
+            }
+            String chunkPauseVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.CleanUpChunk" +
+                                                            ".Pause");
+            if (StringUtils.isNotBlank(chunkPauseVal)) {
+                chunkPause = Long.parseLong(chunkPauseVal);
+            }
+            String maxRowsPerRunVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist" +
+                                                               ".CleanUpChunk.MaxRowsPerRun");
+            if (StringUtils.isNotBlank(maxRowsPerRunVal)) {
+                maxRowsPerRun = Long.parseLong(maxRowsPerRunVal);
+            }
+            String maxTimePerRunVal = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist" +
+                                                               ".CleanUpChunk.MaxTimePerRun");
+            if (StringUtils.isNotBlank(maxTimePerRunVal)) {
+                maxTimePerRun = Long.parseLong(maxTimePerRunVal);
+            }
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Exception ignored : ", e);
+            }
+            log.warn("Session data clean up chunk configuration is invalid. Using default values.");
+        }
+        if (chunkSize > 0) {
+            sessionDataCleaner = new SessionDataCleaner(chunkSize, chunkPause, maxRowsPerRun, maxTimePerRun);
+        } else {
+            log.info("Chunked clean up of session data is not enabled.");
+        }
+    }
+
+    private void initSessionSerializers() {
+
+        SessionSerializer compactSessionSerializer = new CompactSessionSerializer();
+        sessionSerializers.put(JAVA_SESSION_SERIALIZER.getFormatId(), JAVA_SESSION_SERIALIZER);
+        sessionSerializers.put(compactSessionSerializer.getFormatId(), compactSessionSerializer);
+        sessionSerializer = JAVA_SESSION_SERIALIZER;
+
+        String serializerClassName = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.Serializer");
+        if (StringUtils.isBlank(serializerClassName)) {
+            return;
+        }
+        try {
+            Class<?> serializerClass = Class.forName(serializerClassName.trim());
+            SessionSerializer serializer = (SessionSerializer) serializerClass.newInstance();
+            SessionSerializer registeredSerializer = sessionSerializers.get(serializer.getFormatId());
+            if (registeredSerializer != null && registeredSerializer.getClass() != serializer.getClass()) {
+                log.error("Format id " + serializer.getFormatId() + " of session serializer " + serializerClassName +
+                          " is already used by " + registeredSerializer.getClass().getName() +
+                          ". Using the default session serializer.");
+                return;
+            }
+            sessionSerializers.put(serializer.getFormatId(), serializer);
+            sessionSerializer = serializer;
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+            log.error("Error while loading session serializer " + serializerClassName +
+                      ". Using the default session serializer.", e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Session serializer : " + sessionSerializer.getClass().getName());
+        }
+    }
+
     public static SessionDataStore getInstance() {
         if (instance == null) {
             synchronized (SessionDataStore.class) {
@@ -227,6 +347,24 @@ public class SessionDataStore {
         return instance;
     }
 
+    /**
+     * Returns the queue through which session data operations are persisted asynchronously.
+     *
+     * @return session data persist queue, or null if session data is persisted synchronously
+     */
+    public SessionDataPersistQueue getSessionDataPersistQueue() {
+        return sessionDataPersistQueue;
+    }
+
+    /**
+     * Returns the cleaner which removes expired session data in chunks.
+     *
+     * @return session data cleaner, or null if expired session data is removed in single statements
+     */
+    public SessionDataCleaner getSessionDataCleaner() {
+        return sessionDataCleaner;
+    }
+
     public Object getSessionData(String key, String type) {
         SessionContextDO sessionContextDO = getSessionContextData(key, type);
         return sessionContextDO != null ? sessionContextDO.getEntry() : null;
@@ -236,6 +374,13 @@ public class SessionDataStore {
         if (!enablePersist) {
             return null;
         }
+        if (sessionDataPersistQueue != null) {
+            // operations which are not persisted yet are newer than any persisted operation
+            SessionContextDO pendingOperation = sessionDataPersistQueue.getPendingOperation(key, type);
+            if (pendingOperation != null) {
+                return pendingOperation.getEntry() != null ? pendingOperation : null;
+            }
+        }
         Connection connection = null;
         try {
             connection = IdentityDatabaseUtil.getDBConnection();
@@ -294,9 +439,8 @@ public class SessionDataStore {
             return;
         }
         Timestamp timestamp = new Timestamp(new Date().getTime());
-        if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, entry, timestamp));
-        } else {
+        if (sessionDataPersistQueue == null ||
+            !queueSessionData(new SessionContextDO(key, type, entry, timestamp, tenantId))) {
             persistSessionData(key, type, entry, timestamp, tenantId);
         }
     }
@@ -306,14 +450,29 @@ public class SessionDataStore {
             return;
         }
         Timestamp timestamp = new Timestamp(new Date().getTime());
-        if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, null, timestamp));
-        } else {
+        if (sessionDataPersistQueue == null ||
+            !queueSessionData(new SessionContextDO(key, type, null, timestamp))) {
             removeSessionData(key, type, timestamp);
         }
     }
 
+    private boolean queueSessionData(SessionContextDO sessionContextDO) {
+
+        try {
+            sessionDataPersistQueue.put(sessionContextDO);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while queueing session data operation. Persisting it synchronously.");
+            return false;
+        }
+    }
+
     public void removeExpiredSessionData(Timestamp timestamp) {
+        if (sessionDataCleaner != null && !customExpiredDataCleanUpSQL) {
+            sessionDataCleaner.removeExpiredSessionData(timestamp.getTime() * 1000000);
+            return;
+        }
         Connection connection = null;
         PreparedStatement statement = null;
         try {
@@ -338,6 +497,10 @@ public class SessionDataStore {
     }
 
     public void removeExpiredOperationData(Timestamp timestamp) {
+        if (sessionDataCleaner != null && !customOperationCleanUpSQL) {
+            sessionDataCleaner.removeExpiredOperationData(timestamp.getTime());
+            return;
+        }
         deleteSTOREOperationsTask(timestamp);
         deleteDELETEOperationsTask(timestamp);
     }
@@ -356,12 +519,7 @@ public class SessionDataStore {
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
 
-        // create a nano time stamp relative to Unix Epoch
-        long currentStandardNano = timestamp.getTime() * 1000000;
-        long currentSystemNano = System.nanoTime();
-
-        currentStandardNano = currentStandardNano + (currentSystemNano - FrameworkServiceDataHolder.getInstance()
-                .getNanoTimeReference());
+        long currentStandardNano = getNanoTimestamp(timestamp);
 
         try {
             preparedStatement = connection.prepareStatement(sqlInsertSTORE);
@@ -382,6 +540,86 @@ public class SessionDataStore {
         }
     }
 
+    /**
+     * Persists a batch of STORE and DELETE operations in a single transaction. If the batch fails, the operations
+     * are retried one by one.
+     *
+     * @param sessionContextDOs operations, where an operation without an entry is a DELETE operation
+     */
+    public void persistSessionData(List<SessionContextDO> sessionContextDOs) {
+        if (!enablePersist || sessionContextDOs.isEmpty()) {
+            return;
+        }
+        Connection connection = null;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+        } catch (IdentityRuntimeException e) {
+            log.error(e.getMessage(), e);
+            return;
+        }
+        PreparedStatement storeStatement = null;
+        PreparedStatement deleteStatement = null;
+        boolean hasStoreOperations = false;
+        boolean hasDeleteOperations = false;
+        try {
+            storeStatement = connection.prepareStatement(sqlInsertSTORE);
+            deleteStatement = connection.prepareStatement(sqlInsertDELETE);
+            for (SessionContextDO sessionContextDO : sessionContextDOs) {
+                if (sessionContextDO.getEntry() == null) {
+                    deleteStatement.setString(1, sessionContextDO.getKey());
+                    deleteStatement.setString(2, sessionContextDO.getType());
+                    deleteStatement.setString(3, OPERATION_DELETE);
+                    deleteStatement.setLong(4, sessionContextDO.getTimestamp().getTime());
+                    deleteStatement.addBatch();
+                    hasDeleteOperations = true;
+                } else {
+                    storeStatement.setString(1, sessionContextDO.getKey());
+                    storeStatement.setString(2, sessionContextDO.getType());
+                    storeStatement.setString(3, OPERATION_STORE);
+                    try {
+                        setBlobObject(storeStatement, sessionContextDO.getEntry(), 4);
+                    } catch (IOException e) {
+                        log.error("Error while serializing session data of session : " + sessionContextDO.getKey(),
+                                  e);
+                        storeStatement.clearParameters();
+                        continue;
+                    }
+                    storeStatement.setLong(5, getNanoTimestamp(sessionContextDO.getTimestamp()));
+                    storeStatement.setInt(6, sessionContextDO.getTenantId());
+                    storeStatement.addBatch();
+                    hasStoreOperations = true;
+                }
+            }
+            if (hasStoreOperations) {
+                storeStatement.executeBatch();
+            }
+            if (hasDeleteOperations) {
+                deleteStatement.executeBatch();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            return;
+        } catch (SQLException e) {
+            log.error("Error while persisting a batch of " + sessionContextDOs.size() + " session data " +
+                      "operations. Retrying them one by one", e);
+            IdentityDatabaseUtil.rollBack(connection);
+        } finally {
+            IdentityDatabaseUtil.closeStatement(storeStatement);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, deleteStatement);
+        }
+
+        for (SessionContextDO sessionContextDO : sessionContextDOs) {
+            if (sessionContextDO.getEntry() == null) {
+                removeSessionData(sessionContextDO.getKey(), sessionContextDO.getType(),
+                                  sessionContextDO.getTimestamp());
+            } else {
+                persistSessionData(sessionContextDO.getKey(), sessionContextDO.getType(), sessionContextDO.getEntry(),
+                                   sessionContextDO.getTimestamp(), sessionContextDO.getTenantId());
+            }
+        }
+    }
+
     public void removeSessionData(String key, String type, Timestamp timestamp) {
         if (!enablePersist) {
             return;
@@ -411,14 +649,27 @@ public class SessionDataStore {
         }
     }
 
+    /**
+     * Creates a nano time stamp relative to Unix Epoch.
+     */
+    private long getNanoTimestamp(Timestamp timestamp) {
+        long currentStandardNano = timestamp.getTime() * 1000000;
+        long currentSystemNano = System.nanoTime();
+        return currentStandardNano + (currentSystemNano - FrameworkServiceDataHolder.getInstance()
+                .getNanoTimeReference());
+    }
+
     private void setBlobObject(PreparedStatement prepStmt, Object value, int index)
             throws SQLException, IOException {
         if (value != null) {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(value);
-            oos.flush();
-            oos.close();
+            // plain Java serialized objects are written untagged, so that they can be read by nodes which do not
+            // know the format marker
+            if (sessionSerializer.getFormatId() != JavaSessionSerializer.FORMAT_ID) {
+                baos.write(SERIALIZED_FORMAT_MARKER);
+                baos.write(sessionSerializer.getFormatId());
+            }
+            sessionSerializer.serialize(value, baos);
             InputStream inputStream = new ByteArrayInputStream(baos.toByteArray());
             prepStmt.setBinaryStream(index, inputStream, inputStream.available());
         } else {
@@ -426,20 +677,42 @@ public class SessionDataStore {
         }
     }
 
+    /**
+     * Reads a session data object. Objects written with a session serializer other than the Java session serializer
+     * start with the format marker and the format id of the serializer. Other objects are plain Java serialized
+     * objects.
+     */
     private Object getBlobObject(InputStream is)
             throws IdentityApplicationManagementException, IOException, ClassNotFoundException {
         if (is != null) {
-            ObjectInput ois = null;
             try {
-                ois = new ObjectInputStream(is);
-                return ois.readObject();
-            } finally {
-                if (ois != null) {
-                    try {
-                        ois.close();
-                    } catch (IOException e) {
-                        log.error("IOException while trying to close ObjectInputStream.", e);
+                InputStream inputStream = is.markSupported() ? is : new BufferedInputStream(is);
+                inputStream.mark(SERIALIZED_FORMAT_MARKER.length);
+                byte[] marker = new byte[SERIALIZED_FORMAT_MARKER.length];
+                int read = 0;
+                while (read < marker.length) {
+                    int count = inputStream.read(marker, read, marker.length - read);
+                    if (count < 0) {
+                        break;
+                    }
+                    read += count;
+                }
+
+                if (read == marker.length && Arrays.equals(marker, SERIALIZED_FORMAT_MARKER)) {
+                    int formatId = inputStream.read();
+                    SessionSerializer serializer = sessionSerializers.get((byte) formatId);
+                    if (serializer == null) {
+                        throw new IOException("No session serializer is registered for the format id : " + formatId);
                     }
+                    return serializer.deserialize(inputStream);
+                }
+                inputStream.reset();
+                return JAVA_SESSION_SERIALIZER.deserialize(inputStream);
+            } finally {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    log.error("IOException while trying to close session data stream.", e);
                 }
             }
         }
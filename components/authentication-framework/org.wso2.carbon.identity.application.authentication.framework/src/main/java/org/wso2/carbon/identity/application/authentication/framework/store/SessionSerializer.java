@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializes the session data objects persisted by the {@link SessionDataStore}. Each serializer has a unique format
+ * id, which is stored along with the serialized object, so that objects written with any registered serializer can
+ * be read back regardless of the serializer which is currently configured.
+ * <p/>
+ * Format ids 1 to 15 are reserved for the serializers of the framework.
+ */
+public interface SessionSerializer {
+
+    /**
+     * Returns the format id of this serializer.
+     *
+     * @return format id
+     */
+    byte getFormatId();
+
+    /**
+     * Serializes the given object into the given stream.
+     *
+     * @param object       session data object
+     * @param outputStream stream to write to
+     * @throws IOException if the object can not be serialized
+     */
+    void serialize(Object object, OutputStream outputStream) throws IOException;
+
+    /**
+     * Deserializes an object from the given stream.
+     *
+     * @param inputStream stream to read from
+     * @return session data object
+     * @throws IOException            if the object can not be deserialized
+     * @throws ClassNotFoundException if a class of the object graph can not be found
+     */
+    Object deserialize(InputStream inputStream) throws IOException, ClassNotFoundException;
+}
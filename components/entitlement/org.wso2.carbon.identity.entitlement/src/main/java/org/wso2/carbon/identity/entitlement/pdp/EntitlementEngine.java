@@ -278,8 +278,31 @@ public class EntitlementEngine {
         }
 
         String xacmlResponse;
+        String cacheKey = xacmlRequest;
+        AbstractRequestCtx requestCtx = null;
 
-        if ((xacmlResponse = getFromCache(xacmlRequest, false)) != null) {
+        if (pdpDecisionCacheEnable) {
+            // key the decision cache on the canonical fingerprint of the request, so that semantically
+            // identical requests share the cached decision
+            try {
+                Element xacmlRequestElement = new PolicyRequestBuilder().getXacmlRequest(xacmlRequest);
+                requestCtx = RequestCtxFactory.getFactory().getRequestCtx(xacmlRequestElement);
+                String fingerprint = RequestFingerprint.generate(requestCtx);
+                if (fingerprint != null) {
+                    cacheKey = fingerprint;
+                }
+            } catch (EntitlementException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while parsing XACML request. Request is evaluated as it is", e);
+                }
+            } catch (ParsingException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while parsing XACML request. Request is evaluated as it is", e);
+                }
+            }
+        }
+
+        if ((xacmlResponse = getFromCache(cacheKey, false)) != null) {
             if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
                 log.debug("XACML Response : " + xacmlResponse);
             }
@@ -290,21 +313,25 @@ public class EntitlementEngine {
                 .getExtensions();
 
         if (extensions != null && !extensions.isEmpty()) {
-            PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
-            Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
-            AbstractRequestCtx requestCtx = RequestCtxFactory.getFactory().
-                    getRequestCtx(xacmlRequestElement);
+            if (requestCtx == null) {
+                PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
+                Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
+                requestCtx = RequestCtxFactory.getFactory().getRequestCtx(xacmlRequestElement);
+            }
             Set<PIPExtension> pipExtensions = extensions.keySet();
             for (PIPExtension pipExtension : pipExtensions) {
                 pipExtension.update(requestCtx);
             }
             ResponseCtx responseCtx = pdp.evaluate(requestCtx);
             xacmlResponse = responseCtx.encode();
+        } else if (requestCtx != null) {
+            ResponseCtx responseCtx = pdp.evaluate(requestCtx);
+            xacmlResponse = responseCtx.encode();
         } else {
             xacmlResponse = pdp.evaluate(xacmlRequest);
         }
 
-        addToCache(xacmlRequest, xacmlResponse, false);
+        addToCache(cacheKey, xacmlResponse, false);
 
         if (log.isDebugEnabled() && IdentityUtil.isTokenLoggable(IdentityConstants.IdentityTokens.XACML_RESPONSE)) {
             log.debug("XACML Response : " + xacmlResponse);
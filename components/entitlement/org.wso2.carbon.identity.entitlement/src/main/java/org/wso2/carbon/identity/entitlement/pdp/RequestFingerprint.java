@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.pdp;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.ctx.xacml3.RequestCtx;
+import org.wso2.balana.xacml3.Attributes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Builds a canonical fingerprint of a parsed XACML request, to be used as the decision cache key. The fingerprint
+ * is a SHA-256 hash over the sorted list of attributes groups of the request, each made of its category and the
+ * sorted (attribute id, data type, issuer, include in result, value) entries of the group. Requests which only differ
+ * in whitespace, attribute or group order, or namespace prefixes get the same fingerprint, while a request with two
+ * groups of the same category does not get the fingerprint of a request with the groups merged.
+ * <p/>
+ * Requests whose decision may depend on more than their attribute values, i.e. requests with attribute content,
+ * multi requests or request defaults, are not fingerprinted.
+ */
+public class RequestFingerprint {
+
+    private static Log log = LogFactory.getLog(RequestFingerprint.class);
+
+    private static final char SEPARATOR = '\u0000';
+    private static final char GROUP_SEPARATOR = '\u0001';
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private RequestFingerprint() {
+    }
+
+    /**
+     * Generates the fingerprint of the given request.
+     *
+     * @param requestCtx parsed XACML request
+     * @return fingerprint as a hex string, or null if the request can not be fingerprinted
+     */
+    public static String generate(AbstractRequestCtx requestCtx) {
+
+        Set<Attributes> attributesSet = requestCtx.getAttributesSet();
+        if (attributesSet == null) {
+            return null;
+        }
+
+        StringBuilder header = new StringBuilder();
+        header.append(requestCtx.getXacmlVersion());
+        if (requestCtx instanceof RequestCtx) {
+            RequestCtx xacml3RequestCtx = (RequestCtx) requestCtx;
+            if (xacml3RequestCtx.getMultiRequests() != null || xacml3RequestCtx.getDefaults() != null) {
+                return null;
+            }
+            header.append(SEPARATOR).append(xacml3RequestCtx.isReturnPolicyIdList())
+                    .append(SEPARATOR).append(xacml3RequestCtx.isCombinedDecision());
+        }
+
+        List<String> groups = new ArrayList<String>();
+        for (Attributes attributes : attributesSet) {
+            if (attributes.getContent() != null || attributes.getId() != null) {
+                return null;
+            }
+            List<String> entries = new ArrayList<String>();
+            for (Attribute attribute : attributes.getAttributes()) {
+                String attributePrefix = attribute.getId() + SEPARATOR + attribute.getType() + SEPARATOR +
+                                         attribute.getIssuer() + SEPARATOR + attribute.isIncludeInResult() +
+                                         SEPARATOR;
+                List<AttributeValue> values = attribute.getValues();
+                if (values == null || values.isEmpty()) {
+                    entries.add(attributePrefix);
+                    continue;
+                }
+                for (AttributeValue value : values) {
+                    entries.add(attributePrefix + value.getType() + SEPARATOR + value.encode());
+                }
+            }
+            Collections.sort(entries);
+
+            StringBuilder group = new StringBuilder(String.valueOf(attributes.getCategory()));
+            for (String entry : entries) {
+                group.append('\n').append(entry);
+            }
+            groups.add(group.toString());
+        }
+        Collections.sort(groups);
+
+        StringBuilder canonicalRequest = header;
+        for (String group : groups) {
+            canonicalRequest.append(GROUP_SEPARATOR).append(group);
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return toHex(digest.digest(canonicalRequest.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Error while generating XACML request fingerprint", e);
+            return null;
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(hex);
+    }
+}
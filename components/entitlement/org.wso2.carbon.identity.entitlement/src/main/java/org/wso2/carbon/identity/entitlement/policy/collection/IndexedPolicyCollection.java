@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.policy.collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.AbstractPolicy;
+import org.wso2.balana.MatchResult;
+import org.wso2.balana.Policy;
+import org.wso2.balana.PolicyReference;
+import org.wso2.balana.PolicySet;
+import org.wso2.balana.VersionConstraints;
+import org.wso2.balana.combine.PolicyCombiningAlgorithm;
+import org.wso2.balana.ctx.EvaluationCtx;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Policy collection which indexes the targets of the policies by (category, attribute id, data type, literal value),
+ * so that only the candidate policies of a request are matched against it, instead of every policy in the
+ * collection.
+ * <p/>
+ * A policy is indexed on the first <code>AnyOf</code> element of its target, in which every <code>AllOf</code>
+ * element contains an equality match of a literal value against an attribute designator. Such a policy can only
+ * match a request which carries one of those values, or which does not carry the attribute at all, in which case
+ * the attribute may still be resolved by an attribute finder. Policies which can not be indexed are matched
+ * against every request. The index is maintained incrementally as policies are added, deleted and re-ordered.
+ */
+public class IndexedPolicyCollection implements PolicyCollection {
+
+    private static Log log = LogFactory.getLog(IndexedPolicyCollection.class);
+
+    /**
+     * the actual collection of policies, in policy order
+     */
+    private LinkedHashMap<URI, AbstractPolicy> policyCollection = new LinkedHashMap<URI, AbstractPolicy>();
+    /**
+     * position of each policy in the policy order, used to order the candidate policies of a request
+     */
+    private Map<URI, Integer> policyPositions = new HashMap<URI, Integer>();
+    private int nextPosition;
+    /**
+     * attribute key -> attribute value -> identifiers of the policies indexed on that value
+     */
+    private Map<String, Map<String, Set<URI>>> targetIndex = new HashMap<String, Map<String, Set<URI>>>();
+    /**
+     * attribute key -> identifiers of all the policies indexed on that attribute
+     */
+    private Map<String, Set<URI>> attributePolicies = new HashMap<String, Set<URI>>();
+    /**
+     * policy identifier -> index keys of the policy, used to remove a policy from the index
+     */
+    private Map<URI, List<TargetKey>> policyTargetKeys = new HashMap<URI, List<TargetKey>>();
+    /**
+     * policies which must be matched against every request
+     */
+    private Set<URI> unindexedPolicies = new LinkedHashSet<URI>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * the optional combining algorithm used when wrapping multiple policies
+     * if no algorithm is defined, only one applicable algorithm is used
+     */
+    private PolicyCombiningAlgorithm combiningAlg;
+    /**
+     * the optional policy id used when wrapping multiple policies
+     */
+    private URI parentId;
+
+    @Override
+    public void init(Properties properties) throws Exception {
+        String parentIdProperty = properties.getProperty("parentId");
+        if (parentIdProperty != null) {
+            parentId = new URI(parentIdProperty);
+        }
+    }
+
+    @Override
+    public boolean addPolicy(AbstractPolicy policy) {
+
+        URI identifier = policy.getId();
+        lock.writeLock().lock();
+        try {
+            AbstractPolicy oldPolicy = policyCollection.put(identifier, policy);
+            if (oldPolicy != null) {
+                unindexPolicy(identifier);
+            } else {
+                policyPositions.put(identifier, nextPosition++);
+            }
+            indexPolicy(identifier, policy);
+            return oldPolicy != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public AbstractPolicy getEffectivePolicy(EvaluationCtx context) throws EntitlementException {
+
+        List<AbstractPolicy> candidates = getCandidatePolicies(context);
+
+        // setup a list of matching policies
+        ArrayList<AbstractPolicy> list = new ArrayList<AbstractPolicy>();
+
+        for (AbstractPolicy policy : candidates) {
+
+            // see if we match
+            MatchResult match = policy.match(context);
+            int result = match.getResult();
+
+            // if there was an error, we stop right away
+            if (result == MatchResult.INDETERMINATE) {
+                log.error(match.getStatus().getMessage());
+                throw new EntitlementException(match.getStatus().getMessage());
+            }
+
+            if (result == MatchResult.MATCH) {
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Matching XACML policy found " + policy.getId().toString());
+                }
+
+                if ((combiningAlg == null) && (list.size() > 0)) {
+                    log.error("Too many applicable top-level policies");
+                    throw new EntitlementException("Too many applicable top-level policies");
+                }
+
+                list.add(policy);
+            }
+        }
+
+        switch (list.size()) {
+            case 0:
+                if (log.isDebugEnabled()) {
+                    log.debug("No matching XACML policy found");
+                }
+                return null;
+            case 1:
+                return list.get(0);
+            default:
+                return new PolicySet(parentId, combiningAlg, null, list);
+        }
+    }
+
+    @Override
+    public AbstractPolicy getPolicy(URI policyId) {
+
+        lock.readLock().lock();
+        try {
+            return policyCollection.get(policyId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public AbstractPolicy getPolicy(URI identifier, int type, VersionConstraints constraints) {
+
+        AbstractPolicy policy = getPolicy(identifier);
+
+        if (policy != null) {
+            if (type == PolicyReference.POLICY_REFERENCE) {
+                if (policy instanceof Policy) {
+                    return policy;
+                }
+            } else {
+                if (policy instanceof PolicySet) {
+                    return policy;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void setPolicyCombiningAlgorithm(PolicyCombiningAlgorithm algorithm) {
+        this.combiningAlg = algorithm;
+    }
+
+    @Override
+    public boolean deletePolicy(String policyId) {
+
+        URI identifier;
+        try {
+            identifier = new URI(policyId);
+        } catch (URISyntaxException e) {
+            log.error("Invalid policy identifier : " + policyId, e);
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (policyCollection.remove(identifier) == null) {
+                return false;
+            }
+            unindexPolicy(identifier);
+            policyPositions.remove(identifier);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public LinkedHashMap getPolicyMap() {
+        return this.policyCollection;
+    }
+
+    /**
+     * Replaces the policies of the collection with the given ordered policy map. Only the policies which have been
+     * added or removed are re-indexed, and the policy order is taken from the iteration order of the map.
+     *
+     * @param policyMap map of policy identifier to policy, in policy order
+     */
+    @Override
+    public void setPolicyMap(LinkedHashMap policyMap) {
+
+        LinkedHashMap<URI, AbstractPolicy> newPolicyCollection = new LinkedHashMap<URI, AbstractPolicy>();
+        for (Object entryObject : policyMap.entrySet()) {
+            Map.Entry entry = (Map.Entry) entryObject;
+            if (entry.getKey() instanceof URI && entry.getValue() instanceof AbstractPolicy) {
+                newPolicyCollection.put((URI) entry.getKey(), (AbstractPolicy) entry.getValue());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (URI identifier : policyCollection.keySet()) {
+                if (newPolicyCollection.get(identifier) != policyCollection.get(identifier)) {
+                    unindexPolicy(identifier);
+                }
+            }
+            for (Map.Entry<URI, AbstractPolicy> entry : newPolicyCollection.entrySet()) {
+                if (policyCollection.get(entry.getKey()) != entry.getValue()) {
+                    indexPolicy(entry.getKey(), entry.getValue());
+                }
+            }
+
+            policyPositions.clear();
+            nextPosition = 0;
+            for (URI identifier : newPolicyCollection.keySet()) {
+                policyPositions.put(identifier, nextPosition++);
+            }
+            policyCollection = newPolicyCollection;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the policies which may match the given request, in policy order. These are the policies indexed on a
+     * value carried by the request, the policies indexed on an attribute not carried by the request, and the
+     * policies which are not indexed.
+     *
+     * @param context XACML request ctx
+     * @return candidate policies
+     */
+    private List<AbstractPolicy> getCandidatePolicies(EvaluationCtx context) {
+
+        Map<String, List<String>> requestValues = TargetKey.getRequestValues(context.getRequestCtx());
+
+        lock.readLock().lock();
+        try {
+            Set<URI> candidateIds = new HashSet<URI>(unindexedPolicies);
+            for (Map.Entry<String, Map<String, Set<URI>>> entry : targetIndex.entrySet()) {
+                List<String> values = requestValues.get(entry.getKey());
+                if (values == null) {
+                    candidateIds.addAll(attributePolicies.get(entry.getKey()));
+                    continue;
+                }
+                for (String value : values) {
+                    Set<URI> policyIds = entry.getValue().get(value);
+                    if (policyIds != null) {
+                        candidateIds.addAll(policyIds);
+                    }
+                }
+            }
+
+            List<URI> orderedIds = new ArrayList<URI>(candidateIds);
+            Collections.sort(orderedIds, new Comparator<URI>() {
+                @Override
+                public int compare(URI o1, URI o2) {
+                    return policyPositions.get(o1).compareTo(policyPositions.get(o2));
+                }
+            });
+
+            List<AbstractPolicy> candidates = new ArrayList<AbstractPolicy>(orderedIds.size());
+            for (URI identifier : orderedIds) {
+                candidates.add(policyCollection.get(identifier));
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug(candidates.size() + " candidate XACML policies found out of " + policyCollection.size());
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexPolicy(URI identifier, AbstractPolicy policy) {
+
+        List<TargetKey> targetKeys = TargetKey.getTargetKeys(policy);
+        if (targetKeys == null) {
+            unindexedPolicies.add(identifier);
+            return;
+        }
+
+        policyTargetKeys.put(identifier, targetKeys);
+        for (TargetKey targetKey : targetKeys) {
+            Map<String, Set<URI>> valueIndex = targetIndex.get(targetKey.getAttributeKey());
+            if (valueIndex == null) {
+                valueIndex = new HashMap<String, Set<URI>>();
+                targetIndex.put(targetKey.getAttributeKey(), valueIndex);
+                attributePolicies.put(targetKey.getAttributeKey(), new HashSet<URI>());
+            }
+            Set<URI> policyIds = valueIndex.get(targetKey.getValue());
+            if (policyIds == null) {
+                policyIds = new HashSet<URI>();
+                valueIndex.put(targetKey.getValue(), policyIds);
+            }
+            policyIds.add(identifier);
+            attributePolicies.get(targetKey.getAttributeKey()).add(identifier);
+        }
+    }
+
+    private void unindexPolicy(URI identifier) {
+
+        unindexedPolicies.remove(identifier);
+        List<TargetKey> targetKeys = policyTargetKeys.remove(identifier);
+        if (targetKeys == null) {
+            return;
+        }
+
+        for (TargetKey targetKey : targetKeys) {
+            Map<String, Set<URI>> valueIndex = targetIndex.get(targetKey.getAttributeKey());
+            if (valueIndex == null) {
+                continue;
+            }
+            Set<URI> policyIds = valueIndex.get(targetKey.getValue());
+            if (policyIds != null) {
+                policyIds.remove(identifier);
+                if (policyIds.isEmpty()) {
+                    valueIndex.remove(targetKey.getValue());
+                }
+            }
+            Set<URI> indexedPolicies = attributePolicies.get(targetKey.getAttributeKey());
+            indexedPolicies.remove(identifier);
+            if (indexedPolicies.isEmpty()) {
+                targetIndex.remove(targetKey.getAttributeKey());
+                attributePolicies.remove(targetKey.getAttributeKey());
+            }
+        }
+    }
+}
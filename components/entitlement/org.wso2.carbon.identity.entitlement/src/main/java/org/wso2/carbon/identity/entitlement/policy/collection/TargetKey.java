@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.entitlement.policy.collection;
+
+import org.wso2.balana.AbstractPolicy;
+import org.wso2.balana.AbstractTarget;
+import org.wso2.balana.TargetMatch;
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.attr.xacml3.AttributeDesignator;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.xacml3.AllOfSelection;
+import org.wso2.balana.xacml3.AnyOfSelection;
+import org.wso2.balana.xacml3.Attributes;
+import org.wso2.balana.xacml3.Target;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index key of a policy target, which is an attribute key of (category, attribute id, data type) and the literal
+ * value a policy target compares the attribute with.
+ * <p/>
+ * The keys of a policy are taken from the first <code>AnyOf</code> element of its target, in which every
+ * <code>AllOf</code> element contains an equality match of a literal value against an attribute designator. Such a
+ * policy can only match a request which carries one of those values, or which does not carry the attribute at all.
+ */
+public class TargetKey {
+
+    private static final Set<String> INDEXABLE_FUNCTIONS = new HashSet<String>(Arrays.asList(
+            "urn:oasis:names:tc:xacml:1.0:function:string-equal",
+            "urn:oasis:names:tc:xacml:2.0:function:anyURI-equal",
+            "urn:oasis:names:tc:xacml:1.0:function:anyURI-equal"));
+
+    private static final char SEPARATOR = '\u0000';
+
+    private String attributeKey;
+    private String value;
+
+    public TargetKey(String attributeKey, String value) {
+        this.attributeKey = attributeKey;
+        this.value = value;
+    }
+
+    public String getAttributeKey() {
+        return attributeKey;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Finds the index keys of the given policy.
+     *
+     * @param policy policy
+     * @return index keys, or null if the policy can not be indexed
+     */
+    public static List<TargetKey> getTargetKeys(AbstractPolicy policy) {
+
+        AbstractTarget target = policy.getTarget();
+        if (!(target instanceof Target)) {
+            return null;
+        }
+        List<AnyOfSelection> anyOfSelections = ((Target) target).getAnyOfSelections();
+        if (anyOfSelections == null) {
+            return null;
+        }
+
+        for (AnyOfSelection anyOfSelection : anyOfSelections) {
+            List<AllOfSelection> allOfSelections = anyOfSelection.getAllOfSelections();
+            if (allOfSelections == null || allOfSelections.isEmpty()) {
+                continue;
+            }
+            List<TargetKey> targetKeys = new ArrayList<TargetKey>();
+            for (AllOfSelection allOfSelection : allOfSelections) {
+                TargetKey targetKey = getTargetKey(allOfSelection);
+                if (targetKey == null) {
+                    targetKeys = null;
+                    break;
+                }
+                targetKeys.add(targetKey);
+            }
+            if (targetKeys != null) {
+                return targetKeys;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collects the attribute values carried by the given request, as encoded values by attribute key.
+     *
+     * @param requestCtx XACML request
+     * @return map of attribute key to encoded attribute values
+     */
+    public static Map<String, List<String>> getRequestValues(AbstractRequestCtx requestCtx) {
+
+        Map<String, List<String>> requestValues = new HashMap<String, List<String>>();
+        Set<Attributes> attributesSet = requestCtx.getAttributesSet();
+        if (attributesSet == null) {
+            return requestValues;
+        }
+        for (Attributes attributes : attributesSet) {
+            for (Attribute attribute : attributes.getAttributes()) {
+                List<AttributeValue> values = attribute.getValues();
+                if (values == null) {
+                    continue;
+                }
+                for (AttributeValue value : values) {
+                    String attributeKey = getAttributeKey(attributes.getCategory(), attribute.getId(),
+                                                          value.getType());
+                    List<String> encodedValues = requestValues.get(attributeKey);
+                    if (encodedValues == null) {
+                        encodedValues = new ArrayList<String>();
+                        requestValues.put(attributeKey, encodedValues);
+                    }
+                    encodedValues.add(value.encode());
+                }
+            }
+        }
+        return requestValues;
+    }
+
+    private static TargetKey getTargetKey(AllOfSelection allOfSelection) {
+
+        List<TargetMatch> matches = allOfSelection.getMatches();
+        if (matches == null) {
+            return null;
+        }
+        for (TargetMatch match : matches) {
+            if (match.getMatchFunction() == null || match.getMatchValue() == null ||
+                !INDEXABLE_FUNCTIONS.contains(match.getMatchFunction().getIdentifier().toString()) ||
+                !(match.getMatchEvaluatable() instanceof AttributeDesignator)) {
+                continue;
+            }
+            AttributeDesignator designator = (AttributeDesignator) match.getMatchEvaluatable();
+            AttributeValue matchValue = match.getMatchValue();
+            if (!matchValue.getType().equals(designator.getType())) {
+                continue;
+            }
+            return new TargetKey(getAttributeKey(designator.getCategory(), designator.getId(),
+                                                 designator.getType()), matchValue.encode());
+        }
+        return null;
+    }
+
+    private static String getAttributeKey(URI category, URI attributeId, URI dataType) {
+        return String.valueOf(category) + SEPARATOR + attributeId + SEPARATOR + dataType;
+    }
+}
@@ -236,10 +236,10 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
                 if (policies.size() > 0) {
                     synchronized (policies) {
                         boolean isReorder = false;
-                        policyReferenceCache.clear();
-                        EntitlementEngine.getInstance().clearDecisionCache();
                         for (PolicyStatus policyStatus : policies) {
 
+                            removeFromPolicyReferenceCache(policyStatus.getPolicyId());
+
                             if (EntitlementConstants.PolicyPublish.ACTION_DELETE
                                     .equals(policyStatus.getPolicyAction())) {
                                 policyCollection.deletePolicy(policyStatus.getPolicyId());
@@ -270,6 +270,9 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
                         if (isReorder) {
                             orderPolicyCache();
                         }
+                        // cached decisions are shared by the cluster, so a decision cached by any node may
+                        // depend on the changed policies
+                        EntitlementEngine.getInstance().clearDecisionCache();
                         policies.clear();
                     }
 
@@ -294,6 +297,17 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
     }
 
 
+    private void removeFromPolicyReferenceCache(String policyId) {
+        try {
+            policyReferenceCache.remove(new URI(policyId));
+        } catch (URISyntaxException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Invalid policy identifier : " + policyId + ". Clearing policy reference cache", e);
+            }
+            policyReferenceCache.clear();
+        }
+    }
+
     private AbstractPolicy loadPolicy(String policyId) {
         if (this.finderModules != null) {
             for (PolicyFinderModule finderModule : this.finderModules) {
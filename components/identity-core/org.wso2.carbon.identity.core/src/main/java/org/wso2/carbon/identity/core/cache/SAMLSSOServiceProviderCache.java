@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.model.IdentityCacheConfig;
+import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import javax.cache.Cache;
+import javax.cache.CacheConfiguration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.Status;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the SAML SSO service provider configurations stored in the registry, by issuer and tenant. Entries are
+ * removed by the {@link org.wso2.carbon.identity.core.persistence.IdentityPersistenceManager} whenever a service
+ * provider is added or removed, whichever component makes the change. The cache is distributed, so removals reach
+ * all the nodes of a cluster.
+ * <p/>
+ * The cached configurations are shared by all the readers, so they must not be modified.
+ */
+public class SAMLSSOServiceProviderCache {
+
+    private static final String CACHE_MANAGER_NAME = "IdentityApplicationManagementCacheManager";
+    private static final String CACHE_NAME = "SAMLSSOServiceProviderCache";
+    private static final SAMLSSOServiceProviderCache instance = new SAMLSSOServiceProviderCache();
+
+    private final Object cacheLock = new Object();
+    private volatile Cache<SAMLSSOServiceProviderCacheKey, SAMLSSOServiceProviderDO> cacheHandle;
+
+    private SAMLSSOServiceProviderCache() {
+    }
+
+    public static SAMLSSOServiceProviderCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param key issuer and tenant of the service provider
+     * @return cached configuration of the service provider, or null if it is not cached
+     */
+    public SAMLSSOServiceProviderDO getValueFromCache(SAMLSSOServiceProviderCacheKey key) {
+
+        if (!isEnabled()) {
+            return null;
+        }
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            startSuperTenantFlow();
+            return getCache().get(key);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * @param key             issuer and tenant of the service provider
+     * @param serviceProvider configuration of the service provider
+     */
+    public void addToCache(SAMLSSOServiceProviderCacheKey key, SAMLSSOServiceProviderDO serviceProvider) {
+
+        if (!isEnabled()) {
+            return;
+        }
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            startSuperTenantFlow();
+            getCache().put(key, serviceProvider);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * @param key issuer and tenant of the service provider
+     */
+    public void clearCacheEntry(SAMLSSOServiceProviderCacheKey key) {
+
+        if (!isEnabled()) {
+            return;
+        }
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            startSuperTenantFlow();
+            getCache().remove(key);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void startSuperTenantFlow() {
+
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    /**
+     * Returns the underlying cache. Needs to be called within the super tenant flow.
+     */
+    private Cache<SAMLSSOServiceProviderCacheKey, SAMLSSOServiceProviderDO> getCache() {
+
+        Cache<SAMLSSOServiceProviderCacheKey, SAMLSSOServiceProviderDO> cache = cacheHandle;
+        if (cache != null && cache.getStatus() == Status.STARTED) {
+            return cache;
+        }
+        synchronized (cacheLock) {
+            cache = cacheHandle;
+            if (cache != null && cache.getStatus() == Status.STARTED) {
+                return cache;
+            }
+            CacheManager cacheManager = Caching.getCacheManagerFactory().getCacheManager(CACHE_MANAGER_NAME);
+            int cacheTimeout = getCacheTimeout();
+            if (cacheTimeout > 0) {
+                cacheManager.removeCache(CACHE_NAME);
+                cache = cacheManager.<SAMLSSOServiceProviderCacheKey, SAMLSSOServiceProviderDO>createCacheBuilder(
+                        CACHE_NAME).
+                        setExpiry(CacheConfiguration.ExpiryType.ACCESSED,
+                                new CacheConfiguration.Duration(TimeUnit.SECONDS, cacheTimeout)).
+                        setExpiry(CacheConfiguration.ExpiryType.MODIFIED,
+                                new CacheConfiguration.Duration(TimeUnit.SECONDS, cacheTimeout)).
+                        setStoreByValue(false).build();
+            } else {
+                cache = cacheManager.getCache(CACHE_NAME);
+            }
+            cacheHandle = cache;
+        }
+        return cache;
+    }
+
+    private boolean isEnabled() {
+        IdentityCacheConfig cacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, CACHE_NAME);
+        return cacheConfig == null || cacheConfig.isEnabled();
+    }
+
+    private int getCacheTimeout() {
+        IdentityCacheConfig cacheConfig = IdentityUtil.getIdentityCacheConfig(CACHE_MANAGER_NAME, CACHE_NAME);
+        return cacheConfig != null && cacheConfig.getTimeout() > 0 ? cacheConfig.getTimeout() : -1;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.cache;
+
+import java.io.Serializable;
+
+public class SAMLSSOServiceProviderCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 3262395848146826185L;
+
+    private String issuer;
+    private int tenantId;
+
+    public SAMLSSOServiceProviderCacheKey(String issuer, int tenantId) {
+        this.issuer = issuer;
+        this.tenantId = tenantId;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public int getTenantId() {
+        return tenantId;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((issuer == null) ? 0 : issuer.hashCode());
+        result = prime * result + tenantId;
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        SAMLSSOServiceProviderCacheKey other = (SAMLSSOServiceProviderCacheKey) obj;
+        if (issuer == null) {
+            if (other.issuer != null)
+                return false;
+        } else if (!issuer.equals(other.issuer))
+            return false;
+        return tenantId == other.tenantId;
+    }
+}
@@ -17,7 +17,10 @@
 */
 package org.wso2.carbon.identity.core.persistence;
 
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.cache.SAMLSSOServiceProviderCache;
+import org.wso2.carbon.identity.core.cache.SAMLSSOServiceProviderCacheKey;
 import org.wso2.carbon.identity.core.dao.OpenIDAdminDAO;
 import org.wso2.carbon.identity.core.dao.OpenIDUserDAO;
 import org.wso2.carbon.identity.core.dao.ParameterDAO;
@@ -29,6 +32,7 @@ import org.wso2.carbon.identity.core.model.ParameterDO;
 import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.model.XMPPSettingsDO;
 import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.session.UserRegistry;
 import org.wso2.carbon.user.core.UserRealm;
 
 public class IdentityPersistenceManager {
@@ -238,7 +242,11 @@ public class IdentityPersistenceManager {
     public boolean addServiceProvider(Registry registry, SAMLSSOServiceProviderDO serviceProviderDO)
             throws IdentityException {
         SAMLSSOServiceProviderDAO serviceProviderDAO = new SAMLSSOServiceProviderDAO(registry);
-        return serviceProviderDAO.addServiceProvider(serviceProviderDO);
+        boolean isAdded = serviceProviderDAO.addServiceProvider(serviceProviderDO);
+        if (isAdded) {
+            clearServiceProviderCache(registry, serviceProviderDO.getIssuer());
+        }
+        return isAdded;
     }
 
     /**
@@ -255,7 +263,11 @@ public class IdentityPersistenceManager {
 
     public boolean removeServiceProvider(Registry registry, String issuer) throws IdentityException {
         SAMLSSOServiceProviderDAO serviceProviderDAO = new SAMLSSOServiceProviderDAO(registry);
-        return serviceProviderDAO.removeServiceProvider(issuer);
+        try {
+            return serviceProviderDAO.removeServiceProvider(issuer);
+        } finally {
+            clearServiceProviderCache(registry, issuer);
+        }
     }
 
     public SAMLSSOServiceProviderDO getServiceProvider(Registry registry, String issuer)
@@ -264,6 +276,42 @@ public class IdentityPersistenceManager {
         return serviceProviderDAO.getServiceProvider(issuer);
     }
 
+    /**
+     * Returns the service provider from the {@link SAMLSSOServiceProviderCache}, reading it from the registry if it
+     * is not cached. Only existing service providers are cached.
+     *
+     * @param registry registry of the tenant of the service provider
+     * @param issuer   issuer of the service provider
+     * @return the service provider, or null if there is none. It is shared and must not be modified.
+     * @throws IdentityException
+     */
+    public SAMLSSOServiceProviderDO getCachedServiceProvider(Registry registry, String issuer)
+            throws IdentityException {
+
+        SAMLSSOServiceProviderCacheKey cacheKey = new SAMLSSOServiceProviderCacheKey(issuer, getTenantId(registry));
+        SAMLSSOServiceProviderDO serviceProviderDO = SAMLSSOServiceProviderCache.getInstance()
+                .getValueFromCache(cacheKey);
+        if (serviceProviderDO == null) {
+            serviceProviderDO = getServiceProvider(registry, issuer);
+            if (serviceProviderDO != null) {
+                SAMLSSOServiceProviderCache.getInstance().addToCache(cacheKey, serviceProviderDO);
+            }
+        }
+        return serviceProviderDO;
+    }
+
+    private void clearServiceProviderCache(Registry registry, String issuer) {
+        SAMLSSOServiceProviderCache.getInstance().clearCacheEntry(
+                new SAMLSSOServiceProviderCacheKey(issuer, getTenantId(registry)));
+    }
+
+    private int getTenantId(Registry registry) {
+        if (registry instanceof UserRegistry) {
+            return ((UserRegistry) registry).getTenantId();
+        }
+        return PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+    }
+
     public boolean isServiceProviderExists(Registry registry, String issuer) throws IdentityException {
         SAMLSSOServiceProviderDAO serviceProviderDAO = new SAMLSSOServiceProviderDAO(registry);
         return serviceProviderDAO.isServiceProviderExists(issuer);
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.core.util;
+
+import org.apache.xerces.impl.Constants;
+import org.apache.xerces.util.SecurityManager;
+import org.opensaml.Configuration;
+import org.opensaml.xml.XMLObject;
+import org.opensaml.xml.io.Marshaller;
+import org.opensaml.xml.io.MarshallingException;
+import org.opensaml.xml.io.Unmarshaller;
+import org.opensaml.xml.io.UnmarshallerFactory;
+import org.opensaml.xml.io.UnmarshallingException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.bootstrap.DOMImplementationRegistry;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSOutput;
+import org.w3c.dom.ls.LSSerializer;
+import org.wso2.carbon.identity.base.CarbonEntityResolver;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses and serializes SAML and other XML messages with secured, reusable parsers. The document builder factory
+ * and the DOM implementation are created once. Document builders and serializers are not thread safe, so each
+ * thread keeps its own instance and resets it before it is used again. The entity expansion limit, secure
+ * processing and the entity resolver are applied to every parse, as done when a new factory was created per
+ * message.
+ */
+public class IdentityXMLUtil {
+
+    private static final String SECURITY_MANAGER_PROPERTY = Constants.XERCES_PROPERTY_PREFIX +
+            Constants.SECURITY_MANAGER_PROPERTY;
+    private static final int ENTITY_EXPANSION_LIMIT = 0;
+
+    private static volatile DocumentBuilderFactory documentBuilderFactory;
+    private static volatile DOMImplementationLS domImplementationLS;
+
+    private static ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>();
+    private static ThreadLocal<LSSerializer> serializer = new ThreadLocal<LSSerializer>();
+
+    private IdentityXMLUtil() {
+    }
+
+    /**
+     * Get a secured, namespace aware document builder of the current thread. The builder must not be passed to
+     * other threads, and is reset at the next call from the same thread.
+     *
+     * @return document builder
+     * @throws ParserConfigurationException Error when creating the document builder
+     */
+    public static DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+
+        DocumentBuilder builder = documentBuilder.get();
+        if (builder == null) {
+            DocumentBuilderFactory factory = getDocumentBuilderFactory();
+            // DocumentBuilderFactory is not guaranteed to be thread safe
+            synchronized (factory) {
+                builder = factory.newDocumentBuilder();
+            }
+            documentBuilder.set(builder);
+        } else {
+            builder.reset();
+        }
+        // reset() brings back the entity resolver of the factory, hence set for every use
+        builder.setEntityResolver(new CarbonEntityResolver());
+        return builder;
+    }
+
+    /**
+     * Parse the given XML string
+     *
+     * @param xmlString XML string
+     * @return parsed document
+     * @throws ParserConfigurationException Error when creating the document builder
+     * @throws SAXException                 Error when parsing the XML string
+     * @throws IOException                  Error when reading the XML string
+     */
+    public static Document parse(String xmlString) throws ParserConfigurationException, SAXException, IOException {
+
+        return parse(new ByteArrayInputStream(xmlString.trim().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parse the XML content of the given stream. The stream is not closed.
+     *
+     * @param inputStream XML content
+     * @return parsed document
+     * @throws ParserConfigurationException Error when creating the document builder
+     * @throws SAXException                 Error when parsing the XML content
+     * @throws IOException                  Error when reading the stream
+     */
+    public static Document parse(InputStream inputStream) throws ParserConfigurationException, SAXException,
+            IOException {
+
+        return getDocumentBuilder().parse(inputStream);
+    }
+
+    /**
+     * Constructing the SAML or XACML Objects from a String
+     *
+     * @param xmlString Decoded SAML or XACML String
+     * @return SAML or XACML Object
+     * @throws IdentityException Error when parsing or unmarshalling the XML string
+     */
+    public static XMLObject unmarshall(String xmlString) throws IdentityException {
+
+        try {
+            Element element = parse(xmlString).getDocumentElement();
+            UnmarshallerFactory unmarshallerFactory = Configuration.getUnmarshallerFactory();
+            Unmarshaller unmarshaller = unmarshallerFactory.getUnmarshaller(element);
+            return unmarshaller.unmarshall(element);
+        } catch (ParserConfigurationException | UnmarshallingException | SAXException | IOException e) {
+            String message = "Error in constructing XML Object from the encoded String";
+            throw new IdentityException(message, e);
+        }
+    }
+
+    /**
+     * Serialize the SAML or XACML Object into a String. An object that is not marshalled yet is marshalled into a
+     * document of the secured document builder.
+     *
+     * @param xmlObject SAML or XACML Object
+     * @return serialized object
+     * @throws IdentityException Error when marshalling or serializing the object
+     */
+    public static String marshall(XMLObject xmlObject) throws IdentityException {
+
+        try {
+            Marshaller marshaller = Configuration.getMarshallerFactory().getMarshaller(xmlObject);
+            Element element;
+            if (xmlObject.getDOM() != null) {
+                // keep the cached DOM as is, e.g. of a signed object
+                element = marshaller.marshall(xmlObject);
+            } else {
+                element = marshaller.marshall(xmlObject, getDocumentBuilder().newDocument());
+            }
+            return serialize(element);
+        } catch (MarshallingException | ParserConfigurationException e) {
+            throw new IdentityException("Error Serializing the XML Object", e);
+        }
+    }
+
+    /**
+     * Serialize the given DOM node into a UTF-8 String
+     *
+     * @param node DOM node
+     * @return serialized node
+     * @throws IdentityException Error when serializing the node
+     */
+    public static String serialize(Node node) throws IdentityException {
+
+        try {
+            DOMImplementationLS impl = getDOMImplementationLS();
+            LSSerializer writer = serializer.get();
+            if (writer == null) {
+                writer = impl.createLSSerializer();
+                serializer.set(writer);
+            }
+            ByteArrayOutputStream byteArrayOutputStrm = new ByteArrayOutputStream();
+            LSOutput output = impl.createLSOutput();
+            output.setByteStream(byteArrayOutputStrm);
+            output.setEncoding(StandardCharsets.UTF_8.name());
+            writer.write(node, output);
+            return byteArrayOutputStrm.toString(StandardCharsets.UTF_8.name());
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | IOException e) {
+            throw new IdentityException("Error Serializing the XML Node", e);
+        }
+    }
+
+    private static DocumentBuilderFactory getDocumentBuilderFactory() throws ParserConfigurationException {
+
+        if (documentBuilderFactory == null) {
+            synchronized (IdentityXMLUtil.class) {
+                if (documentBuilderFactory == null) {
+                    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                    factory.setNamespaceAware(true);
+
+                    factory.setExpandEntityReferences(false);
+                    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+                    SecurityManager securityManager = new SecurityManager();
+                    securityManager.setEntityExpansionLimit(ENTITY_EXPANSION_LIMIT);
+                    factory.setAttribute(SECURITY_MANAGER_PROPERTY, securityManager);
+                    documentBuilderFactory = factory;
+                }
+            }
+        }
+        return documentBuilderFactory;
+    }
+
+    private static DOMImplementationLS getDOMImplementationLS() throws ClassNotFoundException,
+            InstantiationException, IllegalAccessException {
+
+        if (domImplementationLS == null) {
+            synchronized (IdentityXMLUtil.class) {
+                if (domImplementationLS == null) {
+                    DOMImplementationRegistry registry = DOMImplementationRegistry.newInstance();
+                    domImplementationLS = (DOMImplementationLS) registry.getDOMImplementation("LS");
+                }
+            }
+        }
+        return domImplementationLS;
+    }
+}
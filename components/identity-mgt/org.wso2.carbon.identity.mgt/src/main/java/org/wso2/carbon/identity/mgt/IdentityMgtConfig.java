@@ -28,6 +28,7 @@ import org.wso2.carbon.identity.mgt.password.DefaultPasswordGenerator;
 import org.wso2.carbon.identity.mgt.password.RandomPasswordGenerator;
 import org.wso2.carbon.identity.mgt.policy.PolicyEnforcer;
 import org.wso2.carbon.identity.mgt.policy.PolicyRegistry;
+import org.wso2.carbon.identity.mgt.store.FailedLoginAttemptStore;
 import org.wso2.carbon.identity.mgt.store.RegistryRecoveryDataStore;
 import org.wso2.carbon.identity.mgt.store.UserIdentityDataStore;
 import org.wso2.carbon.identity.mgt.store.UserRecoveryDataStore;
@@ -77,6 +78,9 @@ public class IdentityMgtConfig {
     private boolean authPolicyAccountExistCheck;
     private boolean authPolicyAccountLockOnFailure;
     private boolean authPolicyAccountLockOnCreation;
+    private boolean authPolicyAccountLockWriteBehind;
+    private long authPolicyAccountLockWriteBehindInterval = 1000;
+    private int authPolicyAccountLockWriteBehindBatchSize = 500;
     private boolean enableUserAccountVerification;
     private boolean userAccountVerificationByUser;
     private boolean temporaryPasswordOneTime;
@@ -86,6 +90,7 @@ public class IdentityMgtConfig {
     private RandomPasswordGenerator passwordGenerator;
     private UserIdentityDataStore identityDataStore;
     private UserRecoveryDataStore recoveryDataStore;
+    private FailedLoginAttemptStore failedLoginAttemptStore;
     private List<NotificationSendingModule> sendingModules =
             new ArrayList<NotificationSendingModule>();
     private List<String> notificationTypes = new ArrayList<String>();
@@ -270,6 +275,24 @@ public class IdentityMgtConfig {
                 this.authPolicyAccountLockOnCreation = Boolean.parseBoolean(authPolicyAccountLockOnCreationProperty.trim());
             }
 
+            String writeBehindProperty = properties.
+                    getProperty(IdentityMgtConstants.PropertyConfig.AUTH_POLICY_ACCOUNT_LOCK_WRITE_BEHIND);
+            if (writeBehindProperty != null) {
+                this.authPolicyAccountLockWriteBehind = Boolean.parseBoolean(writeBehindProperty.trim());
+            }
+
+            String writeBehindIntervalProperty = properties.
+                    getProperty(IdentityMgtConstants.PropertyConfig.AUTH_POLICY_ACCOUNT_LOCK_WRITE_BEHIND_INTERVAL);
+            if (StringUtils.isNotBlank(writeBehindIntervalProperty)) {
+                this.authPolicyAccountLockWriteBehindInterval = Long.parseLong(writeBehindIntervalProperty.trim());
+            }
+
+            String writeBehindBatchSizeProperty = properties.
+                    getProperty(IdentityMgtConstants.PropertyConfig.AUTH_POLICY_ACCOUNT_LOCK_WRITE_BEHIND_BATCH_SIZE);
+            if (StringUtils.isNotBlank(writeBehindBatchSizeProperty)) {
+                this.authPolicyAccountLockWriteBehindBatchSize = Integer.parseInt(writeBehindBatchSizeProperty.trim());
+            }
+
             String digsestFunctionProperty = configuration.getUserStoreProperties().get(JDBCRealmConstants.DIGEST_FUNCTION);
             if (digsestFunctionProperty != null && digsestFunctionProperty.trim().length() > 0) {
                 this.digsestFunction = digsestFunctionProperty;
@@ -371,6 +394,11 @@ public class IdentityMgtConfig {
                 this.recoveryDataStore = new RegistryRecoveryDataStore();
             }
 
+            if (this.authPolicyAccountLockWriteBehind) {
+                this.failedLoginAttemptStore = new FailedLoginAttemptStore(this.identityDataStore,
+                        this.authPolicyAccountLockWriteBehindInterval, this.authPolicyAccountLockWriteBehindBatchSize);
+            }
+
             if (this.sendingModules.isEmpty()) {
                 NotificationSendingModule module = new DefaultEmailSendingModule();
                 module.init();
@@ -482,6 +510,15 @@ public class IdentityMgtConfig {
         return identityDataStore;
     }
 
+    /**
+     * Returns the write behind store of failed login attempts.
+     *
+     * @return the store, or null if failed login attempts are persisted synchronously
+     */
+    public FailedLoginAttemptStore getFailedLoginAttemptStore() {
+        return failedLoginAttemptStore;
+    }
+
     public boolean isNotificationSending() {
         return notificationSending;
     }
@@ -44,6 +44,7 @@ import org.wso2.carbon.identity.mgt.mail.NotificationBuilder;
 import org.wso2.carbon.identity.mgt.mail.NotificationData;
 import org.wso2.carbon.identity.mgt.policy.PolicyRegistry;
 import org.wso2.carbon.identity.mgt.policy.PolicyViolationException;
+import org.wso2.carbon.identity.mgt.store.FailedLoginAttemptStore;
 import org.wso2.carbon.identity.mgt.store.UserIdentityDataStore;
 import org.wso2.carbon.identity.mgt.util.UserIdentityManagementUtil;
 import org.wso2.carbon.identity.mgt.util.Utils;
@@ -186,7 +187,16 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                     }
                 } else {
 
+                    FailedLoginAttemptStore attemptStore = config.getFailedLoginAttemptStore();
                     UserIdentityClaimsDO userIdentityDTO = module.load(userName, userStoreManager);
+                    if (attemptStore != null) {
+                        try {
+                            userIdentityDTO = attemptStore.apply(userName, userStoreManager, userIdentityDTO);
+                        } catch (IdentityException e) {
+                            throw new UserStoreException("Error while reading login attempts of user : "
+                                    + userName, e);
+                        }
+                    }
 
                     // if the account is locked, should not be able to log in
                     if (userIdentityDTO != null && userIdentityDTO.isAccountLocked()) {
@@ -194,11 +204,14 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                         // If unlock time is specified then unlock the account.
                         if ((userIdentityDTO.getUnlockTime() != 0) && (System.currentTimeMillis() >= userIdentityDTO.getUnlockTime())) {
 
-                            userIdentityDTO.setAccountLock(false);
-                            userIdentityDTO.setUnlockTime(0);
-
                             try {
-                                module.store(userIdentityDTO, userStoreManager);
+                                if (attemptStore != null) {
+                                    attemptStore.reset(userName, userStoreManager, userIdentityDTO);
+                                } else {
+                                    userIdentityDTO.setAccountLock(false);
+                                    userIdentityDTO.setUnlockTime(0);
+                                    module.store(userIdentityDTO, userStoreManager);
+                                }
                             } catch (IdentityException e) {
                                 throw new UserStoreException(
                                         "Error while saving user store data for user : "
@@ -254,7 +267,16 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                     return true;
                 }
 
+                FailedLoginAttemptStore attemptStore = config.getFailedLoginAttemptStore();
                 UserIdentityClaimsDO userIdentityDTO = module.load(userName, userStoreManager);
+                if (attemptStore != null) {
+                    try {
+                        userIdentityDTO = attemptStore.apply(userName, userStoreManager, userIdentityDTO);
+                    } catch (IdentityException e) {
+                        throw new UserStoreException("Error while reading login attempts of user : "
+                                + userName, e);
+                    }
+                }
                 if (userIdentityDTO == null) {
                     userIdentityDTO = new UserIdentityClaimsDO(userName);
                 }
@@ -367,30 +389,35 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                     boolean isUserExistInCurrentDomain = userStoreManager.isExistingUser(usernameWithDomain);
 
                     if (isUserExistInCurrentDomain) {
-                        userIdentityDTO.setFailAttempts();
+                        int failedAttempts;
+                        try {
+                            if (attemptStore != null) {
+                                failedAttempts = attemptStore.recordFailedAttempt(userName, userStoreManager,
+                                        userIdentityDTO, config.getAuthPolicyMaxLoginAttempts(),
+                                        config.getAuthPolicyLockingTime());
+                            } else {
+                                failedAttempts = FailedLoginAttemptStore.applyFailedAttempt(userIdentityDTO,
+                                        config.getAuthPolicyMaxLoginAttempts(), config.getAuthPolicyLockingTime());
+                                module.store(userIdentityDTO, userStoreManager);
+                            }
+                        } catch (IdentityException e) {
+                            throw new UserStoreException("Error while saving user store data for user : "
+                                    + userName, e);
+                        }
 
-                        if (userIdentityDTO.getFailAttempts() >= config.getAuthPolicyMaxLoginAttempts()) {
+                        if (failedAttempts >= config.getAuthPolicyMaxLoginAttempts()) {
                             log.info("User, " + userName + " has exceed the max failed login attempts. " +
                                     "User account would be locked");
                             IdentityErrorMsgContext customErrorMessageContext = new IdentityErrorMsgContext(UserCoreConstants.ErrorCode.USER_IS_LOCKED,
-                                    userIdentityDTO.getFailAttempts(), config.getAuthPolicyMaxLoginAttempts());
+                                    failedAttempts, config.getAuthPolicyMaxLoginAttempts());
                             IdentityUtil.setIdentityErrorMsg(customErrorMessageContext);
 
                             if (log.isDebugEnabled()) {
                                 log.debug("Username :" + userName + "Exceeded the maximum login attempts. User locked, ErrorCode :" + UserCoreConstants.ErrorCode.USER_IS_LOCKED);
                             }
-
-                            userIdentityDTO.setAccountLock(true);
-                            userIdentityDTO.setFailAttempts(0);
-                            // lock time from the config
-                            int lockTime = IdentityMgtConfig.getInstance().getAuthPolicyLockingTime();
-                            if (lockTime != 0) {
-                                userIdentityDTO.setUnlockTime(System.currentTimeMillis() +
-                                        (lockTime * 60 * 1000L));
-                            }
                         } else {
                             IdentityErrorMsgContext customErrorMessageContext = new IdentityErrorMsgContext(UserCoreConstants.ErrorCode.INVALID_CREDENTIAL,
-                                    userIdentityDTO.getFailAttempts(), config.getAuthPolicyMaxLoginAttempts());
+                                    failedAttempts, config.getAuthPolicyMaxLoginAttempts());
                             IdentityUtil.setIdentityErrorMsg(customErrorMessageContext);
 
                             if (log.isDebugEnabled()) {
@@ -398,13 +425,6 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                             }
 
                         }
-
-                        try {
-                            module.store(userIdentityDTO, userStoreManager);
-                        } catch (IdentityException e) {
-                            throw new UserStoreException("Error while saving user store data for user : "
-                                    + userName, e);
-                        }
                     } else {
                         if (log.isDebugEnabled()) {
                             log.debug("User, " + userName + " is not exists in " + domainName);
@@ -415,11 +435,15 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                     // if the account was locked due to account verification process,
                     // the unlock the account and reset the number of failedAttempts
                     if (userIdentityDTO.isAccountLocked() || userIdentityDTO.getFailAttempts() > 0 || userIdentityDTO.getAccountLock()) {
-                        userIdentityDTO.setAccountLock(false);
-                        userIdentityDTO.setFailAttempts(0);
-                        userIdentityDTO.setUnlockTime(0);
                         try {
-                            module.store(userIdentityDTO, userStoreManager);
+                            if (attemptStore != null) {
+                                attemptStore.reset(userName, userStoreManager, userIdentityDTO);
+                            } else {
+                                userIdentityDTO.setAccountLock(false);
+                                userIdentityDTO.setFailAttempts(0);
+                                userIdentityDTO.setUnlockTime(0);
+                                module.store(userIdentityDTO, userStoreManager);
+                            }
                         } catch (IdentityException e) {
                             throw new UserStoreException("Error while saving user store data for user : "
                                     + userName, e);
@@ -799,6 +823,9 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
                 if (identityDTO == null) {
                     identityDTO = new UserIdentityClaimsDO(userName);
                 }
+                boolean isLockStateUpdated = claims.containsKey(UserIdentityDataStore.ACCOUNT_LOCK) ||
+                        claims.containsKey(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS) ||
+                        claims.containsKey(UserIdentityDataStore.UNLOCKING_TIME);
 
                 Iterator<Entry<String, String>> it = claims.entrySet().iterator();
                 while (it.hasNext()) {
@@ -817,7 +844,12 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
 
                 // storing the identity claims and security questions
                 try {
-                    identityDataStore.store(identityDTO, userStoreManager);
+                    // Lock state set explicitly takes precedence over login attempts which are not yet persisted
+                    if (isLockStateUpdated && config.getFailedLoginAttemptStore() != null) {
+                        config.getFailedLoginAttemptStore().storeDirect(identityDTO, userStoreManager);
+                    } else {
+                        identityDataStore.store(identityDTO, userStoreManager);
+                    }
                 } catch (IdentityException e) {
                     throw new UserStoreException(
                             "Error while saving user store data for user : " + userName, e);
@@ -843,6 +875,10 @@ public class IdentityMgtEventListener extends AbstractIdentityUserOperationEvent
 
         // remove from the identity store
         try {
+            FailedLoginAttemptStore attemptStore = IdentityMgtConfig.getInstance().getFailedLoginAttemptStore();
+            if (attemptStore != null) {
+                attemptStore.discard(userName, userStoreManager);
+            }
             IdentityMgtConfig.getInstance().getIdentityDataStore()
                     .remove(userName, userStoreManager);
         } catch (IdentityException e) {
@@ -153,12 +153,20 @@ public class IdentityMgtConstants {
 
         public static final String AUTH_POLICY_ACCOUNT_LOCK_ON_CREATION = "Authentication.Policy.Account.Lock.On.Creation";
 
+        public static final String AUTH_POLICY_ACCOUNT_LOCK_WRITE_BEHIND = "Authentication.Policy.Account.Lock.WriteBehind.Enable";
+
+        public static final String AUTH_POLICY_ACCOUNT_LOCK_WRITE_BEHIND_INTERVAL = "Authentication.Policy.Account.Lock.WriteBehind.Interval";
+
+        public static final String AUTH_POLICY_ACCOUNT_LOCK_WRITE_BEHIND_BATCH_SIZE = "Authentication.Policy.Account.Lock.WriteBehind.BatchSize";
+
         public static final String CHALLENGE_QUESTION_SEPARATOR = "Challenge.Question.Separator";
 
         public static final String EXTENSION_PASSWORD_GENERATOR = "Identity.Mgt.Random.Password.Generator";
 
         public static final String EXTENSION_USER_DATA_STORE = "Identity.Mgt.User.Data.Store";
 
+        public static final String USER_DATA_STORE_BATCHED_WRITE = "Identity.Mgt.User.Data.Store.BatchedWrite";
+
         public static final String EXTENSION_USER_RECOVERY_DATA_STORE = "Identity.Mgt.User.Recovery.Data.Store";
 
         public static final String EXTENSION_NOTIFICATION_SENDING_MODULE = "Identity.Mgt.Notification.Sending.Module";
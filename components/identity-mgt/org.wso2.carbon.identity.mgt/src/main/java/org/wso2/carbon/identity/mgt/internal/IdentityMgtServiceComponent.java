@@ -33,6 +33,7 @@ import org.wso2.carbon.identity.mgt.RecoveryProcessor;
 import org.wso2.carbon.identity.mgt.constants.IdentityMgtConstants;
 import org.wso2.carbon.identity.mgt.dto.ChallengeQuestionDTO;
 import org.wso2.carbon.identity.mgt.listener.UserOperationsNotificationListener;
+import org.wso2.carbon.identity.mgt.store.FailedLoginAttemptStore;
 import org.wso2.carbon.identity.mgt.store.RegistryCleanUpService;
 import org.wso2.carbon.identity.notification.mgt.NotificationSender;
 import org.wso2.carbon.registry.core.Collection;
@@ -200,10 +201,19 @@ public class IdentityMgtServiceComponent {
         RegistryCleanUpService registryCleanUpService = new RegistryCleanUpService(IdentityMgtConfig.getInstance()
                 .getRegistryCleanUpPeriod(), IdentityMgtConfig.getInstance().getRegistryCleanUpPeriod());
         registryCleanUpService.activateCleanUp();
+
+        FailedLoginAttemptStore failedLoginAttemptStore = IdentityMgtConfig.getInstance().getFailedLoginAttemptStore();
+        if (failedLoginAttemptStore != null) {
+            failedLoginAttemptStore.activate();
+        }
     }
 
     protected void deactivate(ComponentContext context) {
         log.debug("Identity Management bundle is de-activated");
+        FailedLoginAttemptStore failedLoginAttemptStore = IdentityMgtConfig.getInstance().getFailedLoginAttemptStore();
+        if (failedLoginAttemptStore != null) {
+            failedLoginAttemptStore.shutdown();
+        }
     }
 
     protected void unsetRegistryService(RegistryService registryService) {
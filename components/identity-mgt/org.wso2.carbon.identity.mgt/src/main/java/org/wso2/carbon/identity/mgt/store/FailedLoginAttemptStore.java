@@ -0,0 +1,398 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.mgt.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.mgt.dto.UserIdentityClaimsDO;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.api.UserStoreManager;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the failed login attempt count and lock state of users in memory and writes them behind to the
+ * {@link UserIdentityDataStore}. Updates and writes of a user are serialized on one of a fixed set of lock stripes,
+ * so lock decisions taken on this node are exact. Pending changes are persisted by a background task at least once per
+ * flush interval, or earlier once the number of pending users reaches the batch size. Repeated changes of the same
+ * user between two flushes result in a single write.
+ */
+public class FailedLoginAttemptStore {
+
+    private static final Log log = LogFactory.getLog(FailedLoginAttemptStore.class);
+    private static final int STRIPE_COUNT = 64;
+
+    private final UserIdentityDataStore dataStore;
+    private final long flushInterval;
+    private final int batchSize;
+    private final Object[] stripes = new Object[STRIPE_COUNT];
+    private final ConcurrentMap<String, LoginAttemptState> states = new ConcurrentHashMap<>();
+    private final Queue<String> pendingKeys = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /**
+     * @param dataStore     identity data store the login attempts are persisted to
+     * @param flushInterval maximum time in milliseconds a change is kept in memory before it is persisted
+     * @param batchSize     number of pending users which triggers a flush before the interval elapses
+     */
+    public FailedLoginAttemptStore(UserIdentityDataStore dataStore, long flushInterval, int batchSize) {
+
+        this.dataStore = dataStore;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Object();
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "FailedLoginAttemptStoreWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts the periodic write behind task.
+     */
+    public void activate() {
+        scheduler.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the write behind task and persists all pending changes.
+     */
+    public void shutdown() {
+
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushInterval, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Applies the failed attempt count and lock state of the given user to the given identity data. This is the
+     * lock evaluation used both with and without write behind.
+     *
+     * @param userIdentityDTO  identity data of the user
+     * @param maxLoginAttempts number of failed attempts after which the account is locked
+     * @param lockTime         lock duration in minutes, 0 to lock until the account is unlocked by an admin
+     * @return number of consecutive failed attempts including this one
+     */
+    public static int applyFailedAttempt(UserIdentityClaimsDO userIdentityDTO, int maxLoginAttempts, int lockTime) {
+
+        userIdentityDTO.setFailAttempts();
+        int failedAttempts = userIdentityDTO.getFailAttempts();
+        if (failedAttempts >= maxLoginAttempts) {
+            userIdentityDTO.setAccountLock(true);
+            userIdentityDTO.setFailAttempts(0);
+            if (lockTime != 0) {
+                userIdentityDTO.setUnlockTime(System.currentTimeMillis() + (lockTime * 60 * 1000L));
+            }
+        }
+        return failedAttempts;
+    }
+
+    /**
+     * Overlays the login attempt state which is not yet persisted on the identity data loaded from the store.
+     *
+     * @param userName         user name
+     * @param userStoreManager user store manager of the user
+     * @param userIdentityDTO  identity data loaded from the store, may be null
+     * @return identity data reflecting the latest login attempt state of the user
+     * @throws IdentityException if the tenant of the user store manager cannot be resolved
+     */
+    public UserIdentityClaimsDO apply(String userName, UserStoreManager userStoreManager,
+                                      UserIdentityClaimsDO userIdentityDTO) throws IdentityException {
+
+        if (states.isEmpty()) {
+            return userIdentityDTO;
+        }
+        String key = getKey(userName, userStoreManager);
+        synchronized (getStripe(key)) {
+            LoginAttemptState state = states.get(key);
+            if (state != null) {
+                if (userIdentityDTO == null) {
+                    userIdentityDTO = new UserIdentityClaimsDO(userName);
+                }
+                state.copyTo(userIdentityDTO);
+            }
+        }
+        return userIdentityDTO;
+    }
+
+    /**
+     * Atomically records a failed login attempt of the user and locks the account once the maximum number of
+     * attempts is reached. The resulting state is applied to the given identity data and persisted asynchronously.
+     * Attempts which complete after the account got locked by a concurrent attempt are not counted.
+     *
+     * @param userName         user name
+     * @param userStoreManager user store manager of the user
+     * @param userIdentityDTO  identity data of the user
+     * @param maxLoginAttempts number of failed attempts after which the account is locked
+     * @param lockTime         lock duration in minutes, 0 to lock until the account is unlocked by an admin
+     * @return number of consecutive failed attempts including this one
+     * @throws IdentityException if the tenant of the user store manager cannot be resolved
+     */
+    public int recordFailedAttempt(String userName, UserStoreManager userStoreManager,
+                                   UserIdentityClaimsDO userIdentityDTO, int maxLoginAttempts, int lockTime)
+            throws IdentityException {
+
+        String key = getKey(userName, userStoreManager);
+        synchronized (getStripe(key)) {
+            LoginAttemptState state = getState(key, userName, userStoreManager, userIdentityDTO);
+            state.copyTo(userIdentityDTO);
+            if (userIdentityDTO.isAccountLocked()) {
+                return maxLoginAttempts;
+            }
+            int failedAttempts = applyFailedAttempt(userIdentityDTO, maxLoginAttempts, lockTime);
+            state.copyFrom(userIdentityDTO);
+            markPending(key, state);
+            return failedAttempts;
+        }
+    }
+
+    /**
+     * Unlocks the account of the user and resets the failed attempt count. The resulting state is applied to the
+     * given identity data and persisted asynchronously.
+     *
+     * @param userName         user name
+     * @param userStoreManager user store manager of the user
+     * @param userIdentityDTO  identity data of the user
+     * @throws IdentityException if the tenant of the user store manager cannot be resolved
+     */
+    public void reset(String userName, UserStoreManager userStoreManager, UserIdentityClaimsDO userIdentityDTO)
+            throws IdentityException {
+
+        String key = getKey(userName, userStoreManager);
+        synchronized (getStripe(key)) {
+            LoginAttemptState state = getState(key, userName, userStoreManager, userIdentityDTO);
+            userIdentityDTO.setAccountLock(false);
+            userIdentityDTO.setFailAttempts(0);
+            userIdentityDTO.setUnlockTime(0);
+            state.copyFrom(userIdentityDTO);
+            markPending(key, state);
+        }
+    }
+
+    /**
+     * Drops the login attempt state of the user which is not yet persisted. Used when the identity data of the user
+     * is removed, so that a later flush does not write it again. Waits for a write of the login attempt state of the
+     * user in progress. Use {@link #storeDirect(UserIdentityClaimsDO, UserStoreManager)} to change the lock state.
+     *
+     * @param userName         user name
+     * @param userStoreManager user store manager of the user
+     * @throws IdentityException if the tenant of the user store manager cannot be resolved
+     */
+    public void discard(String userName, UserStoreManager userStoreManager) throws IdentityException {
+
+        if (states.isEmpty()) {
+            return;
+        }
+        String key = getKey(userName, userStoreManager);
+        synchronized (getStripe(key)) {
+            states.remove(key);
+        }
+    }
+
+    /**
+     * Stores identity data of the user directly in the identity data store, dropping the login attempt state of the
+     * user which is not yet persisted. Used when the lock state of the user is changed explicitly. The stripe of the
+     * user is held until the data is stored, so a failed login attempt recorded concurrently either completes before
+     * and is discarded, or starts from the stored data.
+     *
+     * @param userIdentityDTO  identity data of the user
+     * @param userStoreManager user store manager of the user
+     * @throws IdentityException if the tenant of the user store manager cannot be resolved or the data cannot be
+     *                           stored
+     */
+    public void storeDirect(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        String key = getKey(userIdentityDTO.getUserName(), userStoreManager);
+        synchronized (getStripe(key)) {
+            states.remove(key);
+            dataStore.store(userIdentityDTO, userStoreManager);
+        }
+    }
+
+    /**
+     * Persists all pending changes to the identity data store.
+     */
+    public void flush() {
+
+        flushRequested.set(false);
+        List<String> failedKeys = new ArrayList<>();
+        String key;
+        while ((key = pendingKeys.poll()) != null) {
+            pendingCount.decrementAndGet();
+            if (!persist(key)) {
+                failedKeys.add(key);
+            }
+        }
+        for (String failedKey : failedKeys) {
+            synchronized (getStripe(failedKey)) {
+                LoginAttemptState state = states.get(failedKey);
+                if (state != null && !state.pending) {
+                    state.pending = true;
+                    pendingKeys.add(failedKey);
+                    pendingCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    protected String getKey(String userName, UserStoreManager userStoreManager) throws IdentityException {
+
+        try {
+            org.wso2.carbon.user.core.UserStoreManager store =
+                    (org.wso2.carbon.user.core.UserStoreManager) userStoreManager;
+            String domainName = store.getRealmConfiguration().getUserStoreProperty(
+                    UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
+            userName = UserCoreUtil.removeDomainFromName(userName);
+            if (!IdentityUtil.isUserStoreCaseSensitive(store)) {
+                userName = userName.toLowerCase();
+            }
+            return domainName + userStoreManager.getTenantId() + userName;
+        } catch (UserStoreException e) {
+            throw new IdentityException("Error while obtaining tenant ID from user store manager", e);
+        }
+    }
+
+    private boolean persist(String key) {
+
+        // The stripe is held until the state is written, so that a discard waits for a write in progress and a
+        // lock state stored directly after the discard is not overwritten by the older state
+        synchronized (getStripe(key)) {
+            LoginAttemptState state = states.get(key);
+            if (state == null || !state.pending) {
+                return true;
+            }
+            state.pending = false;
+            try {
+                UserIdentityClaimsDO userIdentityDTO = dataStore.load(state.userName, state.userStoreManager);
+                if (userIdentityDTO == null) {
+                    userIdentityDTO = new UserIdentityClaimsDO(state.userName);
+                }
+                state.copyTo(userIdentityDTO);
+                dataStore.store(userIdentityDTO, state.userStoreManager);
+            } catch (IdentityException | RuntimeException e) {
+                log.error("Error while persisting login attempts of user : " + state.userName, e);
+                return false;
+            }
+            // Once persisted, the data store is the source of truth again
+            states.remove(key);
+            return true;
+        }
+    }
+
+    private LoginAttemptState getState(String key, String userName, UserStoreManager userStoreManager,
+                                       UserIdentityClaimsDO userIdentityDTO) {
+
+        LoginAttemptState state = states.get(key);
+        if (state == null) {
+            // The given identity data may have been loaded before a flush completed, so start from the stored state
+            UserIdentityClaimsDO storedIdentityDTO = dataStore.load(userName, userStoreManager);
+            state = new LoginAttemptState(userName, userStoreManager);
+            state.copyFrom(storedIdentityDTO != null ? storedIdentityDTO : userIdentityDTO);
+            states.put(key, state);
+        }
+        return state;
+    }
+
+    private void markPending(String key, LoginAttemptState state) {
+
+        if (state.pending) {
+            return;
+        }
+        state.pending = true;
+        pendingKeys.add(key);
+        if (pendingCount.incrementAndGet() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(flushTask);
+            } catch (RuntimeException e) {
+                flushRequested.set(false);
+                if (log.isDebugEnabled()) {
+                    log.debug("Could not schedule an early flush of login attempts", e);
+                }
+            }
+        }
+    }
+
+    private Object getStripe(String key) {
+        return stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPE_COUNT];
+    }
+
+    /**
+     * Login attempt state of a user. Guarded by the stripe of the user.
+     */
+    private static final class LoginAttemptState {
+
+        private final String userName;
+        private final UserStoreManager userStoreManager;
+        private int failedAttempts;
+        private boolean accountLock;
+        private long unlockTime;
+        private boolean pending;
+
+        private LoginAttemptState(String userName, UserStoreManager userStoreManager) {
+            this.userName = userName;
+            this.userStoreManager = userStoreManager;
+        }
+
+        private void copyFrom(UserIdentityClaimsDO userIdentityDTO) {
+            failedAttempts = userIdentityDTO.getFailAttempts();
+            accountLock = userIdentityDTO.getAccountLock();
+            unlockTime = userIdentityDTO.getUnlockTime();
+        }
+
+        private void copyTo(UserIdentityClaimsDO userIdentityDTO) {
+            userIdentityDTO.setFailAttempts(failedAttempts);
+            userIdentityDTO.setAccountLock(accountLock);
+            userIdentityDTO.setUnlockTime(unlockTime);
+        }
+    }
+}
@@ -18,11 +18,14 @@
 
 package org.wso2.carbon.identity.mgt.store;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.mgt.IdentityMgtConfig;
+import org.wso2.carbon.identity.mgt.constants.IdentityMgtConstants;
 import org.wso2.carbon.identity.mgt.dto.UserIdentityClaimsDO;
 import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.api.UserStoreManager;
@@ -73,6 +76,15 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
 
         Map<String, String> data = userIdentityDTO.getUserDataMap();
 
+        if (isBatchedWriteEnabled()) {
+            try {
+                storeUserDataValues(userName, tenantId, data);
+            } catch (SQLException e) {
+                throw new IdentityException("Error occurred while persisting user data", e);
+            }
+            return;
+        }
+
         for (Map.Entry<String, String> entry : data.entrySet()) {
             String key = entry.getKey();
             String value = entry.getValue();
@@ -94,6 +106,104 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         }
     }
 
+    private boolean isBatchedWriteEnabled() {
+
+        IdentityMgtConfig config = IdentityMgtConfig.getInstance();
+        if (config == null) {
+            return true;
+        }
+        String batchedWrite = config.getProperty(IdentityMgtConstants.PropertyConfig.USER_DATA_STORE_BATCHED_WRITE);
+        return StringUtils.isBlank(batchedWrite) || Boolean.parseBoolean(batchedWrite.trim());
+    }
+
+    /**
+     * Persists the given user data using a single connection. The stored values are read once and only the
+     * entries that are new or changed are written, as one JDBC batch of inserts and one of updates committed
+     * together. Nothing is written when the stored values already match.
+     *
+     * @param userName domain qualified user name
+     * @param tenantId tenant id of the user
+     * @param data     user identity data to persist
+     * @throws SQLException if reading or writing the user data fails
+     */
+    private void storeUserDataValues(String userName, int tenantId, Map<String, String> data) throws SQLException {
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement loadStmt = null;
+        PreparedStatement insertStmt = null;
+        PreparedStatement updateStmt = null;
+        ResultSet results = null;
+        boolean isUsernameCaseSensitive = IdentityUtil.isUserStoreInUsernameCaseSensitive(userName, tenantId);
+        try {
+            String query;
+            if (isUsernameCaseSensitive) {
+                query = SQLQuery.LOAD_USER_DATA;
+            } else {
+                query = SQLQuery.LOAD_USER_DATA_CASE_INSENSITIVE;
+            }
+            loadStmt = connection.prepareStatement(query);
+            loadStmt.setInt(1, tenantId);
+            loadStmt.setString(2, userName);
+            results = loadStmt.executeQuery();
+            Map<String, String> storedData = new HashMap<String, String>();
+            while (results.next()) {
+                storedData.put(results.getString(1), results.getString(2));
+            }
+
+            boolean hasInserts = false;
+            boolean hasUpdates = false;
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+                if (!storedData.containsKey(key)) {
+                    if (insertStmt == null) {
+                        insertStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
+                    }
+                    insertStmt.setInt(1, tenantId);
+                    insertStmt.setString(2, userName);
+                    insertStmt.setString(3, key);
+                    insertStmt.setString(4, value);
+                    insertStmt.addBatch();
+                    hasInserts = true;
+                } else if (!StringUtils.equals(storedData.get(key), value)) {
+                    if (updateStmt == null) {
+                        if (isUsernameCaseSensitive) {
+                            updateStmt = connection.prepareStatement(SQLQuery.UPDATE_USER_DATA);
+                        } else {
+                            updateStmt = connection.prepareStatement(SQLQuery.UPDATE_USER_DATA_CASE_INSENSITIVE);
+                        }
+                    }
+                    updateStmt.setString(1, value);
+                    updateStmt.setInt(2, tenantId);
+                    updateStmt.setString(3, userName);
+                    updateStmt.setString(4, key);
+                    updateStmt.addBatch();
+                    hasUpdates = true;
+                }
+            }
+
+            if (hasInserts) {
+                insertStmt.executeBatch();
+            }
+            if (hasUpdates) {
+                updateStmt.executeBatch();
+            }
+            connection.commit();
+            if (log.isDebugEnabled() && !hasInserts && !hasUpdates) {
+                log.debug("Identity data of user " + tenantId + ":" + userName + " is unchanged. Skipping write");
+            }
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw e;
+        } finally {
+            IdentityDatabaseUtil.closeResultSet(results);
+            IdentityDatabaseUtil.closeStatement(loadStmt);
+            IdentityDatabaseUtil.closeStatement(insertStmt);
+            IdentityDatabaseUtil.closeStatement(updateStmt);
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+    }
+
     private boolean isExistingUserDataValue(String userName, int tenantId, String key) throws SQLException {
 
         Connection connection = IdentityDatabaseUtil.getDBConnection();
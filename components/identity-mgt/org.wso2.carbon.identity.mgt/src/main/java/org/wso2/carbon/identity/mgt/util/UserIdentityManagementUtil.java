@@ -35,6 +35,7 @@ import org.wso2.carbon.identity.mgt.dto.UserIdentityClaimsDO;
 import org.wso2.carbon.identity.mgt.dto.UserRecoveryDTO;
 import org.wso2.carbon.identity.mgt.dto.UserRecoveryDataDO;
 import org.wso2.carbon.identity.mgt.internal.IdentityMgtServiceComponent;
+import org.wso2.carbon.identity.mgt.store.FailedLoginAttemptStore;
 import org.wso2.carbon.identity.mgt.store.JDBCUserRecoveryDataStore;
 import org.wso2.carbon.identity.mgt.store.UserIdentityDataStore;
 import org.wso2.carbon.user.api.Claim;
@@ -131,7 +132,12 @@ public class UserIdentityManagementUtil {
         if (userIdentityDO != null) {
             userIdentityDO.setAccountLock(true);
             userIdentityDO.setUnlockTime(0);
-            store.store(userIdentityDO, userStoreManager);
+            FailedLoginAttemptStore attemptStore = IdentityMgtConfig.getInstance().getFailedLoginAttemptStore();
+            if (attemptStore != null) {
+                attemptStore.storeDirect(userIdentityDO, userStoreManager);
+            } else {
+                store.store(userIdentityDO, userStoreManager);
+            }
         } else {
             throw new IdentityException("No user account found for user " + userName);
         }
@@ -185,7 +191,12 @@ public class UserIdentityManagementUtil {
         if (userIdentityDO != null) {
             userIdentityDO.setAccountLock(false);
             userIdentityDO.setUnlockTime(0);
-            store.store(userIdentityDO, userStoreManager);
+            FailedLoginAttemptStore attemptStore = IdentityMgtConfig.getInstance().getFailedLoginAttemptStore();
+            if (attemptStore != null) {
+                attemptStore.storeDirect(userIdentityDO, userStoreManager);
+            } else {
+                store.store(userIdentityDO, userStoreManager);
+            }
         } else {
             throw new IdentityException("No user account found for user " + userName);
         }
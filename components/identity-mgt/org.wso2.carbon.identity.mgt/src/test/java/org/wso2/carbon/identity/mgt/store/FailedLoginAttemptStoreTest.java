@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.identity.mgt.store;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.identity.mgt.dto.UserIdentityClaimsDO;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulates a burst of failed logins against the write behind failed login attempt store.
+ */
+public class FailedLoginAttemptStoreTest extends TestCase {
+
+	private static final int THREADS = 16;
+	private static final int ATTEMPTS_PER_THREAD = 2000;
+
+	private CountingDataStore dataStore;
+	private FailedLoginAttemptStore attemptStore;
+
+	@Override
+	protected void setUp() {
+
+		dataStore = new CountingDataStore();
+		attemptStore = new FailedLoginAttemptStore(dataStore, 50, 100) {
+			@Override
+			protected String getKey(String userName, UserStoreManager userStoreManager) {
+				return userName;
+			}
+		};
+		attemptStore.activate();
+	}
+
+	@Override
+	protected void tearDown() {
+		attemptStore.shutdown();
+	}
+
+	public void testFailedAttemptBurstOnSingleUser() throws Exception {
+
+		final int maxAttempts = THREADS * ATTEMPTS_PER_THREAD + 1;
+		runBurst(new String[]{"alice"}, maxAttempts);
+		attemptStore.shutdown();
+
+		UserIdentityClaimsDO stored = dataStore.load("alice", null);
+		assertEquals("failed attempts lost under concurrency", THREADS * ATTEMPTS_PER_THREAD,
+				stored.getFailAttempts());
+		assertFalse("account locked before reaching max attempts", stored.getAccountLock());
+		assertTrue("failed attempts were not coalesced: " + dataStore.writes.get(),
+				dataStore.writes.get() < THREADS * ATTEMPTS_PER_THREAD);
+	}
+
+	public void testAccountLockedExactlyAtMaxAttempts() throws Exception {
+
+		final int maxAttempts = THREADS * ATTEMPTS_PER_THREAD + 1;
+		runBurst(new String[]{"bob"}, maxAttempts);
+
+		UserIdentityClaimsDO claims = attemptStore.apply("bob", null, dataStore.load("bob", null));
+		assertFalse("account locked before reaching max attempts", claims.isAccountLocked());
+		assertEquals(maxAttempts - 1, claims.getFailAttempts());
+
+		assertEquals(maxAttempts, attemptStore.recordFailedAttempt("bob", null, claims, maxAttempts, 0));
+		assertTrue("lock not visible before flush",
+				attemptStore.apply("bob", null, new UserIdentityClaimsDO("bob")).isAccountLocked());
+
+		attemptStore.shutdown();
+		UserIdentityClaimsDO stored = dataStore.load("bob", null);
+		assertTrue("lock not persisted", stored.getAccountLock());
+		assertEquals(0, stored.getFailAttempts());
+	}
+
+	public void testFailedAttemptBurstOnManyUsers() throws Exception {
+
+		String[] users = new String[1000];
+		for (int i = 0; i < users.length; i++) {
+			users[i] = "user" + i;
+		}
+		runBurst(users, Integer.MAX_VALUE);
+		attemptStore.shutdown();
+
+		int total = 0;
+		for (String user : users) {
+			total += dataStore.load(user, null).getFailAttempts();
+		}
+		assertEquals("failed attempts lost under concurrency", THREADS * ATTEMPTS_PER_THREAD, total);
+	}
+
+	public void testDiscardDuringFlushIsNotOverwritten() throws Exception {
+
+		dataStore.blockedUser = "carol";
+		attemptStore.recordFailedAttempt("carol", null, new UserIdentityClaimsDO("carol"), 10, 0);
+		assertTrue("flush not started", dataStore.storeBlocked.await(10, TimeUnit.SECONDS));
+
+		Thread admin = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					attemptStore.discard("carol", null);
+					UserIdentityClaimsDO locked = new UserIdentityClaimsDO("carol");
+					locked.setAccountLock(true);
+					dataStore.store(locked, null);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		admin.start();
+		admin.join(200);
+		dataStore.storeReleased.countDown();
+		admin.join(10000);
+		assertTrue("flush not completed", dataStore.storeCompleted.await(10, TimeUnit.SECONDS));
+
+		assertTrue("lock stored by admin overwritten by flush", dataStore.load("carol", null).getAccountLock());
+	}
+
+	public void testFailedAttemptDuringLockIsNotPersistedOverLock() throws Exception {
+
+		dataStore.blockedUser = "dave";
+		Thread admin = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					UserIdentityClaimsDO locked = new UserIdentityClaimsDO("dave");
+					locked.setAccountLock(true);
+					attemptStore.storeDirect(locked, null);
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		admin.start();
+		assertTrue("lock not being stored", dataStore.storeBlocked.await(10, TimeUnit.SECONDS));
+
+		// a failed login between dropping the pending state and storing the lock
+		final AtomicInteger failedAttempts = new AtomicInteger();
+		Thread login = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					failedAttempts.set(attemptStore.recordFailedAttempt("dave", null,
+							new UserIdentityClaimsDO("dave"), 10, 0));
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		login.start();
+		login.join(200);
+		dataStore.storeReleased.countDown();
+		admin.join(10000);
+		login.join(10000);
+		attemptStore.flush();
+
+		assertEquals("failed attempt not evaluated against the stored lock", 10, failedAttempts.get());
+		assertTrue("lock overwritten by failed attempt", dataStore.load("dave", null).getAccountLock());
+	}
+
+	private void runBurst(final String[] users, final int maxAttempts) throws InterruptedException {
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		for (int i = 0; i < THREADS; i++) {
+			final int offset = i;
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+							String user = users[(offset + j) % users.length];
+							UserIdentityClaimsDO claims = attemptStore.apply(user, null, dataStore.load(user, null));
+							if (claims == null) {
+								claims = new UserIdentityClaimsDO(user);
+							}
+							attemptStore.recordFailedAttempt(user, null, claims, maxAttempts, 0);
+						}
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Identity data store keeping user data in memory and counting writes.
+	 */
+	private static class CountingDataStore extends UserIdentityDataStore {
+
+		private final Map<String, Map<String, String>> data = new ConcurrentHashMap<String, Map<String, String>>();
+		private final AtomicInteger writes = new AtomicInteger();
+		private final CountDownLatch storeBlocked = new CountDownLatch(1);
+		private final CountDownLatch storeReleased = new CountDownLatch(1);
+		private final CountDownLatch storeCompleted = new CountDownLatch(1);
+		private volatile String blockedUser;
+
+		@Override
+		public void store(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager) {
+			writes.incrementAndGet();
+			boolean blocked = userIdentityDTO.getUserName().equals(blockedUser);
+			if (blocked) {
+				// holds the first write of the user until released by the test
+				blockedUser = null;
+				storeBlocked.countDown();
+				try {
+					storeReleased.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			data.put(userIdentityDTO.getUserName(), new HashMap<String, String>(userIdentityDTO.getUserDataMap()));
+			if (blocked) {
+				storeCompleted.countDown();
+			}
+		}
+
+		@Override
+		public UserIdentityClaimsDO load(String userName, UserStoreManager userStoreManager) {
+			Map<String, String> userData = data.get(userName);
+			if (userData == null) {
+				return null;
+			}
+			return new UserIdentityClaimsDO(userName, new HashMap<String, String>(userData));
+		}
+
+		@Override
+		public void remove(String userName, UserStoreManager userStoreManager) {
+			data.remove(userName);
+		}
+	}
+}
@@ -656,6 +656,21 @@ public class IdentityProviderManager {
 
     }
 
+    /**
+     * Retrieves registered Identity providers for a given tenant, with all their configurations. The Identity
+     * Providers are loaded together, instead of being retrieved by name one by one.
+     *
+     * @param tenantDomain Tenant domain whose IdPs are requested
+     * @return List of <code>IdentityProvider</code> with their configurations
+     * @throws IdentityProviderManagementException Error when getting list of Identity Providers
+     */
+    public List<IdentityProvider> getIdPsWithConfigs(String tenantDomain)
+            throws IdentityProviderManagementException {
+
+        int tenantId = IdentityTenantUtil.getTenantId(tenantDomain);
+        return dao.getIdPsWithConfigs(null, tenantId, tenantDomain);
+    }
+
     /**
      * Retrieves registered Enabled Identity providers for a given tenant
      *
@@ -73,6 +73,37 @@ public class CacheBackedIdPMgtDAO {
         return idPMgtDAO.getIdPs(dbConnection, tenantId, tenantDomain);
     }
 
+    /**
+     * Get all the identity providers of the tenant with their configurations, and add them to the cache
+     *
+     * @param dbConnection
+     * @param tenantId
+     * @param tenantDomain
+     * @return
+     * @throws IdentityProviderManagementException
+     */
+    public List<IdentityProvider> getIdPsWithConfigs(Connection dbConnection, int tenantId,
+                                                     String tenantDomain) throws IdentityProviderManagementException {
+
+        List<IdentityProvider> identityProviders = idPMgtDAO.getIdPsWithConfigs(dbConnection, tenantId,
+                tenantDomain);
+
+        for (IdentityProvider identityProvider : identityProviders) {
+            IdPNameCacheKey cacheKey = new IdPNameCacheKey(identityProvider.getIdentityProviderName(),
+                    tenantDomain);
+            idPCacheByName.addToCache(cacheKey, new IdPCacheEntry(identityProvider));
+            if (identityProvider.getHomeRealmId() != null) {
+                IdPHomeRealmIdCacheKey homeRealmIdCacheKey = new IdPHomeRealmIdCacheKey(
+                        identityProvider.getHomeRealmId(), tenantDomain);
+                idPCacheByHRI.addToCache(homeRealmIdCacheKey, new IdPCacheEntry(identityProvider));
+            }
+            if (identityProvider.isPrimary()) {
+                primaryIdPs.put(tenantDomain, identityProvider);
+            }
+        }
+        return identityProviders;
+    }
+
     /**
      * @param dbConnection
      * @param idPName
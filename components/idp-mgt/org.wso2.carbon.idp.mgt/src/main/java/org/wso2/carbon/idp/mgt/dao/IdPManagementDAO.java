@@ -79,6 +79,7 @@ public class IdPManagementDAO {
         PreparedStatement prepStmt = null;
         ResultSet rs = null;
         List<IdentityProvider> idps = new ArrayList<IdentityProvider>();
+        Map<Integer, IdentityProvider> idpsById = new HashMap<Integer, IdentityProvider>();
         if (dbConnection == null) {
             dbConnection = IdentityDatabaseUtil.getDBConnection();
         } else {
@@ -128,12 +129,12 @@ public class IdPManagementDAO {
                         .equals(identityProvider.getIdentityProviderName())) {
                     idps.add(identityProvider);
                 }
-                List<IdentityProviderProperty> propertyList = getIdentityPropertiesByIdpId(dbConnection,
-                        Integer.parseInt(rs.getString("ID")));
-                identityProvider
-                        .setIdpProperties(propertyList.toArray(new IdentityProviderProperty[propertyList.size()]));
+                idpsById.put(rs.getInt("ID"), identityProvider);
 
             }
+            // properties of all the identity providers are read at once
+            loadIdPProperties(dbConnection, idpsById, IdPManagementConstants.SQLQueries.TENANT_IDP_ID_FILTER,
+                    tenantId, MultitenantConstants.SUPER_TENANT_ID);
             dbConnection.commit();
             return idps;
         } catch (SQLException e) {
@@ -149,36 +150,6 @@ public class IdPManagementDAO {
         }
     }
 
-    /**
-     * Get Identity properties map
-     * @param dbConnection database connection
-     * @param idpId IDP Id
-     * @return Identity provider properties
-     */
-    private List<IdentityProviderProperty> getIdentityPropertiesByIdpId(Connection dbConnection, int idpId)
-            throws SQLException {
-
-        String sqlStmt = IdPManagementConstants.SQLQueries.GET_IDP_METADATA_BY_IDP_ID;
-        PreparedStatement prepStmt = null;
-        ResultSet rs = null;
-        List<IdentityProviderProperty> idpProperties = new ArrayList<IdentityProviderProperty>();
-        try {
-            prepStmt = dbConnection.prepareStatement(sqlStmt);
-            prepStmt.setInt(1, idpId);
-            rs = prepStmt.executeQuery();
-            while (rs.next()) {
-                IdentityProviderProperty property = new IdentityProviderProperty();
-                property.setName(rs.getString("NAME"));
-                property.setValue(rs.getString("VALUE"));
-                property.setDisplayName(rs.getString("DISPLAY_NAME"));
-                idpProperties.add(property);
-            }
-        } finally {
-            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
-        }
-        return idpProperties;
-    }
-
     /**
      * Add Identity provider properties
      *
@@ -246,76 +217,429 @@ public class IdPManagementDAO {
     }
 
     /**
-     * @param dbConnection
-     * @param idPName
-     * @param tenantId
-     * @return
+     * Load the federated authenticators, claim configuration, provisioning connectors, role configuration and
+     * properties of a set of identity providers. Each kind of configuration is read with one query for the whole
+     * set, instead of queries per identity provider, authenticator and provisioning connector.
+     *
+     * @param dbConnection database connection
+     * @param idps         identity providers against their ID. The claim configuration of each must be set with the
+     *                     claim dialect and the user and role claim URIs
+     * @param idPFilter    IDP_ID_FILTER or TENANT_IDP_ID_FILTER, selecting the given identity providers
+     * @param filterParams parameters of the filter
      * @throws IdentityProviderManagementException
      * @throws SQLException
      */
-    private FederatedAuthenticatorConfig[] getFederatedAuthenticatorConfigs(
-            Connection dbConnection, String idPName, IdentityProvider federatedIdp, int tenantId)
-            throws IdentityProviderManagementException, SQLException {
+    private void loadIdPConfigs(Connection dbConnection, Map<Integer, IdentityProvider> idps, String idPFilter,
+                                int... filterParams) throws IdentityProviderManagementException, SQLException {
 
-        int idPId = getIdentityProviderIdentifier(dbConnection, idPName, tenantId);
+        if (idps.isEmpty()) {
+            return;
+        }
+        loadFederatedAuthenticatorConfigs(dbConnection, idps, idPFilter, filterParams);
+        loadClaimConfigs(dbConnection, idps, idPFilter, filterParams);
+        loadProvisioningConnectorConfigs(dbConnection, idps, idPFilter, filterParams);
+        loadPermissionsAndRoleConfigs(dbConnection, idps, idPFilter, filterParams);
+        loadIdPProperties(dbConnection, idps, idPFilter, filterParams);
+    }
 
-        PreparedStatement prepStmt1 = null;
-        PreparedStatement prepStmt2 = null;
-        ResultSet rs = null;
-        ResultSet proprs = null;
-        String defaultAuthName = null;
+    private PreparedStatement prepareLoadStatement(Connection dbConnection, String sqlStmt, String idPFilter,
+                                                   int... filterParams) throws SQLException {
 
-        if (federatedIdp != null && federatedIdp.getDefaultAuthenticatorConfig() != null) {
-            defaultAuthName = federatedIdp.getDefaultAuthenticatorConfig().getName();
+        PreparedStatement prepStmt = dbConnection.prepareStatement(sqlStmt + idPFilter);
+        for (int i = 0; i < filterParams.length; i++) {
+            prepStmt.setInt(i + 1, filterParams[i]);
         }
+        return prepStmt;
+    }
+
+    private void loadFederatedAuthenticatorConfigs(Connection dbConnection, Map<Integer, IdentityProvider> idps,
+                                                   String idPFilter, int... filterParams) throws SQLException {
+
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        Map<Integer, List<FederatedAuthenticatorConfig>> idPAuthnConfigs =
+                new HashMap<Integer, List<FederatedAuthenticatorConfig>>();
+        Map<Integer, FederatedAuthenticatorConfig> authnConfigs = new HashMap<Integer, FederatedAuthenticatorConfig>();
+        Map<Integer, List<Property>> authnProperties = new HashMap<Integer, List<Property>>();
 
-        String sqlStmt = IdPManagementConstants.SQLQueries.GET_ALL_IDP_AUTH_SQL;
-        Set<FederatedAuthenticatorConfig> federatedAuthenticatorConfigs = new HashSet<FederatedAuthenticatorConfig>();
         try {
-            prepStmt1 = dbConnection.prepareStatement(sqlStmt);
-            prepStmt1.setInt(1, idPId);
-            rs = prepStmt1.executeQuery();
+            prepStmt = prepareLoadStatement(dbConnection,
+                    IdPManagementConstants.SQLQueries.LOAD_IDP_AUTHENTICATORS_SQL, idPFilter, filterParams);
+            rs = prepStmt.executeQuery();
 
             while (rs.next()) {
-                FederatedAuthenticatorConfig authnConfig = new FederatedAuthenticatorConfig();
+                int idPId = rs.getInt("IDP_ID");
+                if (!idps.containsKey(idPId)) {
+                    continue;
+                }
+
                 int authnId = rs.getInt("ID");
-                authnConfig.setName(rs.getString("NAME"));
+                if (!authnConfigs.containsKey(authnId)) {
+                    FederatedAuthenticatorConfig authnConfig = new FederatedAuthenticatorConfig();
+                    authnConfig.setName(rs.getString("NAME"));
+                    if (("1").equals(rs.getString("IS_ENABLED"))) {
+                        authnConfig.setEnabled(true);
+                    } else {
+                        authnConfig.setEnabled(false);
+                    }
+                    authnConfig.setDisplayName(rs.getString("DISPLAY_NAME"));
+                    authnConfigs.put(authnId, authnConfig);
+                    authnProperties.put(authnId, new ArrayList<Property>());
 
-                if (("1").equals(rs.getString("IS_ENABLED"))) {
-                    authnConfig.setEnabled(true);
-                } else {
-                    authnConfig.setEnabled(false);
+                    if (!idPAuthnConfigs.containsKey(idPId)) {
+                        idPAuthnConfigs.put(idPId, new ArrayList<FederatedAuthenticatorConfig>());
+                    }
+                    idPAuthnConfigs.get(idPId).add(authnConfig);
+                }
+
+                // no property row is joined for an authenticator without properties
+                if (rs.getString("PROPERTY_KEY") != null) {
+                    Property property = new Property();
+                    property.setName(rs.getString("PROPERTY_KEY"));
+                    property.setValue(rs.getString("PROPERTY_VALUE"));
+                    if (("1").equals(rs.getString("IS_SECRET"))) {
+                        property.setConfidential(true);
+                    }
+                    authnProperties.get(authnId).add(property);
+                }
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+        }
+
+        for (Map.Entry<Integer, FederatedAuthenticatorConfig> entry : authnConfigs.entrySet()) {
+            List<Property> properties = authnProperties.get(entry.getKey());
+            entry.getValue().setProperties(properties.toArray(new Property[properties.size()]));
+        }
+
+        for (Map.Entry<Integer, IdentityProvider> entry : idps.entrySet()) {
+            IdentityProvider federatedIdp = entry.getValue();
+            List<FederatedAuthenticatorConfig> configs = idPAuthnConfigs.get(entry.getKey());
+            if (configs == null) {
+                configs = new ArrayList<FederatedAuthenticatorConfig>();
+            }
+            federatedIdp.setFederatedAuthenticatorConfigs(configs.toArray(
+                    new FederatedAuthenticatorConfig[configs.size()]));
+
+            if (federatedIdp.getDefaultAuthenticatorConfig() != null) {
+                String defaultAuthName = federatedIdp.getDefaultAuthenticatorConfig().getName();
+                for (FederatedAuthenticatorConfig config : configs) {
+                    if (config.getName().equals(defaultAuthName)) {
+                        federatedIdp.getDefaultAuthenticatorConfig().setDisplayName(config.getDisplayName());
+                    }
+                }
+            }
+        }
+    }
+
+    private void loadClaimConfigs(Connection dbConnection, Map<Integer, IdentityProvider> idps, String idPFilter,
+                                  int... filterParams) throws SQLException {
+
+        boolean hasLocalClaimDialect = false;
+        boolean hasIdPClaimDialect = false;
+        for (IdentityProvider federatedIdp : idps.values()) {
+            if (federatedIdp.getClaimConfig().isLocalClaimDialect()) {
+                hasLocalClaimDialect = true;
+            } else {
+                hasIdPClaimDialect = true;
+            }
+        }
+
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        Map<Integer, List<Claim>> idPClaims = new HashMap<Integer, List<Claim>>();
+        Map<Integer, List<ClaimMapping>> idPClaimMappings = new HashMap<Integer, List<ClaimMapping>>();
+
+        try {
+            if (hasIdPClaimDialect) {
+                prepStmt = prepareLoadStatement(dbConnection, IdPManagementConstants.SQLQueries.LOAD_IDP_CLAIMS_SQL,
+                        idPFilter, filterParams);
+                rs = prepStmt.executeQuery();
+                Set<Integer> claimIds = new HashSet<Integer>();
+
+                while (rs.next()) {
+                    int idPId = rs.getInt("IDP_ID");
+                    IdentityProvider federatedIdp = idps.get(idPId);
+                    if (federatedIdp == null || federatedIdp.getClaimConfig().isLocalClaimDialect()) {
+                        continue;
+                    }
+
+                    // a claim is joined once per claim mapping
+                    if (claimIds.add(rs.getInt("ID"))) {
+                        Claim identityProviderClaim = new Claim();
+                        identityProviderClaim.setClaimId(rs.getInt("ID"));
+                        identityProviderClaim.setClaimUri(rs.getString("CLAIM"));
+                        getClaimList(idPClaims, idPId).add(identityProviderClaim);
+                    }
+
+                    if (rs.getString("LOCAL_CLAIM") != null) {
+                        ClaimMapping claimMapping = new ClaimMapping();
+
+                        Claim idpClaim = new Claim();
+                        idpClaim.setClaimUri(rs.getString("CLAIM"));
+
+                        Claim localClaim = new Claim();
+                        localClaim.setClaimUri(rs.getString("LOCAL_CLAIM"));
+
+                        claimMapping.setLocalClaim(localClaim);
+                        claimMapping.setRemoteClaim(idpClaim);
+                        claimMapping.setDefaultValue(rs.getString("DEFAULT_VALUE"));
+                        if (("1").equals(rs.getString("IS_REQUESTED"))) {
+                            claimMapping.setRequested(true);
+                        } else if (("0").equals(rs.getString("IS_REQUESTED"))) {
+                            claimMapping.setRequested(false);
+                        }
+                        getClaimMappingList(idPClaimMappings, idPId).add(claimMapping);
+                    }
                 }
+                IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+            }
+
+            if (hasLocalClaimDialect) {
+                prepStmt = prepareLoadStatement(dbConnection,
+                        IdPManagementConstants.SQLQueries.LOAD_LOCAL_IDP_DEFAULT_CLAIM_VALUES_SQL, idPFilter,
+                        filterParams);
+                rs = prepStmt.executeQuery();
+
+                while (rs.next()) {
+                    int idPId = rs.getInt("IDP_ID");
+                    IdentityProvider federatedIdp = idps.get(idPId);
+                    if (federatedIdp == null || !federatedIdp.getClaimConfig().isLocalClaimDialect()) {
+                        continue;
+                    }
+
+                    ClaimMapping claimMapping = new ClaimMapping();
+
+                    // empty claim.
+                    Claim remoteClaim = new Claim();
 
-                authnConfig.setDisplayName(rs.getString("DISPLAY_NAME"));
+                    Claim localClaim = new Claim();
+                    localClaim.setClaimUri(rs.getString("CLAIM_URI"));
 
-                if (defaultAuthName != null && authnConfig.getName().equals(defaultAuthName)) {
-                    federatedIdp.getDefaultAuthenticatorConfig().setDisplayName(authnConfig.getDisplayName());
+                    claimMapping.setLocalClaim(localClaim);
+                    claimMapping.setRemoteClaim(remoteClaim);
+                    claimMapping.setDefaultValue(rs.getString("DEFAULT_VALUE"));
+                    if (("1").equals(rs.getString("IS_REQUESTED"))) {
+                        claimMapping.setRequested(true);
+                    }
+                    getClaimMappingList(idPClaimMappings, idPId).add(claimMapping);
                 }
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+        }
 
-                sqlStmt = IdPManagementConstants.SQLQueries.GET_IDP_AUTH_PROPS_SQL;
-                prepStmt2 = dbConnection.prepareStatement(sqlStmt);
-                prepStmt2.setInt(1, authnId);
-                proprs = prepStmt2.executeQuery();
-                Set<Property> properties = new HashSet<Property>();
-                while (proprs.next()) {
+        for (Map.Entry<Integer, IdentityProvider> entry : idps.entrySet()) {
+            ClaimConfig claimConfig = entry.getValue().getClaimConfig();
+            if (!claimConfig.isLocalClaimDialect()) {
+                List<Claim> claims = getClaimList(idPClaims, entry.getKey());
+                claimConfig.setIdpClaims(claims.toArray(new Claim[claims.size()]));
+            }
+            List<ClaimMapping> claimMappings = getClaimMappingList(idPClaimMappings, entry.getKey());
+            claimConfig.setClaimMappings(claimMappings.toArray(new ClaimMapping[claimMappings.size()]));
+        }
+    }
+
+    private List<Claim> getClaimList(Map<Integer, List<Claim>> idPClaims, int idPId) {
+
+        List<Claim> claims = idPClaims.get(idPId);
+        if (claims == null) {
+            claims = new ArrayList<Claim>();
+            idPClaims.put(idPId, claims);
+        }
+        return claims;
+    }
+
+    private List<ClaimMapping> getClaimMappingList(Map<Integer, List<ClaimMapping>> idPClaimMappings, int idPId) {
+
+        List<ClaimMapping> claimMappings = idPClaimMappings.get(idPId);
+        if (claimMappings == null) {
+            claimMappings = new ArrayList<ClaimMapping>();
+            idPClaimMappings.put(idPId, claimMappings);
+        }
+        return claimMappings;
+    }
+
+    private void loadProvisioningConnectorConfigs(Connection dbConnection, Map<Integer, IdentityProvider> idps,
+                                                  String idPFilter, int... filterParams)
+            throws IdentityProviderManagementException, SQLException {
+
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        Map<Integer, List<ProvisioningConnectorConfig>> idPConnectors =
+                new HashMap<Integer, List<ProvisioningConnectorConfig>>();
+        Map<Integer, ProvisioningConnectorConfig> connectors = new HashMap<Integer, ProvisioningConnectorConfig>();
+        Map<Integer, List<Property>> connectorProperties = new HashMap<Integer, List<Property>>();
+
+        try {
+            prepStmt = prepareLoadStatement(dbConnection,
+                    IdPManagementConstants.SQLQueries.LOAD_IDP_PROVISIONING_CONFIGS_SQL, idPFilter, filterParams);
+            rs = prepStmt.executeQuery();
+
+            while (rs.next()) {
+                int idPId = rs.getInt("IDP_ID");
+                if (!idps.containsKey(idPId)) {
+                    continue;
+                }
+
+                int configId = rs.getInt("ID");
+                if (!connectors.containsKey(configId)) {
+                    ProvisioningConnectorConfig provisioningConnector = new ProvisioningConnectorConfig();
+                    provisioningConnector.setName(rs.getString("PROVISIONING_CONNECTOR_TYPE"));
+
+                    if (("1").equals(rs.getString("IS_ENABLED"))) {
+                        provisioningConnector.setEnabled(true);
+                    } else {
+                        provisioningConnector.setEnabled(false);
+                    }
+
+                    if (("1").equals(rs.getString("IS_BLOCKING"))) {
+                        provisioningConnector.setBlocking(true);
+                    } else {
+                        provisioningConnector.setBlocking(false);
+                    }
+                    connectors.put(configId, provisioningConnector);
+                    connectorProperties.put(configId, new ArrayList<Property>());
+
+                    if (!idPConnectors.containsKey(idPId)) {
+                        idPConnectors.put(idPId, new ArrayList<ProvisioningConnectorConfig>());
+                    }
+                    idPConnectors.get(idPId).add(provisioningConnector);
+                }
+
+                // no property row is joined for a connector without properties
+                if (rs.getString("PROPERTY_KEY") != null) {
                     Property property = new Property();
-                    property.setName(proprs.getString("PROPERTY_KEY"));
-                    property.setValue(proprs.getString("PROPERTY_VALUE"));
-                    if (("1").equals(proprs.getString("IS_SECRET"))) {
+                    String propertyType = rs.getString("PROPERTY_TYPE");
+                    String blobValue = getBlobValue(rs.getBinaryStream("PROPERTY_BLOB_VALUE"));
+
+                    property.setName(rs.getString("PROPERTY_KEY"));
+                    if (propertyType != null && IdentityApplicationConstants.ConfigElements.
+                            PROPERTY_TYPE_BLOB.equals(propertyType.trim())) {
+                        property.setValue(blobValue);
+                    } else {
+                        property.setValue(rs.getString("PROPERTY_VALUE"));
+                    }
+                    property.setType(propertyType);
+
+                    if (("1").equals(rs.getString("IS_SECRET"))) {
                         property.setConfidential(true);
+                    } else {
+                        property.setConfidential(false);
                     }
-                    properties.add(property);
+                    connectorProperties.get(configId).add(property);
                 }
-                authnConfig.setProperties(properties.toArray(new Property[properties.size()]));
-                federatedAuthenticatorConfigs.add(authnConfig);
             }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+        }
+
+        for (Map.Entry<Integer, ProvisioningConnectorConfig> entry : connectors.entrySet()) {
+            List<Property> properties = connectorProperties.get(entry.getKey());
+            entry.getValue().setProvisioningProperties(properties.toArray(new Property[properties.size()]));
+        }
+
+        for (Map.Entry<Integer, IdentityProvider> entry : idps.entrySet()) {
+            List<ProvisioningConnectorConfig> configs = idPConnectors.get(entry.getKey());
+            if (configs == null) {
+                configs = new ArrayList<ProvisioningConnectorConfig>();
+            }
+            entry.getValue().setProvisioningConnectorConfigs(configs.toArray(
+                    new ProvisioningConnectorConfig[configs.size()]));
+        }
+    }
+
+    private void loadPermissionsAndRoleConfigs(Connection dbConnection, Map<Integer, IdentityProvider> idps,
+                                               String idPFilter, int... filterParams) throws SQLException {
+
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        Map<Integer, List<String>> idPRoles = new HashMap<Integer, List<String>>();
+        Map<Integer, List<RoleMapping>> idPRoleMappings = new HashMap<Integer, List<RoleMapping>>();
+        Set<Integer> roleIds = new HashSet<Integer>();
+
+        try {
+            prepStmt = prepareLoadStatement(dbConnection, IdPManagementConstants.SQLQueries.LOAD_IDP_ROLES_SQL,
+                    idPFilter, filterParams);
+            rs = prepStmt.executeQuery();
 
-            return federatedAuthenticatorConfigs
-                    .toArray(new FederatedAuthenticatorConfig[federatedAuthenticatorConfigs.size()]);
+            while (rs.next()) {
+                int idPId = rs.getInt("IDP_ID");
+                if (!idps.containsKey(idPId)) {
+                    continue;
+                }
+                if (!idPRoles.containsKey(idPId)) {
+                    idPRoles.put(idPId, new ArrayList<String>());
+                    idPRoleMappings.put(idPId, new ArrayList<RoleMapping>());
+                }
+
+                // a role is joined once per role mapping
+                if (roleIds.add(rs.getInt("ID"))) {
+                    idPRoles.get(idPId).add(rs.getString("ROLE"));
+                }
+                if (rs.getString("LOCAL_ROLE") != null) {
+                    LocalRole localRole = new LocalRole(rs.getString("USER_STORE_ID"),
+                            rs.getString("LOCAL_ROLE"));
+                    idPRoleMappings.get(idPId).add(new RoleMapping(localRole, rs.getString("ROLE")));
+                }
+            }
         } finally {
-            IdentityDatabaseUtil.closeAllConnections(null, proprs, prepStmt2);
-            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt1);
+            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+        }
+
+        for (Map.Entry<Integer, IdentityProvider> entry : idps.entrySet()) {
+            List<String> roles = idPRoles.get(entry.getKey());
+            List<RoleMapping> roleMappings = idPRoleMappings.get(entry.getKey());
+            if (roles == null) {
+                roles = new ArrayList<String>();
+                roleMappings = new ArrayList<RoleMapping>();
+            }
+            PermissionsAndRoleConfig permissionRoleConfiguration = new PermissionsAndRoleConfig();
+            permissionRoleConfiguration.setIdpRoles(roles.toArray(new String[roles.size()]));
+            permissionRoleConfiguration.setRoleMappings(roleMappings.toArray(new RoleMapping[roleMappings.size()]));
+            entry.getValue().setPermissionAndRoleConfig(permissionRoleConfiguration);
+        }
+    }
+
+    private void loadIdPProperties(Connection dbConnection, Map<Integer, IdentityProvider> idps, String idPFilter,
+                                   int... filterParams) throws SQLException {
+
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        Map<Integer, List<IdentityProviderProperty>> idPProperties =
+                new HashMap<Integer, List<IdentityProviderProperty>>();
+
+        try {
+            prepStmt = prepareLoadStatement(dbConnection, IdPManagementConstants.SQLQueries.LOAD_IDP_METADATA_SQL,
+                    idPFilter, filterParams);
+            rs = prepStmt.executeQuery();
+
+            while (rs.next()) {
+                int idPId = rs.getInt("IDP_ID");
+                if (!idps.containsKey(idPId)) {
+                    continue;
+                }
+                IdentityProviderProperty property = new IdentityProviderProperty();
+                property.setName(rs.getString("NAME"));
+                property.setValue(rs.getString("VALUE"));
+                property.setDisplayName(rs.getString("DISPLAY_NAME"));
+
+                if (!idPProperties.containsKey(idPId)) {
+                    idPProperties.put(idPId, new ArrayList<IdentityProviderProperty>());
+                }
+                idPProperties.get(idPId).add(property);
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+        }
+
+        for (Map.Entry<Integer, IdentityProvider> entry : idps.entrySet()) {
+            List<IdentityProviderProperty> propertyList = idPProperties.get(entry.getKey());
+            if (propertyList == null) {
+                propertyList = new ArrayList<IdentityProviderProperty>();
+            }
+            entry.getValue().setIdpProperties(propertyList.toArray(
+                    new IdentityProviderProperty[propertyList.size()]));
         }
     }
 
@@ -561,152 +885,6 @@ public class IdPManagementDAO {
         }
 
     }
-    /**
-     * @param dbConnection
-     * @param idPName
-     * @param userClaimUri
-     * @param roleClaimUri
-     * @param idpId
-     * @param tenantId
-     * @return
-     * @throws SQLException
-     */
-    private ClaimConfig getLocalIdPDefaultClaimValues(Connection dbConnection, String idPName,
-                                                      String userClaimUri, String roleClaimUri,
-                                                      int idpId, int tenantId) throws SQLException {
-
-        PreparedStatement prepStmt = null;
-        ResultSet rs = null;
-        String sqlStmt;
-        ClaimConfig claimConfig = new ClaimConfig();
-
-        try {
-
-            claimConfig.setLocalClaimDialect(true);
-            claimConfig.setRoleClaimURI(roleClaimUri);
-            claimConfig.setUserClaimURI(userClaimUri);
-
-            sqlStmt = IdPManagementConstants.SQLQueries.GET_LOCAL_IDP_DEFAULT_CLAIM_VALUES_SQL;
-            prepStmt = dbConnection.prepareStatement(sqlStmt);
-
-            prepStmt.setInt(1, idpId);
-            prepStmt.setInt(2, tenantId);
-
-            List<ClaimMapping> claimMappings = new ArrayList<ClaimMapping>();
-
-            rs = prepStmt.executeQuery();
-
-            while (rs.next()) {
-                ClaimMapping claimMapping = new ClaimMapping();
-
-                // empty claim.
-                Claim remoteClaim = new Claim();
-
-                Claim localClaim = new Claim();
-                localClaim.setClaimUri(rs.getString("CLAIM_URI"));
-
-                claimMapping.setLocalClaim(localClaim);
-                claimMapping.setRemoteClaim(remoteClaim);
-                claimMapping.setDefaultValue(rs.getString("DEFAULT_VALUE"));
-
-                if (("1").equals(rs.getString("IS_REQUESTED"))) {
-                    claimMapping.setRequested(true);
-                } else if (rs.getString("IS_REQUESTED").equals("1")) {
-                    claimMapping.setRequested(false);
-                }
-
-                claimMappings.add(claimMapping);
-            }
-
-            claimConfig.setClaimMappings(claimMappings.toArray(new ClaimMapping[claimMappings
-                    .size()]));
-
-            return claimConfig;
-
-        } finally {
-            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
-        }
-    }
-
-    /**
-     * @param dbConnection
-     * @param idPName
-     * @param tenantId
-     * @return
-     * @throws IdentityProviderManagementException
-     * @throws SQLException
-     */
-    private ClaimConfig getIdPClaimConfiguration(Connection dbConnection, String idPName,
-                                                 String userClaimUri, String roleClaimUri, int idPId, int tenantId)
-            throws IdentityProviderManagementException, SQLException {
-
-        PreparedStatement prepStmt1 = null;
-        PreparedStatement prepStmt2 = null;
-        ResultSet rs1 = null;
-        ResultSet rs2 = null;
-
-        try {
-
-            List<Claim> claimList = new ArrayList<Claim>();
-            // SP_IDP_CLAIM_ID, SP_IDP_CLAIM
-            String sqlStmt = IdPManagementConstants.SQLQueries.GET_IDP_CLAIMS_SQL;
-            prepStmt1 = dbConnection.prepareStatement(sqlStmt);
-            prepStmt1.setInt(1, idPId);
-            rs1 = prepStmt1.executeQuery();
-
-            ClaimConfig claimConfig = new ClaimConfig();
-
-            while (rs1.next()) {
-                Claim identityProviderClaim = new Claim();
-                identityProviderClaim.setClaimId(rs1.getInt(1));
-                identityProviderClaim.setClaimUri(rs1.getString(2));
-                claimList.add(identityProviderClaim);
-            }
-
-            // populate claim configuration with identity provider claims.
-            claimConfig.setIdpClaims(claimList.toArray(new Claim[claimList.size()]));
-
-            claimConfig.setUserClaimURI(userClaimUri);
-            claimConfig.setRoleClaimURI(roleClaimUri);
-
-            List<ClaimMapping> claimMappings = new ArrayList<ClaimMapping>();
-
-            // SP_IDP_CLAIMS.SP_IDP_CLAIM SP_IDP_CLAIM_MAPPINGS.SP_LOCAL_CLAIM
-            sqlStmt = IdPManagementConstants.SQLQueries.GET_IDP_CLAIM_MAPPINGS_SQL;
-            prepStmt2 = dbConnection.prepareStatement(sqlStmt);
-            prepStmt2.setInt(1, idPId);
-            rs2 = prepStmt2.executeQuery();
-
-            while (rs2.next()) {
-                ClaimMapping claimMapping = new ClaimMapping();
-
-                Claim idpClaim = new Claim();
-                idpClaim.setClaimUri(rs2.getString("CLAIM"));
-
-                Claim localClaim = new Claim();
-                localClaim.setClaimUri(rs2.getString("LOCAL_CLAIM"));
-
-                claimMapping.setLocalClaim(localClaim);
-                claimMapping.setRemoteClaim(idpClaim);
-                claimMapping.setDefaultValue(rs2.getString("DEFAULT_VALUE"));
-                if (("1").equals(rs2.getString("IS_REQUESTED"))) {
-                    claimMapping.setRequested(true);
-                } else if (("0").equals(rs2.getString("IS_REQUESTED"))) {
-                    claimMapping.setRequested(false);
-                }
-                claimMappings.add(claimMapping);
-
-            }
-
-            claimConfig.setClaimMappings(claimMappings.toArray(new ClaimMapping[claimMappings
-                    .size()]));
-
-            return claimConfig;
-        } finally {
-            IdentityDatabaseUtil.closeAllConnections(null, rs2, prepStmt2);
-            IdentityDatabaseUtil.closeAllConnections(null, rs1, prepStmt1);
-        }
-    }
 
     /**
      * @param dbConnection
@@ -1092,119 +1270,185 @@ public class IdPManagementDAO {
             prepStmt.setInt(2, MultitenantConstants.SUPER_TENANT_ID);
             prepStmt.setString(3, idPName);
             rs = prepStmt.executeQuery();
-            int idpId = -1;
 
             if (rs.next()) {
-                federatedIdp = new IdentityProvider();
-                federatedIdp.setIdentityProviderName(idPName);
-
-                idpId = rs.getInt("ID");
+                int idpId = rs.getInt("ID");
+                federatedIdp = buildIdentityProvider(rs, idPName);
 
-                if (("1").equals(rs.getString("IS_PRIMARY"))) {
-                    federatedIdp.setPrimary(true);
-                } else {
-                    federatedIdp.setPrimary(false);
-                }
+                Map<Integer, IdentityProvider> idps = new HashMap<Integer, IdentityProvider>();
+                idps.put(idpId, federatedIdp);
+                loadIdPConfigs(dbConnection, idps, IdPManagementConstants.SQLQueries.IDP_ID_FILTER, idpId);
+                setDefaultAuthenticatorConfig(federatedIdp);
+            }
+            dbConnection.commit();
+            return federatedIdp;
+        } catch (SQLException e) {
+            IdentityApplicationManagementUtil.rollBack(dbConnection);
+            throw new IdentityProviderManagementException("Error occurred while retrieving Identity Provider " +
+                    "information for tenant : " + tenantDomain + " and Identity Provider name : " + idPName, e);
+        } finally {
+            if (dbConnectionInitialized) {
+                IdentityDatabaseUtil.closeAllConnections(dbConnection, rs, prepStmt);
+            }else{
+                IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+            }
+        }
+    }
 
-                federatedIdp.setHomeRealmId(rs.getString("HOME_REALM_ID"));
-                federatedIdp.setCertificate(getBlobValue(rs.getBinaryStream("CERTIFICATE")));
-                federatedIdp.setAlias(rs.getString("ALIAS"));
+    /**
+     * Get all the identity providers of the tenant, including the shared ones, with their configurations. Each kind
+     * of configuration is read with one query for all the identity providers.
+     *
+     * @param dbConnection
+     * @param tenantId
+     * @param tenantDomain
+     * @return
+     * @throws IdentityProviderManagementException
+     */
+    public List<IdentityProvider> getIdPsWithConfigs(Connection dbConnection, int tenantId, String tenantDomain)
+            throws IdentityProviderManagementException {
 
-                JustInTimeProvisioningConfig jitProConfig = new JustInTimeProvisioningConfig();
-                if (("1").equals(rs.getString("INBOUND_PROV_ENABLED"))) {
-                    jitProConfig.setProvisioningEnabled(true);
-                } else {
-                    jitProConfig.setProvisioningEnabled(false);
+        boolean dbConnInitialized = true;
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        List<IdentityProvider> idps = new ArrayList<IdentityProvider>();
+        Map<Integer, IdentityProvider> idpsById = new HashMap<Integer, IdentityProvider>();
+        if (dbConnection == null) {
+            dbConnection = IdentityDatabaseUtil.getDBConnection();
+        } else {
+            dbConnInitialized = false;
+        }
+        try {
+            String sqlStmt = IdPManagementConstants.SQLQueries.GET_IDPS_WITH_CONFIGS_SQL;
+            prepStmt = dbConnection.prepareStatement(sqlStmt);
+            prepStmt.setInt(1, tenantId);
+            prepStmt.setInt(2, MultitenantConstants.SUPER_TENANT_ID);
+            rs = prepStmt.executeQuery();
+            while (rs.next()) {
+                String idPName = rs.getString("NAME");
+                if (IdentityApplicationConstants.RESIDENT_IDP_RESERVED_NAME.equals(idPName)) {
+                    continue;
                 }
+                IdentityProvider identityProvider = buildIdentityProvider(rs, idPName);
+                idps.add(identityProvider);
+                idpsById.put(rs.getInt("ID"), identityProvider);
+            }
 
-                jitProConfig.setProvisioningUserStore(rs.getString("INBOUND_PROV_USER_STORE_ID"));
-                federatedIdp.setJustInTimeProvisioningConfig(jitProConfig);
+            loadIdPConfigs(dbConnection, idpsById, IdPManagementConstants.SQLQueries.TENANT_IDP_ID_FILTER,
+                    tenantId, MultitenantConstants.SUPER_TENANT_ID);
+            for (IdentityProvider identityProvider : idps) {
+                setDefaultAuthenticatorConfig(identityProvider);
+            }
+            dbConnection.commit();
+            return idps;
+        } catch (SQLException e) {
+            IdentityApplicationManagementUtil.rollBack(dbConnection);
+            throw new IdentityProviderManagementException("Error occurred while retrieving Identity Providers " +
+                    "for tenant " + tenantDomain, e);
+        } finally {
+            if (dbConnInitialized) {
+                IdentityDatabaseUtil.closeAllConnections(dbConnection, rs, prepStmt);
+            } else {
+                IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
+            }
+        }
+    }
 
-                String userClaimUri = rs.getString("USER_CLAIM_URI");
-                String roleClaimUri = rs.getString("ROLE_CLAIM_URI");
+    /**
+     * Create an identity provider from the current row of an IDP query. The configurations stored in other tables
+     * are not loaded. The default authenticator is set with its name only.
+     *
+     * @param rs      result set positioned at the identity provider row
+     * @param idPName name of the identity provider
+     * @return identity provider
+     * @throws IdentityProviderManagementException
+     * @throws SQLException
+     */
+    private IdentityProvider buildIdentityProvider(ResultSet rs, String idPName)
+            throws IdentityProviderManagementException, SQLException {
 
-                String defaultAuthenticatorName = rs.getString("DEFAULT_AUTHENTICATOR_NAME");
-                String defaultProvisioningConnectorConfigName = rs.getString("DEFAULT_PRO_CONNECTOR_NAME");
-                federatedIdp.setIdentityProviderDescription(rs.getString("DESCRIPTION"));
+        IdentityProvider federatedIdp = new IdentityProvider();
+        federatedIdp.setIdentityProviderName(idPName);
 
-                // IS_FEDERATION_HUB_IDP
-                if ("1".equals(rs.getString("IS_FEDERATION_HUB"))) {
-                    federatedIdp.setFederationHub(true);
-                } else {
-                    federatedIdp.setFederationHub(false);
-                }
+        if (("1").equals(rs.getString("IS_PRIMARY"))) {
+            federatedIdp.setPrimary(true);
+        } else {
+            federatedIdp.setPrimary(false);
+        }
 
-                if (federatedIdp.getClaimConfig() == null) {
-                    federatedIdp.setClaimConfig(new ClaimConfig());
-                }
+        federatedIdp.setHomeRealmId(rs.getString("HOME_REALM_ID"));
+        federatedIdp.setCertificate(getBlobValue(rs.getBinaryStream("CERTIFICATE")));
+        federatedIdp.setAlias(rs.getString("ALIAS"));
 
-                // IS_LOCAL_CLAIM_DIALECT
-                if ("1".equals(rs.getString("IS_LOCAL_CLAIM_DIALECT"))) {
-                    federatedIdp.getClaimConfig().setLocalClaimDialect(true);
-                } else {
-                    federatedIdp.getClaimConfig().setLocalClaimDialect(false);
-                }
+        JustInTimeProvisioningConfig jitProConfig = new JustInTimeProvisioningConfig();
+        if (("1").equals(rs.getString("INBOUND_PROV_ENABLED"))) {
+            jitProConfig.setProvisioningEnabled(true);
+        } else {
+            jitProConfig.setProvisioningEnabled(false);
+        }
 
-                federatedIdp.setProvisioningRole(rs.getString("PROVISIONING_ROLE"));
+        jitProConfig.setProvisioningUserStore(rs.getString("INBOUND_PROV_USER_STORE_ID"));
+        federatedIdp.setJustInTimeProvisioningConfig(jitProConfig);
 
-                if ("1".equals(rs.getString("IS_ENABLED"))) {
-                    federatedIdp.setEnable(true);
-                } else {
-                    federatedIdp.setEnable(false);
-                }
+        String defaultAuthenticatorName = rs.getString("DEFAULT_AUTHENTICATOR_NAME");
+        String defaultProvisioningConnectorConfigName = rs.getString("DEFAULT_PRO_CONNECTOR_NAME");
+        federatedIdp.setIdentityProviderDescription(rs.getString("DESCRIPTION"));
 
-                federatedIdp.setDisplayName(rs.getString("DISPLAY_NAME"));
+        // IS_FEDERATION_HUB_IDP
+        if ("1".equals(rs.getString("IS_FEDERATION_HUB"))) {
+            federatedIdp.setFederationHub(true);
+        } else {
+            federatedIdp.setFederationHub(false);
+        }
 
-                if (defaultProvisioningConnectorConfigName != null) {
-                    ProvisioningConnectorConfig defaultProConnector = new ProvisioningConnectorConfig();
-                    defaultProConnector.setName(defaultProvisioningConnectorConfigName);
-                    federatedIdp.setDefaultProvisioningConnectorConfig(defaultProConnector);
-                }
+        ClaimConfig claimConfig = new ClaimConfig();
+        // IS_LOCAL_CLAIM_DIALECT
+        if ("1".equals(rs.getString("IS_LOCAL_CLAIM_DIALECT"))) {
+            claimConfig.setLocalClaimDialect(true);
+        } else {
+            claimConfig.setLocalClaimDialect(false);
+        }
+        claimConfig.setUserClaimURI(rs.getString("USER_CLAIM_URI"));
+        claimConfig.setRoleClaimURI(rs.getString("ROLE_CLAIM_URI"));
+        federatedIdp.setClaimConfig(claimConfig);
 
-                // get federated authenticators.
-                federatedIdp.setFederatedAuthenticatorConfigs(getFederatedAuthenticatorConfigs(
-                        dbConnection, idPName, federatedIdp, tenantId));
+        federatedIdp.setProvisioningRole(rs.getString("PROVISIONING_ROLE"));
 
-                if (defaultAuthenticatorName != null && federatedIdp.getFederatedAuthenticatorConfigs() != null) {
-                    federatedIdp.setDefaultAuthenticatorConfig(IdentityApplicationManagementUtil
-                            .getFederatedAuthenticator(federatedIdp.getFederatedAuthenticatorConfigs(),
-                                    defaultAuthenticatorName));
-                }
+        if ("1".equals(rs.getString("IS_ENABLED"))) {
+            federatedIdp.setEnable(true);
+        } else {
+            federatedIdp.setEnable(false);
+        }
 
-                if (federatedIdp.getClaimConfig().isLocalClaimDialect()) {
-                    federatedIdp.setClaimConfig(getLocalIdPDefaultClaimValues(dbConnection,
-                            idPName, userClaimUri, roleClaimUri, idpId, tenantId));
-                } else {
-                    // get claim configuration.
-                    federatedIdp.setClaimConfig(getIdPClaimConfiguration(dbConnection, idPName,
-                            userClaimUri, roleClaimUri, idpId, tenantId));
-                }
+        federatedIdp.setDisplayName(rs.getString("DISPLAY_NAME"));
 
-                // get provisioning connectors.
-                federatedIdp.setProvisioningConnectorConfigs(getProvisioningConnectorConfigs(
-                        dbConnection, idPName, idpId, tenantId));
+        if (defaultAuthenticatorName != null) {
+            FederatedAuthenticatorConfig defaultAuthenticator = new FederatedAuthenticatorConfig();
+            defaultAuthenticator.setName(defaultAuthenticatorName);
+            federatedIdp.setDefaultAuthenticatorConfig(defaultAuthenticator);
+        }
 
-                // get permission and role configuration.
-                federatedIdp.setPermissionAndRoleConfig(getPermissionsAndRoleConfiguration(
-                        dbConnection, idPName, idpId, tenantId));
+        if (defaultProvisioningConnectorConfigName != null) {
+            ProvisioningConnectorConfig defaultProConnector = new ProvisioningConnectorConfig();
+            defaultProConnector.setName(defaultProvisioningConnectorConfigName);
+            federatedIdp.setDefaultProvisioningConnectorConfig(defaultProConnector);
+        }
+        return federatedIdp;
+    }
 
-                List<IdentityProviderProperty> propertyList = getIdentityPropertiesByIdpId(dbConnection,
-                        Integer.parseInt(rs.getString("ID")));
-                federatedIdp.setIdpProperties(propertyList.toArray(new IdentityProviderProperty[propertyList.size()]));
+    /**
+     * Replace the default authenticator, which is set with its name only, with the federated authenticator of the
+     * same name
+     *
+     * @param federatedIdp identity provider with its federated authenticators loaded
+     */
+    private void setDefaultAuthenticatorConfig(IdentityProvider federatedIdp) {
 
-            }
-            dbConnection.commit();
-            return federatedIdp;
-        } catch (SQLException e) {
-            IdentityApplicationManagementUtil.rollBack(dbConnection);
-            throw new IdentityProviderManagementException("Error occurred while retrieving Identity Provider " +
-                    "information for tenant : " + tenantDomain + " and Identity Provider name : " + idPName, e);
-        } finally {
-            if (dbConnectionInitialized) {
-                IdentityDatabaseUtil.closeAllConnections(dbConnection, rs, prepStmt);
-            }else{
-                IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
-            }
+        if (federatedIdp.getDefaultAuthenticatorConfig() != null
+                && federatedIdp.getFederatedAuthenticatorConfigs() != null) {
+            federatedIdp.setDefaultAuthenticatorConfig(IdentityApplicationManagementUtil
+                    .getFederatedAuthenticator(federatedIdp.getFederatedAuthenticatorConfigs(),
+                            federatedIdp.getDefaultAuthenticatorConfig().getName()));
         }
     }
 
@@ -1321,30 +1565,14 @@ public class IdPManagementDAO {
                     federatedIdp.setDefaultProvisioningConnectorConfig(defaultProConnector);
                 }
 
-                // get federated authenticators.
-                federatedIdp.setFederatedAuthenticatorConfigs(getFederatedAuthenticatorConfigs(
-                        dbConnection, idPName, federatedIdp, tenantId));
-
-                if (federatedIdp.getClaimConfig().isLocalClaimDialect()) {
-                    federatedIdp.setClaimConfig(getLocalIdPDefaultClaimValues(dbConnection,
-                            idPName, userClaimUri, roleClaimUri, idpId, tenantId));
-                } else {
-                    // get claim configuration.
-                    federatedIdp.setClaimConfig(getIdPClaimConfiguration(dbConnection, idPName,
-                            userClaimUri, roleClaimUri, idpId, tenantId));
-                }
+                federatedIdp.getClaimConfig().setUserClaimURI(userClaimUri);
+                federatedIdp.getClaimConfig().setRoleClaimURI(roleClaimUri);
 
-                // get provisioning connectors.
-                federatedIdp.setProvisioningConnectorConfigs(getProvisioningConnectorConfigs(
-                        dbConnection, idPName, idpId, tenantId));
-
-                // get permission and role configuration.
-                federatedIdp.setPermissionAndRoleConfig(getPermissionsAndRoleConfiguration(
-                        dbConnection, idPName, idpId, tenantId));
-
-                List<IdentityProviderProperty> propertyList = getIdentityPropertiesByIdpId(dbConnection,
-                        Integer.parseInt(rs.getString("ID")));
-                federatedIdp.setIdpProperties(propertyList.toArray(new IdentityProviderProperty[propertyList.size()]));
+                // get federated authenticators, claim configuration, provisioning connectors, permission and
+                // role configuration and properties.
+                Map<Integer, IdentityProvider> idps = new HashMap<Integer, IdentityProvider>();
+                idps.put(idpId, federatedIdp);
+                loadIdPConfigs(dbConnection, idps, IdPManagementConstants.SQLQueries.IDP_ID_FILTER, idpId);
 
             }
             dbConnection.commit();
@@ -2495,38 +2723,6 @@ public class IdPManagementDAO {
         return ret;
     }
 
-    /**
-     * @param dbConnection
-     * @param idPName
-     * @param tenantId
-     * @return
-     * @throws SQLException
-     * @throws IdentityProviderManagementException
-     */
-    private int getIdentityProviderIdentifier(Connection dbConnection, String idPName, int tenantId)
-            throws SQLException, IdentityProviderManagementException {
-
-        String sqlStmt = null;
-        PreparedStatement prepStmt = null;
-        ResultSet rs = null;
-        try {
-            sqlStmt = IdPManagementConstants.SQLQueries.GET_IDP_BY_NAME_SQL;
-            prepStmt = dbConnection.prepareStatement(sqlStmt);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setInt(2, MultitenantConstants.SUPER_TENANT_ID);
-            prepStmt.setString(3, idPName);
-            rs = prepStmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("ID");
-            } else {
-                throw new IdentityProviderManagementException("Invalid Identity Provider Name "
-                        + idPName);
-            }
-        } finally {
-            IdentityDatabaseUtil.closeAllConnections(null, rs, prepStmt);
-        }
-    }
-
     public boolean isIdPAvailableForAuthenticatorProperty(String authenticatorName, String propertyName, String idPEntityId, int tenantId)
             throws IdentityProviderManagementException {
         boolean isAvailable = false;
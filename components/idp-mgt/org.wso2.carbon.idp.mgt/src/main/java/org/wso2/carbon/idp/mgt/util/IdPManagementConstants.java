@@ -214,5 +214,50 @@ public class IdPManagementConstants {
         public static final String ADD_IDP_METADATA = "INSERT INTO IDP_METADATA (IDP_ID, NAME, VALUE, DISPLAY_NAME, " +
                 "TENANT_ID) VALUES (?, ?, ?, ?, ?)";
         public static final String DELETE_IDP_METADATA = "DELETE FROM IDP_METADATA WHERE IDP_ID = ?";
+
+        // Set based queries loading the configurations of a set of identity providers. Each of them ends with the
+        // IDP_ID column, to be followed by IDP_ID_FILTER or TENANT_IDP_ID_FILTER.
+        public static final String IDP_ID_FILTER = " = ?";
+
+        public static final String TENANT_IDP_ID_FILTER = " IN (SELECT ID FROM IDP WHERE (TENANT_ID = ? OR " +
+                "(TENANT_ID = ? AND NAME LIKE '" + SHARED_IDP_PREFIX + "%')))";
+
+        public static final String GET_IDPS_WITH_CONFIGS_SQL = "SELECT ID, NAME, IS_PRIMARY, HOME_REALM_ID, " +
+                "CERTIFICATE, ALIAS, INBOUND_PROV_ENABLED, INBOUND_PROV_USER_STORE_ID, USER_CLAIM_URI, " +
+                "ROLE_CLAIM_URI, DEFAULT_AUTHENTICATOR_NAME, DEFAULT_PRO_CONNECTOR_NAME, DESCRIPTION, " +
+                "IS_FEDERATION_HUB, IS_LOCAL_CLAIM_DIALECT, PROVISIONING_ROLE, IS_ENABLED, DISPLAY_NAME FROM IDP " +
+                "WHERE (TENANT_ID = ? OR (TENANT_ID = ? AND NAME LIKE '" + SHARED_IDP_PREFIX + "%'))";
+
+        public static final String LOAD_IDP_AUTHENTICATORS_SQL = "SELECT IDP_AUTHENTICATOR.IDP_ID, " +
+                "IDP_AUTHENTICATOR.ID, IDP_AUTHENTICATOR.NAME, IDP_AUTHENTICATOR.IS_ENABLED, " +
+                "IDP_AUTHENTICATOR.DISPLAY_NAME, IDP_AUTHENTICATOR_PROPERTY.PROPERTY_KEY, " +
+                "IDP_AUTHENTICATOR_PROPERTY.PROPERTY_VALUE, IDP_AUTHENTICATOR_PROPERTY.IS_SECRET " +
+                "FROM IDP_AUTHENTICATOR LEFT OUTER JOIN IDP_AUTHENTICATOR_PROPERTY ON " +
+                "IDP_AUTHENTICATOR_PROPERTY.AUTHENTICATOR_ID = IDP_AUTHENTICATOR.ID WHERE IDP_AUTHENTICATOR.IDP_ID";
+
+        public static final String LOAD_IDP_CLAIMS_SQL = "SELECT IDP_CLAIM.IDP_ID, IDP_CLAIM.ID, IDP_CLAIM.CLAIM, " +
+                "IDP_CLAIM_MAPPING.LOCAL_CLAIM, IDP_CLAIM_MAPPING.DEFAULT_VALUE, IDP_CLAIM_MAPPING.IS_REQUESTED " +
+                "FROM IDP_CLAIM LEFT OUTER JOIN IDP_CLAIM_MAPPING ON IDP_CLAIM_MAPPING.IDP_CLAIM_ID = IDP_CLAIM.ID " +
+                "WHERE IDP_CLAIM.IDP_ID";
+
+        public static final String LOAD_LOCAL_IDP_DEFAULT_CLAIM_VALUES_SQL = "SELECT IDP_ID, CLAIM_URI, " +
+                "DEFAULT_VALUE, IS_REQUESTED FROM IDP_LOCAL_CLAIM WHERE IDP_ID";
+
+        public static final String LOAD_IDP_ROLES_SQL = "SELECT IDP_ROLE.IDP_ID, IDP_ROLE.ID, IDP_ROLE.ROLE, " +
+                "IDP_ROLE_MAPPING.USER_STORE_ID, IDP_ROLE_MAPPING.LOCAL_ROLE FROM IDP_ROLE LEFT OUTER JOIN " +
+                "IDP_ROLE_MAPPING ON IDP_ROLE_MAPPING.IDP_ROLE_ID = IDP_ROLE.ID WHERE IDP_ROLE.IDP_ID";
+
+        public static final String LOAD_IDP_PROVISIONING_CONFIGS_SQL = "SELECT IDP_PROVISIONING_CONFIG.IDP_ID, " +
+                "IDP_PROVISIONING_CONFIG.ID, IDP_PROVISIONING_CONFIG.PROVISIONING_CONNECTOR_TYPE, " +
+                "IDP_PROVISIONING_CONFIG.IS_ENABLED, IDP_PROVISIONING_CONFIG.IS_BLOCKING, " +
+                "IDP_PROV_CONFIG_PROPERTY.PROPERTY_KEY, IDP_PROV_CONFIG_PROPERTY.PROPERTY_VALUE, " +
+                "IDP_PROV_CONFIG_PROPERTY.PROPERTY_BLOB_VALUE, IDP_PROV_CONFIG_PROPERTY.PROPERTY_TYPE, " +
+                "IDP_PROV_CONFIG_PROPERTY.IS_SECRET FROM IDP_PROVISIONING_CONFIG LEFT OUTER JOIN " +
+                "IDP_PROV_CONFIG_PROPERTY ON IDP_PROV_CONFIG_PROPERTY.PROVISIONING_CONFIG_ID = " +
+                "IDP_PROVISIONING_CONFIG.ID AND IDP_PROV_CONFIG_PROPERTY.TENANT_ID = IDP_PROVISIONING_CONFIG" +
+                ".TENANT_ID WHERE IDP_PROVISIONING_CONFIG.IDP_ID";
+
+        public static final String LOAD_IDP_METADATA_SQL = "SELECT IDP_ID, NAME, VALUE, DISPLAY_NAME FROM " +
+                "IDP_METADATA WHERE IDP_ID";
     }
 }
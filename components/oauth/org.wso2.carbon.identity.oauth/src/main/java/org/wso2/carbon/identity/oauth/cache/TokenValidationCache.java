@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.common.cache.BaseCache;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.utils.CarbonUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenValidationCache holds compact validation records of access tokens keyed by the token identifier, along with
+ * short lived negative records of unknown token identifiers. Records are also indexed by token id so that they can
+ * be invalidated when a token is revoked or expired by its id. The token id index is authoritative : a record whose
+ * token id entry is missing, whether cleared on revocation or evicted on its own, is not served.
+ * <p/>
+ * Negative records are only cleared by the node that persisted the token. Another node that does not see the token
+ * in its own persistence queue may add a negative record again, so negative records are kept for a short timeout
+ * (OAuth.TokenValidationCache.NegativeCacheTimeout) which bounds how long a new token can be reported as unknown.
+ */
+public class TokenValidationCache extends BaseCache<OAuthCacheKey, TokenValidationCacheEntry> {
+
+    private static final Log log = LogFactory.getLog(TokenValidationCache.class);
+
+    private static final String TOKEN_VALIDATION_CACHE_NAME = "TokenValidationCache";
+    private static final String TOKEN_ID_KEY_PREFIX = "TOKEN_ID:";
+    private static final String NEGATIVE_CACHE_TIMEOUT = "OAuth.TokenValidationCache.NegativeCacheTimeout";
+    // in seconds
+    private static final long DEFAULT_NEGATIVE_CACHE_TIMEOUT = 30;
+
+    private static volatile TokenValidationCache instance;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong negativeHitCount = new AtomicLong();
+    private long negativeCacheTimeoutInMillis = DEFAULT_NEGATIVE_CACHE_TIMEOUT * 1000;
+
+    private TokenValidationCache() {
+        super(TOKEN_VALIDATION_CACHE_NAME);
+
+        String negativeCacheTimeout = IdentityUtil.getProperty(NEGATIVE_CACHE_TIMEOUT);
+        if (StringUtils.isNotBlank(negativeCacheTimeout)) {
+            try {
+                negativeCacheTimeoutInMillis = Long.parseLong(negativeCacheTimeout.trim()) * 1000;
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value : " + negativeCacheTimeout + " for " + NEGATIVE_CACHE_TIMEOUT +
+                         ". Using default value : " + DEFAULT_NEGATIVE_CACHE_TIMEOUT + "s");
+            }
+        }
+    }
+
+    /**
+     * Returns TokenValidationCache instance
+     *
+     * @return instance of TokenValidationCache
+     */
+    public static TokenValidationCache getInstance() {
+        CarbonUtils.checkSecurity();
+        if (instance == null) {
+            synchronized (TokenValidationCache.class) {
+                if (instance == null) {
+                    instance = new TokenValidationCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Looks up the validation record of the given token identifier and records the lookup in the hit, miss and
+     * negative hit counters. Expired negative records and records which are no longer indexed by their token id are
+     * treated as misses.
+     *
+     * @param accessToken token identifier
+     * @return validation record, or null on a miss
+     */
+    public TokenValidationCacheEntry getValidationEntry(String accessToken) {
+
+        OAuthCacheKey cacheKey = new OAuthCacheKey(accessToken);
+        TokenValidationCacheEntry entry = getValueFromCache(cacheKey);
+        if (entry == null || entry.isNegativeEntryExpired()) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (entry.getTokenId() != null &&
+            getValueFromCache(new OAuthCacheKey(TOKEN_ID_KEY_PREFIX + entry.getTokenId())) == null) {
+            // the token may have been revoked by its id after the id entry was evicted
+            clearCacheEntry(cacheKey);
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (entry.isNegative()) {
+            negativeHitCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    public void addValidationEntry(TokenValidationCacheEntry entry) {
+
+        if (entry.getTokenId() != null) {
+            addToCache(new OAuthCacheKey(TOKEN_ID_KEY_PREFIX + entry.getTokenId()), entry);
+        }
+        addToCache(new OAuthCacheKey(entry.getAccessToken()), entry);
+    }
+
+    public void addNegativeEntry(String accessToken) {
+        addToCache(new OAuthCacheKey(accessToken),
+                   TokenValidationCacheEntry.forUnknownToken(accessToken, negativeCacheTimeoutInMillis));
+    }
+
+    /**
+     * Removes the validation record of the given token identifier.
+     *
+     * @param accessToken token identifier
+     */
+    public void clearByAccessToken(String accessToken) {
+
+        if (!OAuthServerConfiguration.getInstance().isCacheEnabled() || accessToken == null) {
+            return;
+        }
+        OAuthCacheKey cacheKey = new OAuthCacheKey(accessToken);
+        TokenValidationCacheEntry entry = getValueFromCache(cacheKey);
+        if (entry != null) {
+            clearCacheEntry(cacheKey);
+            if (entry.getTokenId() != null) {
+                clearCacheEntry(new OAuthCacheKey(TOKEN_ID_KEY_PREFIX + entry.getTokenId()));
+            }
+        }
+    }
+
+    /**
+     * Removes the validation record of the token with the given token id. If the token id entry has already been
+     * evicted, the record of the token is no longer served, so there is nothing left to clear.
+     *
+     * @param tokenId token id
+     */
+    public void clearByTokenId(String tokenId) {
+
+        if (!OAuthServerConfiguration.getInstance().isCacheEnabled() || tokenId == null) {
+            return;
+        }
+        OAuthCacheKey tokenIdKey = new OAuthCacheKey(TOKEN_ID_KEY_PREFIX + tokenId);
+        TokenValidationCacheEntry entry = getValueFromCache(tokenIdKey);
+        if (entry != null) {
+            clearCacheEntry(tokenIdKey);
+            clearCacheEntry(new OAuthCacheKey(entry.getAccessToken()));
+        }
+    }
+
+    /**
+     * Removes the negative record of the given token identifier, if there is one. Used once a token has been
+     * persisted, since it may have been looked up before the asynchronous persistence completed. Other nodes may
+     * add the negative record again until the token is visible to them, which is bounded by the negative timeout.
+     *
+     * @param accessToken token identifier
+     */
+    public void clearNegativeEntry(String accessToken) {
+
+        if (!OAuthServerConfiguration.getInstance().isCacheEnabled() || accessToken == null) {
+            return;
+        }
+        OAuthCacheKey cacheKey = new OAuthCacheKey(accessToken);
+        TokenValidationCacheEntry entry = getValueFromCache(cacheKey);
+        if (entry != null && entry.isNegative()) {
+            clearCacheEntry(cacheKey);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHitCount.get();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.wso2.carbon.identity.application.common.model.User;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+
+import java.sql.Timestamp;
+
+/**
+ * Compact validation record of an access token kept in the {@link TokenValidationCache}. It only holds the data
+ * needed to validate a token, and does not carry the refresh token. A negative record marks a token identifier
+ * which is not known to the system, until its expiry time.
+ */
+public class TokenValidationCacheEntry extends CacheEntry {
+
+    private static final long serialVersionUID = -2630981924380473525L;
+
+    private String accessToken;
+    private String tokenId;
+    private String consumerKey;
+    private String userName;
+    private String userStoreDomain;
+    private String tenantDomain;
+    private int tenantId;
+    private String[] scope;
+    private long issuedTime;
+    private long validityPeriodInMillis;
+    private String tokenType;
+    private String grantType;
+    private boolean negative;
+    private long negativeExpiryTime;
+
+    private TokenValidationCacheEntry() {
+    }
+
+    /**
+     * Creates a validation record for an active access token.
+     *
+     * @param accessTokenDO access token
+     * @return validation record
+     */
+    public static TokenValidationCacheEntry forAccessToken(AccessTokenDO accessTokenDO) {
+
+        TokenValidationCacheEntry entry = new TokenValidationCacheEntry();
+        entry.accessToken = accessTokenDO.getAccessToken();
+        entry.tokenId = accessTokenDO.getTokenId();
+        entry.consumerKey = accessTokenDO.getConsumerKey();
+        entry.userName = accessTokenDO.getAuthzUser().getUserName();
+        entry.userStoreDomain = accessTokenDO.getAuthzUser().getUserStoreDomain();
+        entry.tenantDomain = accessTokenDO.getAuthzUser().getTenantDomain();
+        entry.tenantId = accessTokenDO.getTenantID();
+        entry.scope = accessTokenDO.getScope();
+        entry.issuedTime = accessTokenDO.getIssuedTime().getTime();
+        entry.validityPeriodInMillis = accessTokenDO.getValidityPeriodInMillis();
+        entry.tokenType = accessTokenDO.getTokenType();
+        entry.grantType = accessTokenDO.getGrantType();
+        return entry;
+    }
+
+    /**
+     * Creates a negative record for a token identifier which could not be found.
+     *
+     * @param accessToken    token identifier
+     * @param timeToLiveMillis time in milliseconds for which the record is valid
+     * @return negative validation record
+     */
+    public static TokenValidationCacheEntry forUnknownToken(String accessToken, long timeToLiveMillis) {
+
+        TokenValidationCacheEntry entry = new TokenValidationCacheEntry();
+        entry.accessToken = accessToken;
+        entry.negative = true;
+        entry.negativeExpiryTime = System.currentTimeMillis() + timeToLiveMillis;
+        return entry;
+    }
+
+    /**
+     * Builds an access token out of this validation record to be used by the token validators.
+     *
+     * @return access token
+     */
+    public AccessTokenDO toAccessTokenDO() {
+
+        User user = new User();
+        user.setUserName(userName);
+        user.setUserStoreDomain(userStoreDomain);
+        user.setTenantDomain(tenantDomain);
+
+        Timestamp issued = new Timestamp(issuedTime);
+        AccessTokenDO accessTokenDO = new AccessTokenDO(consumerKey, user, scope, issued, issued,
+                                                        validityPeriodInMillis, 0, tokenType);
+        accessTokenDO.setAccessToken(accessToken);
+        accessTokenDO.setTokenId(tokenId);
+        accessTokenDO.setTenantID(tenantId);
+        accessTokenDO.setGrantType(grantType);
+        return accessTokenDO;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public boolean isNegative() {
+        return negative;
+    }
+
+    public boolean isNegativeEntryExpired() {
+        return negative && System.currentTimeMillis() > negativeExpiryTime;
+    }
+}
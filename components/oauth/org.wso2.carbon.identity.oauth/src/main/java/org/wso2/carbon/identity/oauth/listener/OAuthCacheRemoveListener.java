@@ -24,6 +24,7 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.TokenValidationCache;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
@@ -71,6 +72,7 @@ public class OAuthCacheRemoveListener extends AbstractCacheListener<OAuthCacheKe
             oauthcacheKey = new OAuthCacheKey(accessTokenDO.getAccessToken());
 
             oauthCache.clearCacheEntry(oauthcacheKey);
+            TokenValidationCache.getInstance().clearByAccessToken(accessTokenDO.getAccessToken());
 
         }
     }
@@ -41,6 +41,7 @@ import org.wso2.carbon.identity.openidconnect.IDTokenBuilder;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
 
@@ -86,7 +87,9 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
         Timestamp refreshTokenIssuedTime = null;
         long refreshTokenValidityPeriodInMillis = 0;
 
-        synchronized ((consumerKey + ":" + authorizedUser + ":" + scope).intern()) {
+        Lock issuanceLock = OAuth2Util.getTokenIssuanceLock(consumerKey + ":" + authorizedUser + ":" + scope);
+        issuanceLock.lock();
+        try {
 
             // check if valid access token exists in cache
             if (cacheEnabled) {
@@ -349,6 +352,8 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
                 respDTO.setScope(newAccessTokenDO.getScope());
                 respDTO.setTokenType(newAccessTokenDO.getTokenType());
             }
+        } finally {
+            issuanceLock.unlock();
         }
 
         buildIdToken(oauthAuthzMsgCtx, respDTO);
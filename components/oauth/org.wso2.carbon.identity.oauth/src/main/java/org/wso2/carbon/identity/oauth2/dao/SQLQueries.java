@@ -224,6 +224,12 @@ public class SQLQueries {
             "IDN_OAUTH_CONSUMER_APPS " +
             "WHERE CONSUMER_KEY=?";
 
+    public static final String INSERT_OAUTH2_ACCESS_TOKEN_WITH_STATE_ID = "INSERT INTO $accessTokenStoreTable " +
+            "(ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, TENANT_ID, USER_DOMAIN, TIME_CREATED, " +
+            "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE_HASH, " +
+            "TOKEN_STATE, USER_TYPE, TOKEN_ID, GRANT_TYPE, TOKEN_STATE_ID) SELECT ?,?,ID,?,?,?,?,?,?,?,?,?,?,?,?,? " +
+            "FROM IDN_OAUTH_CONSUMER_APPS WHERE CONSUMER_KEY=?";
+
     public static final String INSERT_OAUTH2_TOKEN_SCOPE = "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_SCOPE (TOKEN_ID, " +
             "TOKEN_SCOPE, TENANT_ID) VALUES (?,?,?)";
 
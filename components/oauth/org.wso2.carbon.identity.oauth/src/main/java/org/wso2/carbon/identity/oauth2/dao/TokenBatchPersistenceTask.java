@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind consumer of the access token persistence queue which drains the queue in batches. A batch is closed
+ * when it reaches the configured batch size or when the linger time has elapsed since its first token was taken,
+ * and is then persisted in a single transaction through {@link TokenMgtDAO#persistAccessTokens(List)}.
+ */
+public class TokenBatchPersistenceTask implements Runnable {
+
+    private static Log log = LogFactory.getLog(TokenBatchPersistenceTask.class);
+
+    private static final AtomicLong persistedBatchCount = new AtomicLong();
+    private static final AtomicLong persistedTokenCount = new AtomicLong();
+    private static final AtomicLong failedBatchCount = new AtomicLong();
+    private static final AtomicLong totalBatchLatency = new AtomicLong();
+    private static volatile long lastBatchLatency;
+
+    private BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+    private int batchSize;
+    private long lingerTime;
+
+    public TokenBatchPersistenceTask(BlockingDeque<AccessContextTokenDO> accessContextTokenQueue, int batchSize,
+                                     long lingerTime) {
+        this.accessContextTokenQueue = accessContextTokenQueue;
+        this.batchSize = batchSize > 0 ? batchSize : 1;
+        this.lingerTime = lingerTime > 0 ? lingerTime : 0;
+    }
+
+    @Override
+    public void run() {
+
+        log.debug("Access Token context batch persist consumer is started");
+
+        List<AccessContextTokenDO> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                batch.add(accessContextTokenQueue.takeLast());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerTime);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    AccessContextTokenDO accessContextTokenDO = remaining > 0 ?
+                            accessContextTokenQueue.pollLast(remaining, TimeUnit.NANOSECONDS) :
+                            accessContextTokenQueue.pollLast();
+                    if (accessContextTokenDO == null) {
+                        break;
+                    }
+                    batch.add(accessContextTokenDO);
+                }
+                persistBatch(batch);
+            } catch (InterruptedException e) {
+                // the consumer is being stopped, hence the tokens taken so far are persisted before exiting
+                if (log.isDebugEnabled()) {
+                    log.debug("Access Token context batch persist consumer is interrupted", e);
+                }
+                if (!batch.isEmpty()) {
+                    persistBatch(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                for (AccessContextTokenDO accessContextTokenDO : batch) {
+                    TokenMgtDAO.removeQueuedAccessToken(accessContextTokenDO.getAccessToken());
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void persistBatch(List<AccessContextTokenDO> batch) {
+
+        long startTime = System.currentTimeMillis();
+        TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
+        try {
+            tokenMgtDAO.persistAccessTokens(batch);
+        } catch (IdentityException e) {
+            failedBatchCount.incrementAndGet();
+            log.error("Error occurred while persisting a batch of " + batch.size() + " access tokens. Retrying " +
+                      "them one by one", e);
+            for (AccessContextTokenDO accessContextTokenDO : batch) {
+                try {
+                    tokenMgtDAO.persistAccessToken(accessContextTokenDO.getAccessToken(),
+                                                   accessContextTokenDO.getConsumerKey(),
+                                                   accessContextTokenDO.getNewAccessTokenDO(),
+                                                   accessContextTokenDO.getExistingAccessTokenDO(),
+                                                   accessContextTokenDO.getUserStoreDomain());
+                    persistedTokenCount.incrementAndGet();
+                } catch (IdentityException ex) {
+                    log.error("Error occurred while persisting access token :" +
+                              accessContextTokenDO.getAccessToken(), ex);
+                }
+            }
+            return;
+        }
+        // counted only once the batch is executed and committed
+        long latency = System.currentTimeMillis() - startTime;
+        lastBatchLatency = latency;
+        totalBatchLatency.addAndGet(latency);
+        persistedBatchCount.incrementAndGet();
+        persistedTokenCount.addAndGet(batch.size());
+
+        if (log.isDebugEnabled()) {
+            log.debug("Persisted a batch of " + batch.size() + " access tokens in " + latency + "ms. Queue depth : " +
+                      accessContextTokenQueue.size());
+        }
+    }
+
+    public static long getPersistedBatchCount() {
+        return persistedBatchCount.get();
+    }
+
+    public static long getPersistedTokenCount() {
+        return persistedTokenCount.get();
+    }
+
+    public static long getFailedBatchCount() {
+        return failedBatchCount.get();
+    }
+
+    public static long getLastBatchLatency() {
+        return lastBatchLatency;
+    }
+
+    public static long getAverageBatchLatency() {
+        long batches = persistedBatchCount.get();
+        return batches == 0 ? 0 : totalBatchLatency.get() / batches;
+    }
+}
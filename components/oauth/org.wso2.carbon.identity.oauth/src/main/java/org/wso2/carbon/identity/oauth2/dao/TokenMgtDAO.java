@@ -26,6 +26,7 @@ import org.wso2.carbon.identity.application.common.model.User;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.cache.TokenValidationCache;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth.tokenprocessor.PlainTextPersistenceProcessor;
@@ -48,14 +49,17 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -72,9 +76,20 @@ public class TokenMgtDAO {
 
     private static int maxPoolSize = 100;
 
+    private static boolean enableBatchPersist = false;
+
+    private static int batchSize = 100;
+
+    private static long batchLingerTime = 50;
+
+    private static int accessTokenQueueSize = 10000;
+
     private boolean enablePersist = true;
 
-    private static BlockingDeque<AccessContextTokenDO> accessContextTokenQueue = new LinkedBlockingDeque<>();
+    private static BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+
+    private static final Set<String> queuedAccessTokens =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     private static BlockingDeque<AuthContextTokenDO> authContextTokenQueue = new LinkedBlockingDeque<>();
 
@@ -99,13 +114,47 @@ public class TokenMgtDAO {
             log.warn("Session data persistence pool size is not configured. Using default value.");
         }
 
+        enableBatchPersist = Boolean.parseBoolean(IdentityUtil.getProperty("JDBCPersistenceManager.TokenPersist" +
+                                                                           ".Batch.Enable"));
+        try {
+            String batchSizeConfigValue = IdentityUtil.getProperty("JDBCPersistenceManager.TokenPersist.Batch.Size");
+            if (StringUtils.isNotBlank(batchSizeConfigValue)) {
+                batchSize = Integer.parseInt(batchSizeConfigValue);
+            }
+            String lingerTimeConfigValue = IdentityUtil.getProperty("JDBCPersistenceManager.TokenPersist.Batch" +
+                                                                    ".LingerTime");
+            if (StringUtils.isNotBlank(lingerTimeConfigValue)) {
+                batchLingerTime = Long.parseLong(lingerTimeConfigValue);
+            }
+            String queueSizeConfigValue = IdentityUtil.getProperty("JDBCPersistenceManager.TokenPersist.QueueSize");
+            if (StringUtils.isNotBlank(queueSizeConfigValue) && Integer.parseInt(queueSizeConfigValue) > 0) {
+                accessTokenQueueSize = Integer.parseInt(queueSizeConfigValue);
+            }
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while parsing the integer", e);
+            }
+            log.warn("Token persistence batch configuration is invalid. Using default values.");
+        }
+
+        accessContextTokenQueue = new LinkedBlockingDeque<>(accessTokenQueueSize);
+
         if (maxPoolSize > 0) {
             log.info("Thread pool size for session persistent consumer : " + maxPoolSize);
 
             ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
 
-            for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new TokenPersistenceTask(accessContextTokenQueue));
+            if (enableBatchPersist) {
+                log.info("Access token batch persistence is enabled with batch size : " + batchSize +
+                         " and linger time : " + batchLingerTime + "ms");
+                for (int i = 0; i < maxPoolSize; i++) {
+                    threadPool.execute(new TokenBatchPersistenceTask(accessContextTokenQueue, batchSize,
+                                                                     batchLingerTime));
+                }
+            } else {
+                for (int i = 0; i < maxPoolSize; i++) {
+                    threadPool.execute(new TokenPersistenceTask(accessContextTokenQueue));
+                }
             }
 
             threadPool = Executors.newFixedThreadPool(maxPoolSize);
@@ -197,28 +246,8 @@ public class TokenMgtDAO {
         String sqlAddScopes = SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE;
         try {
             prepStmt = connection.prepareStatement(sql);
-            prepStmt.setString(1, persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken));
-
-            if (accessTokenDO.getRefreshToken() != null) {
-                prepStmt.setString(2, persistenceProcessor.getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
-            } else {
-                prepStmt.setString(2, accessTokenDO.getRefreshToken());
-            }
-
-            prepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
+            setAccessTokenInsertParameters(prepStmt, accessToken, accessTokenDO, accessTokenDO.getTokenState());
             int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
-            prepStmt.setInt(4, tenantId);
-            prepStmt.setString(5, accessTokenDO.getAuthzUser().getUserStoreDomain());
-            prepStmt.setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
-            prepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
-                    .getTimeZone("UTC")));
-            prepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
-            prepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
-            prepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
-            prepStmt.setString(11, accessTokenDO.getTokenState());
-            prepStmt.setString(12, accessTokenDO.getTokenType());
-            prepStmt.setString(13, accessTokenDO.getTokenId());
-            prepStmt.setString(14, accessTokenDO.getGrantType());
             prepStmt.setString(15, persistenceProcessor.getProcessedClientId(consumerKey));
             prepStmt.execute();
 
@@ -258,13 +287,56 @@ public class TokenMgtDAO {
             return;
         }
         if (maxPoolSize > 0) {
-            accessContextTokenQueue.push(new AccessContextTokenDO(accessToken, consumerKey, newAccessTokenDO
-                    , existingAccessTokenDO, userStoreDomain));
+            queuedAccessTokens.add(accessToken);
+            // the issuing thread persists the token itself when the persistence queue is full
+            if (!accessContextTokenQueue.offerFirst(new AccessContextTokenDO(accessToken, consumerKey,
+                    newAccessTokenDO, existingAccessTokenDO, userStoreDomain))) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Access token persistence queue is full. Persisting the access token synchronously");
+                }
+                try {
+                    persistAccessToken(accessToken, consumerKey, newAccessTokenDO, existingAccessTokenDO,
+                                       userStoreDomain);
+                } finally {
+                    queuedAccessTokens.remove(accessToken);
+                }
+            }
         } else {
             persistAccessToken(accessToken, consumerKey, newAccessTokenDO, existingAccessTokenDO, userStoreDomain);
         }
     }
 
+    /**
+     * Returns the number of access tokens waiting in the persistence queue.
+     *
+     * @return access token persistence queue depth
+     */
+    public static int getAccessTokenQueueDepth() {
+        return accessContextTokenQueue.size();
+    }
+
+    /**
+     * Returns whether the given access token is issued but not yet persisted by the persistence consumers. Such a
+     * token is missing from the database without being invalid.
+     *
+     * @param accessToken access token
+     * @return true if the access token is waiting to be persisted
+     */
+    public static boolean isAccessTokenQueued(String accessToken) {
+        return accessToken != null && queuedAccessTokens.contains(accessToken);
+    }
+
+    /**
+     * Called by the persistence consumers once an attempt to persist a queued access token is over.
+     *
+     * @param accessToken access token taken from the persistence queue
+     */
+    static void removeQueuedAccessToken(String accessToken) {
+        if (accessToken != null) {
+            queuedAccessTokens.remove(accessToken);
+        }
+    }
+
     public boolean persistAccessToken(String accessToken, String consumerKey,
                                       AccessTokenDO newAccessTokenDO, AccessTokenDO existingAccessTokenDO,
                                       String userStoreDomain) throws IdentityOAuth2Exception {
@@ -291,6 +363,10 @@ public class TokenMgtDAO {
                 storeAccessToken(accessToken, consumerKey, newAccessTokenDO, connection, userStoreDomain);
             }
             connection.commit();
+            if (existingAccessTokenDO != null) {
+                TokenValidationCache.getInstance().clearByTokenId(existingAccessTokenDO.getTokenId());
+            }
+            TokenValidationCache.getInstance().clearNegativeEntry(accessToken);
             return true;
         } catch (SQLException e) {
             throw new IdentityOAuth2Exception("Error occurred while persisting access token", e);
@@ -299,6 +375,210 @@ public class TokenMgtDAO {
         }
     }
 
+    /**
+     * Persists a batch of access tokens drained from the persistence queue in a single transaction. Tokens issued
+     * for the same consumer key, user and scope within the batch are folded into one unit, so that only the latest
+     * one is stored as ACTIVE. Superseded tokens of the unit are inserted directly in EXPIRED state and only tokens
+     * which are already in the database are expired with an update.
+     *
+     * @param accessContextTokenDOs access tokens in the order they were issued
+     * @throws IdentityOAuth2Exception if the batch could not be persisted
+     */
+    public void persistAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs)
+            throws IdentityOAuth2Exception {
+
+        if (!enablePersist || accessContextTokenDOs.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<AccessContextTokenDO>> tokenUnits = new LinkedHashMap<>();
+        Set<String> batchedTokenIds = new HashSet<>();
+        for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+            String unitKey = getAccessTokenUnitKey(accessContextTokenDO);
+            List<AccessContextTokenDO> tokenUnit = tokenUnits.get(unitKey);
+            if (tokenUnit == null) {
+                tokenUnit = new ArrayList<>();
+                tokenUnits.put(unitKey, tokenUnit);
+            }
+            tokenUnit.add(accessContextTokenDO);
+            batchedTokenIds.add(accessContextTokenDO.getNewAccessTokenDO().getTokenId());
+        }
+
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        Map<String, PreparedStatement> expireStmts = new HashMap<>();
+        Map<String, PreparedStatement> insertStmts = new HashMap<>();
+        Map<String, PreparedStatement> insertExpiredStmts = new HashMap<>();
+        PreparedStatement scopeStmt = null;
+        PreparedStatement authzCodeStmt = null;
+        Set<String> expiredTokenIds = new HashSet<>();
+        boolean hasScopes = false;
+        boolean hasAuthzCodes = false;
+        try {
+            scopeStmt = connection.prepareStatement(SQLQueries.INSERT_OAUTH2_TOKEN_SCOPE);
+            authzCodeStmt = connection.prepareStatement(SQLQueries.DEACTIVATE_AUTHZ_CODE_AND_INSERT_CURRENT_TOKEN);
+
+            for (List<AccessContextTokenDO> tokenUnit : tokenUnits.values()) {
+                for (int i = 0; i < tokenUnit.size(); i++) {
+                    AccessContextTokenDO accessContextTokenDO = tokenUnit.get(i);
+                    AccessTokenDO newAccessTokenDO = accessContextTokenDO.getNewAccessTokenDO();
+                    AccessTokenDO existingAccessTokenDO = accessContextTokenDO.getExistingAccessTokenDO();
+                    String userStoreDomain = accessContextTokenDO.getUserStoreDomain();
+                    String consumerKey = accessContextTokenDO.getConsumerKey();
+
+                    if (existingAccessTokenDO != null && !batchedTokenIds.contains(existingAccessTokenDO
+                            .getTokenId()) && expiredTokenIds.add(existingAccessTokenDO.getTokenId())) {
+                        PreparedStatement expireStmt = expireStmts.get(userStoreDomain);
+                        if (expireStmt == null) {
+                            String sql = SQLQueries.UPDATE_TOKE_STATE;
+                            if (StringUtils.isNotBlank(userStoreDomain)) {
+                                sql = sql.replace(IDN_OAUTH2_ACCESS_TOKEN, IDN_OAUTH2_ACCESS_TOKEN + "_" +
+                                                                           userStoreDomain);
+                            }
+                            expireStmt = connection.prepareStatement(sql);
+                            expireStmts.put(userStoreDomain, expireStmt);
+                        }
+                        expireStmt.setString(1, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+                        expireStmt.setString(2, UUID.randomUUID().toString());
+                        expireStmt.setString(3, existingAccessTokenDO.getTokenId());
+                        expireStmt.addBatch();
+                    }
+
+                    if (i < tokenUnit.size() - 1) {
+                        // superseded within this batch by a later token of the same unit
+                        PreparedStatement insertStmt = getAccessTokenInsertStatement(connection, insertExpiredStmts,
+                                SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN_WITH_STATE_ID, userStoreDomain);
+                        setAccessTokenInsertParameters(insertStmt, accessContextTokenDO.getAccessToken(),
+                                newAccessTokenDO, OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED);
+                        insertStmt.setString(15, UUID.randomUUID().toString());
+                        insertStmt.setString(16, persistenceProcessor.getProcessedClientId(consumerKey));
+                        insertStmt.addBatch();
+                    } else {
+                        PreparedStatement insertStmt = getAccessTokenInsertStatement(connection, insertStmts,
+                                SQLQueries.INSERT_OAUTH2_ACCESS_TOKEN, userStoreDomain);
+                        setAccessTokenInsertParameters(insertStmt, accessContextTokenDO.getAccessToken(),
+                                newAccessTokenDO, newAccessTokenDO.getTokenState());
+                        insertStmt.setString(15, persistenceProcessor.getProcessedClientId(consumerKey));
+                        insertStmt.addBatch();
+                    }
+
+                    if (ArrayUtils.isNotEmpty(newAccessTokenDO.getScope())) {
+                        int tenantId = OAuth2Util.getTenantId(newAccessTokenDO.getAuthzUser().getTenantDomain());
+                        for (String scope : newAccessTokenDO.getScope()) {
+                            scopeStmt.setString(1, newAccessTokenDO.getTokenId());
+                            scopeStmt.setString(2, scope);
+                            scopeStmt.setInt(3, tenantId);
+                            scopeStmt.addBatch();
+                        }
+                        hasScopes = true;
+                    }
+
+                    if (newAccessTokenDO.getAuthorizationCode() != null) {
+                        authzCodeStmt.setString(1, newAccessTokenDO.getTokenId());
+                        authzCodeStmt.setString(2, persistenceProcessor.getPreprocessedAuthzCode(
+                                newAccessTokenDO.getAuthorizationCode()));
+                        authzCodeStmt.addBatch();
+                        hasAuthzCodes = true;
+                    }
+                }
+            }
+
+            // existing tokens have to be expired before the new ACTIVE tokens of the same unit are inserted
+            for (PreparedStatement expireStmt : expireStmts.values()) {
+                expireStmt.executeBatch();
+            }
+            for (PreparedStatement insertStmt : insertExpiredStmts.values()) {
+                insertStmt.executeBatch();
+            }
+            for (PreparedStatement insertStmt : insertStmts.values()) {
+                insertStmt.executeBatch();
+            }
+            if (hasScopes) {
+                scopeStmt.executeBatch();
+            }
+            if (hasAuthzCodes) {
+                authzCodeStmt.executeBatch();
+            }
+            connection.commit();
+
+            for (String expiredTokenId : expiredTokenIds) {
+                TokenValidationCache.getInstance().clearByTokenId(expiredTokenId);
+            }
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                TokenValidationCache.getInstance().clearNegativeEntry(accessContextTokenDO.getAccessToken());
+            }
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            throw new IdentityOAuth2Exception("Error occurred while persisting a batch of " +
+                                              accessContextTokenDOs.size() + " access tokens", e);
+        } finally {
+            for (PreparedStatement expireStmt : expireStmts.values()) {
+                IdentityDatabaseUtil.closeStatement(expireStmt);
+            }
+            for (PreparedStatement insertStmt : insertExpiredStmts.values()) {
+                IdentityDatabaseUtil.closeStatement(insertStmt);
+            }
+            for (PreparedStatement insertStmt : insertStmts.values()) {
+                IdentityDatabaseUtil.closeStatement(insertStmt);
+            }
+            IdentityDatabaseUtil.closeStatement(scopeStmt);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, authzCodeStmt);
+        }
+    }
+
+    private String getAccessTokenUnitKey(AccessContextTokenDO accessContextTokenDO) {
+
+        User authzUser = accessContextTokenDO.getNewAccessTokenDO().getAuthzUser();
+        return accessContextTokenDO.getConsumerKey() + ":" + authzUser.getTenantDomain() + ":" +
+               authzUser.getUserStoreDomain() + ":" + authzUser.getUserName() + ":" +
+               OAuth2Util.buildScopeString(accessContextTokenDO.getNewAccessTokenDO().getScope());
+    }
+
+    private PreparedStatement getAccessTokenInsertStatement(Connection connection,
+                                                            Map<String, PreparedStatement> insertStmts,
+                                                            String sqlTemplate, String userStoreDomain)
+            throws SQLException {
+
+        PreparedStatement insertStmt = insertStmts.get(userStoreDomain);
+        if (insertStmt == null) {
+            String accessTokenStoreTable = IDN_OAUTH2_ACCESS_TOKEN;
+            if (StringUtils.isNotBlank(userStoreDomain)) {
+                accessTokenStoreTable = accessTokenStoreTable + "_" + userStoreDomain;
+            }
+            insertStmt = connection.prepareStatement(sqlTemplate.replaceAll("\\$accessTokenStoreTable",
+                                                                            accessTokenStoreTable));
+            insertStmts.put(userStoreDomain, insertStmt);
+        }
+        return insertStmt;
+    }
+
+    private void setAccessTokenInsertParameters(PreparedStatement prepStmt, String accessToken,
+                                                AccessTokenDO accessTokenDO, String tokenState)
+            throws SQLException, IdentityOAuth2Exception {
+
+        prepStmt.setString(1, persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken));
+
+        if (accessTokenDO.getRefreshToken() != null) {
+            prepStmt.setString(2, persistenceProcessor.getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
+        } else {
+            prepStmt.setString(2, accessTokenDO.getRefreshToken());
+        }
+
+        prepStmt.setString(3, accessTokenDO.getAuthzUser().getUserName());
+        int tenantId = OAuth2Util.getTenantId(accessTokenDO.getAuthzUser().getTenantDomain());
+        prepStmt.setInt(4, tenantId);
+        prepStmt.setString(5, accessTokenDO.getAuthzUser().getUserStoreDomain());
+        prepStmt.setTimestamp(6, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        prepStmt.setTimestamp(7, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone
+                .getTimeZone("UTC")));
+        prepStmt.setLong(8, accessTokenDO.getValidityPeriodInMillis());
+        prepStmt.setLong(9, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
+        prepStmt.setString(10, OAuth2Util.hashScopes(accessTokenDO.getScope()));
+        prepStmt.setString(11, tokenState);
+        prepStmt.setString(12, accessTokenDO.getTokenType());
+        prepStmt.setString(13, accessTokenDO.getTokenId());
+        prepStmt.setString(14, accessTokenDO.getGrantType());
+    }
+
     public AccessTokenDO retrieveLatestAccessToken(String consumerKey, String userName,
                                                    String userStoreDomain, String scope,
                                                    boolean includeExpiredTokens)
@@ -860,6 +1140,9 @@ public class TokenMgtDAO {
         } else {
             revokeTokensBatch(tokens);
         }
+        for (String token : tokens) {
+            TokenValidationCache.getInstance().clearByAccessToken(token);
+        }
     }
 
     public void revokeTokensBatch(String[] tokens) throws IdentityOAuth2Exception {
@@ -952,6 +1235,7 @@ public class TokenMgtDAO {
         }  finally {
             IdentityDatabaseUtil.closeAllConnections(connection, null, ps);
         }
+        TokenValidationCache.getInstance().clearByTokenId(tokenId);
     }
 
     /**
@@ -1070,6 +1354,7 @@ public class TokenMgtDAO {
 
 			// commit both transactions
 			connection.commit();
+            TokenValidationCache.getInstance().clearByTokenId(oldAccessTokenId);
 		} catch (SQLException e) {
 			String errorMsg = "Error while regenerating access token";
 			throw new IdentityOAuth2Exception(errorMsg, e);
@@ -58,6 +58,8 @@ public class TokenPersistenceTask implements Runnable {
                 log.error("Error occurred while getting AccessContextTokenDO instance from accessContextTokenQueue" , e);
             }catch (IdentityException e){
                 log.error("Error occurred while persisting access token :" + accessToken, e);
+            } finally {
+                TokenMgtDAO.removeQueuedAccessToken(accessToken);
             }
         }
     }
@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.oauth2.token.handlers.grant;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 import org.apache.axiom.util.base64.Base64Utils;
 import org.apache.commons.io.Charsets;
@@ -122,7 +123,9 @@ public abstract class AbstractAuthorizationGrantHandler implements Authorization
         Timestamp refreshTokenIssuedTime = null;
         long refreshTokenValidityPeriodInMillis = 0;
 
-        synchronized ((consumerKey + ":" + authorizedUser + ":" + scope).intern()) {
+        Lock issuanceLock = OAuth2Util.getTokenIssuanceLock(consumerKey + ":" + authorizedUser + ":" + scope);
+        issuanceLock.lock();
+        try {
             // check if valid access token exists in cache
             if (cacheEnabled) {
 
@@ -403,6 +406,8 @@ public abstract class AbstractAuthorizationGrantHandler implements Authorization
             }
             tokenRespDTO.setAuthorizedScopes(scope);
             return tokenRespDTO;
+        } finally {
+            issuanceLock.unlock();
         }
     }
 
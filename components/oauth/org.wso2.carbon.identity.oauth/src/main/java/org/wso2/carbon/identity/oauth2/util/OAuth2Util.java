@@ -50,6 +50,8 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Utility methods for OAuth 2.0 implementation
@@ -130,9 +132,33 @@ public class OAuth2Util {
     private static ThreadLocal<OAuthTokenReqMessageContext> tokenRequestContext = new ThreadLocal<OAuthTokenReqMessageContext>();
     private static ThreadLocal<OAuthAuthzReqMessageContext> authzRequestContext = new ThreadLocal<OAuthAuthzReqMessageContext>();
 
+    // number of token issuance lock stripes, must be a power of two
+    private static final int TOKEN_ISSUANCE_LOCK_STRIPES = 1024;
+    private static final Lock[] tokenIssuanceLocks = new Lock[TOKEN_ISSUANCE_LOCK_STRIPES];
+
+    static {
+        for (int i = 0; i < TOKEN_ISSUANCE_LOCK_STRIPES; i++) {
+            tokenIssuanceLocks[i] = new ReentrantLock();
+        }
+    }
+
     private OAuth2Util(){
 
     }
+
+    /**
+     * Returns the lock which guards token issuance for the given consumer key, user and scope combination. Keys are
+     * mapped onto a fixed table of lock stripes, so the number of locks stays bounded irrespective of the number of
+     * distinct keys and no key string needs to be interned.
+     *
+     * @param issuanceKey consumer key, authorized user and scope of the token request
+     * @return lock stripe for the given key
+     */
+    public static Lock getTokenIssuanceLock(String issuanceKey) {
+        int hash = issuanceKey.hashCode();
+        hash ^= (hash >>> 16);
+        return tokenIssuanceLocks[hash & (TOKEN_ISSUANCE_LOCK_STRIPES - 1)];
+    }
     
     /**
      * 
@@ -28,6 +28,8 @@ import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.CacheKey;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.TokenValidationCache;
+import org.wso2.carbon.identity.oauth.cache.TokenValidationCacheEntry;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
@@ -459,35 +461,49 @@ public class TokenValidationHandler {
      */
     private AccessTokenDO findAccessToken(String tokenIdentifier) throws IdentityOAuth2Exception {
 
-	boolean cacheHit = false;
+	boolean cacheEnabled = OAuthServerConfiguration.getInstance().isCacheEnabled();
 	AccessTokenDO accessTokenDO = null;
-	// check the cache, if caching is enabled.
-	if (OAuthServerConfiguration.getInstance().isCacheEnabled()) {
+	// check the validation cache, if caching is enabled.
+	if (cacheEnabled) {
+	    TokenValidationCacheEntry validationEntry =
+		    TokenValidationCache.getInstance().getValidationEntry(tokenIdentifier);
+	    if (validationEntry != null) {
+		if (validationEntry.isNegative()) {
+		    throw new IllegalArgumentException("Invalid access token");
+		}
+		return validationEntry.toAccessTokenDO();
+	    }
+
 	    OAuthCache oauthCache = OAuthCache.getInstance();
-        OAuthCacheKey cacheKey = new OAuthCacheKey(tokenIdentifier);
+	    OAuthCacheKey cacheKey = new OAuthCacheKey(tokenIdentifier);
 	    CacheEntry result = oauthCache.getValueFromCache(cacheKey);
 	    // cache hit, do the type check.
 	    if (result instanceof AccessTokenDO) {
 		accessTokenDO = (AccessTokenDO) result;
-		cacheHit = true;
 	    }
 	}
+	// a token still waiting to be persisted is not in the database yet, checked before the database is read
+	// so that a token persisted in between is not taken as unknown
+	boolean queued = false;
 	// cache miss, load the access token info from the database.
 	if (accessTokenDO == null) {
+	    queued = TokenMgtDAO.isAccessTokenQueued(tokenIdentifier);
 	    accessTokenDO = tokenMgtDAO.retrieveAccessToken(tokenIdentifier, false);
 	}
-	
+
 	if (accessTokenDO == null) {
+	    if (cacheEnabled && !queued) {
+		TokenValidationCache.getInstance().addNegativeEntry(tokenIdentifier);
+	    }
 	    throw new IllegalArgumentException("Invalid access token");
 	}
 
-	// add the token back to the cache in the case of a cache miss
-	if (OAuthServerConfiguration.getInstance().isCacheEnabled() && !cacheHit) {
-	    OAuthCache oauthCache = OAuthCache.getInstance();
-        OAuthCacheKey cacheKey = new OAuthCacheKey(tokenIdentifier);
-	    oauthCache.addToCache(cacheKey, accessTokenDO);
+	// add the validation record to the cache in the case of a cache miss
+	if (cacheEnabled) {
+	    TokenValidationCache.getInstance().addValidationEntry(
+		    TokenValidationCacheEntry.forAccessToken(accessTokenDO));
 	    if (log.isDebugEnabled()) {
-		log.debug("Access Token Info object was added back to the cache.");
+		log.debug("Access Token validation record was added to the cache.");
 	    }
 	}
 
@@ -46,6 +46,17 @@ public class SalesforceConnectorConstants {
     public static final String CONTEXT_SOOBJECTS_USER = "/sobjects/user/";
     // Shouldnt contain slash at the end
     public static final String CONTEXT_QUERY = "/query";
+    // sObject collections, available from API version 42.0
+    public static final String CONTEXT_COMPOSITE_SOBJECTS = "/composite/sobjects";
+    public static final int COMPOSITE_SOBJECTS_MAX_RECORDS = 200;
+    // sObject collections are tried again after this many milliseconds, once they were not found
+    public static final long COMPOSITE_SOBJECTS_RETRY_INTERVAL = 30 * 60 * 1000L;
+    public static final String SOBJECT_TYPE_USER = "User";
+    public static final String ALL_OR_NONE = "allOrNone";
+    public static final String RECORDS = "records";
+    public static final String ATTRIBUTES = "attributes";
+    public static final String TYPE = "type";
+    public static final String ID = "Id";
 
     public static final String CONTENT_TYPE_APPLICATION_JSON = "application/json";
 
@@ -36,6 +36,7 @@ import org.json.JSONTokener;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.util.IdentityApplicationConstants;
 import org.wso2.carbon.identity.provisioning.AbstractOutboundProvisioningConnector;
+import org.wso2.carbon.identity.provisioning.BatchProvisioningResult;
 import org.wso2.carbon.identity.provisioning.IdentityProvisioningConstants;
 import org.wso2.carbon.identity.provisioning.IdentityProvisioningException;
 import org.wso2.carbon.identity.provisioning.ProvisionedIdentifier;
@@ -49,7 +50,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
@@ -60,6 +63,8 @@ public class SalesforceProvisioningConnector extends AbstractOutboundProvisionin
 
     private static final Log log = LogFactory.getLog(SalesforceProvisioningConnector.class);
     private SalesforceProvisioningConnectorConfig configHolder;
+    // time until which users are provisioned one by one, as sObject collections were not found
+    private transient volatile long compositeUnsupportedUntil;
 
     @Override
     /**
@@ -118,6 +123,196 @@ public class SalesforceProvisioningConnector extends AbstractOutboundProvisionin
         return identifier;
     }
 
+    /**
+     * User operations are sent through the sObject collections API, up to 200 records in a request. Consecutive
+     * creations are sent in one request and consecutive updates and deletions in another, so that the operations
+     * reach Salesforce in order. Other operations are provisioned one by one.
+     *
+     * @param provisioningEntities
+     * @return
+     * @throws IdentityProvisioningException
+     */
+    @Override
+    public BatchProvisioningResult provisionBatch(List<ProvisioningEntity> provisioningEntities)
+            throws IdentityProvisioningException {
+
+        BatchProvisioningResult result = new BatchProvisioningResult(provisioningEntities.size());
+        List<Integer> pendingIndexes = new ArrayList<>();
+        JSONArray pendingRecords = new JSONArray();
+        boolean pendingCreate = false;
+
+        for (int i = 0; i < provisioningEntities.size(); i++) {
+            ProvisioningEntity provisioningEntity = provisioningEntities.get(i);
+            Boolean create = isCompositeOperation(provisioningEntity);
+
+            if (!pendingIndexes.isEmpty() && (create == null || create != pendingCreate ||
+                    pendingIndexes.size() >= SalesforceConnectorConstants.COMPOSITE_SOBJECTS_MAX_RECORDS)) {
+                sendCompositeRequest(pendingCreate, provisioningEntities, pendingIndexes, pendingRecords, result);
+                pendingIndexes.clear();
+                pendingRecords = new JSONArray();
+            }
+
+            if (create == null) {
+                try {
+                    result.setProvisioned(i, provision(provisioningEntity));
+                } catch (IdentityProvisioningException | RuntimeException e) {
+                    result.setFailed(i, e);
+                }
+                continue;
+            }
+
+            try {
+                JSONObject record;
+                if (provisioningEntity.getOperation() == ProvisioningOperation.DELETE) {
+                    record = new JSONObject();
+                    record.put(SalesforceConnectorConstants.IS_ACTIVE, false);
+                    record.put(SalesforceConnectorConstants.USERNAME_ATTRIBUTE, alterUsername(provisioningEntity));
+                } else {
+                    record = buildJsonObject(provisioningEntity);
+                }
+                if (!create) {
+                    record.put(SalesforceConnectorConstants.ID, provisioningEntity.getIdentifier().getIdentifier());
+                }
+                record.put(SalesforceConnectorConstants.ATTRIBUTES, new JSONObject().put(
+                        SalesforceConnectorConstants.TYPE, SalesforceConnectorConstants.SOBJECT_TYPE_USER));
+                pendingRecords.put(record);
+                pendingIndexes.add(i);
+                pendingCreate = create;
+            } catch (IdentityProvisioningException e) {
+                result.setFailed(i, e);
+            } catch (JSONException e) {
+                result.setFailed(i, new IdentityProvisioningException("Error while creating JSON body", e));
+            }
+        }
+
+        if (!pendingIndexes.isEmpty()) {
+            sendCompositeRequest(pendingCreate, provisioningEntities, pendingIndexes, pendingRecords, result);
+        }
+        return result;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return SalesforceConnectorConstants.COMPOSITE_SOBJECTS_MAX_RECORDS;
+    }
+
+    /**
+     * @param provisioningEntity
+     * @return true if the entity is a creation and false if it is an update or a deletion which can be sent through
+     * the sObject collections API, or null if it has to be provisioned by itself
+     * @throws IdentityProvisioningException
+     */
+    private Boolean isCompositeOperation(ProvisioningEntity provisioningEntity) throws IdentityProvisioningException {
+
+        if (System.currentTimeMillis() < compositeUnsupportedUntil || provisioningEntity == null ||
+                provisioningEntity.getEntityType() != ProvisioningEntityType.USER ||
+                (provisioningEntity.isJitProvisioning() && !isJitProvisioningEnabled())) {
+            return null;
+        }
+        if (provisioningEntity.getOperation() == ProvisioningOperation.POST) {
+            return true;
+        }
+        if ((provisioningEntity.getOperation() == ProvisioningOperation.PUT ||
+                provisioningEntity.getOperation() == ProvisioningOperation.DELETE) &&
+                provisioningEntity.getIdentifier() != null &&
+                StringUtils.isNotBlank(provisioningEntity.getIdentifier().getIdentifier())) {
+            return false;
+        }
+        return null;
+    }
+
+    /**
+     * Sends the given records with a single sObject collections request, creating them with POST or updating them
+     * with PATCH, and records the result of each.
+     */
+    private void sendCompositeRequest(boolean create, List<ProvisioningEntity> provisioningEntities,
+                                      List<Integer> indexes, JSONArray records, BatchProvisioningResult result) {
+
+        boolean isDebugEnabled = log.isDebugEnabled();
+
+        PostMethod method;
+        if (create) {
+            method = new PostMethod(this.getCompositeSObjectsEndpoint());
+        } else {
+            method = new PostMethod(this.getCompositeSObjectsEndpoint()) {
+                @Override
+                public String getName() {
+                    return "PATCH";
+                }
+            };
+        }
+
+        try {
+            JSONObject request = new JSONObject();
+            request.put(SalesforceConnectorConstants.ALL_OR_NONE, false);
+            request.put(SalesforceConnectorConstants.RECORDS, records);
+
+            setAuthorizationHeader(method);
+            method.setRequestEntity(new StringRequestEntity(request.toString(),
+                    SalesforceConnectorConstants.CONTENT_TYPE_APPLICATION_JSON, null));
+
+            new HttpClient().executeMethod(method);
+
+            if (isDebugEnabled) {
+                log.debug("HTTP status " + method.getStatusCode() + " " + (create ? "creating " : "updating ") +
+                          records.length() + " users");
+            }
+
+            if (method.getStatusCode() == HttpStatus.SC_NOT_FOUND) {
+                log.warn("sObject collections are not available in Salesforce API version " +
+                         configHolder.getValue(SalesforceConnectorConstants.PropertyConfig.API_VERSION) +
+                         ". Users will be provisioned one by one for " +
+                         SalesforceConnectorConstants.COMPOSITE_SOBJECTS_RETRY_INTERVAL + " milliseconds");
+                compositeUnsupportedUntil = System.currentTimeMillis() +
+                                            SalesforceConnectorConstants.COMPOSITE_SOBJECTS_RETRY_INTERVAL;
+                for (int index : indexes) {
+                    try {
+                        result.setProvisioned(index, provision(provisioningEntities.get(index)));
+                    } catch (IdentityProvisioningException | RuntimeException e) {
+                        result.setFailed(index, e);
+                    }
+                }
+            } else if (method.getStatusCode() == HttpStatus.SC_OK) {
+                JSONArray response = new JSONArray(new JSONTokener(new InputStreamReader(
+                        method.getResponseBodyAsStream())));
+                for (int i = 0; i < indexes.size(); i++) {
+                    JSONObject recordResult = response.optJSONObject(i);
+                    if (recordResult != null && recordResult.optBoolean("success")) {
+                        ProvisionedIdentifier identifier = new ProvisionedIdentifier();
+                        identifier.setIdentifier(create ? recordResult.optString("id", null) : null);
+                        result.setProvisioned(indexes.get(i), identifier);
+                    } else {
+                        result.setFailed(indexes.get(i), new IdentityProvisioningException(
+                                "Error while provisioning user " + provisioningEntities.get(indexes.get(i))
+                                        .getEntityName() + " : " + (recordResult != null ?
+                                        recordResult.optJSONArray("errors") : "no result")));
+                    }
+                }
+            } else {
+                log.error("recieved response status code :" + method.getStatusCode()
+                        + " text : " + method.getStatusText());
+                if (isDebugEnabled) {
+                    log.debug("Error response : " + readResponse(method));
+                }
+                setFailed(indexes, result, new IdentityProvisioningException("Provisioning request failed with " +
+                                                                              "status " + method.getStatusCode()));
+            }
+        } catch (IdentityProvisioningException e) {
+            setFailed(indexes, result, e);
+        } catch (IOException | JSONException e) {
+            setFailed(indexes, result, new IdentityProvisioningException(
+                    "Error in invoking provisioning operation for the users", e));
+        } finally {
+            method.releaseConnection();
+        }
+    }
+
+    private void setFailed(List<Integer> indexes, BatchProvisioningResult result, Exception error) {
+        for (int index : indexes) {
+            result.setFailed(index, error);
+        }
+    }
+
     /**
      * @param provisioningEntity
      * @return
@@ -477,6 +672,24 @@ public class SalesforceProvisioningConnector extends AbstractOutboundProvisionin
         return url;
     }
 
+    /**
+     * builds salesforce sObject collections end point using configurations
+     *
+     * @return
+     */
+    private String getCompositeSObjectsEndpoint() {
+
+        String url = configHolder.getValue(SalesforceConnectorConstants.PropertyConfig.DOMAIN_NAME)
+                + SalesforceConnectorConstants.CONTEXT_SERVICES_DATA
+                + configHolder.getValue(SalesforceConnectorConstants.PropertyConfig.API_VERSION)
+                + SalesforceConnectorConstants.CONTEXT_COMPOSITE_SOBJECTS;
+        if (log.isDebugEnabled()) {
+            log.debug("Built sObject collections endpoint url : " + url);
+        }
+
+        return url;
+    }
+
     /**
      * Builds Salesforce query point using configurations
      *
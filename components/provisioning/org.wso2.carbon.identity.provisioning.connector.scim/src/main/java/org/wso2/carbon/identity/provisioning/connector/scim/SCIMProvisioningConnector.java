@@ -27,15 +27,18 @@ import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.provisioning.*;
 import org.wso2.carbon.identity.scim.common.impl.ProvisioningClient;
 import org.wso2.carbon.identity.scim.common.utils.AttributeMapper;
+import org.wso2.carbon.identity.scim.common.utils.IdentitySCIMException;
 import org.wso2.carbon.identity.scim.common.utils.SCIMCommonConstants;
 import org.wso2.carbon.user.core.UserStoreException;
 import org.wso2.charon.core.config.SCIMConfigConstants;
 import org.wso2.charon.core.config.SCIMProvider;
 import org.wso2.charon.core.exceptions.CharonException;
+import org.wso2.charon.core.exceptions.NotFoundException;
 import org.wso2.charon.core.objects.Group;
 import org.wso2.charon.core.objects.User;
 import org.wso2.charon.core.schema.SCIMConstants;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -47,6 +50,8 @@ public class SCIMProvisioningConnector extends AbstractOutboundProvisioningConne
     private static Log log = LogFactory.getLog(SCIMProvisioningConnector.class);
     private SCIMProvider scimProvider;
     private String userStoreDomainName;
+    // time until which users are created one by one, as the provider did not support bulk operations
+    private transient volatile long bulkUnsupportedUntil;
 
     @Override
     public void init(Property[] provisioningProperties) throws IdentityProvisioningException {
@@ -126,6 +131,127 @@ public class SCIMProvisioningConnector extends AbstractOutboundProvisioningConne
 
     }
 
+    /**
+     * User creations are sent to the provider in SCIM bulk requests. Other operations are provisioned one by one,
+     * in the order they are received.
+     *
+     * @param provisioningEntities
+     * @return
+     * @throws IdentityProvisioningException
+     */
+    @Override
+    public BatchProvisioningResult provisionBatch(List<ProvisioningEntity> provisioningEntities)
+            throws IdentityProvisioningException {
+
+        BatchProvisioningResult result = new BatchProvisioningResult(provisioningEntities.size());
+        List<Integer> pendingIndexes = new ArrayList<>();
+        List<User> pendingUsers = new ArrayList<>();
+
+        for (int i = 0; i < provisioningEntities.size(); i++) {
+            ProvisioningEntity provisioningEntity = provisioningEntities.get(i);
+            if (isBulkCreateUser(provisioningEntity)) {
+                try {
+                    pendingUsers.add(buildUser(provisioningEntity));
+                    pendingIndexes.add(i);
+                } catch (CharonException | NotFoundException e) {
+                    result.setFailed(i, new IdentityProvisioningException("Error while creating the user", e));
+                }
+                continue;
+            }
+            // send the pending creations first, so that the operations reach the provider in order.
+            createUsers(provisioningEntities, pendingIndexes, pendingUsers, result);
+            try {
+                result.setProvisioned(i, provision(provisioningEntity));
+            } catch (IdentityProvisioningException | RuntimeException e) {
+                result.setFailed(i, e);
+            }
+        }
+        createUsers(provisioningEntities, pendingIndexes, pendingUsers, result);
+
+        return result;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return SCIMProvisioningConnectorConstants.SCIM_MAX_BULK_OPERATIONS;
+    }
+
+    private boolean isBulkCreateUser(ProvisioningEntity provisioningEntity) throws IdentityProvisioningException {
+
+        return System.currentTimeMillis() >= bulkUnsupportedUntil && provisioningEntity != null &&
+               provisioningEntity.getEntityType() == ProvisioningEntityType.USER &&
+               provisioningEntity.getOperation() == ProvisioningOperation.POST &&
+               !(provisioningEntity.isJitProvisioning() && !isJitProvisioningEnabled()) &&
+               getBulkEPURL() != null;
+    }
+
+    /**
+     * Creates the pending users with a single bulk request, or one by one if the provider does not support bulk
+     * operations, and clears them.
+     */
+    private void createUsers(List<ProvisioningEntity> provisioningEntities, List<Integer> pendingIndexes,
+                             List<User> pendingUsers, BatchProvisioningResult result) {
+
+        if (pendingUsers.isEmpty()) {
+            return;
+        }
+
+        boolean[] created = null;
+        boolean sendOneByOne = false;
+        try {
+            created = ProvisioningClient.provisionBulkCreateUsers(scimProvider, getBulkEPURL(), pendingUsers);
+            if (created == null) {
+                sendOneByOne = true;
+                log.warn("SCIM provider " + scimProvider.getProperty(SCIMConfigConstants.ELEMENT_NAME_USER_ENDPOINT) +
+                         " does not support bulk operations. Users will be provisioned one by one for " +
+                         SCIMProvisioningConnectorConstants.SCIM_BULK_RETRY_INTERVAL + " milliseconds");
+                bulkUnsupportedUntil = System.currentTimeMillis() +
+                                       SCIMProvisioningConnectorConstants.SCIM_BULK_RETRY_INTERVAL;
+            }
+        } catch (IdentitySCIMException e) {
+            for (int index : pendingIndexes) {
+                result.setFailed(index, new IdentityProvisioningException("Error while creating the user", e));
+            }
+        }
+
+        if (created != null) {
+            for (int i = 0; i < pendingIndexes.size(); i++) {
+                if (created[i]) {
+                    result.setProvisioned(pendingIndexes.get(i), null);
+                } else {
+                    result.setFailed(pendingIndexes.get(i), new IdentityProvisioningException(
+                            "Error while creating the user " + pendingUsers.get(i).getUserName()));
+                }
+            }
+        } else if (sendOneByOne) {
+            for (int index : pendingIndexes) {
+                try {
+                    createUser(provisioningEntities.get(index));
+                    result.setProvisioned(index, null);
+                } catch (IdentityProvisioningException e) {
+                    result.setFailed(index, e);
+                }
+            }
+        }
+
+        pendingIndexes.clear();
+        pendingUsers.clear();
+    }
+
+    /**
+     * @return bulk endpoint of the provider, which is next to its user endpoint
+     */
+    private String getBulkEPURL() {
+
+        String userEPURL = scimProvider.getProperty(SCIMConfigConstants.ELEMENT_NAME_USER_ENDPOINT);
+        userEPURL = StringUtils.removeEnd(userEPURL, "/");
+        if (StringUtils.isBlank(userEPURL) || userEPURL.lastIndexOf('/') < 0) {
+            return null;
+        }
+        return userEPURL.substring(0, userEPURL.lastIndexOf('/') + 1) +
+               SCIMProvisioningConnectorConstants.SCIM_BULK_EP_PATH;
+    }
+
     /**
      * @param userEntity
      * @throws IdentityProvisioningException
@@ -181,25 +307,8 @@ public class SCIMProvisioningConnector extends AbstractOutboundProvisioningConne
 
         try {
 
-            List<String> userNames = getUserNames(userEntity.getAttributes());
-            String userName = null;
-
-            if (CollectionUtils.isNotEmpty(userNames)) {
-                userName = userNames.get(0);
-            }
-
             int httpMethod = SCIMConstants.POST;
-            User user = null;
-
-            // get single-valued claims
-            Map<String, String> singleValued = getSingleValuedClaims(userEntity.getAttributes());
-
-            // if user created through management console, claim values are not present.
-            user = (User) AttributeMapper.constructSCIMObjectFromAttributes(singleValued,
-                    SCIMConstants.USER_INT);
-
-            user.setUserName(userName);
-            setUserPassword(user, userEntity);
+            User user = buildUser(userEntity);
 
             ProvisioningClient scimProvsioningClient = new ProvisioningClient(scimProvider, user,
                     httpMethod, null);
@@ -210,6 +319,33 @@ public class SCIMProvisioningConnector extends AbstractOutboundProvisioningConne
         }
     }
 
+    /**
+     * @param userEntity
+     * @return SCIM user to be created
+     * @throws CharonException
+     * @throws NotFoundException
+     */
+    private User buildUser(ProvisioningEntity userEntity) throws CharonException, NotFoundException {
+
+        List<String> userNames = getUserNames(userEntity.getAttributes());
+        String userName = null;
+
+        if (CollectionUtils.isNotEmpty(userNames)) {
+            userName = userNames.get(0);
+        }
+
+        // get single-valued claims
+        Map<String, String> singleValued = getSingleValuedClaims(userEntity.getAttributes());
+
+        // if user created through management console, claim values are not present.
+        User user = (User) AttributeMapper.constructSCIMObjectFromAttributes(singleValued,
+                SCIMConstants.USER_INT);
+
+        user.setUserName(userName);
+        setUserPassword(user, userEntity);
+        return user;
+    }
+
     /**
      * @param userEntity
      * @throws IdentityProvisioningException
@@ -31,4 +31,9 @@ public class SCIMProvisioningConnectorConstants {
 
     public static final String SCIM_ENABLE_PASSWORD_PROVISIONING = "scim-enable-pwd-provisioning";
     public static final String SCIM_DEFAULT_PASSWORD = "scim-default-pwd";
+
+    public static final String SCIM_BULK_EP_PATH = "Bulk";
+    public static final int SCIM_MAX_BULK_OPERATIONS = 100;
+    // bulk operations are tried again after this many milliseconds, once the provider has not supported them
+    public static final long SCIM_BULK_RETRY_INTERVAL = 30 * 60 * 1000L;
 }
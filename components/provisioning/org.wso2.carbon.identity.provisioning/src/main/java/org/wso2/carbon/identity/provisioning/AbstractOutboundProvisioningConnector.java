@@ -55,6 +55,41 @@ public abstract class AbstractOutboundProvisioningConnector implements Serializa
     public abstract ProvisionedIdentifier provision(ProvisioningEntity provisioningEntity)
             throws IdentityProvisioningException;
 
+    /**
+     * Provisions a batch of entities. The default implementation provisions the entities one by one through
+     * {@link #provision(ProvisioningEntity)}. Connectors whose provider supports batch or bulk operations should
+     * override this together with {@link #getMaxBatchSize()}, so that a batch is sent with fewer remote calls.
+     * A failure of one entity must be recorded in the result, not thrown, so that the other entities of the batch
+     * are not provisioned again.
+     *
+     * @param provisioningEntities entities to provision, in the order they were received
+     * @return result of each entity, in the same order
+     * @throws IdentityProvisioningException if none of the entities could be provisioned
+     */
+    public BatchProvisioningResult provisionBatch(List<ProvisioningEntity> provisioningEntities)
+            throws IdentityProvisioningException {
+
+        BatchProvisioningResult result = new BatchProvisioningResult(provisioningEntities.size());
+        for (int i = 0; i < provisioningEntities.size(); i++) {
+            try {
+                result.setProvisioned(i, provision(provisioningEntities.get(i)));
+            } catch (IdentityProvisioningException | RuntimeException e) {
+                result.setFailed(i, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * override only if the connector overrides {@link #provisionBatch(List)} - maximum number of entities that
+     * are provisioned together in one batch. Entities are not batched if this returns 1.
+     *
+     * @return
+     */
+    public int getMaxBatchSize() {
+        return 1;
+    }
+
     /**
      * override only if needed - if claims are controlled by the identity provider, this will return
      * null. If it is connector specific this must return the corresponding claim dialect.
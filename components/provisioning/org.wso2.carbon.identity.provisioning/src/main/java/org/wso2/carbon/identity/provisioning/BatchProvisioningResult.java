@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+/**
+ * Result of provisioning a batch of entities through
+ * {@link AbstractOutboundProvisioningConnector#provisionBatch(java.util.List)}. Results are indexed in the order of
+ * the entities of the batch.
+ */
+public class BatchProvisioningResult {
+
+    private ProvisionedIdentifier[] identifiers;
+    private Exception[] errors;
+
+    /**
+     * @param size number of entities in the batch
+     */
+    public BatchProvisioningResult(int size) {
+        this.identifiers = new ProvisionedIdentifier[size];
+        this.errors = new Exception[size];
+    }
+
+    /**
+     * @return number of entities in the batch
+     */
+    public int size() {
+        return identifiers.length;
+    }
+
+    /**
+     * @param index
+     * @param identifier identifier of the provisioned entity, if the connector returns one
+     */
+    public void setProvisioned(int index, ProvisionedIdentifier identifier) {
+        identifiers[index] = identifier;
+        errors[index] = null;
+    }
+
+    /**
+     * @param index
+     * @param error reason the entity could not be provisioned
+     */
+    public void setFailed(int index, Exception error) {
+        identifiers[index] = null;
+        errors[index] = error;
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    public boolean isFailed(int index) {
+        return errors[index] != null;
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    public ProvisionedIdentifier getIdentifier(int index) {
+        return identifiers[index];
+    }
+
+    /**
+     * @param index
+     * @return
+     */
+    public Exception getError(int index) {
+        return errors[index];
+    }
+}
@@ -68,6 +68,22 @@ public class IdentityProvisioningConstants {
                                                                                     "AND APP.TENANT_ID = PC.TENANT_ID" +
                                                                                     " AND APP.TENANT_ID = ?";
 
+        public static final String ADD_OUTBOX_ENTRY_SQL = "INSERT INTO IDP_PROVISIONING_OUTBOX (ID, TENANT_DOMAIN, " +
+                "IDP_NAME, CONNECTOR_TYPE, PROVISIONING_ENTITY, TIME_CREATED, OWNER, LEASE_EXPIRY) VALUES " +
+                "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+        public static final String DELETE_OUTBOX_ENTRY_SQL = "DELETE FROM IDP_PROVISIONING_OUTBOX WHERE ID=?";
+
+        public static final String GET_EXPIRED_OUTBOX_ENTRIES_SQL = "SELECT ID, TENANT_DOMAIN, IDP_NAME, " +
+                "CONNECTOR_TYPE, PROVISIONING_ENTITY, TIME_CREATED FROM IDP_PROVISIONING_OUTBOX WHERE " +
+                "LEASE_EXPIRY < ? ORDER BY TIME_CREATED";
+
+        public static final String CLAIM_OUTBOX_ENTRY_SQL = "UPDATE IDP_PROVISIONING_OUTBOX SET OWNER=?, " +
+                "LEASE_EXPIRY=? WHERE ID=? AND LEASE_EXPIRY < ?";
+
+        public static final String RENEW_OUTBOX_LEASES_SQL = "UPDATE IDP_PROVISIONING_OUTBOX SET LEASE_EXPIRY=? " +
+                "WHERE OWNER=?";
+
         private SQLQueries(){}
     }
 
@@ -0,0 +1,839 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.provisioning.dao.CacheBackedProvisioningMgtDAO;
+import org.wso2.carbon.identity.provisioning.dao.ProvisioningManagementDAO;
+import org.wso2.carbon.identity.provisioning.dao.ProvisioningOutboxDAO;
+import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared executor of non blocking outbound provisioning operations.
+ * <p/>
+ * All operations run on one bounded thread pool. Each provisioning connector of an identity provider has its own
+ * queue, and at most <code>ConnectorConcurrency</code> of its operations run at a time, so that a slow connector can
+ * not take all the threads. Operations sent to an identity provider are spaced out to honour the configured rate
+ * limit. A failed operation is retried with exponential backoff until it has been attempted
+ * <code>Retry.MaxAttempts</code> times. Adding an operation blocks while <code>QueueSize</code> operations are
+ * pending.
+ * <p/>
+ * The operations of a user or group are sent through a connector one at a time, in the order they were added. An
+ * operation waits while an earlier operation of the same entity is queued, running or waiting to be retried, so that
+ * for example a delete can not overtake the create it follows.
+ * <p/>
+ * If batching is enabled, operations queued for a connector which supports batches are sent together through
+ * {@link AbstractOutboundProvisioningConnector#provisionBatch(List)}. A batch takes one of the connector's slots and
+ * one rate limited request. When fewer operations than the connector's batch size are queued, the oldest waits up to
+ * <code>Batch.LingerTime</code> milliseconds for more to arrive.
+ * <p/>
+ * If the outbox is enabled, each operation is stored in the IDP_PROVISIONING_OUTBOX table until it succeeds or
+ * runs out of attempts. The executor owns the entries it adds under a lease of <code>Outbox.LeaseTime</code>
+ * milliseconds, which it renews while it runs. Entries whose lease has expired, i.e. the ones left by a node which
+ * stopped, are claimed and sent by the executor, so that an entry is only sent by the node which owns it.
+ * <p/>
+ * The executor is created and started when the provisioning component is activated and shut down when it is
+ * deactivated. The active executor is available through the ProvisioningServiceDataHolder. The pending operations
+ * and the statistics of each connector are logged every <code>StatisticsLogInterval</code> milliseconds, if it is
+ * set.
+ */
+public class OutboundProvisioningExecutor {
+
+    private static final Log log = LogFactory.getLog(OutboundProvisioningExecutor.class);
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static int poolSize = 10;
+    private static int queueSize = 10000;
+    private static int connectorConcurrency = 5;
+    private static int maxAttempts = 3;
+    private static long initialRetryDelay = 1000;
+    private static long maxRetryDelay = 60000;
+    private static double requestsPerSecond = 0;
+    private static boolean outboxEnabled = false;
+    private static boolean batchEnabled = false;
+    private static long batchLingerTime = 100;
+    private static long outboxLeaseTime = 300000;
+    private static long statisticsLogInterval = 0;
+
+    static {
+        try {
+            String poolSizeConfigValue = IdentityUtil.getProperty("OutboundProvisioning.PoolSize");
+            if (StringUtils.isNotBlank(poolSizeConfigValue) && Integer.parseInt(poolSizeConfigValue) > 0) {
+                poolSize = Integer.parseInt(poolSizeConfigValue);
+            }
+            String queueSizeConfigValue = IdentityUtil.getProperty("OutboundProvisioning.QueueSize");
+            if (StringUtils.isNotBlank(queueSizeConfigValue) && Integer.parseInt(queueSizeConfigValue) > 0) {
+                queueSize = Integer.parseInt(queueSizeConfigValue);
+            }
+            String concurrencyConfigValue = IdentityUtil.getProperty("OutboundProvisioning.ConnectorConcurrency");
+            if (StringUtils.isNotBlank(concurrencyConfigValue) && Integer.parseInt(concurrencyConfigValue) > 0) {
+                connectorConcurrency = Integer.parseInt(concurrencyConfigValue);
+            }
+            String maxAttemptsConfigValue = IdentityUtil.getProperty("OutboundProvisioning.Retry.MaxAttempts");
+            if (StringUtils.isNotBlank(maxAttemptsConfigValue) && Integer.parseInt(maxAttemptsConfigValue) > 0) {
+                maxAttempts = Integer.parseInt(maxAttemptsConfigValue);
+            }
+            String initialDelayConfigValue = IdentityUtil.getProperty("OutboundProvisioning.Retry.InitialDelay");
+            if (StringUtils.isNotBlank(initialDelayConfigValue)) {
+                initialRetryDelay = Long.parseLong(initialDelayConfigValue);
+            }
+            String maxDelayConfigValue = IdentityUtil.getProperty("OutboundProvisioning.Retry.MaxDelay");
+            if (StringUtils.isNotBlank(maxDelayConfigValue)) {
+                maxRetryDelay = Long.parseLong(maxDelayConfigValue);
+            }
+            String rateLimitConfigValue = IdentityUtil.getProperty("OutboundProvisioning.RateLimit" +
+                                                                   ".RequestsPerSecond");
+            if (StringUtils.isNotBlank(rateLimitConfigValue)) {
+                requestsPerSecond = Double.parseDouble(rateLimitConfigValue);
+            }
+            String lingerTimeConfigValue = IdentityUtil.getProperty("OutboundProvisioning.Batch.LingerTime");
+            if (StringUtils.isNotBlank(lingerTimeConfigValue)) {
+                batchLingerTime = Long.parseLong(lingerTimeConfigValue);
+            }
+            String leaseTimeConfigValue = IdentityUtil.getProperty("OutboundProvisioning.Outbox.LeaseTime");
+            if (StringUtils.isNotBlank(leaseTimeConfigValue) && Long.parseLong(leaseTimeConfigValue) > 0) {
+                outboxLeaseTime = Long.parseLong(leaseTimeConfigValue);
+            }
+            String statisticsConfigValue = IdentityUtil.getProperty("OutboundProvisioning.StatisticsLogInterval");
+            if (StringUtils.isNotBlank(statisticsConfigValue)) {
+                statisticsLogInterval = Long.parseLong(statisticsConfigValue);
+            }
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while parsing the number", e);
+            }
+            log.warn("Outbound provisioning executor configuration is invalid. Using default values.");
+        }
+        outboxEnabled = Boolean.parseBoolean(IdentityUtil.getProperty("OutboundProvisioning.Outbox.Enable"));
+        batchEnabled = Boolean.parseBoolean(IdentityUtil.getProperty("OutboundProvisioning.Batch.Enable"));
+    }
+
+    private final ExecutorService workers = Executors.newFixedThreadPool(poolSize);
+    /**
+     * delays retries, rate limited operations and batches waiting for more operations. It never runs provisioning
+     * operations itself.
+     */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * renews and recovers outbox entries and logs statistics
+     */
+    private final ScheduledExecutorService maintenanceScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Semaphore pendingPermits = new Semaphore(queueSize);
+
+    private final ConcurrentMap<String, ConnectorQueue> connectorQueues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    private final CacheBackedProvisioningMgtDAO dao = new CacheBackedProvisioningMgtDAO(
+            new ProvisioningManagementDAO());
+    private final ProvisioningOutboxDAO outboxDAO;
+    /**
+     * owner of the outbox entries added or claimed by this executor
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public OutboundProvisioningExecutor() {
+        this(new ProvisioningOutboxDAO());
+    }
+
+    OutboundProvisioningExecutor(ProvisioningOutboxDAO outboxDAO) {
+        this.outboxDAO = outboxDAO;
+    }
+
+    /**
+     * Adds an outbound provisioning operation, waiting while the executor is full.
+     *
+     * @param provisioningEntity outbound provisioning entity
+     * @param tenantDomainName
+     * @param connector
+     * @param connectorType
+     * @param idPName
+     * @throws IdentityProvisioningException if interrupted while waiting
+     */
+    public void submit(ProvisioningEntity provisioningEntity, String tenantDomainName,
+                       AbstractOutboundProvisioningConnector connector, String connectorType, String idPName)
+            throws IdentityProvisioningException {
+
+        acquirePermit();
+
+        String outboxId = null;
+        if (outboxEnabled) {
+            outboxId = UUID.randomUUID().toString();
+            try {
+                outboxDAO.addOutboxEntry(new ProvisioningOutboxEntry(outboxId, tenantDomainName, idPName,
+                        connectorType, provisioningEntity), nodeId, System.currentTimeMillis() + outboxLeaseTime);
+            } catch (IdentityApplicationManagementException e) {
+                log.error("Error while adding the provisioning of " + provisioningEntity.getEntityName() + " to " +
+                          idPName + " to the outbox. It will not be recovered after a restart", e);
+                outboxId = null;
+            }
+        }
+
+        enqueue(new ProvisioningTask(outboxId, provisioningEntity, tenantDomainName, connector, connectorType,
+                idPName));
+    }
+
+    /**
+     * Starts renewing the outbox leases of this executor and recovering the outbox entries whose lease has expired,
+     * if the outbox is enabled, and logging statistics, if a statistics log interval is set.
+     */
+    public void start() {
+
+        if (outboxEnabled) {
+            maintenanceScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        renewOutboxLeases();
+                        recoverOutboxEntries();
+                    } catch (RuntimeException e) {
+                        // keep the task scheduled
+                        log.error("Error while maintaining the provisioning outbox", e);
+                    }
+                }
+            }, 0, Math.max(outboxLeaseTime / 3, 1), TimeUnit.MILLISECONDS);
+        }
+        if (statisticsLogInterval > 0) {
+            maintenanceScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    logStatistics();
+                }
+            }, statisticsLogInterval, statisticsLogInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the executor. Operations which are not yet sent stay in the outbox if it is enabled, and are sent by
+     * another node once their lease expires.
+     */
+    public void shutdown() {
+        maintenanceScheduler.shutdownNow();
+        scheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+    /**
+     * @return number of operations which are added and not yet completed
+     */
+    public int getPendingCount() {
+        return queueSize - pendingPermits.availablePermits();
+    }
+
+    /**
+     * @return statistics of every provisioning connector the executor has sent operations through
+     */
+    public List<ProvisioningConnectorStatistics> getConnectorStatistics() {
+
+        List<ProvisioningConnectorStatistics> statistics = new ArrayList<>(connectorQueues.size());
+        for (ConnectorQueue connectorQueue : connectorQueues.values()) {
+            statistics.add(connectorQueue.statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the connector an outbox entry is sent through.
+     *
+     * @param entry outbox entry
+     * @return connector, or null if the connector is not available any more
+     * @throws IdentityProviderManagementException
+     * @throws IdentityProvisioningException
+     */
+    protected AbstractOutboundProvisioningConnector getOutboundProvisioningConnector(ProvisioningOutboxEntry entry)
+            throws IdentityProviderManagementException, IdentityProvisioningException {
+
+        return OutboundProvisioningManager.getInstance().getOutboundProvisioningConnector(entry.getIdPName(),
+                entry.getConnectorType(), entry.getTenantDomain());
+    }
+
+    private void renewOutboxLeases() {
+        try {
+            outboxDAO.renewOutboxLeases(nodeId, System.currentTimeMillis() + outboxLeaseTime);
+        } catch (IdentityApplicationManagementException e) {
+            log.error("Error while renewing the provisioning outbox leases. Pending operations may be sent again " +
+                      "by another node", e);
+        }
+    }
+
+    /**
+     * Claims and sends the outbox entries whose lease has expired, oldest first, while the executor has room for
+     * them. The remaining entries are recovered on a later run.
+     */
+    private void recoverOutboxEntries() {
+
+        long now = System.currentTimeMillis();
+        List<ProvisioningOutboxEntry> entries;
+        try {
+            entries = outboxDAO.getExpiredOutboxEntries(now);
+        } catch (IdentityApplicationManagementException e) {
+            log.error("Error while reading the provisioning outbox", e);
+            return;
+        }
+
+        int recovered = 0;
+        for (ProvisioningOutboxEntry entry : entries) {
+            AbstractOutboundProvisioningConnector connector;
+            try {
+                connector = getOutboundProvisioningConnector(entry);
+            } catch (IdentityProviderManagementException | IdentityProvisioningException e) {
+                log.error("Error while loading the " + entry.getConnectorType() + " provisioning connector of " +
+                          entry.getIdPName() + ". Outbox entry " + entry.getId() + " is kept", e);
+                continue;
+            }
+            if (connector == null) {
+                log.warn("Provisioning connector " + entry.getConnectorType() + " of " + entry.getIdPName() +
+                         " is not available any more. Outbox entry " + entry.getId() + " is discarded");
+                removeOutboxEntry(entry.getId());
+                continue;
+            }
+            if (!pendingPermits.tryAcquire()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Outbound provisioning executor is full. Remaining outbox entries are recovered later");
+                }
+                break;
+            }
+            boolean claimed = false;
+            try {
+                claimed = outboxDAO.claimOutboxEntry(entry.getId(), nodeId, now + outboxLeaseTime, now);
+            } catch (IdentityApplicationManagementException e) {
+                log.error("Error while claiming provisioning outbox entry " + entry.getId(), e);
+            }
+            if (!claimed) {
+                // sent or claimed by another node in the meantime
+                pendingPermits.release();
+                continue;
+            }
+            enqueue(new ProvisioningTask(entry.getId(), entry.getProvisioningEntity(), entry.getTenantDomain(),
+                    connector, entry.getConnectorType(), entry.getIdPName()));
+            recovered++;
+        }
+        if (recovered > 0) {
+            log.info("Recovered " + recovered + " outbound provisioning operations from the outbox");
+        }
+    }
+
+    private void logStatistics() {
+
+        log.info("Outbound provisioning executor has " + getPendingCount() + " pending operations");
+        for (ProvisioningConnectorStatistics statistics : getConnectorStatistics()) {
+            log.info("Provisioning connector " + statistics.getConnectorType() + " of " + statistics.getIdPName() +
+                     " of tenant " + statistics.getTenantDomain() + " : queued " + statistics.getQueueDepth() +
+                     ", running " + statistics.getRunningCount() + ", attempts " + statistics.getAttemptCount() +
+                     ", successes " + statistics.getSuccessCount() + ", retries " + statistics.getRetryCount() +
+                     ", failures " + statistics.getFailureCount() + ", batches " + statistics.getBatchCount() +
+                     ", average latency " + statistics.getAverageLatency() + " ms");
+        }
+    }
+
+    private void acquirePermit() throws IdentityProvisioningException {
+        try {
+            pendingPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityProvisioningException("Interrupted while waiting to add an outbound provisioning " +
+                                                    "operation", e);
+        }
+    }
+
+    private void enqueue(ProvisioningTask task) {
+
+        ConnectorQueue connectorQueue = getConnectorQueue(task);
+        synchronized (connectorQueue) {
+            task.queuedTime = System.nanoTime();
+            if (task.entityKey != null && !connectorQueue.activeEntities.add(task.entityKey)) {
+                Queue<ProvisioningTask> entityTasks = connectorQueue.blockedTasks.get(task.entityKey);
+                if (entityTasks == null) {
+                    entityTasks = new ArrayDeque<>();
+                    connectorQueue.blockedTasks.put(task.entityKey, entityTasks);
+                }
+                entityTasks.add(task);
+            } else {
+                connectorQueue.tasks.add(task);
+            }
+        }
+        connectorQueue.statistics.queued();
+        dispatch(connectorQueue);
+    }
+
+    /**
+     * Starts queued operations of the given connector while it has free slots.
+     */
+    private void dispatch(ConnectorQueue connectorQueue) {
+
+        while (true) {
+            List<ProvisioningTask> batch;
+            long lingerDelay = 0;
+            synchronized (connectorQueue) {
+                if (connectorQueue.running >= connectorConcurrency || connectorQueue.tasks.isEmpty()) {
+                    return;
+                }
+                ProvisioningTask first = connectorQueue.tasks.peek();
+                int batchSize = getBatchSize(first);
+                if (batchSize > 1 && connectorQueue.tasks.size() < batchSize) {
+                    lingerDelay = TimeUnit.MILLISECONDS.toNanos(batchLingerTime) -
+                                  (System.nanoTime() - first.queuedTime);
+                }
+                if (lingerDelay > 0) {
+                    if (connectorQueue.lingering) {
+                        return;
+                    }
+                    connectorQueue.lingering = true;
+                    batch = null;
+                } else {
+                    batch = new ArrayList<>(Math.min(batchSize, connectorQueue.tasks.size()));
+                    // a batch goes through a single connector instance. the connector of the identity provider
+                    // is replaced when it is updated.
+                    while (batch.size() < batchSize && !connectorQueue.tasks.isEmpty() &&
+                           connectorQueue.tasks.peek().connector == first.connector) {
+                        batch.add(connectorQueue.tasks.poll());
+                    }
+                    connectorQueue.running++;
+                }
+            }
+
+            if (batch == null) {
+                try {
+                    scheduler.schedule(new BatchDispatcher(connectorQueue), lingerDelay, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // executor is shut down. the operations stay in the outbox, if it is enabled.
+                    synchronized (connectorQueue) {
+                        connectorQueue.lingering = false;
+                    }
+                }
+                return;
+            }
+
+            long delay = getRateLimiterDelay(batch.get(0));
+            try {
+                if (delay > 0) {
+                    scheduler.schedule(new TaskStarter(connectorQueue, batch), delay, TimeUnit.NANOSECONDS);
+                } else {
+                    workers.execute(new TaskRunner(connectorQueue, batch));
+                }
+            } catch (RejectedExecutionException e) {
+                log.warn("Outbound provisioning executor is shut down. Provisioning of " + batch.size() +
+                         " entities to " + batch.get(0).idPName + " is not sent");
+                synchronized (connectorQueue) {
+                    connectorQueue.running--;
+                }
+                pendingPermits.release(batch.size());
+                return;
+            }
+        }
+    }
+
+    private void run(ConnectorQueue connectorQueue, List<ProvisioningTask> batch) {
+
+        if (batch.size() == 1) {
+            run(connectorQueue, batch.get(0));
+        } else {
+            runBatch(connectorQueue, batch);
+        }
+        dispatch(connectorQueue);
+    }
+
+    private void run(ConnectorQueue connectorQueue, ProvisioningTask task) {
+
+        connectorQueue.statistics.started();
+        task.attempts++;
+
+        boolean success = false;
+        Exception error = null;
+        long startTime = System.nanoTime();
+        try {
+            success = Boolean.TRUE.equals(task.provisioningThread.call());
+        } catch (Exception e) {
+            error = e;
+        }
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        connectorQueue.statistics.attempted(latency, success);
+
+        synchronized (connectorQueue) {
+            connectorQueue.running--;
+        }
+
+        handleResult(connectorQueue, task, success, error);
+    }
+
+    private void runBatch(ConnectorQueue connectorQueue, List<ProvisioningTask> batch) {
+
+        List<ProvisioningEntity> provisioningEntities = new ArrayList<>(batch.size());
+        for (ProvisioningTask task : batch) {
+            connectorQueue.statistics.started();
+            task.attempts++;
+            provisioningEntities.add(task.provisioningEntity);
+        }
+        connectorQueue.statistics.batched();
+
+        boolean[] success = new boolean[batch.size()];
+        Exception[] errors = new Exception[batch.size()];
+        long startTime = System.nanoTime();
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(batch.get(0).tenantDomainName);
+
+            BatchProvisioningResult result = null;
+            Exception batchError = null;
+            try {
+                result = batch.get(0).connector.provisionBatch(provisioningEntities);
+                if (result == null || result.size() != batch.size()) {
+                    result = null;
+                    batchError = new IdentityProvisioningException("Provisioning connector " +
+                            batch.get(0).connectorType + " did not return a result for each entity of the batch");
+                }
+            } catch (IdentityProvisioningException | RuntimeException e) {
+                batchError = e;
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                if (result == null) {
+                    errors[i] = batchError;
+                } else if (result.isFailed(i)) {
+                    errors[i] = result.getError(i);
+                } else {
+                    try {
+                        batch.get(i).provisioningThread.completeProvisioning(result.getIdentifier(i));
+                        success[i] = true;
+                    } catch (IdentityProvisioningException | RuntimeException e) {
+                        errors[i] = e;
+                    }
+                }
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        for (boolean provisioned : success) {
+            connectorQueue.statistics.attempted(latency, provisioned);
+        }
+
+        synchronized (connectorQueue) {
+            connectorQueue.running--;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            handleResult(connectorQueue, batch.get(i), success[i], errors[i]);
+        }
+    }
+
+    private void handleResult(ConnectorQueue connectorQueue, ProvisioningTask task, boolean success,
+                              Exception error) {
+
+        if (success) {
+            complete(connectorQueue, task);
+        } else if (task.attempts < maxAttempts) {
+            long retryDelay = getRetryDelay(task.attempts);
+            if (log.isDebugEnabled()) {
+                log.debug("Provisioning of " + task.provisioningEntity.getEntityName() + " to " + task.idPName +
+                          " failed on attempt " + task.attempts + ". Retrying in " + retryDelay + " ms", error);
+            }
+            connectorQueue.statistics.retried();
+            connectorQueue.statistics.queued();
+            try {
+                scheduler.schedule(new TaskRetry(task), retryDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // executor is shut down. the operation stays in the outbox, if it is enabled.
+                pendingPermits.release();
+            }
+        } else {
+            log.error("Provisioning of " + task.provisioningEntity.getEntityName() + " for operation " +
+                      task.provisioningEntity.getOperation() + " to identity provider " + task.idPName +
+                      " through connector " + task.connectorType + " failed after " + task.attempts +
+                      " attempts", error);
+            connectorQueue.statistics.failed();
+            complete(connectorQueue, task);
+        }
+    }
+
+    /**
+     * Completes an operation and queues the next operation of its entity, which is dispatched by the caller.
+     */
+    private void complete(ConnectorQueue connectorQueue, ProvisioningTask task) {
+
+        if (task.outboxId != null) {
+            removeOutboxEntry(task.outboxId);
+        }
+        if (task.entityKey != null) {
+            synchronized (connectorQueue) {
+                Queue<ProvisioningTask> entityTasks = connectorQueue.blockedTasks.get(task.entityKey);
+                if (entityTasks == null) {
+                    connectorQueue.activeEntities.remove(task.entityKey);
+                } else {
+                    ProvisioningTask nextTask = entityTasks.poll();
+                    if (entityTasks.isEmpty()) {
+                        connectorQueue.blockedTasks.remove(task.entityKey);
+                    }
+                    nextTask.queuedTime = System.nanoTime();
+                    connectorQueue.tasks.add(nextTask);
+                }
+            }
+        }
+        pendingPermits.release();
+    }
+
+    private void removeOutboxEntry(String outboxId) {
+        try {
+            outboxDAO.deleteOutboxEntry(outboxId);
+        } catch (IdentityApplicationManagementException e) {
+            log.error("Error while removing provisioning outbox entry " + outboxId + ". It will be sent again once " +
+                      "its lease expires", e);
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter, between half and the whole of the backoff delay.
+     */
+    private long getRetryDelay(int attempts) {
+
+        long delay = initialRetryDelay;
+        for (int i = 1; i < attempts && delay < maxRetryDelay; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxRetryDelay);
+        if (delay <= 1) {
+            return Math.max(delay, 0);
+        }
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private int getBatchSize(ProvisioningTask task) {
+
+        if (!batchEnabled) {
+            return 1;
+        }
+        return Math.max(task.connector.getMaxBatchSize(), 1);
+    }
+
+    private long getRateLimiterDelay(ProvisioningTask task) {
+
+        if (requestsPerSecond <= 0) {
+            return 0;
+        }
+        String key = task.tenantDomainName + KEY_SEPARATOR + task.idPName;
+        RateLimiter rateLimiter = rateLimiters.get(key);
+        if (rateLimiter == null) {
+            rateLimiter = new RateLimiter((long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+            RateLimiter existing = rateLimiters.putIfAbsent(key, rateLimiter);
+            if (existing != null) {
+                rateLimiter = existing;
+            }
+        }
+        return rateLimiter.reserve();
+    }
+
+    private ConnectorQueue getConnectorQueue(ProvisioningTask task) {
+
+        String key = task.tenantDomainName + KEY_SEPARATOR + task.idPName + KEY_SEPARATOR + task.connectorType;
+        ConnectorQueue connectorQueue = connectorQueues.get(key);
+        if (connectorQueue == null) {
+            connectorQueue = new ConnectorQueue(new ProvisioningConnectorStatistics(task.tenantDomainName,
+                    task.idPName, task.connectorType));
+            ConnectorQueue existing = connectorQueues.putIfAbsent(key, connectorQueue);
+            if (existing != null) {
+                connectorQueue = existing;
+            }
+        }
+        return connectorQueue;
+    }
+
+    private class ProvisioningTask {
+
+        private final String outboxId;
+        private final ProvisioningEntity provisioningEntity;
+        private final String tenantDomainName;
+        private final String connectorType;
+        private final String idPName;
+        private final AbstractOutboundProvisioningConnector connector;
+        private final ProvisioningThread provisioningThread;
+        /**
+         * operations of the same entity are sent in order. null if the entity has no name.
+         */
+        private final String entityKey;
+        private int attempts;
+        private long queuedTime;
+
+        private ProvisioningTask(String outboxId, ProvisioningEntity provisioningEntity, String tenantDomainName,
+                                 AbstractOutboundProvisioningConnector connector, String connectorType,
+                                 String idPName) {
+            this.outboxId = outboxId;
+            this.provisioningEntity = provisioningEntity;
+            this.tenantDomainName = tenantDomainName;
+            this.connectorType = connectorType;
+            this.idPName = idPName;
+            this.connector = connector;
+            this.provisioningThread = new ProvisioningThread(provisioningEntity, tenantDomainName, connector,
+                    connectorType, idPName, dao);
+            this.entityKey = provisioningEntity.getEntityName() != null ?
+                    provisioningEntity.getEntityType() + String.valueOf(KEY_SEPARATOR) +
+                    provisioningEntity.getEntityName() : null;
+        }
+    }
+
+    private static class ConnectorQueue {
+
+        /**
+         * operations which can be sent, at most one per entity
+         */
+        private final Queue<ProvisioningTask> tasks = new ArrayDeque<>();
+        /**
+         * entities with an operation queued, running or waiting to be retried
+         */
+        private final Set<String> activeEntities = new HashSet<>();
+        /**
+         * operations waiting for an earlier operation of the same entity to complete, by entity
+         */
+        private final Map<String, Queue<ProvisioningTask>> blockedTasks = new HashMap<>();
+        private final ProvisioningConnectorStatistics statistics;
+        private int running;
+        private boolean lingering;
+
+        private ConnectorQueue(ProvisioningConnectorStatistics statistics) {
+            this.statistics = statistics;
+        }
+    }
+
+    /**
+     * Spaces out the operations sent to an identity provider, by reserving a start time for each.
+     */
+    private static class RateLimiter {
+
+        private final long interval;
+        private long nextStartTime = System.nanoTime();
+
+        private RateLimiter(long interval) {
+            this.interval = interval;
+        }
+
+        /**
+         * @return time in nanoseconds to wait before the reserved start time
+         */
+        private synchronized long reserve() {
+            long now = System.nanoTime();
+            long startTime = Math.max(now, nextStartTime);
+            nextStartTime = startTime + interval;
+            return startTime - now;
+        }
+    }
+
+    private class TaskRunner implements Runnable {
+
+        private final ConnectorQueue connectorQueue;
+        private final List<ProvisioningTask> batch;
+
+        private TaskRunner(ConnectorQueue connectorQueue, List<ProvisioningTask> batch) {
+            this.connectorQueue = connectorQueue;
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            OutboundProvisioningExecutor.this.run(connectorQueue, batch);
+        }
+    }
+
+    /**
+     * Hands a rate limited operation over to the worker threads once its start time is reached.
+     */
+    private class TaskStarter implements Runnable {
+
+        private final ConnectorQueue connectorQueue;
+        private final List<ProvisioningTask> batch;
+
+        private TaskStarter(ConnectorQueue connectorQueue, List<ProvisioningTask> batch) {
+            this.connectorQueue = connectorQueue;
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                workers.execute(new TaskRunner(connectorQueue, batch));
+            } catch (RejectedExecutionException e) {
+                synchronized (connectorQueue) {
+                    connectorQueue.running--;
+                }
+                pendingPermits.release(batch.size());
+            }
+        }
+    }
+
+    private class TaskRetry implements Runnable {
+
+        private final ProvisioningTask task;
+
+        private TaskRetry(ProvisioningTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            ConnectorQueue connectorQueue = getConnectorQueue(task);
+            synchronized (connectorQueue) {
+                task.queuedTime = System.nanoTime();
+                connectorQueue.tasks.add(task);
+            }
+            dispatch(connectorQueue);
+        }
+    }
+
+    /**
+     * Dispatches the operations of a connector once the oldest of them has waited the batch linger time.
+     */
+    private class BatchDispatcher implements Runnable {
+
+        private final ConnectorQueue connectorQueue;
+
+        private BatchDispatcher(ConnectorQueue connectorQueue) {
+            this.connectorQueue = connectorQueue;
+        }
+
+        @Override
+        public void run() {
+            synchronized (connectorQueue) {
+                connectorQueue.lingering = false;
+            }
+            dispatch(connectorQueue);
+        }
+    }
+}
@@ -19,7 +19,6 @@
 package org.wso2.carbon.identity.provisioning;
 
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.CarbonException;
@@ -42,6 +41,7 @@ import org.wso2.carbon.identity.provisioning.cache.ServiceProviderProvisioningCo
 import org.wso2.carbon.identity.provisioning.dao.CacheBackedProvisioningMgtDAO;
 import org.wso2.carbon.identity.provisioning.dao.ProvisioningManagementDAO;
 import org.wso2.carbon.identity.provisioning.internal.IdentityProvisionServiceComponent;
+import org.wso2.carbon.identity.provisioning.internal.ProvisioningServiceDataHolder;
 import org.wso2.carbon.idp.mgt.IdentityProviderManagementException;
 import org.wso2.carbon.idp.mgt.IdentityProviderManager;
 import org.wso2.carbon.idp.mgt.util.IdPManagementUtil;
@@ -64,8 +64,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  *
@@ -362,6 +360,39 @@ public class OutboundProvisioningManager {
         return null;
     }
 
+    /**
+     * Returns the default provisioning connector of the given identity provider, if it is still of the given type.
+     *
+     * @param idPName
+     * @param connectorType
+     * @param tenantDomainName
+     * @return provisioning connector, or null if the identity provider or its connector is not available any more
+     * @throws IdentityProviderManagementException
+     * @throws IdentityProvisioningException if the connector factory is not registered yet
+     */
+    AbstractOutboundProvisioningConnector getOutboundProvisioningConnector(String idPName, String connectorType,
+                                                                           String tenantDomainName)
+            throws IdentityProviderManagementException, IdentityProvisioningException {
+
+        IdentityProvider fIdP = IdentityProviderManager.getInstance().getEnabledIdPByName(idPName, tenantDomainName);
+        if (fIdP == null || fIdP.getDefaultProvisioningConnectorConfig() == null ||
+                !connectorType.equals(fIdP.getDefaultProvisioningConnectorConfig().getName())) {
+            return null;
+        }
+
+        Map<String, AbstractProvisioningConnectorFactory> registeredConnectorFactories =
+                IdentityProvisionServiceComponent.getConnectorFactories();
+        if (!registeredConnectorFactories.containsKey(connectorType)) {
+            throw new IdentityProvisioningException("Provisioning connector factory " + connectorType +
+                    " is not registered");
+        }
+
+        boolean enableJitProvisioning = fIdP.getJustInTimeProvisioningConfig() != null
+                && fIdP.getJustInTimeProvisioningConfig().isProvisioningEnabled();
+        return getOutboundProvisioningConnector(fIdP, registeredConnectorFactories, tenantDomainName,
+                enableJitProvisioning);
+    }
+
     /**
      * @param provisioningEntity
      * @param serviceProviderIdentifier
@@ -404,12 +435,6 @@ public class OutboundProvisioningManager {
 
             ProvisioningEntity outboundProEntity;
 
-            ExecutorService executors = null;
-
-            if (MapUtils.isNotEmpty(connectors)) {
-                executors = Executors.newFixedThreadPool(connectors.size());
-            }
-
             for (Iterator<Entry<String, RuntimeProvisioningConfig>> iterator = connectors
                     .entrySet().iterator(); iterator.hasNext(); ) {
 
@@ -515,12 +540,11 @@ public class OutboundProvisioningManager {
 
                         outboundProEntity = new ProvisioningEntity(ProvisioningEntityType.USER,
                                 user, ProvisioningOperation.POST, mappedUserClaims);
-                        Callable<Boolean> proThread = new ProvisioningThread(outboundProEntity,
-                                tenantDomainName, connector, connectorType, idPName, dao);
                         outboundProEntity.setIdentifier(provisionedIdentifier);
                         outboundProEntity.setJitProvisioning(jitProvisioning);
                         boolean isBlocking = entry.getValue().isBlocking();
-                        executeOutboundProvisioning(provisioningEntity, executors, connectorType, idPName, proThread, isBlocking);
+                        executeOutboundProvisioning(provisioningEntity, outboundProEntity, tenantDomainName,
+                                connector, connectorType, idPName, isBlocking);
 
                     }
 
@@ -538,12 +562,11 @@ public class OutboundProvisioningManager {
 
                             outboundProEntity = new ProvisioningEntity(ProvisioningEntityType.USER,
                                     user, ProvisioningOperation.DELETE, mappedUserClaims);
-                            Callable<Boolean> proThread = new ProvisioningThread(outboundProEntity,
-                                    tenantDomainName, connector, connectorType, idPName, dao);
                             outboundProEntity.setIdentifier(provisionedUserIdentifier);
                             outboundProEntity.setJitProvisioning(jitProvisioning);
                             boolean isBlocking = entry.getValue().isBlocking();
-                            executeOutboundProvisioning(provisioningEntity, executors, connectorType, idPName, proThread, isBlocking);
+                            executeOutboundProvisioning(provisioningEntity, outboundProEntity, tenantDomainName,
+                                    connector, connectorType, idPName, isBlocking);
                         }
                     }
 
@@ -563,45 +586,47 @@ public class OutboundProvisioningManager {
                     outboundProEntity = new ProvisioningEntity(provisioningEntity.getEntityType(),
                             provisioningEntity.getEntityName(), provisioningOp, mapppedClaims);
 
-                    Callable<Boolean> proThread = new ProvisioningThread(outboundProEntity,
-                            tenantDomainName, connector, connectorType, idPName, dao);
                     outboundProEntity.setIdentifier(provisionedIdentifier);
                     outboundProEntity.setJitProvisioning(jitProvisioning);
                     boolean isBlocking = entry.getValue().isBlocking();
-                    executeOutboundProvisioning(provisioningEntity, executors, connectorType, idPName, proThread, isBlocking);
+                    executeOutboundProvisioning(provisioningEntity, outboundProEntity, tenantDomainName,
+                            connector, connectorType, idPName, isBlocking);
                 }
 
             }
 
-            if (executors != null) {
-                executors.shutdown();
-            }
-
         } catch (CarbonException | IdentityApplicationManagementException | IdentityProviderManagementException | UserStoreException e) {
             throw new IdentityProvisioningException("Error occurred while checking for user " +
                     "provisioning", e);
         }
     }
 
-    private void executeOutboundProvisioning(ProvisioningEntity provisioningEntity, ExecutorService executors, String connectorType,
-                                             String idPName, Callable<Boolean> proThread, boolean isBlocking) throws IdentityProvisioningException {
+    private void executeOutboundProvisioning(ProvisioningEntity provisioningEntity,
+                                             ProvisioningEntity outboundProEntity, String tenantDomainName,
+                                             AbstractOutboundProvisioningConnector connector, String connectorType,
+                                             String idPName, boolean isBlocking) throws IdentityProvisioningException {
         if (!isBlocking) {
-            executors.submit(proThread);
+            OutboundProvisioningExecutor outboundProvisioningExecutor =
+                    ProvisioningServiceDataHolder.getInstance().getOutboundProvisioningExecutor();
+            if (outboundProvisioningExecutor == null) {
+                throw new IdentityProvisioningException("Outbound provisioning executor is not available. " +
+                        "Provisioning of " + outboundProEntity.getEntityName() + " to " + idPName + " is not sent");
+            }
+            outboundProvisioningExecutor.submit(outboundProEntity, tenantDomainName, connector, connectorType,
+                    idPName);
         } else {
             try {
-
+                Callable<Boolean> proThread = new ProvisioningThread(outboundProEntity, tenantDomainName, connector,
+                        connectorType, idPName, dao);
                 boolean success = proThread.call();
                 if (!success) {
-                    if (executors != null) {
-                        executors.shutdown();
-                    }
                     throw new IdentityProvisioningException
                             (generateMessageOnFailureProvisioningOperation(idPName,
                                     connectorType, provisioningEntity));
                     //DO Rollback
                 }
             } catch (Exception e) { //call() of Callable interface throws this exception
-                handleException(idPName, connectorType, provisioningEntity, executors, e);
+                handleException(idPName, connectorType, provisioningEntity, e);
             }
         }
     }
@@ -925,11 +950,10 @@ public class OutboundProvisioningManager {
      * @param idPName
      * @param connectorType
      * @param provisioningEntity
-     * @param executors
      * @param e
      */
     protected void handleException(String idPName, String connectorType, ProvisioningEntity provisioningEntity,
-                                   ExecutorService executors, Exception e) {
+                                   Exception e) {
 
         if (log.isDebugEnabled()) {
             log.debug(generateMessageOnFailureProvisioningOperation(idPName, connectorType, provisioningEntity), e);
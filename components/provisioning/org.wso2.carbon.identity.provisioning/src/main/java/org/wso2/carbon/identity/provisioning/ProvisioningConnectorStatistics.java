@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provisioning statistics of a provisioning connector of an identity provider, as seen by the
+ * {@link OutboundProvisioningExecutor}.
+ */
+public class ProvisioningConnectorStatistics {
+
+    private final String tenantDomain;
+    private final String idPName;
+    private final String connectorType;
+
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final AtomicLong attemptCount = new AtomicLong();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private volatile long lastLatency;
+
+    public ProvisioningConnectorStatistics(String tenantDomain, String idPName, String connectorType) {
+        this.tenantDomain = tenantDomain;
+        this.idPName = idPName;
+        this.connectorType = connectorType;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getIdPName() {
+        return idPName;
+    }
+
+    public String getConnectorType() {
+        return connectorType;
+    }
+
+    /**
+     * @return number of provisioning operations waiting for the connector, including the ones waiting for a retry
+     */
+    public int getQueueDepth() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return number of provisioning operations currently being sent through the connector
+     */
+    public int getRunningCount() {
+        return runningCount.get();
+    }
+
+    public long getAttemptCount() {
+        return attemptCount.get();
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return number of provisioning operations which failed after all their attempts
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @return number of batches of provisioning operations sent through the connector
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return average time taken by an attempt, in milliseconds
+     */
+    public double getAverageLatency() {
+        long attempts = attemptCount.get();
+        return attempts == 0 ? 0 : (double) totalLatency.get() / attempts;
+    }
+
+    /**
+     * @return time taken by the last attempt, in milliseconds
+     */
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    void queued() {
+        queuedCount.incrementAndGet();
+    }
+
+    void started() {
+        queuedCount.decrementAndGet();
+        runningCount.incrementAndGet();
+    }
+
+    void attempted(long latency, boolean success) {
+        runningCount.decrementAndGet();
+        attemptCount.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        lastLatency = latency;
+        if (success) {
+            successCount.incrementAndGet();
+        }
+    }
+
+    void retried() {
+        retryCount.incrementAndGet();
+    }
+
+    void failed() {
+        failureCount.incrementAndGet();
+    }
+
+    void batched() {
+        batchCount.incrementAndGet();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+/**
+ * An outbound provisioning operation persisted in the provisioning outbox until it is sent through its connector.
+ */
+public class ProvisioningOutboxEntry {
+
+    private String id;
+    private String tenantDomain;
+    private String idPName;
+    private String connectorType;
+    private ProvisioningEntity provisioningEntity;
+
+    /**
+     * @param id
+     * @param tenantDomain
+     * @param idPName
+     * @param connectorType
+     * @param provisioningEntity outbound provisioning entity
+     */
+    public ProvisioningOutboxEntry(String id, String tenantDomain, String idPName, String connectorType,
+                                   ProvisioningEntity provisioningEntity) {
+        this.id = id;
+        this.tenantDomain = tenantDomain;
+        this.idPName = idPName;
+        this.connectorType = connectorType;
+        this.provisioningEntity = provisioningEntity;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getIdPName() {
+        return idPName;
+    }
+
+    public String getConnectorType() {
+        return connectorType;
+    }
+
+    public ProvisioningEntity getProvisioningEntity() {
+        return provisioningEntity;
+    }
+}
@@ -62,10 +62,34 @@ public class ProvisioningThread implements Callable<Boolean> {
             PrivilegedCarbonContext.startTenantFlow();
             PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomainName);
 
-            ProvisionedIdentifier provisionedIdentifier = null;
             // real provisioning happens now.
-            provisionedIdentifier = connector.provision(provisioningEntity);
+            ProvisionedIdentifier provisionedIdentifier = connector.provision(provisioningEntity);
+            completeProvisioning(provisionedIdentifier);
 
+            success = true;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+
+            if (tenantDomainName != null) {
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
+                        tenantDomainName);
+            }
+        }
+
+        return success;
+    }
+
+    /**
+     * Records the result of provisioning the entity of this thread, once the connector has provisioned it. This
+     * is called within the tenant flow of the provisioning tenant, either by {@link #call()} or after the entity
+     * was provisioned in a batch.
+     *
+     * @param provisionedIdentifier identifier returned by the connector
+     * @throws IdentityProvisioningException
+     */
+    void completeProvisioning(ProvisionedIdentifier provisionedIdentifier) throws IdentityProvisioningException {
+
+        try {
             if (provisioningEntity.getOperation() == ProvisioningOperation.DELETE) {
                 deleteProvisionedEntityIdentifier(idPName, connectorType, provisioningEntity,
                         tenantDomainName);
@@ -92,22 +116,11 @@ public class ProvisioningThread implements Callable<Boolean> {
                     dao.updateProvisionedEntityName(provisioningEntity);
                 }
             }
-
-            success = true;
         } catch (IdentityApplicationManagementException e) {
             String errMsg = " Provisioning for Entity " + provisioningEntity.getEntityName() +
                     " For operation = " + provisioningEntity.getOperation();
             throw new IdentityProvisioningException(errMsg, e);
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-
-            if (tenantDomainName != null) {
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(
-                        tenantDomainName);
-            }
         }
-
-        return success;
     }
 
     /**
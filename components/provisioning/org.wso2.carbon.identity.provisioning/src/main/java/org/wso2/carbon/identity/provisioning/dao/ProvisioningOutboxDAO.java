@@ -0,0 +1,430 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.core.util.CryptoException;
+import org.wso2.carbon.core.util.CryptoUtil;
+import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.provisioning.IdentityProvisioningConstants;
+import org.wso2.carbon.identity.provisioning.ProvisionedIdentifier;
+import org.wso2.carbon.identity.provisioning.ProvisioningEntity;
+import org.wso2.carbon.identity.provisioning.ProvisioningEntityType;
+import org.wso2.carbon.identity.provisioning.ProvisioningOperation;
+import org.wso2.carbon.identity.provisioning.ProvisioningOutboxEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores outbound provisioning operations in the IDP_PROVISIONING_OUTBOX table until they are sent through their
+ * connectors, so that operations which are pending when a node stops are sent by the nodes which are still running.
+ * <p/>
+ * Each entry is owned by the node which sends it, until a lease expiry time that the owner keeps renewing while it
+ * runs. An entry whose lease has expired can be claimed by another node, and only the node whose claim succeeds
+ * sends it.
+ * <p/>
+ * The provisioning entity is written field by field in a versioned binary format rather than with Java
+ * serialization, so that reading an entry can only create the provisioning model objects. Values of the password
+ * claim are encrypted with the Carbon crypto util before they are written.
+ */
+public class ProvisioningOutboxDAO {
+
+    private static final Log log = LogFactory.getLog(ProvisioningOutboxDAO.class);
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * @param entry
+     * @param owner       node which sends the entry
+     * @param leaseExpiry time in milliseconds until which the entry is owned by the given node
+     * @throws IdentityApplicationManagementException
+     */
+    public void addOutboxEntry(ProvisioningOutboxEntry entry, String owner, long leaseExpiry)
+            throws IdentityApplicationManagementException {
+
+        Connection dbConnection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement prepStmt = null;
+        try {
+            byte[] entity = serialize(entry.getProvisioningEntity());
+
+            prepStmt = dbConnection.prepareStatement(IdentityProvisioningConstants.SQLQueries.ADD_OUTBOX_ENTRY_SQL);
+            prepStmt.setString(1, entry.getId());
+            prepStmt.setString(2, entry.getTenantDomain());
+            prepStmt.setString(3, entry.getIdPName());
+            prepStmt.setString(4, entry.getConnectorType());
+            prepStmt.setBinaryStream(5, new ByteArrayInputStream(entity), entity.length);
+            prepStmt.setLong(6, System.currentTimeMillis());
+            prepStmt.setString(7, owner);
+            prepStmt.setLong(8, leaseExpiry);
+            prepStmt.execute();
+            dbConnection.commit();
+        } catch (SQLException | IOException | CryptoException e) {
+            IdentityApplicationManagementUtil.rollBack(dbConnection);
+            throw new IdentityApplicationManagementException("Error occurred while adding provisioning outbox " +
+                    "entry for identity provider " + entry.getIdPName() + " of tenant " + entry.getTenantDomain(), e);
+        } finally {
+            if (prepStmt != null) {
+                IdentityApplicationManagementUtil.closeStatement(prepStmt);
+            }
+            IdentityApplicationManagementUtil.closeConnection(dbConnection);
+        }
+    }
+
+    /**
+     * @param id
+     * @throws IdentityApplicationManagementException
+     */
+    public void deleteOutboxEntry(String id) throws IdentityApplicationManagementException {
+
+        Connection dbConnection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement prepStmt = null;
+        try {
+            prepStmt = dbConnection.prepareStatement(IdentityProvisioningConstants.SQLQueries.DELETE_OUTBOX_ENTRY_SQL);
+            prepStmt.setString(1, id);
+            prepStmt.execute();
+            dbConnection.commit();
+        } catch (SQLException e) {
+            IdentityApplicationManagementUtil.rollBack(dbConnection);
+            throw new IdentityApplicationManagementException("Error occurred while deleting provisioning outbox " +
+                    "entry " + id, e);
+        } finally {
+            if (prepStmt != null) {
+                IdentityApplicationManagementUtil.closeStatement(prepStmt);
+            }
+            IdentityApplicationManagementUtil.closeConnection(dbConnection);
+        }
+    }
+
+    /**
+     * Returns the outbox entries whose lease has expired, oldest first. Entries which can not be read are deleted.
+     *
+     * @param now current time in milliseconds
+     * @return outbox entries
+     * @throws IdentityApplicationManagementException
+     */
+    public List<ProvisioningOutboxEntry> getExpiredOutboxEntries(long now)
+            throws IdentityApplicationManagementException {
+
+        Connection dbConnection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        List<ProvisioningOutboxEntry> entries = new ArrayList<>();
+        List<String> unreadableEntries = new ArrayList<>();
+        try {
+            prepStmt = dbConnection.prepareStatement(
+                    IdentityProvisioningConstants.SQLQueries.GET_EXPIRED_OUTBOX_ENTRIES_SQL);
+            prepStmt.setLong(1, now);
+            rs = prepStmt.executeQuery();
+
+            while (rs.next()) {
+                String id = rs.getString(1);
+                try {
+                    ProvisioningEntity provisioningEntity = deserialize(rs.getBinaryStream(5));
+                    entries.add(new ProvisioningOutboxEntry(id, rs.getString(2), rs.getString(3), rs.getString(4),
+                            provisioningEntity));
+                } catch (IOException | CryptoException | IllegalArgumentException e) {
+                    log.error("Error while reading provisioning outbox entry " + id + ". The entry is discarded", e);
+                    unreadableEntries.add(id);
+                }
+            }
+            dbConnection.commit();
+        } catch (SQLException e) {
+            IdentityApplicationManagementUtil.rollBack(dbConnection);
+            throw new IdentityApplicationManagementException("Error occurred while retrieving provisioning outbox " +
+                    "entries", e);
+        } finally {
+            if (rs != null) {
+                IdentityApplicationManagementUtil.closeResultSet(rs);
+            }
+            if (prepStmt != null) {
+                IdentityApplicationManagementUtil.closeStatement(prepStmt);
+            }
+            IdentityApplicationManagementUtil.closeConnection(dbConnection);
+        }
+
+        for (String id : unreadableEntries) {
+            deleteOutboxEntry(id);
+        }
+        return entries;
+    }
+
+    /**
+     * Takes over an outbox entry whose lease has expired.
+     *
+     * @param id          outbox entry id
+     * @param owner       node which sends the entry
+     * @param leaseExpiry time in milliseconds until which the entry is owned by the given node
+     * @param now         current time in milliseconds
+     * @return true if the entry is claimed, false if it is already owned by a node or is deleted
+     * @throws IdentityApplicationManagementException
+     */
+    public boolean claimOutboxEntry(String id, String owner, long leaseExpiry, long now)
+            throws IdentityApplicationManagementException {
+
+        Connection dbConnection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement prepStmt = null;
+        try {
+            prepStmt = dbConnection.prepareStatement(IdentityProvisioningConstants.SQLQueries.CLAIM_OUTBOX_ENTRY_SQL);
+            prepStmt.setString(1, owner);
+            prepStmt.setLong(2, leaseExpiry);
+            prepStmt.setString(3, id);
+            prepStmt.setLong(4, now);
+            int count = prepStmt.executeUpdate();
+            dbConnection.commit();
+            return count == 1;
+        } catch (SQLException e) {
+            IdentityApplicationManagementUtil.rollBack(dbConnection);
+            throw new IdentityApplicationManagementException("Error occurred while claiming provisioning outbox " +
+                    "entry " + id, e);
+        } finally {
+            if (prepStmt != null) {
+                IdentityApplicationManagementUtil.closeStatement(prepStmt);
+            }
+            IdentityApplicationManagementUtil.closeConnection(dbConnection);
+        }
+    }
+
+    /**
+     * Extends the lease of every outbox entry owned by the given node.
+     *
+     * @param owner       node which sends the entries
+     * @param leaseExpiry time in milliseconds until which the entries are owned by the given node
+     * @throws IdentityApplicationManagementException
+     */
+    public void renewOutboxLeases(String owner, long leaseExpiry) throws IdentityApplicationManagementException {
+
+        Connection dbConnection = IdentityDatabaseUtil.getDBConnection();
+        PreparedStatement prepStmt = null;
+        try {
+            prepStmt = dbConnection.prepareStatement(IdentityProvisioningConstants.SQLQueries.RENEW_OUTBOX_LEASES_SQL);
+            prepStmt.setLong(1, leaseExpiry);
+            prepStmt.setString(2, owner);
+            prepStmt.executeUpdate();
+            dbConnection.commit();
+        } catch (SQLException e) {
+            IdentityApplicationManagementUtil.rollBack(dbConnection);
+            throw new IdentityApplicationManagementException("Error occurred while renewing provisioning outbox " +
+                    "leases of " + owner, e);
+        } finally {
+            if (prepStmt != null) {
+                IdentityApplicationManagementUtil.closeStatement(prepStmt);
+            }
+            IdentityApplicationManagementUtil.closeConnection(dbConnection);
+        }
+    }
+
+    private byte[] serialize(ProvisioningEntity provisioningEntity) throws IOException, CryptoException {
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(outputStream)) {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, provisioningEntity.getEntityType() != null ?
+                    provisioningEntity.getEntityType().name() : null);
+            writeString(out, provisioningEntity.getOperation() != null ?
+                    provisioningEntity.getOperation().name() : null);
+            writeString(out, provisioningEntity.getEntityName());
+            out.writeBoolean(provisioningEntity.isJitProvisioning());
+            writeString(out, provisioningEntity.getIdentifier() != null ?
+                    provisioningEntity.getIdentifier().getIdentifier() : null);
+
+            Map<ClaimMapping, List<String>> attributes = provisioningEntity.getAttributes();
+            out.writeInt(attributes != null ? attributes.size() : -1);
+            if (attributes != null) {
+                for (Map.Entry<ClaimMapping, List<String>> attribute : attributes.entrySet()) {
+                    ClaimMapping claimMapping = attribute.getKey();
+                    boolean credential = isCredential(claimMapping);
+                    writeClaim(out, claimMapping.getLocalClaim());
+                    writeClaim(out, claimMapping.getRemoteClaim());
+                    writeString(out, credential ? encrypt(claimMapping.getDefaultValue()) :
+                            claimMapping.getDefaultValue());
+                    out.writeBoolean(claimMapping.isRequested());
+
+                    List<String> values = attribute.getValue();
+                    out.writeInt(values != null ? values.size() : -1);
+                    if (values != null) {
+                        for (String value : values) {
+                            writeString(out, credential ? encrypt(value) : value);
+                        }
+                    }
+                }
+            }
+
+            Map<String, String> inboundAttributes = provisioningEntity.getInboundAttributes();
+            out.writeInt(inboundAttributes != null ? inboundAttributes.size() : -1);
+            if (inboundAttributes != null) {
+                for (Map.Entry<String, String> inboundAttribute : inboundAttributes.entrySet()) {
+                    writeString(out, inboundAttribute.getKey());
+                    writeString(out, inboundAttribute.getValue());
+                }
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private ProvisioningEntity deserialize(InputStream inputStream) throws IOException, CryptoException {
+
+        if (inputStream == null) {
+            throw new IOException("Provisioning entity is empty");
+        }
+        try (DataInputStream in = new DataInputStream(inputStream)) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported provisioning entity format version : " + version);
+            }
+            String entityType = readString(in);
+            String operation = readString(in);
+            String entityName = readString(in);
+            boolean jitProvisioning = in.readBoolean();
+            String identifier = readString(in);
+
+            Map<ClaimMapping, List<String>> attributes = null;
+            int attributeCount = in.readInt();
+            if (attributeCount >= 0) {
+                attributes = new HashMap<>();
+                for (int i = 0; i < attributeCount; i++) {
+                    ClaimMapping claimMapping = new ClaimMapping();
+                    claimMapping.setLocalClaim(readClaim(in));
+                    claimMapping.setRemoteClaim(readClaim(in));
+                    boolean credential = isCredential(claimMapping);
+                    String defaultValue = readString(in);
+                    claimMapping.setDefaultValue(credential ? decrypt(defaultValue) : defaultValue);
+                    claimMapping.setRequested(in.readBoolean());
+
+                    List<String> values = null;
+                    int valueCount = in.readInt();
+                    if (valueCount >= 0) {
+                        values = new ArrayList<>(valueCount);
+                        for (int j = 0; j < valueCount; j++) {
+                            String value = readString(in);
+                            values.add(credential ? decrypt(value) : value);
+                        }
+                    }
+                    attributes.put(claimMapping, values);
+                }
+            }
+
+            Map<String, String> inboundAttributes = null;
+            int inboundAttributeCount = in.readInt();
+            if (inboundAttributeCount >= 0) {
+                inboundAttributes = new HashMap<>();
+                for (int i = 0; i < inboundAttributeCount; i++) {
+                    inboundAttributes.put(readString(in), readString(in));
+                }
+            }
+
+            ProvisioningEntity provisioningEntity = new ProvisioningEntity(
+                    entityType != null ? ProvisioningEntityType.valueOf(entityType) : null, entityName,
+                    operation != null ? ProvisioningOperation.valueOf(operation) : null, attributes);
+            provisioningEntity.setJitProvisioning(jitProvisioning);
+            provisioningEntity.setInboundAttributes(inboundAttributes);
+            if (identifier != null) {
+                ProvisionedIdentifier provisionedIdentifier = new ProvisionedIdentifier();
+                provisionedIdentifier.setIdentifier(identifier);
+                provisioningEntity.setIdentifier(provisionedIdentifier);
+            }
+            return provisioningEntity;
+        }
+    }
+
+    private boolean isCredential(ClaimMapping claimMapping) {
+
+        return (claimMapping.getLocalClaim() != null && IdentityProvisioningConstants.PASSWORD_CLAIM_URI.equals(
+                claimMapping.getLocalClaim().getClaimUri())) ||
+               (claimMapping.getRemoteClaim() != null && IdentityProvisioningConstants.PASSWORD_CLAIM_URI.equals(
+                       claimMapping.getRemoteClaim().getClaimUri()));
+    }
+
+    private String encrypt(String value) throws CryptoException {
+
+        if (value == null) {
+            return null;
+        }
+        return CryptoUtil.getDefaultCryptoUtil().encryptAndBase64Encode(value.getBytes(UTF_8));
+    }
+
+    private String decrypt(String value) throws CryptoException {
+
+        if (value == null) {
+            return null;
+        }
+        return new String(CryptoUtil.getDefaultCryptoUtil().base64DecodeAndDecrypt(value), UTF_8);
+    }
+
+    private void writeClaim(DataOutputStream out, Claim claim) throws IOException {
+
+        out.writeBoolean(claim != null);
+        if (claim != null) {
+            writeString(out, claim.getClaimUri());
+            out.writeInt(claim.getClaimId());
+        }
+    }
+
+    private Claim readClaim(DataInputStream in) throws IOException {
+
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Claim claim = new Claim();
+        claim.setClaimUri(readString(in));
+        claim.setClaimId(in.readInt());
+        return claim;
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
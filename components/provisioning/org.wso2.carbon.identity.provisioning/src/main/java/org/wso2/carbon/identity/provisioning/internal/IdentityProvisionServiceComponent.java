@@ -26,6 +26,7 @@ import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.ProvisioningConnectorConfig;
 import org.wso2.carbon.identity.application.mgt.listener.ApplicationMgtListener;
 import org.wso2.carbon.identity.provisioning.AbstractProvisioningConnectorFactory;
+import org.wso2.carbon.identity.provisioning.OutboundProvisioningExecutor;
 import org.wso2.carbon.identity.provisioning.listener.DefaultInboundUserProvisioningListener;
 import org.wso2.carbon.identity.provisioning.listener.ProvisioningApplicationMgtListener;
 import org.wso2.carbon.identity.provisioning.listener.ProvisioningIdentityProviderMgtListener;
@@ -117,6 +118,9 @@ public class IdentityProvisionServiceComponent {
             if (log.isDebugEnabled()) {
                 log.debug("Identity Provider Management Event listener registered successfully");
             }
+            OutboundProvisioningExecutor outboundProvisioningExecutor = new OutboundProvisioningExecutor();
+            ProvisioningServiceDataHolder.getInstance().setOutboundProvisioningExecutor(outboundProvisioningExecutor);
+            outboundProvisioningExecutor.start();
             if (log.isDebugEnabled()) {
                 log.debug("Identity Provisioning framework bundle is activated");
             }
@@ -130,6 +134,12 @@ public class IdentityProvisionServiceComponent {
      * @param context
      */
     protected void deactivate(ComponentContext context) {
+        OutboundProvisioningExecutor outboundProvisioningExecutor =
+                ProvisioningServiceDataHolder.getInstance().getOutboundProvisioningExecutor();
+        ProvisioningServiceDataHolder.getInstance().setOutboundProvisioningExecutor(null);
+        if (outboundProvisioningExecutor != null) {
+            outboundProvisioningExecutor.shutdown();
+        }
         if (log.isDebugEnabled()) {
             log.debug("Identity Provision bundle is de-activated");
         }
@@ -20,6 +20,7 @@ package org.wso2.carbon.identity.provisioning.internal;
 
 import org.osgi.framework.BundleContext;
 import org.wso2.carbon.identity.provisioning.AbstractProvisioningConnectorFactory;
+import org.wso2.carbon.identity.provisioning.OutboundProvisioningExecutor;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.user.core.service.RealmService;
 
@@ -32,6 +33,7 @@ public class ProvisioningServiceDataHolder {
     private RealmService realmService;
     private RegistryService registryService;
     private BundleContext bundleContext;
+    private volatile OutboundProvisioningExecutor outboundProvisioningExecutor;
     private Map<String, AbstractProvisioningConnectorFactory> connectorFactories = new HashMap<String, AbstractProvisioningConnectorFactory>();
 
     private ProvisioningServiceDataHolder() {
@@ -72,6 +74,14 @@ public class ProvisioningServiceDataHolder {
     public Map<String, AbstractProvisioningConnectorFactory> getConnectorFactories() {
         return connectorFactories;
     }
+
+    public OutboundProvisioningExecutor getOutboundProvisioningExecutor() {
+        return outboundProvisioningExecutor;
+    }
+
+    public void setOutboundProvisioningExecutor(OutboundProvisioningExecutor outboundProvisioningExecutor) {
+        this.outboundProvisioningExecutor = outboundProvisioningExecutor;
+    }
 }
 
 
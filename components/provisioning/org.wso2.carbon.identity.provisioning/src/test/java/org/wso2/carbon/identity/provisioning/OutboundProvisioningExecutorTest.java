@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.provisioning;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.application.common.model.Property;
+import org.wso2.carbon.identity.core.util.IdentityConfigParser;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.provisioning.dao.ProvisioningOutboxDAO;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OutboundProvisioningExecutorTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String IDP_NAME = "idp";
+    private static final String CONNECTOR_TYPE = "test";
+    private static final long TIMEOUT = 10000;
+
+    private InMemoryOutboxDAO outboxDAO;
+    private TestConnector connector;
+    private OutboundProvisioningExecutor executor;
+
+    @BeforeClass
+    public static void setUpConfiguration() throws Exception {
+
+        // retries of a few milliseconds, outbox enabled with a lease of 300 milliseconds
+        File identityConfig = new File(OutboundProvisioningExecutorTest.class.getResource("/identity.xml").toURI());
+        IdentityConfigParser.getInstance(identityConfig.getAbsolutePath());
+        IdentityUtil.populateProperties();
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", identityConfig.getParentFile().getAbsolutePath());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        outboxDAO = new InMemoryOutboxDAO();
+        connector = new TestConnector();
+        executor = new TestExecutor(outboxDAO, connector);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testOperationsOfAnEntityStayInOrderAcrossRetries() throws Exception {
+
+        ProvisioningEntity first = userEntity("alice");
+        ProvisioningEntity second = userEntity("alice");
+        ProvisioningEntity other = userEntity("bob");
+        connector.failAttempts(first, 2);
+
+        executor.submit(first, TENANT_DOMAIN, connector, CONNECTOR_TYPE, IDP_NAME);
+        executor.submit(second, TENANT_DOMAIN, connector, CONNECTOR_TYPE, IDP_NAME);
+        executor.submit(other, TENANT_DOMAIN, connector, CONNECTOR_TYPE, IDP_NAME);
+        waitUntilCompleted();
+
+        Assert.assertEquals(Arrays.asList(first, first, first, second), connector.getAttempts("alice"));
+        Assert.assertEquals(Arrays.asList(other), connector.getAttempts("bob"));
+        Assert.assertEquals(0, outboxDAO.size());
+    }
+
+    @Test
+    public void testEntityIsReleasedWhenAnOperationRunsOutOfAttempts() throws Exception {
+
+        ProvisioningEntity first = userEntity("alice");
+        ProvisioningEntity second = userEntity("alice");
+        connector.failAttempts(first, Integer.MAX_VALUE);
+
+        executor.submit(first, TENANT_DOMAIN, connector, CONNECTOR_TYPE, IDP_NAME);
+        executor.submit(second, TENANT_DOMAIN, connector, CONNECTOR_TYPE, IDP_NAME);
+        waitUntilCompleted();
+
+        Assert.assertEquals(Arrays.asList(first, first, first, second), connector.getAttempts("alice"));
+        Assert.assertEquals(0, outboxDAO.size());
+    }
+
+    @Test
+    public void testOnlyOutboxEntriesWithExpiredLeaseAreRecovered() throws Exception {
+
+        long now = System.currentTimeMillis();
+        ProvisioningEntity first = userEntity("alice");
+        ProvisioningEntity second = userEntity("alice");
+        ProvisioningEntity owned = userEntity("bob");
+        outboxDAO.addOutboxEntry(outboxEntry("1", first), "stopped-node", now - 1000);
+        outboxDAO.addOutboxEntry(outboxEntry("2", second), "stopped-node", now - 1000);
+        outboxDAO.addOutboxEntry(outboxEntry("3", owned), "running-node", now + TIMEOUT * 6);
+
+        executor.start();
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (outboxDAO.size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        waitUntilCompleted();
+
+        Assert.assertEquals(Arrays.asList(first, second), connector.getAttempts("alice"));
+        Assert.assertEquals(0, connector.getAttempts("bob").size());
+        Assert.assertEquals(1, outboxDAO.size());
+        Assert.assertTrue(outboxDAO.contains("3"));
+    }
+
+    private void waitUntilCompleted() throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (executor.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("operations are not completed in time", 0, executor.getPendingCount());
+    }
+
+    private ProvisioningEntity userEntity(String userName) {
+        return new ProvisioningEntity(ProvisioningEntityType.USER, userName, ProvisioningOperation.PUT,
+                new HashMap<ClaimMapping, List<String>>());
+    }
+
+    private ProvisioningOutboxEntry outboxEntry(String id, ProvisioningEntity provisioningEntity) {
+        return new ProvisioningOutboxEntry(id, TENANT_DOMAIN, IDP_NAME, CONNECTOR_TYPE, provisioningEntity);
+    }
+
+    private static class TestExecutor extends OutboundProvisioningExecutor {
+
+        private final AbstractOutboundProvisioningConnector connector;
+
+        private TestExecutor(ProvisioningOutboxDAO outboxDAO, AbstractOutboundProvisioningConnector connector) {
+            super(outboxDAO);
+            this.connector = connector;
+        }
+
+        @Override
+        protected AbstractOutboundProvisioningConnector getOutboundProvisioningConnector(
+                ProvisioningOutboxEntry entry) {
+            return connector;
+        }
+    }
+
+    /**
+     * Records every provisioning attempt, and fails the given number of attempts of an entity.
+     */
+    private static class TestConnector extends AbstractOutboundProvisioningConnector {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<ProvisioningEntity> attempts = new ArrayList<>();
+        private final Map<ProvisioningEntity, Integer> failures = new IdentityHashMap<>();
+
+        @Override
+        public void init(Property[] provisioningProperties) {
+        }
+
+        @Override
+        public synchronized ProvisionedIdentifier provision(ProvisioningEntity provisioningEntity)
+                throws IdentityProvisioningException {
+
+            attempts.add(provisioningEntity);
+            Integer remainingFailures = failures.get(provisioningEntity);
+            if (remainingFailures != null && remainingFailures > 0) {
+                failures.put(provisioningEntity, remainingFailures - 1);
+                throw new IdentityProvisioningException("Provisioning of " + provisioningEntity.getEntityName() +
+                                                        " failed");
+            }
+            return null;
+        }
+
+        private synchronized void failAttempts(ProvisioningEntity provisioningEntity, int count) {
+            failures.put(provisioningEntity, count);
+        }
+
+        private synchronized List<ProvisioningEntity> getAttempts(String entityName) {
+
+            List<ProvisioningEntity> entityAttempts = new ArrayList<>();
+            for (ProvisioningEntity provisioningEntity : attempts) {
+                if (entityName.equals(provisioningEntity.getEntityName())) {
+                    entityAttempts.add(provisioningEntity);
+                }
+            }
+            return entityAttempts;
+        }
+    }
+
+    /**
+     * Outbox kept in memory, with the lease semantics of the IDP_PROVISIONING_OUTBOX table.
+     */
+    private static class InMemoryOutboxDAO extends ProvisioningOutboxDAO {
+
+        private final Map<String, OutboxRow> rows = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void addOutboxEntry(ProvisioningOutboxEntry entry, String owner, long leaseExpiry) {
+            rows.put(entry.getId(), new OutboxRow(entry, owner, leaseExpiry));
+        }
+
+        @Override
+        public synchronized void deleteOutboxEntry(String id) {
+            rows.remove(id);
+        }
+
+        @Override
+        public synchronized List<ProvisioningOutboxEntry> getExpiredOutboxEntries(long now) {
+
+            List<ProvisioningOutboxEntry> entries = new ArrayList<>();
+            for (OutboxRow row : rows.values()) {
+                if (row.leaseExpiry < now) {
+                    entries.add(row.entry);
+                }
+            }
+            return entries;
+        }
+
+        @Override
+        public synchronized boolean claimOutboxEntry(String id, String owner, long leaseExpiry, long now) {
+
+            OutboxRow row = rows.get(id);
+            if (row == null || row.leaseExpiry >= now) {
+                return false;
+            }
+            row.owner = owner;
+            row.leaseExpiry = leaseExpiry;
+            return true;
+        }
+
+        @Override
+        public synchronized void renewOutboxLeases(String owner, long leaseExpiry) {
+
+            for (OutboxRow row : rows.values()) {
+                if (owner.equals(row.owner)) {
+                    row.leaseExpiry = leaseExpiry;
+                }
+            }
+        }
+
+        private synchronized int size() {
+            return rows.size();
+        }
+
+        private synchronized boolean contains(String id) {
+            return rows.containsKey(id);
+        }
+    }
+
+    private static class OutboxRow {
+
+        private final ProvisioningOutboxEntry entry;
+        private String owner;
+        private long leaseExpiry;
+
+        private OutboxRow(ProvisioningOutboxEntry entry, String owner, long leaseExpiry) {
+            this.entry = entry;
+            this.owner = owner;
+            this.leaseExpiry = leaseExpiry;
+        }
+    }
+}
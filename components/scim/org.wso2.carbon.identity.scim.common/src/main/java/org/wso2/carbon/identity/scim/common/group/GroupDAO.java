@@ -35,6 +35,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -45,6 +46,7 @@ import java.util.Set;
 public class GroupDAO {
 
     private static Log log = LogFactory.getLog(GroupDAO.class);
+    private static final int MAX_ROLES_PER_QUERY = 100;
 
     /**
      * Lists the groups that are created from SCIM
@@ -256,6 +258,66 @@ public class GroupDAO {
         return attributes;
     }
 
+    /**
+     * Reads the SCIM attributes of the given roles with one query per chunk of roles.
+     *
+     * @param tenantId  tenant id of the roles
+     * @param roleNames role names, with or without the primary domain
+     * @return attributes keyed by the domain qualified role name, roles without SCIM attributes are not included
+     * @throws IdentitySCIMException if the attributes cannot be read
+     */
+    public Map<String, Map<String, String>> getSCIMGroupAttributes(int tenantId, List<String> roleNames)
+            throws IdentitySCIMException {
+
+        Map<String, Map<String, String>> groupAttributes = new HashMap<>();
+        if (roleNames.isEmpty()) {
+            return groupAttributes;
+        }
+        Connection connection = IdentityDatabaseUtil.getDBConnection();
+        try {
+            for (int from = 0; from < roleNames.size(); from += MAX_ROLES_PER_QUERY) {
+                List<String> chunk = roleNames.subList(from, Math.min(from + MAX_ROLES_PER_QUERY, roleNames.size()));
+                StringBuilder sql = new StringBuilder(SQLQueries.GET_GROUPS_ATTRIBUTES_SQL).append('(');
+                for (int i = 0; i < chunk.size(); i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(')');
+
+                PreparedStatement prepStmt = null;
+                ResultSet rSet = null;
+                try {
+                    prepStmt = connection.prepareStatement(sql.toString());
+                    prepStmt.setInt(1, tenantId);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        prepStmt.setString(i + 2, SCIMCommonUtils.getGroupNameWithDomain(chunk.get(i)));
+                    }
+                    rSet = prepStmt.executeQuery();
+                    while (rSet.next()) {
+                        if (StringUtils.isNotEmpty(rSet.getString(2))) {
+                            Map<String, String> attributes = groupAttributes.get(rSet.getString(1));
+                            if (attributes == null) {
+                                attributes = new HashMap<>();
+                                groupAttributes.put(rSet.getString(1), attributes);
+                            }
+                            attributes.put(rSet.getString(2), rSet.getString(3));
+                        }
+                    }
+                } finally {
+                    IdentityDatabaseUtil.closeResultSet(rSet);
+                    IdentityDatabaseUtil.closeStatement(prepStmt);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            log.error("Error when executing the SQL : " + SQLQueries.GET_GROUPS_ATTRIBUTES_SQL);
+            throw new IdentitySCIMException("Error when reading the SCIM Group information from the " +
+                    "persistence store.", e);
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+        return groupAttributes;
+    }
+
     public String getGroupNameById(int tenantId, String id) throws IdentitySCIMException {
         Connection connection = IdentityDatabaseUtil.getDBConnection();
         PreparedStatement prepStmt = null;
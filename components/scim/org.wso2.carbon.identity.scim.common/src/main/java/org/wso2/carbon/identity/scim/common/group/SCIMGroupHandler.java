@@ -27,8 +27,10 @@ import org.wso2.charon.core.objects.Group;
 import org.wso2.charon.core.schema.SCIMConstants;
 import org.wso2.charon.core.util.AttributeUtil;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -160,6 +162,12 @@ public class SCIMGroupHandler {
         }
         GroupDAO groupDAO = new GroupDAO();
         Map<String, String> attributes = groupDAO.getSCIMGroupAttributes(tenantId, groupName);
+        setGroupAttributes(group, attributes);
+        return group;
+    }
+
+    private void setGroupAttributes(Group group, Map<String, String> attributes) throws CharonException {
+
         for (Map.Entry<String, String> entry : attributes.entrySet()) {
             if (SCIMConstants.ID_URI.equals(entry.getKey())) {
                 group.setId(entry.getValue());
@@ -172,7 +180,35 @@ public class SCIMGroupHandler {
             }
             //TODO:add other mandatory attributes if exist.
         }
-        return group;
+    }
+
+    /**
+     * Creates groups with the attributes retrieved from the Identity table, reading the attributes of all the given
+     * groups at once. Groups which are not SCIM groups are skipped.
+     *
+     * @param groupNames names of the groups
+     * @return SCIM groups, in the order of the given names
+     */
+    public List<Group> getGroupsWithAttributes(List<String> groupNames)
+            throws IdentitySCIMException, CharonException {
+
+        GroupDAO groupDAO = new GroupDAO();
+        Map<String, Map<String, String>> groupAttributes = groupDAO.getSCIMGroupAttributes(tenantId, groupNames);
+        List<Group> groups = new ArrayList<>();
+        for (String groupName : groupNames) {
+            Map<String, String> attributes = groupAttributes.get(SCIMCommonUtils.getGroupNameWithDomain(groupName));
+            if (attributes == null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("The group " + groupName + " is not a SCIM group. Skipping..");
+                }
+                continue;
+            }
+            Group group = new Group();
+            group.setDisplayName(groupName);
+            setGroupAttributes(group, attributes);
+            groups.add(group);
+        }
+        return groups;
     }
 
     /**
@@ -21,6 +21,7 @@ package org.wso2.carbon.identity.scim.common.impl;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.httpclient.methods.DeleteMethod;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
@@ -30,6 +31,9 @@ import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.wso2.carbon.identity.scim.common.utils.BasicAuthUtil;
 import org.wso2.carbon.identity.scim.common.utils.IdentitySCIMException;
 import org.wso2.carbon.identity.scim.common.utils.SCIMCommonConstants;
@@ -61,6 +65,16 @@ public class ProvisioningClient implements Runnable {
     private static Log logger = LogFactory.getLog(ProvisioningClient.class.getName());
     private final String USER_FILTER = "filter=userNameEq";
     private final String GROUP_FILTER = "filter=displayNameEq";
+    private static final String BULK_SCHEMAS = "schemas";
+    private static final String BULK_OPERATIONS = "Operations";
+    private static final String BULK_METHOD = "method";
+    private static final String BULK_METHOD_POST = "POST";
+    private static final String BULK_PATH = "path";
+    private static final String BULK_PATH_USERS = "/Users";
+    private static final String BULK_ID = "bulkId";
+    private static final String BULK_DATA = "data";
+    private static final String BULK_STATUS = "status";
+    private static final String BULK_STATUS_CODE = "code";
     SCIMObject scimObject;
     SCIMProvider provider;
     int provisioningMethod;
@@ -170,6 +184,108 @@ public class ProvisioningClient implements Runnable {
         }
     }
 
+    /**
+     * Provision the given SCIM User Objects to the SCIM Provider with a single SCIM bulk request, instead of one
+     * request per user.
+     *
+     * @param scimProvider SCIM provider to provision the users to
+     * @param bulkEPURL    bulk endpoint of the SCIM provider
+     * @param users        users to be created
+     * @return whether each user, in the given order, was created, or null if the provider does not support bulk
+     * operations
+     * @throws IdentitySCIMException if the bulk request could not be sent or its response could not be read
+     */
+    public static boolean[] provisionBulkCreateUsers(SCIMProvider scimProvider, String bulkEPURL, List<User> users)
+            throws IdentitySCIMException {
+
+        boolean[] created = new boolean[users.size()];
+        String userName = scimProvider.getProperty(SCIMConfigConstants.ELEMENT_NAME_USERNAME);
+        String password = scimProvider.getProperty(SCIMConfigConstants.ELEMENT_NAME_PASSWORD);
+        PostMethod postMethod = new PostMethod(bulkEPURL);
+        try {
+            //encode payload using SCIMClient API. bulk requests are always sent as JSON.
+            SCIMClient scimClient = new SCIMClient();
+            JSONArray operations = new JSONArray();
+            for (int i = 0; i < users.size(); i++) {
+                JSONObject operation = new JSONObject();
+                operation.put(BULK_METHOD, BULK_METHOD_POST);
+                operation.put(BULK_PATH, BULK_PATH_USERS);
+                operation.put(BULK_ID, String.valueOf(i));
+                operation.put(BULK_DATA, new JSONObject(scimClient.encodeSCIMObject(users.get(i),
+                        SCIMConstants.JSON)));
+                operations.put(operation);
+            }
+            JSONObject bulkRequest = new JSONObject();
+            bulkRequest.put(BULK_SCHEMAS, new JSONArray().put(SCIMConstants.CORE_SCHEMA_URI));
+            bulkRequest.put(BULK_OPERATIONS, operations);
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Users to provision in bulk : " + users.size());
+            }
+
+            //add basic auth header
+            postMethod.addRequestHeader(SCIMConstants.AUTHORIZATION_HEADER,
+                    BasicAuthUtil.getBase64EncodedBasicAuthHeader(userName, password));
+            postMethod.setRequestEntity(new StringRequestEntity(bulkRequest.toString(),
+                    SCIMConstants.APPLICATION_JSON, null));
+
+            int responseStatus = new HttpClient().executeMethod(postMethod);
+
+            logger.info("SCIM - bulk create user operation returned with response code: " + responseStatus);
+
+            if (responseStatus == HttpStatus.SC_NOT_FOUND || responseStatus == HttpStatus.SC_METHOD_NOT_ALLOWED ||
+                    responseStatus == HttpStatus.SC_NOT_IMPLEMENTED) {
+                // the provider does not support bulk operations.
+                return null;
+            }
+
+            String response = postMethod.getResponseBodyAsString();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Bulk Create User Response: " + response);
+            }
+            if (!scimClient.evaluateResponseStatus(responseStatus)) {
+                //decode scim exception and extract the specific error message.
+                AbstractCharonException exception = scimClient.decodeSCIMException(response, SCIMConstants.JSON);
+                logger.error(exception.getDescription());
+                return created;
+            }
+
+            JSONArray results = new JSONObject(response).optJSONArray(BULK_OPERATIONS);
+            if (results != null) {
+                for (int i = 0; i < results.length(); i++) {
+                    JSONObject result = results.getJSONObject(i);
+                    int index = toInt(result.optString(BULK_ID));
+                    JSONObject status = result.optJSONObject(BULK_STATUS);
+                    if (index < 0 || index >= created.length || status == null) {
+                        continue;
+                    }
+                    created[index] = scimClient.evaluateResponseStatus(
+                            toInt(status.optString(BULK_STATUS_CODE)));
+                }
+            }
+        } catch (CharonException | JSONException e) {
+            throw new IdentitySCIMException("Error in encoding the bulk request or decoding the bulk response " +
+                    "for provisioning " + users.size() + " users", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IdentitySCIMException("Error in creating bulk request for provisioning " +
+                    users.size() + " users", e);
+        } catch (IOException | BadRequestException e) {
+            throw new IdentitySCIMException(
+                    "Error in invoking bulk provisioning operation for " + users.size() + " users", e);
+        } finally {
+            postMethod.releaseConnection();
+        }
+        return created;
+    }
+
+    private static int toInt(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     public void provisionDeleteUser() throws IdentitySCIMException {
         String userName = null;
 
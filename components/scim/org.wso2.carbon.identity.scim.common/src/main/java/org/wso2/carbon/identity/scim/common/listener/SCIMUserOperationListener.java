@@ -19,6 +19,7 @@
 package org.wso2.carbon.identity.scim.common.listener;
 
 import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -27,6 +28,8 @@ import org.wso2.carbon.identity.core.AbstractIdentityUserOperationEventListener;
 import org.wso2.carbon.identity.core.util.IdentityCoreConstants;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.scim.common.group.SCIMGroupHandler;
+import org.wso2.carbon.identity.scim.common.user.SCIMUserIdIndex;
+import org.wso2.carbon.identity.scim.common.user.SCIMUserIdResolver;
 import org.wso2.carbon.identity.scim.common.utils.IdentitySCIMException;
 import org.wso2.carbon.identity.scim.common.utils.SCIMCommonUtils;
 import org.wso2.carbon.user.core.UserCoreConstants;
@@ -145,6 +148,19 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
                                  Map<String, String> claims, String profile,
                                  UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        try {
+            if (!isEnable() || !userStoreManager.isSCIMEnabled()) {
+                return true;
+            }
+        } catch (org.wso2.carbon.user.api.UserStoreException e) {
+            throw new UserStoreException("Error while reading isScimEnabled from userstore manager", e);
+        }
+        if (claims != null && claims.get(SCIMConstants.ID_URI) != null) {
+            String domainName = UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration());
+            SCIMUserIdIndex.getInstance().put(userStoreManager.getTenantId(), claims.get(SCIMConstants.ID_URI),
+                    SCIMUserIdResolver.getDomainQualifiedUserName(userName, domainName));
+        }
         return true;
     }
 
@@ -209,15 +225,23 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPostDeleteUser(String s, UserStoreManager userStoreManager)
+    public boolean doPostDeleteUser(String userName, UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        if (isEnable()) {
+            removeFromUserIdIndex(userName, userStoreManager);
+        }
         return true;
     }
 
     @Override
-    public boolean doPreSetUserClaimValue(String s, String s1, String s2, String s3,
+    public boolean doPreSetUserClaimValue(String userName, String claimURI, String claimValue, String profileName,
                                           UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        if (isEnable() && SCIMConstants.ID_URI.equals(claimURI)) {
+            removeFromUserIdIndex(userName, userStoreManager);
+        }
         return true;
     }
 
@@ -232,6 +256,11 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     public boolean doPreSetUserClaimValues(String userName, Map<String, String> claims,
                                            String profileName, UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        if (isEnable() && claims != null && (claims.containsKey(SCIMConstants.ID_URI) ||
+                claims.containsKey(SCIMConstants.USER_NAME_URI))) {
+            removeFromUserIdIndex(userName, userStoreManager);
+        }
         return true;
     }
 
@@ -266,9 +295,13 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPreDeleteUserClaimValues(String s, String[] strings, String s1,
+    public boolean doPreDeleteUserClaimValues(String userName, String[] claims, String profileName,
                                               UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        if (isEnable() && claims != null && ArrayUtils.contains(claims, SCIMConstants.ID_URI)) {
+            removeFromUserIdIndex(userName, userStoreManager);
+        }
         return true;
     }
 
@@ -279,9 +312,13 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
     }
 
     @Override
-    public boolean doPreDeleteUserClaimValue(String s, String s1, String s2,
+    public boolean doPreDeleteUserClaimValue(String userName, String claimURI, String profileName,
                                              UserStoreManager userStoreManager)
             throws UserStoreException {
+
+        if (isEnable() && SCIMConstants.ID_URI.equals(claimURI)) {
+            removeFromUserIdIndex(userName, userStoreManager);
+        }
         return true;
     }
 
@@ -460,6 +497,17 @@ public class SCIMUserOperationListener extends AbstractIdentityUserOperationEven
         return true;
     }
 
+    /**
+     * Removes the SCIM ID of the user from the {@link SCIMUserIdIndex}, so that it is resolved again from the user
+     * store.
+     */
+    private void removeFromUserIdIndex(String userName, UserStoreManager userStoreManager) throws UserStoreException {
+
+        String domainName = UserCoreUtil.getDomainName(userStoreManager.getRealmConfiguration());
+        SCIMUserIdIndex.getInstance().removeUser(userStoreManager.getTenantId(),
+                SCIMUserIdResolver.getDomainQualifiedUserName(userName, domainName));
+    }
+
     public Map<String, String> getSCIMAttributes(String userName, Map<String, String> claimsMap) {
         Map<String, String> attributes = null;
         if (claimsMap != null) {
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim.common.user;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tenant scoped index of SCIM user IDs to domain qualified user names. Entries are added when users are created or
+ * resolved, and removed by the SCIMUserOperationListener when users are deleted or their SCIM attributes change.
+ * Each tenant keeps the most recently used entries only, up to a fixed size.
+ * <p/>
+ * The index is local to a node and is not updated by changes made through other nodes, so an entry is only a hint
+ * which has to be validated against the user store, as done by the {@link SCIMUserIdResolver}.
+ */
+public class SCIMUserIdIndex {
+
+    private static final int DEFAULT_MAX_ENTRIES_PER_TENANT = 100000;
+    private static final SCIMUserIdIndex instance = new SCIMUserIdIndex(DEFAULT_MAX_ENTRIES_PER_TENANT);
+
+    private final ConcurrentMap<Integer, TenantIndex> tenantIndexes = new ConcurrentHashMap<>();
+    private final int maxEntriesPerTenant;
+
+    SCIMUserIdIndex(int maxEntriesPerTenant) {
+        this.maxEntriesPerTenant = maxEntriesPerTenant;
+    }
+
+    public static SCIMUserIdIndex getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param tenantId tenant of the user
+     * @param scimId   SCIM ID of the user
+     * @return domain qualified user name, or null if the ID is not indexed
+     */
+    public String getUserName(int tenantId, String scimId) {
+
+        TenantIndex tenantIndex = tenantIndexes.get(tenantId);
+        return tenantIndex == null ? null : tenantIndex.getUserName(scimId);
+    }
+
+    /**
+     * @param tenantId tenant of the user
+     * @param scimId   SCIM ID of the user
+     * @param userName domain qualified user name
+     */
+    public void put(int tenantId, String scimId, String userName) {
+
+        if (scimId == null || userName == null) {
+            return;
+        }
+        TenantIndex tenantIndex = tenantIndexes.get(tenantId);
+        if (tenantIndex == null) {
+            TenantIndex newTenantIndex = new TenantIndex(maxEntriesPerTenant);
+            tenantIndex = tenantIndexes.putIfAbsent(tenantId, newTenantIndex);
+            if (tenantIndex == null) {
+                tenantIndex = newTenantIndex;
+            }
+        }
+        tenantIndex.put(scimId, userName);
+    }
+
+    /**
+     * @param tenantId tenant of the user
+     * @param userName domain qualified user name
+     */
+    public void removeUser(int tenantId, String userName) {
+
+        TenantIndex tenantIndex = tenantIndexes.get(tenantId);
+        if (tenantIndex != null && userName != null) {
+            tenantIndex.removeUser(userName);
+        }
+    }
+
+    /**
+     * @param tenantId tenant whose entries are removed
+     */
+    public void clear(int tenantId) {
+        tenantIndexes.remove(tenantId);
+    }
+
+    private static class TenantIndex {
+
+        private final Map<String, String> idsByUserName = new HashMap<>();
+        private final LinkedHashMap<String, String> userNamesById;
+
+        TenantIndex(final int maxEntries) {
+            userNamesById = new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    if (size() > maxEntries) {
+                        if (eldest.getKey().equals(idsByUserName.get(eldest.getValue()))) {
+                            idsByUserName.remove(eldest.getValue());
+                        }
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized String getUserName(String scimId) {
+            return userNamesById.get(scimId);
+        }
+
+        synchronized void put(String scimId, String userName) {
+
+            String previousUserName = userNamesById.remove(scimId);
+            if (previousUserName != null) {
+                idsByUserName.remove(previousUserName);
+            }
+            String previousId = idsByUserName.put(userName, scimId);
+            if (previousId != null && !previousId.equals(scimId)) {
+                userNamesById.remove(previousId);
+            }
+            userNamesById.put(scimId, userName);
+        }
+
+        synchronized void removeUser(String userName) {
+
+            String scimId = idsByUserName.remove(userName);
+            if (scimId != null) {
+                userNamesById.remove(scimId);
+            }
+        }
+    }
+}
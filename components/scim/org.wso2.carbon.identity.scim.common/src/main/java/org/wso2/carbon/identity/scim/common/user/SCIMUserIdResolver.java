@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim.common.user;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.UserStoreException;
+import org.wso2.carbon.user.core.UserStoreManager;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+import org.wso2.charon.core.schema.SCIMConstants;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves SCIM user IDs to user names of a tenant. IDs are looked up in the {@link SCIMUserIdIndex} first and only
+ * the IDs missing from the index are searched in the user store, each ID once. The index of a node does not see
+ * changes made through other nodes of a cluster, so each user name found in the index is checked against the SCIM ID
+ * claim of the user in the user store. Stale entries are removed and the ID is searched instead.
+ */
+public class SCIMUserIdResolver {
+
+    private static Log log = LogFactory.getLog(SCIMUserIdResolver.class);
+
+    private final UserStoreManager userStoreManager;
+    private final SCIMUserIdIndex userIdIndex;
+
+    public SCIMUserIdResolver(UserStoreManager userStoreManager) {
+        this.userStoreManager = userStoreManager;
+        this.userIdIndex = SCIMUserIdIndex.getInstance();
+    }
+
+    /**
+     * Resolves the user names of the given SCIM IDs.
+     *
+     * @param scimIds    SCIM IDs of the users
+     * @param domainName user store domain to search the users in, or null to search all the user stores
+     * @return user names by SCIM ID. IDs of users which do not exist are not included
+     * @throws UserStoreException if the users cannot be searched in the user store
+     */
+    public Map<String, String> resolveUserNames(Collection<String> scimIds, String domainName)
+            throws UserStoreException {
+
+        int tenantId = userStoreManager.getTenantId();
+        Map<String, String> userNamesById = new HashMap<>();
+        int searchCount = 0;
+        for (String scimId : scimIds) {
+            if (scimId == null || userNamesById.containsKey(scimId)) {
+                continue;
+            }
+            String userName = userIdIndex.getUserName(tenantId, scimId);
+            if (userName != null && (domainName == null ||
+                    domainName.equalsIgnoreCase(IdentityUtil.extractDomainFromName(userName)))) {
+                if (isUserIdOf(userName, scimId)) {
+                    userNamesById.put(scimId, userName);
+                    continue;
+                }
+                userIdIndex.removeUser(tenantId, userName);
+            }
+
+            String searchValue = domainName == null ? scimId : UserCoreUtil.addDomainToName(scimId, domainName);
+            String[] userNames = userStoreManager.getUserList(SCIMConstants.ID_URI, searchValue,
+                    UserCoreConstants.DEFAULT_PROFILE);
+            searchCount++;
+            if (userNames != null && userNames.length > 0) {
+                userNamesById.put(scimId, userNames[0]);
+                userIdIndex.put(tenantId, scimId, userNames[0]);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Resolved " + userNamesById.size() + " SCIM user IDs of tenant: " + tenantId + " with " +
+                    searchCount + " user store searches");
+        }
+        return userNamesById;
+    }
+
+    /**
+     * @param userName domain qualified user name found in the index
+     * @param scimId   SCIM ID the user name was indexed for
+     * @return whether the user exists in the user store with the given SCIM ID
+     */
+    private boolean isUserIdOf(String userName, String scimId) {
+
+        try {
+            return scimId.equals(userStoreManager.getUserClaimValue(userName, SCIMConstants.ID_URI, null));
+        } catch (UserStoreException e) {
+            // the user does not exist anymore
+            if (log.isDebugEnabled()) {
+                log.debug("Could not read the SCIM ID of indexed user : " + userName, e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the user name as listed by the user store manager, qualified with the domain for secondary user stores.
+     *
+     * @param userName   user name without the domain
+     * @param domainName user store domain, null for the primary user store
+     * @return domain qualified user name
+     */
+    public static String getDomainQualifiedUserName(String userName, String domainName) {
+
+        if (StringUtils.isBlank(domainName) ||
+                UserCoreConstants.PRIMARY_DEFAULT_DOMAIN_NAME.equalsIgnoreCase(domainName) ||
+                userName.indexOf(UserCoreConstants.DOMAIN_SEPARATOR) > 0) {
+            return userName;
+        }
+        return UserCoreUtil.addDomainToName(userName, domainName);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.identity.scim.common.user;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SCIMUserIdIndexTest {
+
+    private static final int TENANT_ID = 1;
+
+    @Test
+    public void testIndexIsTenantScoped() {
+
+        SCIMUserIdIndex index = new SCIMUserIdIndex(10);
+        index.put(TENANT_ID, "id1", "alice");
+        Assert.assertEquals("alice", index.getUserName(TENANT_ID, "id1"));
+        Assert.assertNull(index.getUserName(TENANT_ID + 1, "id1"));
+
+        index.clear(TENANT_ID);
+        Assert.assertNull(index.getUserName(TENANT_ID, "id1"));
+    }
+
+    @Test
+    public void testRemoveUser() {
+
+        SCIMUserIdIndex index = new SCIMUserIdIndex(10);
+        index.put(TENANT_ID, "id1", "alice");
+        index.put(TENANT_ID, "id2", "SECONDARY/bob");
+
+        index.removeUser(TENANT_ID, "SECONDARY/bob");
+        Assert.assertNull(index.getUserName(TENANT_ID, "id2"));
+        Assert.assertEquals("alice", index.getUserName(TENANT_ID, "id1"));
+    }
+
+    @Test
+    public void testReplacedEntries() {
+
+        SCIMUserIdIndex index = new SCIMUserIdIndex(10);
+        index.put(TENANT_ID, "id1", "alice");
+        index.put(TENANT_ID, "id2", "alice");
+        Assert.assertNull("stale ID of a re-created user resolved", index.getUserName(TENANT_ID, "id1"));
+        Assert.assertEquals("alice", index.getUserName(TENANT_ID, "id2"));
+
+        index.put(TENANT_ID, "id2", "bob");
+        index.removeUser(TENANT_ID, "alice");
+        Assert.assertEquals("bob", index.getUserName(TENANT_ID, "id2"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesEvicted() {
+
+        SCIMUserIdIndex index = new SCIMUserIdIndex(2);
+        index.put(TENANT_ID, "id1", "alice");
+        index.put(TENANT_ID, "id2", "bob");
+        index.getUserName(TENANT_ID, "id1");
+        index.put(TENANT_ID, "id3", "carol");
+
+        Assert.assertEquals("alice", index.getUserName(TENANT_ID, "id1"));
+        Assert.assertNull(index.getUserName(TENANT_ID, "id2"));
+        Assert.assertEquals("carol", index.getUserName(TENANT_ID, "id3"));
+
+        // evicted user must not remove the entry of the ID now indexed for another user
+        index.put(TENANT_ID, "id2", "bob");
+        index.removeUser(TENANT_ID, "alice");
+        Assert.assertEquals("bob", index.getUserName(TENANT_ID, "id2"));
+    }
+}
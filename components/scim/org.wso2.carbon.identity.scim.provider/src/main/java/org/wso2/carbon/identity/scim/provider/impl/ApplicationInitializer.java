@@ -32,7 +32,8 @@ import javax.servlet.ServletContextListener;
 import java.util.List;
 
 /**
- * This performs one-time initialization tasks at the application startup.
+ * This performs one-time initialization tasks at the application startup, and releases the resources of the
+ * application when it is undeployed.
  */
 public class ApplicationInitializer implements ServletContextListener {
 
@@ -58,7 +59,7 @@ public class ApplicationInitializer implements ServletContextListener {
 
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
-        // Do nothing
+        BulkRequestExecutor.shutdown();
     }
 
     private void initSCIMAuthenticatorRegistry() {
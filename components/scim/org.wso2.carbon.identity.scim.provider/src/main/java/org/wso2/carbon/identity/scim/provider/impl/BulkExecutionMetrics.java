@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim.provider.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of the bulk requests executed by the {@link BulkRequestExecutor}. Each bulk request is logged on
+ * completion and counted in the totals since server start up.
+ */
+public class BulkExecutionMetrics {
+
+    private static final Log log = LogFactory.getLog(BulkExecutionMetrics.class);
+
+    private static final AtomicLong requestCount = new AtomicLong();
+    private static final AtomicLong operationCount = new AtomicLong();
+    private static final AtomicLong failedOperationCount = new AtomicLong();
+    private static final AtomicLong executionTimeNanos = new AtomicLong();
+
+    private BulkExecutionMetrics() {
+    }
+
+    /**
+     * @param requestedOperations number of operations in the bulk request
+     * @param executedOperations  number of operations executed or failed
+     * @param failedOperations    number of failed operations
+     * @param elapsedNanos        time taken to execute the bulk request
+     */
+    static void record(int requestedOperations, int executedOperations, int failedOperations, long elapsedNanos) {
+
+        requestCount.incrementAndGet();
+        operationCount.addAndGet(executedOperations);
+        failedOperationCount.addAndGet(failedOperations);
+        executionTimeNanos.addAndGet(elapsedNanos);
+
+        if (log.isInfoEnabled()) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            log.info("Executed " + executedOperations + " of " + requestedOperations + " bulk operations in " +
+                    elapsedMillis + " ms (" + getThroughput(executedOperations, elapsedNanos) + " operations/s), " +
+                    failedOperations + " failed. Total: " + operationCount.get() + " operations in " +
+                    requestCount.get() + " bulk requests at " + getAverageThroughput() + " operations/s.");
+        }
+    }
+
+    public static long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public static long getOperationCount() {
+        return operationCount.get();
+    }
+
+    public static long getFailedOperationCount() {
+        return failedOperationCount.get();
+    }
+
+    /**
+     * @return operations executed per second of bulk request execution time, since server start up
+     */
+    public static long getAverageThroughput() {
+        return getThroughput(operationCount.get(), executionTimeNanos.get());
+    }
+
+    private static long getThroughput(long operations, long elapsedNanos) {
+        return elapsedNanos > 0 ? operations * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+}
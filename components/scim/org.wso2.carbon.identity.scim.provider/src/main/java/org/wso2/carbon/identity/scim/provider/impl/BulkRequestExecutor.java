@@ -0,0 +1,665 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim.provider.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.common.model.ThreadLocalProvisioningServiceProvider;
+import org.wso2.carbon.identity.application.common.util.IdentityApplicationManagementUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.scim.common.utils.SCIMCommonUtils;
+import org.wso2.carbon.identity.scim.provider.util.SCIMProviderConstants;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+import org.wso2.charon.core.exceptions.BadRequestException;
+import org.wso2.charon.core.extensions.UserManager;
+import org.wso2.charon.core.protocol.SCIMResponse;
+import org.wso2.charon.core.protocol.endpoints.GroupResourceEndpoint;
+import org.wso2.charon.core.protocol.endpoints.UserResourceEndpoint;
+import org.wso2.charon.core.schema.SCIMConstants;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Executes the operations of a SCIM bulk request in parallel. Operations referring to the bulkId of another
+ * operation are executed after the referred operation, with the bulkId replaced by the ID of the created resource.
+ * Operations on the same resource path are executed one after the other, in the order of the request, whether the
+ * earlier operation succeeds or not. Independent operations run on a pool shared by all the bulk requests, with at
+ * most the pool size of operations of a request running at once. Results are written to the response as the
+ * operations complete. Once the number of failed operations reaches failOnErrors, operations which are not started
+ * yet are not executed.
+ */
+public class BulkRequestExecutor {
+
+    private static final Log log = LogFactory.getLog(BulkRequestExecutor.class);
+
+    private static final String BULK_ID_PREFIX = "bulkId:";
+    private static final Pattern BULK_ID_REFERENCE = Pattern.compile(BULK_ID_PREFIX + "([^\"/\\s,}\\]]+)");
+    private static final String USERS_PATH = "/Users";
+    private static final String GROUPS_PATH = "/Groups";
+    private static final int BAD_REQUEST = Response.Status.BAD_REQUEST.getStatusCode();
+    private static final int CONFLICT = Response.Status.CONFLICT.getStatusCode();
+    private static final int INTERNAL_SERVER_ERROR = Response.Status.INTERNAL_SERVER_ERROR.getStatusCode();
+
+    private static final boolean enabled = Boolean.parseBoolean(
+            IdentityUtil.getProperty(SCIMProviderConstants.BULK_EXECUTOR_ENABLE));
+    private static final int poolSize = readPoolSize();
+
+    private final UserManager userManager;
+    private final String inputFormat;
+    private final String outputFormat;
+    private final int failOnErrors;
+    private final List<BulkOperation> operations = new ArrayList<>();
+    private final ExecutionContext executionContext = new ExecutionContext();
+    private final BlockingQueue<BulkOperation> completedOperations = new LinkedBlockingQueue<>();
+    private final Map<String, String> createdIds = new HashMap<>();
+
+    private final Object lock = new Object();
+    private final Deque<BulkOperation> readyOperations = new ArrayDeque<>();
+    private int runningCount;
+    private int finishedCount;
+    private int errorCount;
+    private boolean stopped;
+    private boolean ended;
+    private long startTime;
+
+    /**
+     * @param bulkRequest  JSON bulk request
+     * @param inputFormat  format of the resources in the request
+     * @param outputFormat format of the responses of the operations
+     * @param userManager  user manager of the requesting tenant
+     * @throws BadRequestException if the bulk request cannot be parsed
+     */
+    public BulkRequestExecutor(String bulkRequest, String inputFormat, String outputFormat, UserManager userManager)
+            throws BadRequestException {
+
+        this.userManager = userManager;
+        this.inputFormat = inputFormat;
+        this.outputFormat = outputFormat;
+        try {
+            JSONObject request = new JSONObject(bulkRequest);
+            failOnErrors = request.optInt(SCIMProviderConstants.BULK_FAIL_ON_ERRORS, 0);
+            JSONArray requestOperations = request.getJSONArray(SCIMProviderConstants.BULK_OPERATIONS);
+            for (int i = 0; i < requestOperations.length(); i++) {
+                operations.add(new BulkOperation(requestOperations.getJSONObject(i)));
+            }
+        } catch (JSONException e) {
+            throw new BadRequestException("Error while parsing the bulk request. " + e.getMessage());
+        }
+        linkOperations();
+    }
+
+    /**
+     * @return true if bulk requests are executed by this executor instead of charon
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts executing the operations. Needs to be called from the request thread, since the carbon context and the
+     * provisioning service provider of the request are passed on to the threads executing the operations.
+     *
+     * @return bulk response, written as the operations complete
+     */
+    public StreamingOutput execute() {
+
+        executionContext.capture();
+        startTime = System.nanoTime();
+        synchronized (lock) {
+            for (BulkOperation operation : operations) {
+                if (!operation.failed && operation.pendingCount == 0) {
+                    readyOperations.add(operation);
+                }
+            }
+            // completing the operations which failed already releases the operations waiting for them
+            for (BulkOperation operation : operations) {
+                if (operation.failed && !operation.completed) {
+                    complete(operation);
+                }
+            }
+            dispatch();
+            completeIfDone();
+        }
+        return new BulkResponseStreamingOutput();
+    }
+
+    /**
+     * Shuts down the pool executing the operations. Operations of bulk requests received afterwards fail.
+     */
+    public static void shutdown() {
+        BulkOperationPool.shutdown();
+    }
+
+    /**
+     * Links the operations with the operations whose bulkIds they refer to, and with the previous operation on the
+     * same resource, as operations on a resource have to be executed in the order of the request (RFC 7644 3.7).
+     */
+    private void linkOperations() {
+
+        Map<String, BulkOperation> operationsByBulkId = new HashMap<>();
+        for (BulkOperation operation : operations) {
+            if (operation.bulkId != null) {
+                operationsByBulkId.put(operation.bulkId, operation);
+            }
+        }
+        Map<String, BulkOperation> lastOperationsByPath = new HashMap<>();
+        for (BulkOperation operation : operations) {
+            for (String reference : operation.getReferences()) {
+                BulkOperation referred = operationsByBulkId.get(reference);
+                if (referred == null) {
+                    operation.fail(BAD_REQUEST, "Unknown bulkId: " + reference);
+                    break;
+                }
+                referred.dependents.add(operation);
+                operation.pendingCount++;
+            }
+            // operations on a resource collection, such as creating a resource, are not ordered
+            if (operation.path.indexOf('/', 1) > 0) {
+                BulkOperation previous = lastOperationsByPath.put(operation.path, operation);
+                if (previous != null && !previous.dependents.contains(operation)) {
+                    previous.successors.add(operation);
+                    operation.pendingCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits ready operations to the pool, up to the pool size of running operations. Needs to hold the lock.
+     */
+    private void dispatch() {
+
+        while (!stopped && runningCount < poolSize && !readyOperations.isEmpty()) {
+            final BulkOperation operation = readyOperations.poll();
+            runningCount++;
+            try {
+                BulkOperationPool.getPool().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        executeOperation(operation);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                runningCount--;
+                operation.fail(INTERNAL_SERVER_ERROR, "Bulk operation pool is not " +
+                        "accepting operations");
+                complete(operation);
+            }
+        }
+    }
+
+    private void executeOperation(BulkOperation operation) {
+
+        executionContext.attach();
+        try {
+            String path;
+            String data;
+            synchronized (lock) {
+                path = replaceBulkIds(operation.path);
+                data = replaceBulkIds(operation.data);
+            }
+            SCIMResponse response = invoke(operation.method, path, data);
+            if (response != null) {
+                operation.setResponse(response);
+            } else {
+                operation.fail(BAD_REQUEST, "Unsupported bulk operation: " + operation.method + " " + path);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error while executing bulk operation: " + operation.method + " " + operation.path, e);
+            operation.fail(INTERNAL_SERVER_ERROR, e.getMessage());
+        } finally {
+            executionContext.detach();
+        }
+        synchronized (lock) {
+            runningCount--;
+            if (!operation.failed && operation.bulkId != null) {
+                createdIds.put(operation.bulkId, operation.id);
+            }
+            complete(operation);
+            dispatch();
+            completeIfDone();
+        }
+    }
+
+    /**
+     * Executes an operation on the user or group resource endpoint. Called on a thread of the pool, with the carbon
+     * context of the request and the bulkIds in the path and the data replaced.
+     *
+     * @param method HTTP method of the operation
+     * @param path   resource path of the operation
+     * @param data   resource of the operation, or null
+     * @return response of the endpoint, or null if the operation is not supported
+     */
+    protected SCIMResponse invoke(String method, String path, String data) {
+
+        String resourcePath = path;
+        String id = null;
+        int idIndex = path.indexOf('/', 1);
+        if (idIndex > 0) {
+            resourcePath = path.substring(0, idIndex);
+            id = path.substring(idIndex + 1);
+        }
+
+        if (USERS_PATH.equals(resourcePath)) {
+            UserResourceEndpoint userResourceEndpoint = new UserResourceEndpoint();
+            if (POST.class.getSimpleName().equals(method) && id == null) {
+                return userResourceEndpoint.create(data, inputFormat, outputFormat, userManager);
+            } else if (PUT.class.getSimpleName().equals(method) && id != null) {
+                return userResourceEndpoint.updateWithPUT(id, data, inputFormat, outputFormat, userManager);
+            } else if (SCIMProviderConstants.PATCH.equals(method) && id != null) {
+                return userResourceEndpoint.updateWithPATCH(id, data, inputFormat, outputFormat, userManager);
+            } else if (DELETE.class.getSimpleName().equals(method) && id != null) {
+                return userResourceEndpoint.delete(id, userManager, outputFormat);
+            }
+        } else if (GROUPS_PATH.equals(resourcePath)) {
+            GroupResourceEndpoint groupResourceEndpoint = new GroupResourceEndpoint();
+            if (POST.class.getSimpleName().equals(method) && id == null) {
+                return groupResourceEndpoint.create(data, inputFormat, outputFormat, userManager);
+            } else if (PUT.class.getSimpleName().equals(method) && id != null) {
+                return groupResourceEndpoint.updateWithPUT(id, data, inputFormat, outputFormat, userManager);
+            } else if (SCIMProviderConstants.PATCH.equals(method) && id != null) {
+                return groupResourceEndpoint.updateWithPATCH(id, data, inputFormat, outputFormat, userManager);
+            } else if (DELETE.class.getSimpleName().equals(method) && id != null) {
+                return groupResourceEndpoint.delete(id, userManager, outputFormat);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reports a finished operation and fails the operations depending on it, if it failed. Needs to hold the lock.
+     */
+    private void complete(BulkOperation finishedOperation) {
+
+        Deque<BulkOperation> finished = new ArrayDeque<>();
+        finished.add(finishedOperation);
+        while (!finished.isEmpty()) {
+            BulkOperation operation = finished.poll();
+            operation.completed = true;
+            finishedCount++;
+            if (operation.failed) {
+                errorCount++;
+                if (failOnErrors > 0 && errorCount >= failOnErrors) {
+                    stopped = true;
+                }
+            }
+            completedOperations.add(operation);
+
+            for (BulkOperation dependent : operation.dependents) {
+                if (dependent.failed) {
+                    continue;
+                }
+                if (operation.failed) {
+                    dependent.fail(CONFLICT, "Referred operation with bulkId: " +
+                            operation.bulkId + " failed");
+                    finished.add(dependent);
+                } else if (--dependent.pendingCount == 0) {
+                    readyOperations.add(dependent);
+                }
+            }
+            for (BulkOperation successor : operation.successors) {
+                if (!successor.failed && --successor.pendingCount == 0) {
+                    readyOperations.add(successor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends the response once no operation is running and no more operations can be started. Operations left
+     * waiting on circular bulkId references are failed. Needs to hold the lock.
+     */
+    private void completeIfDone() {
+
+        if (ended || runningCount > 0 || (!stopped && !readyOperations.isEmpty())) {
+            return;
+        }
+        if (!stopped) {
+            for (BulkOperation operation : operations) {
+                if (!operation.completed) {
+                    operation.fail(CONFLICT, "Circular bulkId reference");
+                    operation.completed = true;
+                    finishedCount++;
+                    errorCount++;
+                    completedOperations.add(operation);
+                }
+            }
+        }
+        ended = true;
+        BulkExecutionMetrics.record(operations.size(), finishedCount, errorCount, System.nanoTime() - startTime);
+        completedOperations.add(END);
+    }
+
+    /**
+     * Stops starting operations, when the response can no longer be written.
+     */
+    private void cancel() {
+
+        synchronized (lock) {
+            stopped = true;
+            completeIfDone();
+        }
+    }
+
+    private String replaceBulkIds(String value) {
+
+        if (value == null || !value.contains(BULK_ID_PREFIX)) {
+            return value;
+        }
+        Matcher matcher = BULK_ID_REFERENCE.matcher(value);
+        StringBuffer replaced = new StringBuffer();
+        while (matcher.find()) {
+            String id = createdIds.get(matcher.group(1));
+            matcher.appendReplacement(replaced, Matcher.quoteReplacement(id != null ? id : matcher.group()));
+        }
+        matcher.appendTail(replaced);
+        return replaced.toString();
+    }
+
+    private static int readPoolSize() {
+
+        String poolSizeConfigValue = IdentityUtil.getProperty(SCIMProviderConstants.BULK_EXECUTOR_POOL_SIZE);
+        if (StringUtils.isNotBlank(poolSizeConfigValue)) {
+            try {
+                return Math.max(1, Integer.parseInt(poolSizeConfigValue.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid SCIM bulk executor pool size: " + poolSizeConfigValue + ". Using default value.");
+            }
+        }
+        return Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    private static final BulkOperation END = new BulkOperation();
+
+    /**
+     * Writes the bulk response, one operation at a time as the operations complete.
+     */
+    private class BulkResponseStreamingOutput implements StreamingOutput {
+
+        @Override
+        public void write(OutputStream outputStream) throws IOException {
+
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            try {
+                writer.write("{\"" + SCIMProviderConstants.LIST_SCHEMAS + "\":[\"" +
+                        SCIMProviderConstants.DEFAULT_SCIM_DIALECT + "\"],\"" +
+                        SCIMProviderConstants.BULK_OPERATIONS + "\":[");
+                boolean first = true;
+                BulkOperation operation;
+                while ((operation = completedOperations.take()) != END) {
+                    if (!first) {
+                        writer.write(',');
+                    }
+                    writer.write(operation.toJSON());
+                    writer.flush();
+                    first = false;
+                }
+                writer.write("]}");
+                writer.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new IOException("Interrupted while writing the bulk response", e);
+            } catch (IOException | RuntimeException e) {
+                cancel();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * An operation of the bulk request and its result.
+     */
+    private static class BulkOperation {
+
+        private final String method;
+        private final String bulkId;
+        private final String path;
+        private final String data;
+        private final List<BulkOperation> dependents = new ArrayList<>();
+        /**
+         * later operations on the same resource, which are executed after this one even if it fails
+         */
+        private final List<BulkOperation> successors = new ArrayList<>();
+        private int pendingCount;
+        private boolean completed;
+
+        private volatile boolean failed;
+        private volatile int statusCode;
+        private volatile String description;
+        private volatile String location;
+        private volatile String id;
+
+        private BulkOperation() {
+            method = null;
+            bulkId = null;
+            path = null;
+            data = null;
+        }
+
+        private BulkOperation(JSONObject operation) throws JSONException {
+
+            method = operation.getString(SCIMProviderConstants.BULK_METHOD);
+            bulkId = operation.optString(SCIMProviderConstants.BULK_ID, null);
+            path = operation.getString(SCIMProviderConstants.BULK_PATH);
+            JSONObject resource = operation.optJSONObject(SCIMProviderConstants.BULK_DATA);
+            data = resource != null ? resource.toString() : null;
+        }
+
+        private Set<String> getReferences() {
+
+            Set<String> references = new LinkedHashSet<>();
+            for (String value : new String[]{path, data}) {
+                if (value != null) {
+                    Matcher matcher = BULK_ID_REFERENCE.matcher(value);
+                    while (matcher.find()) {
+                        references.add(matcher.group(1));
+                    }
+                }
+            }
+            return references;
+        }
+
+        private void fail(int statusCode, String description) {
+            this.failed = true;
+            this.statusCode = statusCode;
+            this.description = description;
+        }
+
+        private void setResponse(SCIMResponse response) {
+
+            statusCode = response.getResponseCode();
+            Map<String, String> headers = response.getHeaderParameterMap();
+            if (headers != null) {
+                location = headers.get(HttpHeaders.LOCATION);
+            }
+            String message = response.getResponseMessage();
+            if (statusCode >= BAD_REQUEST) {
+                failed = true;
+                description = getErrorDescription(message);
+            } else if (StringUtils.isNotBlank(message)) {
+                try {
+                    id = new JSONObject(message).optString(SCIMConstants.CommonSchemaConstants.ID, null);
+                } catch (JSONException e) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Error while reading the resource ID of bulk operation response", e);
+                    }
+                }
+            }
+        }
+
+        private static String getErrorDescription(String message) {
+
+            if (StringUtils.isBlank(message)) {
+                return null;
+            }
+            try {
+                JSONArray errors = new JSONObject(message).optJSONArray(SCIMProviderConstants.BULK_ERRORS);
+                if (errors != null && errors.length() > 0) {
+                    return errors.getJSONObject(0).optString(SCIMProviderConstants.BULK_DESCRIPTION, message);
+                }
+            } catch (JSONException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while reading the error of bulk operation response", e);
+                }
+            }
+            return message;
+        }
+
+        private String toJSON() {
+
+            try {
+                JSONObject status = new JSONObject();
+                status.put(SCIMProviderConstants.BULK_CODE, String.valueOf(statusCode));
+                if (failed && description != null) {
+                    status.put(SCIMProviderConstants.BULK_DESCRIPTION, description);
+                }
+                JSONObject operation = new JSONObject();
+                operation.put(SCIMProviderConstants.BULK_METHOD, method);
+                if (bulkId != null) {
+                    operation.put(SCIMProviderConstants.BULK_ID, bulkId);
+                }
+                if (location != null) {
+                    operation.put(SCIMProviderConstants.BULK_LOCATION, location);
+                }
+                operation.put(SCIMProviderConstants.BULK_STATUS, status);
+                return operation.toString();
+            } catch (JSONException e) {
+                throw new IllegalStateException("Error while encoding bulk operation response", e);
+            }
+        }
+    }
+
+    /**
+     * Carbon context and SCIM thread locals of the request, set on the threads executing its operations.
+     */
+    private static class ExecutionContext {
+
+        private String tenantDomain;
+        private int tenantId;
+        private String username;
+        private String userStoreDomain;
+        private ThreadLocalProvisioningServiceProvider provisioningServiceProvider;
+
+        private void capture() {
+
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            tenantDomain = carbonContext.getTenantDomain();
+            tenantId = carbonContext.getTenantId();
+            username = carbonContext.getUsername();
+            userStoreDomain = UserCoreUtil.getDomainFromThreadLocal();
+            provisioningServiceProvider = IdentityApplicationManagementUtil.getThreadLocalProvisioningServiceProvider();
+            if (provisioningServiceProvider != null) {
+                provisioningServiceProvider.setBulkUserAdd(true);
+            }
+        }
+
+        private void attach() {
+
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantDomain(tenantDomain);
+            carbonContext.setTenantId(tenantId);
+            carbonContext.setUsername(username);
+            if (userStoreDomain != null) {
+                UserCoreUtil.setDomainInThreadLocal(userStoreDomain);
+            }
+            IdentityApplicationManagementUtil.setThreadLocalProvisioningServiceProvider(provisioningServiceProvider);
+        }
+
+        private void detach() {
+
+            IdentityApplicationManagementUtil.resetThreadLocalProvisioningServiceProvider();
+            SCIMCommonUtils.unsetThreadLocalIsManagedThroughSCIMEP();
+            UserCoreUtil.setDomainInThreadLocal(null);
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Pool executing the operations of all the bulk requests. Created with the first bulk request and shut down with
+     * the webapp.
+     */
+    private static class BulkOperationPool {
+
+        private static ExecutorService pool;
+        private static boolean shutdown;
+
+        private static synchronized ExecutorService getPool() {
+
+            if (shutdown) {
+                throw new RejectedExecutionException("Bulk operation pool is shut down");
+            }
+            if (pool == null) {
+                pool = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                "SCIMBulkOperationExecutor-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return pool;
+        }
+
+        private static synchronized void shutdown() {
+
+            shutdown = true;
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -40,6 +40,7 @@ import org.wso2.carbon.identity.provisioning.ProvisioningEntity;
 import org.wso2.carbon.identity.provisioning.ProvisioningOperation;
 import org.wso2.carbon.identity.provisioning.listener.DefaultInboundUserProvisioningListener;
 import org.wso2.carbon.identity.scim.common.group.SCIMGroupHandler;
+import org.wso2.carbon.identity.scim.common.user.SCIMUserIdResolver;
 import org.wso2.carbon.identity.scim.common.utils.AttributeMapper;
 import org.wso2.carbon.identity.scim.common.utils.IdentitySCIMException;
 import org.wso2.carbon.identity.scim.common.utils.SCIMCommonConstants;
@@ -68,6 +69,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -79,6 +81,8 @@ public class SCIMUserManager implements UserManager {
     public static final String APPLICATION_DOMAIN = "Application";
     public static final String INTERNAL_DOMAIN = "Internal";
     private static Log log = LogFactory.getLog(SCIMUserManager.class);
+    private static final String[] META_CLAIM_URIS = {SCIMConstants.ID_URI, SCIMConstants.META_LOCATION_URI,
+            SCIMConstants.META_CREATED_URI, SCIMConstants.META_LAST_MODIFIED_URI};
     private UserStoreManager carbonUM = null;
     private ClaimManager carbonClaimManager = null;
     private String consumerName;
@@ -235,31 +239,56 @@ public class SCIMUserManager implements UserManager {
     @Override
     public List<User> listUsers() throws CharonException {
 
-        ClaimMapping[] claims;
-        List<User> users = new ArrayList<>();
+        String[] userNames = listUserNames();
+        return getSCIMMetaUsers(userNames, 0, userNames.length);
+    }
+
+    /**
+     * Lists the names of the users having a SCIM ID. Names are sorted so that pages of the list are stable across
+     * requests.
+     *
+     * @return sorted user names
+     * @throws CharonException if the users cannot be listed from the user store
+     */
+    public String[] listUserNames() throws CharonException {
+
         try {
             String[] userNames = carbonUM.getUserList(SCIMConstants.ID_URI, "*", null);
-            if (userNames != null && userNames.length != 0) {
-                //get claims related to SCIM claim dialect
-                claims = carbonClaimManager.getAllClaimMappings(SCIMCommonConstants.SCIM_CLAIM_DIALECT);
-                List<String> claimURIList = new ArrayList<>();
-                for (ClaimMapping claim : claims) {
-                    claimURIList.add(claim.getClaim().getClaimUri());
-                }
-                for (String userName : userNames) {
-                    if (userName.contains(UserCoreConstants.NAME_COMBINER)) {
-                        userName = userName.split("\\" + UserCoreConstants.NAME_COMBINER)[0];
-                    }
-                    User scimUser = this.getSCIMMetaUser(userName);
-                    Map<String, Attribute> attrMap = scimUser.getAttributeList();
-                    if (attrMap != null && !attrMap.isEmpty()) {
-                        users.add(scimUser);
-                    }
+            if (userNames == null) {
+                return new String[0];
+            }
+            for (int i = 0; i < userNames.length; i++) {
+                if (userNames[i].contains(UserCoreConstants.NAME_COMBINER)) {
+                    userNames[i] = userNames[i].split("\\" + UserCoreConstants.NAME_COMBINER)[0];
                 }
             }
+            Arrays.sort(userNames);
+            return userNames;
         } catch (UserStoreException e) {
             throw new CharonException("Error while retrieving users from user store..", e);
         }
+    }
+
+    /**
+     * Builds the users in the given range of user names with their meta attributes. Users without SCIM attributes
+     * are skipped.
+     *
+     * @param userNames user names
+     * @param from      index of the first user name, inclusive
+     * @param to        index of the last user name, exclusive
+     * @return users with meta attributes
+     * @throws CharonException if the attributes cannot be read from the user store
+     */
+    public List<User> getSCIMMetaUsers(String[] userNames, int from, int to) throws CharonException {
+
+        List<User> users = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            User scimUser = this.getSCIMMetaUser(userNames[i]);
+            Map<String, Attribute> attrMap = scimUser.getAttributeList();
+            if (attrMap != null && !attrMap.isEmpty()) {
+                users.add(scimUser);
+            }
+        }
         return users;
     }
 
@@ -331,8 +360,11 @@ public class SCIMUserManager implements UserManager {
     }
 
     @Override
-    public List<User> listUsersWithPagination(int i, int i1) {
-        return Collections.emptyList();
+    public List<User> listUsersWithPagination(int startIndex, int count) throws CharonException {
+
+        String[] userNames = listUserNames();
+        int from = getPageStart(startIndex, userNames.length);
+        return getSCIMMetaUsers(userNames, from, getPageEnd(from, count, userNames.length));
     }
 
     @Override
@@ -613,39 +645,33 @@ public class SCIMUserManager implements UserManager {
                 List<String> userIds = group.getMembers();
                 List<String> userDisplayNames = group.getMembersWithDisplayName();
                 if (CollectionUtils.isNotEmpty(userIds)) {
-                    List<String> members = new ArrayList<>();
+                    Map<String, String> userNamesById =
+                            new SCIMUserIdResolver(carbonUM).resolveUserNames(userIds, null);
+                    Set<String> displayNames = null;
+                    if (CollectionUtils.isNotEmpty(userDisplayNames)) {
+                        displayNames = new HashSet<>();
+                        for (String user : userDisplayNames) {
+                            displayNames.add(UserCoreUtil.removeDomainFromName(user).toLowerCase());
+                        }
+                    }
+                    List<String> members = new ArrayList<>(userIds.size());
                     for (String userId : userIds) {
-                        String[] userNames = carbonUM.getUserList(SCIMConstants.ID_URI, userId,
-                                UserCoreConstants.DEFAULT_PROFILE);
-                        if (userNames == null || userNames.length == 0) {
+                        String userName = userNamesById.get(userId);
+                        if (userName == null) {
                             String error = "User: " + userId + " doesn't exist in the user store. " +
                                     "Hence, can not create the group: " + group.getDisplayName();
                             throw new IdentitySCIMException(error);
-                        } else if (userNames[0].indexOf(UserCoreConstants.DOMAIN_SEPARATOR) > 0 &&
-                                   !StringUtils.containsIgnoreCase(userNames[0], domainName)) {
+                        } else if (userName.indexOf(UserCoreConstants.DOMAIN_SEPARATOR) > 0 &&
+                                   !StringUtils.containsIgnoreCase(userName, domainName)) {
                             String error = "User: " + userId + " doesn't exist in the same user store. " +
                                     "Hence, can not create the group: " + group.getDisplayName();
                             throw new IdentitySCIMException(error);
                         } else {
-                            members.add(userNames[0]);
-                            if (CollectionUtils.isNotEmpty(userDisplayNames)) {
-                                boolean userContains = false;
-                                for (String user : userDisplayNames) {
-                                    user =
-                                            user.indexOf(UserCoreConstants.DOMAIN_SEPARATOR) > 0
-                                                    ? user.split(UserCoreConstants.DOMAIN_SEPARATOR)[1]
-                                                    : user;
-                                    if (user.equalsIgnoreCase(userNames[0].indexOf(UserCoreConstants.DOMAIN_SEPARATOR) > 0
-                                            ? userNames[0].split(UserCoreConstants.DOMAIN_SEPARATOR)[1]
-                                            : userNames[0])) {
-                                        userContains = true;
-                                        break;
-                                    }
-                                }
-                                if (!userContains) {
-                                    throw new IdentitySCIMException(
-                                            "Given SCIM user Id and name not matching..");
-                                }
+                            members.add(userName);
+                            if (displayNames != null && !displayNames.contains(
+                                    UserCoreUtil.removeDomainFromName(userName).toLowerCase())) {
+                                throw new IdentitySCIMException(
+                                        "Given SCIM user Id and name not matching..");
                             }
                         }
                     }
@@ -718,12 +744,47 @@ public class SCIMUserManager implements UserManager {
 
     @Override
     public List<Group> listGroups() throws CharonException {
+
+        List<String> groupNames = listGroupNames();
+        return getGroupsOnlyWithMetaAttributes(groupNames);
+    }
+
+    /**
+     * Lists the names of the groups created from SCIM. Names are sorted so that pages of the list are stable across
+     * requests.
+     *
+     * @return sorted group names
+     * @throws CharonException if the groups cannot be listed
+     */
+    public List<String> listGroupNames() throws CharonException {
+
+        try {
+            SCIMGroupHandler groupHandler = new SCIMGroupHandler(carbonUM.getTenantId());
+            List<String> groupNames = new ArrayList<>(groupHandler.listSCIMRoles());
+            Collections.sort(groupNames);
+            return groupNames;
+        } catch (org.wso2.carbon.user.core.UserStoreException e) {
+            String errMsg = "Error in obtaining role names from user store.";
+            errMsg += e.getMessage();
+            throw new CharonException(errMsg, e);
+        } catch (IdentitySCIMException e) {
+            throw new CharonException("Error in retrieving SCIM Group information from database.", e);
+        }
+    }
+
+    /**
+     * Builds the given groups with their meta attributes, reading the attributes of all the groups at once.
+     *
+     * @param groupNames group names
+     * @return groups with meta attributes, groups without a SCIM ID are skipped
+     * @throws CharonException if the attributes cannot be read
+     */
+    public List<Group> getGroupsOnlyWithMetaAttributes(List<String> groupNames) throws CharonException {
+
         List<Group> groupList = new ArrayList<>();
         try {
             SCIMGroupHandler groupHandler = new SCIMGroupHandler(carbonUM.getTenantId());
-            Set<String> roleNames = groupHandler.listSCIMRoles();
-            for (String roleName : roleNames) {
-                Group group = this.getGroupOnlyWithMetaAttributes(roleName);
+            for (Group group : groupHandler.getGroupsWithAttributes(groupNames)) {
                 if (group.getId() != null) {
                     groupList.add(group);
                 }
@@ -795,8 +856,35 @@ public class SCIMUserManager implements UserManager {
     }
 
     @Override
-    public List<Group> listGroupsWithPagination(int i, int i1) {
-        return Collections.emptyList();
+    public List<Group> listGroupsWithPagination(int startIndex, int count) throws CharonException {
+
+        List<String> groupNames = listGroupNames();
+        int from = getPageStart(startIndex, groupNames.size());
+        return getGroupsOnlyWithMetaAttributes(groupNames.subList(from,
+                getPageEnd(from, count, groupNames.size())));
+    }
+
+    /**
+     * Returns the zero based index of the first result of a page.
+     *
+     * @param startIndex one based SCIM start index
+     * @param size       number of results
+     * @return index of the first result of the page
+     */
+    public static int getPageStart(int startIndex, int size) {
+        return Math.min(Math.max(startIndex, 1) - 1, size);
+    }
+
+    /**
+     * Returns the zero based, exclusive index of the last result of a page.
+     *
+     * @param from  index of the first result of the page
+     * @param count maximum number of results in the page
+     * @param size  number of results
+     * @return exclusive index of the last result of the page
+     */
+    public static int getPageEnd(int from, int count, int size) {
+        return count < 0 || count > size - from ? size : from + count;
     }
 
     @Override
@@ -888,21 +976,18 @@ public class SCIMUserManager implements UserManager {
                 }
 
                 if (CollectionUtils.isNotEmpty(userIds)) {
-                    String[] userNames = null;
+                    Map<String, String> userNamesById = new SCIMUserIdResolver(carbonUM)
+                            .resolveUserNames(userIds, userStoreDomainForGroup);
+                    Set<String> displayNames = new HashSet<>(Arrays.asList(UserCoreUtil.removeDomainFromNames(
+                            userDisplayNames.toArray(new String[userDisplayNames.size()]))));
                     for (String userId : userIds) {
-                        userNames = carbonUM.getUserList(SCIMConstants.ID_URI,
-                                UserCoreUtil.addDomainToName(userId, userStoreDomainForGroup),
-                                UserCoreConstants.DEFAULT_PROFILE);
-                        if (userNames == null || userNames.length == 0) {
+                        String userName = userNamesById.get(userId);
+                        if (userName == null) {
                             String error = "User: " + userId + " doesn't exist in the user store. " +
                                     "Hence, can not update the group: " + oldGroup.getDisplayName();
                             throw new IdentitySCIMException(error);
-                        } else {
-                            if (!UserCoreUtil.isContain(UserCoreUtil.removeDomainFromName(userNames[0]),
-                                    UserCoreUtil.removeDomainFromNames(userDisplayNames.toArray(
-                                            new String[userDisplayNames.size()])))) {
-                                throw new IdentitySCIMException("Given SCIM user Id and name not matching..");
-                            }
+                        } else if (!displayNames.contains(UserCoreUtil.removeDomainFromName(userName))) {
+                            throw new IdentitySCIMException("Given SCIM user Id and name not matching..");
                         }
                     }
                 }
@@ -925,10 +1010,14 @@ public class SCIMUserManager implements UserManager {
                     List<String> addedMembers = new ArrayList<>();
                     List<String> deletedMembers = new ArrayList<>();
 
+                    Set<String> oldMemberSet = oldMembers == null ? Collections.<String>emptySet() :
+                            new HashSet<>(oldMembers);
+                    Set<String> newMemberSet = new HashSet<>(newMembers);
+
                     //check for deleted members
                     if (CollectionUtils.isNotEmpty(oldMembers)) {
                         for (String oldMember : oldMembers) {
-                            if (newMembers != null && newMembers.contains(oldMember)) {
+                            if (newMemberSet.contains(oldMember)) {
                                 continue;
                             }
                             deletedMembers.add(oldMember);
@@ -938,7 +1027,7 @@ public class SCIMUserManager implements UserManager {
                     //check for added members
                     if (CollectionUtils.isNotEmpty(newMembers)) {
                         for (String newMember : newMembers) {
-                            if (oldMembers != null && oldMembers.contains(newMember)) {
+                            if (oldMemberSet.contains(newMember)) {
                                 continue;
                             }
                             addedMembers.add(newMember);
@@ -1092,22 +1181,19 @@ public class SCIMUserManager implements UserManager {
                     }
                 }
 
-                String[] userNames = null;
                 if (CollectionUtils.isNotEmpty(userIds)) {
+                    Map<String, String> userNamesById =
+                            new SCIMUserIdResolver(carbonUM).resolveUserNames(userIds, null);
+                    Set<String> displayNames = new HashSet<>(userDisplayNames);
                     for (String userId : userIds) {
-                        userNames =
-                                carbonUM.getUserList(SCIMConstants.ID_URI, userId,
-                                                     UserCoreConstants.DEFAULT_PROFILE);
-                        if (userNames == null || userNames.length == 0) {
+                        String userName = userNamesById.get(userId);
+                        if (userName == null) {
                             String error =
                                     "User: " + userId + " doesn't exist in the user store. " +
                                     "Hence, can not update the group: " + oldGroup.getDisplayName();
                             throw new CharonException(error);
-                        } else {
-                            if (!UserCoreUtil.isContain(userNames[0],
-                                    userDisplayNames.toArray(new String[userDisplayNames.size()]))) {
-                                throw new IdentitySCIMException("Given SCIM user Id and name not matching..");
-                            }
+                        } else if (!displayNames.contains(userName)) {
+                            throw new IdentitySCIMException("Given SCIM user Id and name not matching..");
                         }
                     }
                 }
@@ -1131,53 +1217,37 @@ public class SCIMUserManager implements UserManager {
 
                 //Handling meta data attributes coming from SCIM request. Through meta attributes all existing members
                 // can be replaced with new set of members
-                boolean metaDeleteAllMembers = false;
+                Set<String> addRequestedMemberSet = new HashSet<>(addRequestedMembers);
+                List<String> deletedMembers = new ArrayList<>();
                 if (newGroup.getAttributesOfMeta() != null &&
                         SCIMConstants.GroupSchemaConstants.MEMBERS.equals(newGroup.getAttributesOfMeta().get(0))) {
                     if (!deleteRequestedMembers.isEmpty()) {
                         log.warn("All Existing members will be deleted through SCIM meta attributes Hence operation " +
                                 "delete is Invalid");
                         deleteRequestedMembers = new ArrayList<>();
-                        metaDeleteAllMembers = true;
                     }
-                    String users[] = carbonUM.getUserListOfRole(newGroup.getDisplayName());
-                    if (addRequestedMembers.isEmpty()) {
-                        carbonUM.updateUserListOfRole(newGroup.getDisplayName(), users, new String[0]);
-                    } else {
-                        //If new set of members contains an old members, save those old members without deleting from user store
-                        List<String> membersDeleteFromUserStore = new ArrayList<String>();
-                        for (String user : users) {
-                            if (!addRequestedMembers.contains(user)) {
-                                membersDeleteFromUserStore.add(user);
-                            }
+                    //If new set of members contains an old members, save those old members without deleting from
+                    // user store. The replaced members are deleted along with the other membership changes.
+                    for (String user : carbonUM.getUserListOfRole(newGroup.getDisplayName())) {
+                        if (!addRequestedMemberSet.contains(user)) {
+                            deletedMembers.add(user);
                         }
-                        carbonUM.updateUserListOfRole(newGroup.getDisplayName(), membersDeleteFromUserStore
-                                .toArray(new String[membersDeleteFromUserStore.size()]), new String[0]);
                     }
                 }
                 // find out added members and deleted members..
-                List<String> oldMembers = oldGroup.getMembersWithDisplayName();
+                Set<String> oldMembers = new HashSet<>(oldGroup.getMembersWithDisplayName());
 
                 List<String> addedMembers = new ArrayList<>();
-                List<String> deletedMembers = new ArrayList<>();
-
-                if (addRequestedMembers.isEmpty() && metaDeleteAllMembers) {
-                    String users[] = carbonUM.getUserListOfRole(newGroup.getDisplayName());
-                    deletedMembers = Arrays.asList(users);
-                }
-
                 for (String addRequestedMember : addRequestedMembers) {
-                    if ((!oldMembers.isEmpty()) && oldMembers.contains(addRequestedMember)) {
+                    if (oldMembers.contains(addRequestedMember)) {
                         continue;
                     }
                     addedMembers.add(addRequestedMember);
                 }
 
                 for (String deleteRequestedMember : deleteRequestedMembers) {
-                    if ((!oldMembers.isEmpty()) && oldMembers.contains(deleteRequestedMember)) {
+                    if (oldMembers.contains(deleteRequestedMember)) {
                         deletedMembers.add(deleteRequestedMember);
-                    } else {
-                        continue;
                     }
                 }
 
@@ -1268,16 +1338,10 @@ public class SCIMUserManager implements UserManager {
 
     private User getSCIMMetaUser(String userName) throws CharonException {
 
-        List<String> claimURIList = new ArrayList<>();
-        claimURIList.add(SCIMConstants.ID_URI);
-        claimURIList.add(SCIMConstants.META_LOCATION_URI);
-        claimURIList.add(SCIMConstants.META_CREATED_URI);
-        claimURIList.add(SCIMConstants.META_LAST_MODIFIED_URI);
         User scimUser = null;
 
         try {
-            Map<String, String> attributes = carbonUM.getUserClaimValues(
-                    userName, claimURIList.toArray(new String[claimURIList.size()]), null);
+            Map<String, String> attributes = carbonUM.getUserClaimValues(userName, META_CLAIM_URIS, null);
             attributes.put(SCIMConstants.USER_NAME_URI, userName);
             scimUser = (User) AttributeMapper.constructSCIMObjectFromAttributes(
                     attributes, SCIMConstants.USER_INT);
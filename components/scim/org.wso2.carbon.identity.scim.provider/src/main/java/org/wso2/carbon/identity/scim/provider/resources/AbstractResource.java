@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.identity.scim.provider.resources;
 
+import org.wso2.carbon.identity.scim.provider.impl.SCIMUserManager;
+import org.wso2.charon.core.extensions.UserManager;
 import org.wso2.charon.core.schema.SCIMConstants;
 
 public class AbstractResource {
@@ -37,4 +39,15 @@ public class AbstractResource {
             return format;
         }
     }
+
+    /**
+     * Checks whether a list response can be streamed instead of being encoded by charon as a whole.
+     *
+     * @param userManager user manager serving the request
+     * @param format      output format of the response
+     * @return true if the listed resources can be written while they are loaded
+     */
+    protected boolean isListStreamable(UserManager userManager, String format) {
+        return userManager instanceof SCIMUserManager && SCIMConstants.APPLICATION_JSON.equals(format);
+    }
 }
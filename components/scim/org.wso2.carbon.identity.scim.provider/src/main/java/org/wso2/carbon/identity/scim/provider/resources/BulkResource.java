@@ -18,9 +18,11 @@
 
 package org.wso2.carbon.identity.scim.provider.resources;
 
+import org.wso2.carbon.identity.scim.provider.impl.BulkRequestExecutor;
 import org.wso2.carbon.identity.scim.provider.impl.IdentitySCIMManager;
 import org.wso2.carbon.identity.scim.provider.util.JAXRSResponseBuilder;
 import org.wso2.charon.core.encoder.Encoder;
+import org.wso2.charon.core.exceptions.BadRequestException;
 import org.wso2.charon.core.exceptions.CharonException;
 import org.wso2.charon.core.exceptions.FormatNotSupportedException;
 import org.wso2.charon.core.extensions.UserManager;
@@ -33,6 +35,7 @@ import org.wso2.charon.core.schema.SCIMConstants;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 @Path("/")
@@ -64,6 +67,13 @@ public class BulkResource {
             UserManager userManager = identitySCIMManager.getInstance().getUserManager(
                     authorization);
 
+            // operations are executed in parallel by the bulk executor if enabled, which supports JSON only
+            if (BulkRequestExecutor.isEnabled() && inputFormat.startsWith(SCIMConstants.APPLICATION_JSON)) {
+                BulkRequestExecutor bulkRequestExecutor = new BulkRequestExecutor(resourceString,
+                        SCIMConstants.APPLICATION_JSON, outputFormat, userManager);
+                return Response.ok(bulkRequestExecutor.execute(), MediaType.APPLICATION_JSON).build();
+            }
+
             BulkResourceEndpoint bulkResourceEndpoint = new BulkResourceEndpoint();
             SCIMResponse responseString = bulkResourceEndpoint.processBulkData(resourceString,
                     inputFormat,
@@ -83,6 +93,9 @@ public class BulkResource {
         } catch (FormatNotSupportedException e) {
             return new JAXRSResponseBuilder().buildResponse(
                     AbstractResourceEndpoint.encodeSCIMException(encoder, e));
+        } catch (BadRequestException e) {
+            return new JAXRSResponseBuilder().buildResponse(
+                    AbstractResourceEndpoint.encodeSCIMException(encoder, e));
         }
     }
 }
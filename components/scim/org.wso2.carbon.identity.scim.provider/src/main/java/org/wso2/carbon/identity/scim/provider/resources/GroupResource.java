@@ -22,13 +22,16 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.jaxrs.designator.PATCH;
 import org.wso2.carbon.identity.scim.provider.impl.IdentitySCIMManager;
+import org.wso2.carbon.identity.scim.provider.impl.SCIMUserManager;
 import org.wso2.carbon.identity.scim.provider.util.JAXRSResponseBuilder;
+import org.wso2.carbon.identity.scim.provider.util.ListedResourceStreamingOutput;
 import org.wso2.carbon.identity.scim.provider.util.SCIMProviderConstants;
 import org.wso2.charon.core.encoder.Encoder;
 import org.wso2.charon.core.exceptions.BadRequestException;
 import org.wso2.charon.core.exceptions.CharonException;
 import org.wso2.charon.core.exceptions.FormatNotSupportedException;
 import org.wso2.charon.core.extensions.UserManager;
+import org.wso2.charon.core.objects.SCIMObject;
 import org.wso2.charon.core.protocol.ResponseCodeConstants;
 import org.wso2.charon.core.protocol.SCIMResponse;
 import org.wso2.charon.core.protocol.endpoints.AbstractResourceEndpoint;
@@ -47,6 +50,7 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Path("/")
@@ -189,6 +193,10 @@ public class GroupResource extends AbstractResource {
                 } else if (filter != null) {
                     scimResponse = groupResourceEndpoint.listByFilter(filter, userManager, outputFormat);
                 } else if (startIndex != null && count != null) {
+                    if (isListStreamable(userManager, outputFormat)) {
+                        return streamGroups((SCIMUserManager) userManager, encoder, Integer.valueOf(startIndex),
+                                Integer.valueOf(count));
+                    }
                     scimResponse = groupResourceEndpoint.listWithPagination(Integer.valueOf(startIndex),
                                                                             Integer.valueOf(count),
                                                                             userManager, outputFormat);
@@ -196,6 +204,9 @@ public class GroupResource extends AbstractResource {
                     scimResponse = groupResourceEndpoint.listBySort(sortBy, sortOrder, userManager, outputFormat);
                 } else if (searchAttribute == null && filter == null && startIndex == null &&
                            count == null && sortBy == null) {
+                    if (isListStreamable(userManager, outputFormat)) {
+                        return streamGroups((SCIMUserManager) userManager, encoder, 1, -1);
+                    }
                     scimResponse = groupResourceEndpoint.list(userManager, outputFormat);
                 } else {
                     //bad request
@@ -241,4 +252,31 @@ public class GroupResource extends AbstractResource {
                     AbstractResourceEndpoint.encodeSCIMException(encoder, e));
         }
     }
+
+    /**
+     * Streams a page of groups. Group names are listed once and the attributes of the groups are read one chunk at
+     * a time while the response is written.
+     *
+     * @param userManager user manager serving the request
+     * @param encoder     JSON encoder
+     * @param startIndex  one based index of the first group
+     * @param count       maximum number of groups, negative to list all the groups
+     * @return streamed list response
+     * @throws CharonException if the groups cannot be listed
+     */
+    private Response streamGroups(final SCIMUserManager userManager, Encoder encoder, int startIndex, int count)
+            throws CharonException {
+
+        final List<String> groupNames = userManager.listGroupNames();
+        int from = SCIMUserManager.getPageStart(startIndex, groupNames.size());
+        int to = SCIMUserManager.getPageEnd(from, count, groupNames.size());
+        ListedResourceStreamingOutput output = new ListedResourceStreamingOutput(encoder, groupNames.size(), from,
+                to, SCIMProviderConstants.LIST_CHUNK_SIZE) {
+            @Override
+            protected List<? extends SCIMObject> loadResources(int from, int to) throws CharonException {
+                return userManager.getGroupsOnlyWithMetaAttributes(groupNames.subList(from, to));
+            }
+        };
+        return Response.ok(output, MediaType.APPLICATION_JSON).build();
+    }
 }
@@ -23,13 +23,17 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.jaxrs.designator.PATCH;
 import org.wso2.carbon.identity.scim.provider.impl.IdentitySCIMManager;
+import org.wso2.carbon.identity.scim.provider.impl.SCIMUserManager;
 import org.wso2.carbon.identity.scim.provider.util.JAXRSResponseBuilder;
+import org.wso2.carbon.identity.scim.provider.util.ListedResourceStreamingOutput;
+import org.wso2.carbon.identity.scim.provider.util.SCIMProviderConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 import org.wso2.charon.core.encoder.Encoder;
 import org.wso2.charon.core.exceptions.BadRequestException;
 import org.wso2.charon.core.exceptions.CharonException;
 import org.wso2.charon.core.exceptions.FormatNotSupportedException;
 import org.wso2.charon.core.extensions.UserManager;
+import org.wso2.charon.core.objects.SCIMObject;
 import org.wso2.charon.core.protocol.ResponseCodeConstants;
 import org.wso2.charon.core.protocol.SCIMResponse;
 import org.wso2.charon.core.protocol.endpoints.AbstractResourceEndpoint;
@@ -47,6 +51,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.List;
 
 @Path("/")
 public class UserResource extends AbstractResource {
@@ -237,6 +242,10 @@ public class UserResource extends AbstractResource {
             } else if (filter != null) {
                 scimResponse = userResourceEndpoint.listByFilter(filter, userManager, format);
             } else if (startIndex != null && count != null) {
+                if (isListStreamable(userManager, format)) {
+                    return streamUsers((SCIMUserManager) userManager, encoder, Integer.valueOf(startIndex),
+                            Integer.valueOf(count));
+                }
                 scimResponse = userResourceEndpoint.listWithPagination(Integer.valueOf(startIndex),
                         Integer.valueOf(count), userManager, format);
             } else if (sortBy != null) {
@@ -244,6 +253,9 @@ public class UserResource extends AbstractResource {
                         format);
             } else if (searchAttribute == null && filter == null && startIndex == null
                     && count == null && sortBy == null) {
+                if (isListStreamable(userManager, format)) {
+                    return streamUsers((SCIMUserManager) userManager, encoder, 1, -1);
+                }
                 scimResponse = userResourceEndpoint.list(userManager, format);
             } else {
                 // bad request
@@ -440,4 +452,31 @@ public class UserResource extends AbstractResource {
         }
     }
 
+
+    /**
+     * Streams a page of users. User names are listed once and the attributes are read only for the users of the
+     * page, one chunk at a time while the response is written.
+     *
+     * @param userManager user manager serving the request
+     * @param encoder     JSON encoder
+     * @param startIndex  one based index of the first user
+     * @param count       maximum number of users, negative to list all the users
+     * @return streamed list response
+     * @throws CharonException if the users cannot be listed
+     */
+    private Response streamUsers(final SCIMUserManager userManager, Encoder encoder, int startIndex, int count)
+            throws CharonException {
+
+        final String[] userNames = userManager.listUserNames();
+        int from = SCIMUserManager.getPageStart(startIndex, userNames.length);
+        int to = SCIMUserManager.getPageEnd(from, count, userNames.length);
+        ListedResourceStreamingOutput output = new ListedResourceStreamingOutput(encoder, userNames.length, from, to,
+                SCIMProviderConstants.LIST_CHUNK_SIZE) {
+            @Override
+            protected List<? extends SCIMObject> loadResources(int from, int to) throws CharonException {
+                return userManager.getSCIMMetaUsers(userNames, from, to);
+            }
+        };
+        return Response.ok(output, MediaType.APPLICATION_JSON).build();
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.scim.provider.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.charon.core.encoder.Encoder;
+import org.wso2.charon.core.exceptions.CharonException;
+import org.wso2.charon.core.objects.SCIMObject;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a SCIM list response in JSON while the listed resources are loaded, one chunk at a time. Only the
+ * resources of the current chunk are held in memory, regardless of the number of resources listed.
+ * <p/>
+ * Resources left out by {@link #loadResources(int, int)} are not known until their chunk is loaded, hence the
+ * number of items in the page is written after the resources.
+ */
+public abstract class ListedResourceStreamingOutput implements StreamingOutput {
+
+    private static final Log log = LogFactory.getLog(ListedResourceStreamingOutput.class);
+
+    private final Encoder encoder;
+    private final int totalResults;
+    private final int from;
+    private final int to;
+    private final int chunkSize;
+
+    /**
+     * @param encoder      JSON encoder of the resources
+     * @param totalResults total number of resources matching the request
+     * @param from         index of the first resource to write, inclusive
+     * @param to           index of the last resource to write, exclusive
+     * @param chunkSize    number of resources loaded at once
+     */
+    public ListedResourceStreamingOutput(Encoder encoder, int totalResults, int from, int to, int chunkSize) {
+        this.encoder = encoder;
+        this.totalResults = totalResults;
+        this.from = from;
+        this.to = to;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Loads the resources in the given range. Resources which cannot be listed may be left out.
+     *
+     * @param from index of the first resource, inclusive
+     * @param to   index of the last resource, exclusive
+     * @return resources in the range
+     * @throws CharonException if the resources cannot be loaded
+     */
+    protected abstract List<? extends SCIMObject> loadResources(int from, int to) throws CharonException;
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+
+        Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+        writer.write("{\"" + SCIMProviderConstants.LIST_SCHEMAS + "\":[\"" +
+                SCIMProviderConstants.DEFAULT_SCIM_DIALECT + "\"],\"" + SCIMProviderConstants.LIST_TOTAL_RESULTS +
+                "\":" + totalResults + ",\"" + SCIMProviderConstants.LIST_START_INDEX + "\":" + (from + 1) + ",\"" +
+                SCIMProviderConstants.LIST_RESOURCES + "\":[");
+        int itemsPerPage = 0;
+        try {
+            for (int chunkStart = from; chunkStart < to; chunkStart += chunkSize) {
+                List<? extends SCIMObject> resources = loadResources(chunkStart, Math.min(chunkStart + chunkSize, to));
+                for (SCIMObject resource : resources) {
+                    if (itemsPerPage > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(encoder.encodeSCIMObject(resource));
+                    itemsPerPage++;
+                }
+                writer.flush();
+            }
+        } catch (CharonException e) {
+            // The response status is already sent, hence the response can only be cut short
+            log.error("Error while listing SCIM resources. The list response is incomplete.", e);
+            throw new IOException("Error while listing SCIM resources", e);
+        }
+        writer.write("],\"" + SCIMProviderConstants.LIST_ITEMS_PER_PAGE + "\":" + itemsPerPage + "}");
+        writer.flush();
+    }
+}
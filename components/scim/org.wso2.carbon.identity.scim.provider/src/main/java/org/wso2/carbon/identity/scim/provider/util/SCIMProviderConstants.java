@@ -49,6 +49,28 @@ public class SCIMProviderConstants {
     public static final String SORT_ORDER = "SORT_ORDER";
     public static final String PATCH = "PATCH";
 
+    public static final String LIST_SCHEMAS = "schemas";
+    public static final String LIST_TOTAL_RESULTS = "totalResults";
+    public static final String LIST_ITEMS_PER_PAGE = "itemsPerPage";
+    public static final String LIST_START_INDEX = "startIndex";
+    public static final String LIST_RESOURCES = "Resources";
+    public static final int LIST_CHUNK_SIZE = 100;
+
+    public static final String BULK_OPERATIONS = "Operations";
+    public static final String BULK_FAIL_ON_ERRORS = "failOnErrors";
+    public static final String BULK_METHOD = "method";
+    public static final String BULK_ID = "bulkId";
+    public static final String BULK_PATH = "path";
+    public static final String BULK_DATA = "data";
+    public static final String BULK_LOCATION = "location";
+    public static final String BULK_STATUS = "status";
+    public static final String BULK_CODE = "code";
+    public static final String BULK_DESCRIPTION = "description";
+    public static final String BULK_ERRORS = "Errors";
+
+    public static final String BULK_EXECUTOR_ENABLE = "SCIM.BulkExecutor.Enable";
+    public static final String BULK_EXECUTOR_POOL_SIZE = "SCIM.BulkExecutor.PoolSize";
+
     private SCIMProviderConstants(){}
 
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.identity.scim.provider.impl;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wso2.charon.core.protocol.SCIMResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class BulkRequestExecutorTest {
+
+    private static final String JSON = "application/json";
+    private static final long TIMEOUT = 10000;
+
+    @BeforeClass
+    public static void setUpCarbonHome() throws Exception {
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", new File(BulkRequestExecutorTest.class.getResource("/").toURI())
+                    .getAbsolutePath());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOperationsAreExecutedWithCreatedIds() throws Exception {
+
+        TestExecutor executor = new TestExecutor(bulkRequest(0,
+                operation("POST", "/Users", "u1", "{\"name\":\"alice\"}"),
+                operation("POST", "/Groups", "g1", "{\"name\":\"admins\",\"members\":[{\"value\":\"bulkId:u1\"}]}"),
+                operation("DELETE", "/Users/u9", null, null)));
+        Map<String, JSONObject> results = execute(executor, 3);
+
+        Assert.assertEquals("201", getStatusCode(results.get("POST u1")));
+        Assert.assertEquals("/Users/id-alice", results.get("POST u1").getString("location"));
+        Assert.assertEquals("201", getStatusCode(results.get("POST g1")));
+        Assert.assertEquals("204", getStatusCode(results.get("DELETE")));
+        Assert.assertEquals(3, executor.getInvocations().size());
+        String groupData = executor.getData("/Groups");
+        Assert.assertTrue(groupData.contains("id-alice"));
+        Assert.assertFalse(groupData.contains("bulkId:"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOperationsOnSameResourceAreExecutedInOrder() throws Exception {
+
+        TestExecutor executor = new TestExecutor(bulkRequest(0,
+                operation("PUT", "/Users/u1", null, "{\"name\":\"1\"}"),
+                operation("PATCH", "/Groups/g1", null, "{\"name\":\"1\"}"),
+                operation("PUT", "/Users/u1", null, "{\"name\":\"2\",\"fail\":true}"),
+                operation("PATCH", "/Groups/g1", null, "{\"name\":\"2\"}"),
+                operation("PUT", "/Users/u1", null, "{\"name\":\"3\"}"),
+                operation("PATCH", "/Groups/g1", null, "{\"name\":\"3\"}")));
+        execute(executor, 6);
+
+        // a failed operation does not stop the later operations on the same resource
+        Assert.assertEquals(Arrays.asList("/Users/u1 1", "/Users/u1 2", "/Users/u1 3"),
+                executor.getInvocations("/Users/u1"));
+        Assert.assertEquals(Arrays.asList("/Groups/g1 1", "/Groups/g1 2", "/Groups/g1 3"),
+                executor.getInvocations("/Groups/g1"));
+        Assert.assertFalse("operations on a resource overlapped", executor.isOverlapped());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOperationsAreNotStartedOnceFailOnErrorsIsReached() throws Exception {
+
+        TestExecutor executor = new TestExecutor(bulkRequest(1,
+                operation("PUT", "/Users/u1", null, "{\"name\":\"1\",\"fail\":true}"),
+                operation("PUT", "/Users/u1", null, "{\"name\":\"2\"}"),
+                operation("PUT", "/Users/u1", null, "{\"name\":\"3\"}")));
+        Map<String, JSONObject> results = execute(executor, 1);
+
+        Assert.assertEquals("500", getStatusCode(results.get("PUT")));
+        Assert.assertEquals(Arrays.asList("/Users/u1 1"), executor.getInvocations());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOperationsReferringToFailedOperationFail() throws Exception {
+
+        TestExecutor executor = new TestExecutor(bulkRequest(0,
+                operation("POST", "/Users", "u1", "{\"name\":\"alice\",\"fail\":true}"),
+                operation("POST", "/Groups", "g1", "{\"name\":\"admins\",\"members\":[{\"value\":\"bulkId:u1\"}]}"),
+                operation("PATCH", "/Groups/bulkId:g1", null, "{\"name\":\"admins\"}"),
+                operation("POST", "/Users", "u2", "{\"name\":\"bob\"}")));
+        Map<String, JSONObject> results = execute(executor, 4);
+
+        Assert.assertEquals("500", getStatusCode(results.get("POST u1")));
+        Assert.assertEquals("409", getStatusCode(results.get("POST g1")));
+        Assert.assertEquals("409", getStatusCode(results.get("PATCH")));
+        Assert.assertEquals("201", getStatusCode(results.get("POST u2")));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("/Users alice", "/Users bob")),
+                new HashSet<>(executor.getInvocations()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCircularReferencesFail() throws Exception {
+
+        TestExecutor executor = new TestExecutor(bulkRequest(0,
+                operation("POST", "/Groups", "g1", "{\"name\":\"g1\",\"members\":[{\"value\":\"bulkId:g2\"}]}"),
+                operation("POST", "/Groups", "g2", "{\"name\":\"g2\",\"members\":[{\"value\":\"bulkId:g1\"}]}"),
+                operation("POST", "/Users", "u1", "{\"name\":\"alice\"}")));
+        Map<String, JSONObject> results = execute(executor, 3);
+
+        Assert.assertEquals("409", getStatusCode(results.get("POST g1")));
+        Assert.assertEquals("409", getStatusCode(results.get("POST g2")));
+        Assert.assertEquals("201", getStatusCode(results.get("POST u1")));
+        Assert.assertEquals(Arrays.asList("/Users alice"), executor.getInvocations());
+    }
+
+    /**
+     * Executes the bulk request and returns the results of the operations against their method, followed by their
+     * bulkId if they have one
+     */
+    private static Map<String, JSONObject> execute(BulkRequestExecutor executor, int expectedCount)
+            throws Exception {
+
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        executor.execute().write(response);
+
+        JSONArray operations = new JSONObject(response.toString("UTF-8")).getJSONArray("Operations");
+        Assert.assertEquals(expectedCount, operations.length());
+        Map<String, JSONObject> results = new HashMap<>();
+        for (int i = 0; i < operations.length(); i++) {
+            JSONObject operation = operations.getJSONObject(i);
+            String bulkId = operation.optString("bulkId", null);
+            String method = operation.getString("method");
+            results.put(bulkId != null ? method + " " + bulkId : method, operation);
+        }
+        return results;
+    }
+
+    private static String getStatusCode(JSONObject operation) throws Exception {
+        return operation.getJSONObject("status").getString("code");
+    }
+
+    private static String operation(String method, String path, String bulkId, String data) {
+
+        return "{\"method\":\"" + method + "\",\"path\":\"" + path + "\"" +
+                (bulkId != null ? ",\"bulkId\":\"" + bulkId + "\"" : "") +
+                (data != null ? ",\"data\":" + data : "") + "}";
+    }
+
+    private static String bulkRequest(int failOnErrors, String... operations) {
+
+        StringBuilder request = new StringBuilder("{\"failOnErrors\":" + failOnErrors + ",\"Operations\":[");
+        for (int i = 0; i < operations.length; i++) {
+            if (i > 0) {
+                request.append(',');
+            }
+            request.append(operations[i]);
+        }
+        return request.append("]}").toString();
+    }
+
+    /**
+     * Executes the operations against an in memory endpoint, which records them. The name in the data of an
+     * operation identifies it, and an operation fails with a 500 response if its data has "fail" set.
+     */
+    private static class TestExecutor extends BulkRequestExecutor {
+
+        private final List<String> invocations = new ArrayList<>();
+        private final Map<String, String> dataByPath = new LinkedHashMap<>();
+        private final Set<String> runningPaths = new HashSet<>();
+        private boolean overlapped;
+
+        private TestExecutor(String bulkRequest) throws Exception {
+            super(bulkRequest, JSON, JSON, null);
+        }
+
+        @Override
+        protected SCIMResponse invoke(String method, String path, String data) {
+
+            String name;
+            boolean fail;
+            try {
+                JSONObject resource = data != null ? new JSONObject(data) : new JSONObject();
+                name = resource.optString("name", null);
+                fail = "true".equals(resource.optString("fail", null));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            synchronized (this) {
+                invocations.add(name != null ? path + " " + name : path);
+                dataByPath.put(path, data);
+                overlapped |= !runningPaths.add(path);
+            }
+            try {
+                // keeps the operation running long enough for an unordered operation to overlap with it
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                runningPaths.remove(path);
+            }
+
+            if (fail) {
+                return new SCIMResponse(500, "{\"Errors\":[{\"description\":\"Failed\",\"code\":\"500\"}]}",
+                        new HashMap<String, String>());
+            }
+            if ("DELETE".equals(method)) {
+                return new SCIMResponse(204, null, new HashMap<String, String>());
+            }
+            String id = "id-" + name;
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Location", ("POST".equals(method) ? path + "/" + id : path));
+            return new SCIMResponse("POST".equals(method) ? 201 : 200, "{\"id\":\"" + id + "\"}", headers);
+        }
+
+        private synchronized List<String> getInvocations() {
+            return new ArrayList<>(invocations);
+        }
+
+        private synchronized List<String> getInvocations(String path) {
+
+            List<String> pathInvocations = new ArrayList<>();
+            for (String invocation : invocations) {
+                if (invocation.startsWith(path + " ")) {
+                    pathInvocations.add(invocation);
+                }
+            }
+            return pathInvocations;
+        }
+
+        private synchronized String getData(String path) {
+            return dataByPath.get(path);
+        }
+
+        private synchronized boolean isOverlapped() {
+            return overlapped;
+        }
+    }
+}
@@ -17,27 +17,21 @@
  */
 package org.wso2.carbon.identity.sso.saml.builders;
 
-import org.apache.xml.security.signature.XMLSignature;
 import org.opensaml.xml.security.credential.Credential;
 import org.opensaml.xml.security.credential.CredentialContextSet;
 import org.opensaml.xml.security.credential.UsageType;
 import org.opensaml.xml.security.x509.X509Credential;
-import org.wso2.carbon.base.ServerConfiguration;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
-import org.wso2.carbon.core.util.KeyStoreManager;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.sso.saml.SAMLSSOConstants;
+import org.wso2.carbon.identity.sso.saml.util.SAMLSSOCredentialCache;
 import org.wso2.carbon.identity.sso.saml.util.SAMLSSOUtil;
-import org.wso2.carbon.security.keystore.KeyStoreAdmin;
-import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import javax.crypto.SecretKey;
-import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.security.cert.Certificate;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
@@ -48,7 +42,6 @@ import java.util.Collections;
 
 public class SignKeyDataHolder implements X509Credential {
 
-    private static final String DSA_ENCRYPTION_ALGORITHM = "DSA";
     public static final String SECURITY_KEY_STORE_KEY_ALIAS = "Security.KeyStore.KeyAlias";
 
     private String signatureAlgorithm = null;
@@ -57,10 +50,6 @@ public class SignKeyDataHolder implements X509Credential {
     private PrivateKey issuerPK = null;
 
     public SignKeyDataHolder(String username) throws IdentityException {
-        String keyAlias = null;
-        KeyStoreAdmin keyAdmin;
-        KeyStoreManager keyMan;
-        Certificate[] certificates;
         int tenantID;
         String tenantDomain;
         String userTenantDomain;
@@ -96,53 +85,12 @@ public class SignKeyDataHolder implements X509Credential {
 
             IdentityTenantUtil.initializeRegistry(tenantID, tenantDomain);
 
-            if (tenantID != MultitenantConstants.SUPER_TENANT_ID) {
-                String keyStoreName = SAMLSSOUtil.generateKSNameFromDomainName(tenantDomain);
-                keyAlias = tenantDomain;
-                keyMan = KeyStoreManager.getInstance(tenantID);
-                KeyStore keyStore = keyMan.getKeyStore(keyStoreName);
-                issuerPK = (PrivateKey) keyMan.getPrivateKey(keyStoreName, tenantDomain);
-                certificates = keyStore.getCertificateChain(keyAlias);
-                issuerCerts = new X509Certificate[certificates.length];
-
-                int i = 0;
-                for (Certificate certificate : certificates) {
-                    issuerCerts[i++] = (X509Certificate) certificate;
-                }
-
-                signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_RSA;
-
-                String pubKeyAlgo = issuerCerts[0].getPublicKey().getAlgorithm();
-                if (DSA_ENCRYPTION_ALGORITHM.equalsIgnoreCase(pubKeyAlgo)) {
-                    signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_DSA;
-                }
-
-            } else {
-                keyAlias = ServerConfiguration.getInstance().getFirstProperty(
-                        SECURITY_KEY_STORE_KEY_ALIAS);
-
-                keyAdmin = new KeyStoreAdmin(tenantID,
-                        SAMLSSOUtil.getRegistryService().getGovernanceSystemRegistry());
-                keyMan = KeyStoreManager.getInstance(tenantID);
-
-                issuerPK = (PrivateKey) keyAdmin.getPrivateKey(keyAlias, true);
-
-                certificates = keyMan.getPrimaryKeyStore().getCertificateChain(keyAlias);
-
-                issuerCerts = new X509Certificate[certificates.length];
-
-                int i = 0;
-                for (Certificate certificate : certificates) {
-                    issuerCerts[i++] = (X509Certificate) certificate;
-                }
-
-                signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_RSA;
-
-                String pubKeyAlgo = issuerCerts[0].getPublicKey().getAlgorithm();
-                if (DSA_ENCRYPTION_ALGORITHM.equalsIgnoreCase(pubKeyAlgo)) {
-                    signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_DSA;
-                }
-            }
+            // the private key and the certificate chain are loaded from the key store only when changed
+            SAMLSSOCredentialCache.SigningCredential credential =
+                    SAMLSSOCredentialCache.getInstance().getSigningCredential(tenantID, tenantDomain);
+            issuerPK = credential.getPrivateKey();
+            issuerCerts = credential.getCertificateChain();
+            signatureAlgorithm = credential.getSignatureAlgorithm();
 
         } catch (Exception e) {
             throw new IdentityException(e.getMessage(), e);
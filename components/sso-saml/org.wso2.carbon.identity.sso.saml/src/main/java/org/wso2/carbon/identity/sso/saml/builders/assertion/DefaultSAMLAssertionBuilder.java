@@ -68,8 +68,6 @@ public class DefaultSAMLAssertionBuilder implements SAMLAssertionBuilder {
 
     private static Log log = LogFactory.getLog(DefaultSAMLAssertionBuilder.class);
 
-    private String userAttributeSeparator = IdentityCoreConstants.MULTI_ATTRIBUTE_SEPARATOR_DEFAULT;
-
     @Override
     public void init() throws IdentityException {
         //Overridden method, no need to implement the body
@@ -186,6 +184,8 @@ public class DefaultSAMLAssertionBuilder implements SAMLAssertionBuilder {
 
     private AttributeStatement buildAttributeStatement(Map<String, String> claims) {
 
+        // the builder is shared between requests, so the separator is kept per call
+        String userAttributeSeparator = IdentityCoreConstants.MULTI_ATTRIBUTE_SEPARATOR_DEFAULT;
         String claimSeparator = claims.get(IdentityCoreConstants.MULTI_ATTRIBUTE_SEPARATOR);
         if (StringUtils.isNotBlank(claimSeparator)) {
             userAttributeSeparator = claimSeparator;
@@ -22,6 +22,10 @@ import org.opensaml.saml2.core.Assertion;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.sso.saml.dto.SAMLSSOAuthnReqDTO;
 
+/**
+ * Builds the SAML assertion of an authentication response. A single instance of the configured class is
+ * initialized and used to build the assertions of concurrent requests, therefore it must be thread safe.
+ */
 public interface SAMLAssertionBuilder {
 
     public void init() throws IdentityException;
@@ -24,6 +24,9 @@ import org.wso2.carbon.identity.base.IdentityException;
 
 /**
  * Interface to Encrypt SAML assertion
+ * <p/>
+ * The configured class is instantiated once and the instance is shared by concurrent requests, hence an
+ * implementation must be thread safe.
  */
 
 public interface SSOEncrypter {
@@ -25,6 +25,9 @@ import org.wso2.carbon.identity.base.IdentityException;
 
 /**
  * Interface to Sign and validate the signature in SAML assertion
+ * <p/>
+ * One instance of the configured class is created and initialized, and it is then used by all the SAML SSO
+ * requests at the same time. Implementations must be thread safe.
  */
 
 public interface SSOSigner {
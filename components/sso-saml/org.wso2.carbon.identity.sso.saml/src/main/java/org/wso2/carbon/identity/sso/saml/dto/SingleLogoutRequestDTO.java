@@ -26,6 +26,7 @@ public class SingleLogoutRequestDTO implements Serializable {
     private String assertionConsumerURL;
     private String logoutResponse;
     private String rpSessionId;
+    private String issuer;
 
     public String getAssertionConsumerURL() {
         return assertionConsumerURL;
@@ -50,4 +51,12 @@ public class SingleLogoutRequestDTO implements Serializable {
     public void setRpSessionId(String rpSessionId) {
         this.rpSessionId = rpSessionId;
     }
-}
\ No newline at end of file
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+}
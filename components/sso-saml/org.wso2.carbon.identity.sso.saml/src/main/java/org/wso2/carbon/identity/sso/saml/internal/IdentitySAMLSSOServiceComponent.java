@@ -30,10 +30,13 @@ import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.sso.saml.SAMLSSOConstants;
 import org.wso2.carbon.identity.sso.saml.SSOServiceProviderConfigManager;
 import org.wso2.carbon.identity.sso.saml.admin.FileBasedConfigManager;
+import org.wso2.carbon.identity.sso.saml.logout.LogoutRequestSender;
 import org.wso2.carbon.identity.sso.saml.servlet.SAMLSSOProviderServlet;
+import org.wso2.carbon.identity.sso.saml.util.SAMLSSOCredentialCache;
 import org.wso2.carbon.identity.sso.saml.util.SAMLSSOUtil;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.utils.Axis2ConfigurationContextObserver;
 import org.wso2.carbon.utils.CarbonUtils;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
@@ -91,6 +94,9 @@ public class IdentitySAMLSSOServiceComponent {
         // Register a SSOServiceProviderConfigManager object as an OSGi Service
         ctxt.getBundleContext().registerService(SSOServiceProviderConfigManager.class.getName(),
                 SSOServiceProviderConfigManager.getInstance(), null);
+        // Register a Axis2ConfigurationContextObserver to remove the credentials of tenants as they unload.
+        ctxt.getBundleContext().registerService(Axis2ConfigurationContextObserver.class.getName(),
+                new SAMLSSOConfigurationContextObserver(), null);
         String redirectHtmlPath = null;
         FileInputStream fis = null;
         try {
@@ -157,6 +163,8 @@ public class IdentitySAMLSSOServiceComponent {
 
     protected void deactivate(ComponentContext ctxt) {
         SAMLSSOUtil.setBundleContext(null);
+        LogoutRequestSender.shutdown();
+        SAMLSSOCredentialCache.getInstance().clear();
         if (log.isDebugEnabled()) {
             log.info("Identity SAML SSO bundle is deactivated");
         }
@@ -18,20 +18,25 @@
 package org.wso2.carbon.identity.sso.saml.logout;
 
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.ssl.SSLSocketFactory;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.wso2.carbon.identity.base.IdentityConstants;
-import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityConfigParser;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.sso.saml.SAMLSSOConstants;
@@ -42,36 +47,168 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
+import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is used to send logout requests to each and every session participant. It follows a fire and
  * forget approach where the task of sending each and every logout request is submitted to a threadpool
  * as a job. This class implements a singleton, because it is expensive to create thread pool for each
  * and every object.
+ * <p/>
+ * All logout requests are sent through one HTTP client, which keeps the connections to the session participants
+ * alive in a pool with a per host limit. A request that fails with an I/O error, a 5xx, 408 or 429 status is
+ * sent again after <code>SingleLogoutRetryInterval</code> milliseconds, until it has been attempted
+ * <code>SingleLogoutRetryCount</code> times. Waiting for a retry is done on a scheduler, not on a worker thread.
+ * <p/>
+ * Statistics of each session participant are written to the log every <code>StatisticsLogInterval</code>
+ * milliseconds, if it is configured. The thread pools and the HTTP client are released by {@link #shutdown()}, and
+ * a new sender is created by the next call to {@link #getInstance()}.
  */
 public class LogoutRequestSender {
 
     private static Log log = LogFactory.getLog(LogoutRequestSender.class);
 
-    private static ExecutorService threadPool = Executors.newFixedThreadPool(2);
+    private static final String SOAP_ACTION = "http://www.oasis-open.org/committees/security";
 
-    private static LogoutRequestSender instance = new LogoutRequestSender();
+    private static int poolSize = 10;
+    private static int maxConnections = 100;
+    private static int maxConnectionsPerRoute = 10;
+    private static int connectTimeout = 10000;
+    private static int socketTimeout = 30000;
+    private static long statisticsLogInterval = 0;
+
+    static {
+        try {
+            String poolSizeConfigValue = IdentityUtil.getProperty("SSOService.SingleLogout.PoolSize");
+            if (StringUtils.isNotBlank(poolSizeConfigValue) && Integer.parseInt(poolSizeConfigValue) > 0) {
+                poolSize = Integer.parseInt(poolSizeConfigValue);
+            }
+            String maxConnectionsConfigValue = IdentityUtil.getProperty("SSOService.SingleLogout.MaxConnections");
+            if (StringUtils.isNotBlank(maxConnectionsConfigValue) &&
+                    Integer.parseInt(maxConnectionsConfigValue) > 0) {
+                maxConnections = Integer.parseInt(maxConnectionsConfigValue);
+            }
+            String maxPerRouteConfigValue = IdentityUtil.getProperty(
+                    "SSOService.SingleLogout.MaxConnectionsPerRoute");
+            if (StringUtils.isNotBlank(maxPerRouteConfigValue) && Integer.parseInt(maxPerRouteConfigValue) > 0) {
+                maxConnectionsPerRoute = Integer.parseInt(maxPerRouteConfigValue);
+            }
+            String connectTimeoutConfigValue = IdentityUtil.getProperty("SSOService.SingleLogout.ConnectTimeout");
+            if (StringUtils.isNotBlank(connectTimeoutConfigValue)) {
+                connectTimeout = Integer.parseInt(connectTimeoutConfigValue);
+            }
+            String socketTimeoutConfigValue = IdentityUtil.getProperty("SSOService.SingleLogout.SocketTimeout");
+            if (StringUtils.isNotBlank(socketTimeoutConfigValue)) {
+                socketTimeout = Integer.parseInt(socketTimeoutConfigValue);
+            }
+            String statisticsLogIntervalConfigValue = IdentityUtil.getProperty(
+                    "SSOService.SingleLogout.StatisticsLogInterval");
+            if (StringUtils.isNotBlank(statisticsLogIntervalConfigValue)) {
+                statisticsLogInterval = Long.parseLong(statisticsLogIntervalConfigValue);
+            }
+        } catch (NumberFormatException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error while parsing the number", e);
+            }
+            log.warn("Single logout configuration is invalid. Using default values.");
+        }
+    }
+
+    private static volatile LogoutRequestSender instance = null;
+
+    private final ExecutorService threadPool = Executors.newFixedThreadPool(poolSize);
+
+    /**
+     * delays the retries of failed logout requests and logs the statistics. It never sends logout requests itself.
+     */
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final CloseableHttpClient httpClient;
+
+    // statistics against the issuer of the session participant
+    private final ConcurrentMap<String, SingleLogoutStatistics> statistics =
+            new ConcurrentHashMap<String, SingleLogoutStatistics>();
 
     /**
      * A private constructor since we are implementing a singleton here
      */
     private LogoutRequestSender() {
 
+        RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory());
+        try {
+            TrustManager easyTrustManager = new X509TrustManager() {
+
+                @Override
+                public void checkClientTrusted(
+                        java.security.cert.X509Certificate[] x509Certificates,
+                        String s)
+                        throws java.security.cert.CertificateException {
+                    //overridden method, no method body needed here
+                }
+
+                @Override
+                public void checkServerTrusted(
+                        java.security.cert.X509Certificate[] x509Certificates,
+                        String s)
+                        throws java.security.cert.CertificateException {
+                    //overridden method, no method body needed here
+                }
+
+                @Override
+                public X509Certificate[] getAcceptedIssuers() {
+                    return new X509Certificate[0];
+                }
+            };
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{easyTrustManager}, null);
+            registryBuilder.register("https", new SSLConnectionSocketFactory(sslContext,
+                    SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER));
+        } catch (GeneralSecurityException e) {
+            log.error("Error registering the EasySSLProtocolSocketFactory. Using the default SSL socket factory", e);
+            registryBuilder.register("https", SSLConnectionSocketFactory.getSocketFactory());
+        }
+        Registry<ConnectionSocketFactory> registry = registryBuilder.build();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .setSocketTimeout(socketTimeout)
+                .build();
+
+        // the session cookie of each participant is set on the request, hence cookies are not kept by the client
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableCookieManagement()
+                .build();
+
+        if (statisticsLogInterval > 0) {
+            retryScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    logStatistics();
+                }
+            }, statisticsLogInterval, statisticsLogInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -80,7 +217,47 @@ public class LogoutRequestSender {
      * @return LogoutRequestSender instance
      */
     public static LogoutRequestSender getInstance() {
-        return instance;
+        LogoutRequestSender sender = instance;
+        if (sender == null) {
+            synchronized (LogoutRequestSender.class) {
+                sender = instance;
+                if (sender == null) {
+                    sender = new LogoutRequestSender();
+                    instance = sender;
+                }
+            }
+        }
+        return sender;
+    }
+
+    /**
+     * Stops the thread pools and closes the pooled connections of the sender, if it has been created. Logout
+     * requests which are waiting for a retry are dropped.
+     */
+    public static void shutdown() {
+        LogoutRequestSender sender;
+        synchronized (LogoutRequestSender.class) {
+            sender = instance;
+            instance = null;
+        }
+        if (sender == null) {
+            return;
+        }
+        sender.retryScheduler.shutdownNow();
+        sender.threadPool.shutdown();
+        try {
+            if (!sender.threadPool.awaitTermination(connectTimeout, TimeUnit.MILLISECONDS)) {
+                sender.threadPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.threadPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sender.httpClient.close();
+        } catch (IOException e) {
+            log.error("Error while closing the single logout HTTP client", e);
+        }
     }
 
     /**
@@ -95,7 +272,15 @@ public class LogoutRequestSender {
         }
         // For each logoutReq, create a new task and submit it to the thread pool.
         for (SingleLogoutRequestDTO reqDTO : singleLogoutRequestDTOs) {
-            threadPool.submit(new LogoutReqSenderTask(reqDTO));
+            LogoutReqSenderTask task = new LogoutReqSenderTask(reqDTO, getStatistics(reqDTO));
+            task.statistics.submitted();
+            try {
+                threadPool.submit(task);
+            } catch (RejectedExecutionException e) {
+                task.statistics.failed();
+                log.error("Single logout request to : " + reqDTO.getAssertionConsumerURL() + " is rejected", e);
+                continue;
+            }
             if (log.isDebugEnabled()) {
                 log.debug("A logoutReqSenderTask is assigned to the thread pool");
 
@@ -104,51 +289,158 @@ public class LogoutRequestSender {
     }
 
     /**
-     * This method is used to derive the port from the assertion consumer URL.
+     * Get the single logout statistics of the session participants, against their issuer. The logout URL is used
+     * for a participant of which the issuer is not known.
      *
-     * @param assertionConsumerURL Assertion Consumer URL
-     * @return Port, if mentioned in the URL, or else 443 as the default value
-     * @throws MalformedURLException when the ACS is malformed.
+     * @return statistics of the session participants
      */
-    private int derivePortFromAssertionConsumerURL(String assertionConsumerURL)
-            throws URISyntaxException {
-        int port = 443;    // use 443 as the default port
-        try {
-            URI uri = new URI(assertionConsumerURL);
-            if (uri.getPort() != -1) {    // if the port is mentioned in the URL
-                port = uri.getPort();
-            } else if ("http".equals(uri.getScheme())) {  // if it is using http
-                port = 80;
+    public Map<String, SingleLogoutStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    private void logStatistics() {
+        for (SingleLogoutStatistics stats : statistics.values()) {
+            log.info("Single logout statistics of " + stats.getIssuer() + " : pending " + stats.getPendingCount() +
+                    ", attempts " + stats.getAttemptCount() + ", succeeded " + stats.getSuccessCount() +
+                    ", retried " + stats.getRetryCount() + ", failed " + stats.getFailureCount() +
+                    ", average latency " + Math.round(stats.getAverageLatency()) + " ms, last latency " +
+                    stats.getLastLatency() + " ms");
+        }
+    }
+
+    private SingleLogoutStatistics getStatistics(SingleLogoutRequestDTO reqDTO) {
+
+        String key = reqDTO.getIssuer();
+        if (StringUtils.isBlank(key)) {
+            key = reqDTO.getAssertionConsumerURL();
+        }
+        SingleLogoutStatistics stats = statistics.get(key);
+        if (stats == null) {
+            stats = new SingleLogoutStatistics(key);
+            SingleLogoutStatistics existing = statistics.putIfAbsent(key, stats);
+            if (existing != null) {
+                stats = existing;
             }
-        } catch (URISyntaxException e) {
-            log.error("Error deriving port from the assertion consumer url", e);
-            throw e;
         }
-        return port;
+        return stats;
+    }
+
+    /**
+     * A failed attempt is worth retrying only if the participant may accept the same request later
+     *
+     * @param statusCode HTTP status code of the response
+     * @return true if the request should be sent again
+     */
+    private static boolean isTransientFailure(int statusCode) {
+        return statusCode >= 500 || statusCode == HttpStatus.SC_REQUEST_TIMEOUT || statusCode == 429;
     }
 
     /**
      * This class is used to model a single logout request that is being sent to a session participant.
      * It will send the logout req. to the session participant in its 'run' method when this job is
-     * submitted to the thread pool.
+     * submitted to the thread pool. A failed attempt schedules the same task again.
      */
     private class LogoutReqSenderTask implements Runnable {
 
         private SingleLogoutRequestDTO logoutReqDTO;
+        private SingleLogoutStatistics statistics;
+        private HttpPost httpPost;
+        private int attemptCount;
 
-        public LogoutReqSenderTask(SingleLogoutRequestDTO logoutReqDTO) {
+        public LogoutReqSenderTask(SingleLogoutRequestDTO logoutReqDTO, SingleLogoutStatistics statistics) {
             this.logoutReqDTO = logoutReqDTO;
+            this.statistics = statistics;
         }
 
         @Override
         public void run() {
+            try {
+                if (httpPost == null) {
+                    httpPost = buildLogoutRequest();
+                }
+            } catch (UnsupportedEncodingException | RuntimeException e) {
+                statistics.failed();
+                log.error("Error building the logout request to : " + logoutReqDTO.getAssertionConsumerURL(), e);
+                return;
+            }
+
+            attemptCount++;
+            int statusCode = 0;
+            long start = System.currentTimeMillis();
+            // send the logout request as a POST
+            try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                statusCode = response.getStatusLine().getStatusCode();
+                // consume the response so that the connection goes back to the pool
+                EntityUtils.consume(response.getEntity());
+            } catch (IOException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error while executing http request.", e);
+                }
+                // ignore this exception since retrying is enabled if there is no response.
+            } catch (RuntimeException e) {
+                log.error("Runtime exception occurred.", e);
+            }
+            statistics.attempted(System.currentTimeMillis() - start);
+
+            if (SAMLSSOUtil.isHttpSuccessStatusCode(statusCode) || SAMLSSOUtil.isHttpRedirectStatusCode(statusCode)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("single logout request is sent to : " + logoutReqDTO.getAssertionConsumerURL() +
+                            " is returned with " + HttpStatus.getStatusText(statusCode));
+                }
+                statistics.succeeded();
+                return;
+            }
+
+            if (statusCode != 0) {
+                log.warn("Failed single logout response from " +
+                        logoutReqDTO.getAssertionConsumerURL() + " with status code " +
+                        HttpStatus.getStatusText(statusCode));
+            }
+            if (statusCode != 0 && !isTransientFailure(statusCode)) {
+                statistics.failed();
+                log.error("Single logout failed for " + logoutReqDTO.getAssertionConsumerURL() +
+                        ". The request is not retried for the status code " + statusCode);
+                return;
+            }
+            if (attemptCount >= SAMLSSOUtil.getSingleLogoutRetryCount()) {
+                statistics.failed();
+                log.error("Single logout failed after retrying " + SAMLSSOUtil.getSingleLogoutRetryCount() +
+                        " times with time interval " + SAMLSSOUtil.getSingleLogoutRetryInterval() +
+                        " in milli seconds.");
+                return;
+            }
+
+            log.info("Sending single log out request again with retry count " + attemptCount + " after waiting for " +
+                    SAMLSSOUtil.getSingleLogoutRetryInterval() + " milli seconds to " +
+                    logoutReqDTO.getAssertionConsumerURL());
+            statistics.retried();
+            try {
+                retryScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            threadPool.submit(LogoutReqSenderTask.this);
+                        } catch (RejectedExecutionException e) {
+                            statistics.failed();
+                            log.error("Single logout request to : " + logoutReqDTO.getAssertionConsumerURL() +
+                                    " is rejected", e);
+                        }
+                    }
+                }, SAMLSSOUtil.getSingleLogoutRetryInterval(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                statistics.failed();
+                log.error("Single logout request to : " + logoutReqDTO.getAssertionConsumerURL() +
+                        " could not be scheduled for a retry", e);
+            }
+        }
+
+        private HttpPost buildLogoutRequest() throws UnsupportedEncodingException {
             List<NameValuePair> logoutReqParams = new ArrayList<NameValuePair>();
             // set the logout request
             String startSoapBinding = "<SOAP-ENV:Envelope xmlns:SOAP-ENV=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
                     "<SOAP-ENV:Body>";
             String endSoapBinding = "</SOAP-ENV:Body>" +
                     "</SOAP-ENV:Envelope>";
-            String soapAction = "http://www.oasis-open.org/committees/security";
 
             StringBuffer logoutRequestWithSoapBinding = new StringBuffer();
             String decodedSAMLRequest = null;
@@ -181,119 +473,17 @@ public class LogoutRequestSender {
                 log.debug("SAMLRequest : " + decodedSAMLRequest);
             }
 
-            try {
-                int port = derivePortFromAssertionConsumerURL(logoutReqDTO.getAssertionConsumerURL());
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(logoutReqParams, "UTF-8");
-                HttpPost httpPost = new HttpPost(logoutReqDTO.getAssertionConsumerURL());
-                httpPost.setEntity(entity);
-                httpPost.addHeader("Cookie", "JSESSIONID=" + logoutReqDTO.getRpSessionId());
-                if (isSAMLSOAPBindingEnabled) {
-                    httpPost.addHeader("SOAPAction", soapAction);
-                }
-                TrustManager easyTrustManager = new X509TrustManager() {
-
-                    @Override
-                    public void checkClientTrusted(
-                            java.security.cert.X509Certificate[] x509Certificates,
-                            String s)
-                            throws java.security.cert.CertificateException {
-                        //overridden method, no method body needed here
-                    }
-
-                    @Override
-                    public void checkServerTrusted(
-                            java.security.cert.X509Certificate[] x509Certificates,
-                            String s)
-                            throws java.security.cert.CertificateException {
-                        //overridden method, no method body needed here
-                    }
-
-                    @Override
-                    public X509Certificate[] getAcceptedIssuers() {
-                        return new X509Certificate[0];
-                    }
-                };
-
-                SSLContext sslContext = SSLContext.getInstance("TLS");
-                sslContext.init(null, new TrustManager[]{easyTrustManager}, null);
-                SSLSocketFactory sf = new SSLSocketFactory(sslContext);
-                sf.setHostnameVerifier(SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-                Scheme httpsScheme = new Scheme("https", sf, port);
-
-                HttpClient httpClient = new DefaultHttpClient();
-                httpClient.getConnectionManager().getSchemeRegistry().register(httpsScheme);
-
-                HttpResponse response = null;
-                boolean isSuccessfullyLogout = false;
-                for (int currentRetryCount = 0; currentRetryCount < SAMLSSOUtil.getSingleLogoutRetryCount(); currentRetryCount++) {
-                    int statusCode = 0;
-
-                    //Completely consume the previous response before retrying
-                    if (response != null) {
-                        HttpEntity httpEntity = response.getEntity();
-                        if (httpEntity != null && httpEntity.isStreaming()) {
-                            InputStream instream = httpEntity.getContent();
-                            if (instream != null)
-                                instream.close();
-                        }
-                    }
-
-                    // send the logout request as a POST
-                    try {
-                        response = httpClient.execute(httpPost);
-                        statusCode = response.getStatusLine().getStatusCode();
-                    } catch (IOException e) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Error while executing http request.", e);
-                        }
-                        // ignore this exception since retrying is enabled if response is null.
-                    }
-                    if (response != null && (SAMLSSOUtil.isHttpSuccessStatusCode(statusCode) || SAMLSSOUtil
-                            .isHttpRedirectStatusCode(statusCode))) {
-                        if (log.isDebugEnabled()) {
-                            log.debug("single logout request is sent to : " + logoutReqDTO.getAssertionConsumerURL() +
-                                    " is returned with " + HttpStatus.getStatusText(response.getStatusLine().getStatusCode()));
-                        }
-                        isSuccessfullyLogout = true;
-                        break;
-                    } else {
-                        if (statusCode != 0) {
-                            log.warn("Failed single logout response from " +
-                                    logoutReqDTO.getAssertionConsumerURL() + " with status code " +
-                                    HttpStatus.getStatusText(statusCode));
-                        }
-                        try {
-                            synchronized (Thread.currentThread()) {
-                                Thread.currentThread().wait(SAMLSSOUtil.getSingleLogoutRetryInterval());
-                            }
-                            log.info("Sending single log out request again with retry count " +
-                                    (currentRetryCount + 1) + " after waiting for " +
-                                    SAMLSSOUtil.getSingleLogoutRetryInterval() + " milli seconds to " +
-                                    logoutReqDTO.getAssertionConsumerURL());
-                        } catch (InterruptedException e) {
-                            //Todo: handle this in better way.
-                        }
-                    }
-
-                }
-                if (!isSuccessfullyLogout) {
-                    log.error("Single logout failed after retrying " + SAMLSSOUtil.getSingleLogoutRetryCount() +
-                            " times with time interval " + SAMLSSOUtil.getSingleLogoutRetryInterval() + " in milli seconds.");
-                }
-
-            } catch (IOException e) {
-                log.error("Error sending logout requests to : " +
-                        logoutReqDTO.getAssertionConsumerURL(), e);
-            } catch (GeneralSecurityException e) {
-                log.error("Error registering the EasySSLProtocolSocketFactory", e);
-            } catch (RuntimeException e) {
-                log.error("Runtime exception occurred.", e);
-            } catch (URISyntaxException e) {
-                log.error("Error deriving port from the assertion consumer url", e);
+            // the form entity is repeatable, hence the same request is sent on each attempt
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(logoutReqParams, "UTF-8");
+            HttpPost post = new HttpPost(logoutReqDTO.getAssertionConsumerURL());
+            post.setEntity(entity);
+            post.addHeader("Cookie", "JSESSIONID=" + logoutReqDTO.getRpSessionId());
+            if (isSAMLSOAPBindingEnabled) {
+                post.addHeader("SOAPAction", SOAP_ACTION);
             }
+            return post;
         }
     }
 
 
 }
-
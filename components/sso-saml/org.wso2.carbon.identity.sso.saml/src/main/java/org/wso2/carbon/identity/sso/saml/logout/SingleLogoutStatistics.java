@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.sso.saml.logout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Back channel single logout statistics of a service provider, as seen by the {@link LogoutRequestSender}.
+ */
+public class SingleLogoutStatistics {
+
+    private final String issuer;
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong attemptCount = new AtomicLong();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private volatile long lastLatency;
+
+    public SingleLogoutStatistics(String issuer) {
+        this.issuer = issuer;
+    }
+
+    /**
+     * @return issuer of the service provider, or the logout URL if the issuer is not known
+     */
+    public String getIssuer() {
+        return issuer;
+    }
+
+    /**
+     * @return number of logout requests which are not completed yet, including the ones waiting for a retry
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    public long getAttemptCount() {
+        return attemptCount.get();
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return number of logout requests which failed after all their attempts
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * @return average time taken by an attempt, in milliseconds
+     */
+    public double getAverageLatency() {
+        long attempts = attemptCount.get();
+        return attempts == 0 ? 0 : (double) totalLatency.get() / attempts;
+    }
+
+    /**
+     * @return time taken by the last attempt, in milliseconds
+     */
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    void submitted() {
+        pendingCount.incrementAndGet();
+    }
+
+    void attempted(long latency) {
+        attemptCount.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        lastLatency = latency;
+    }
+
+    void retried() {
+        retryCount.incrementAndGet();
+    }
+
+    void succeeded() {
+        pendingCount.decrementAndGet();
+        successCount.incrementAndGet();
+    }
+
+    void failed() {
+        pendingCount.decrementAndGet();
+        failureCount.incrementAndGet();
+    }
+}
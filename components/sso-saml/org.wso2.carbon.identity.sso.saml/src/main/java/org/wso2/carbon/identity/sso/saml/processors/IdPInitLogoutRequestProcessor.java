@@ -139,6 +139,7 @@ public class IdPInitLogoutRequestProcessor implements IdpInitSSOLogoutRequestPro
                     String logoutReqString = SAMLSSOUtil.marshall(logoutReq);
                     logoutReqDTO.setLogoutResponse(logoutReqString);
                     logoutReqDTO.setRpSessionId(rpSessionsList.get(key));
+                    logoutReqDTO.setIssuer(value.getIssuer());
                     singleLogoutReqDTOs.add(logoutReqDTO);
                 }
             }
@@ -226,6 +226,7 @@ public class SPInitLogoutRequestProcessor implements SPInitSSOLogoutRequestProce
                         String logoutReqString = SAMLSSOUtil.marshall(logoutReq);
                         logoutReqDTO.setLogoutResponse(logoutReqString);
                         logoutReqDTO.setRpSessionId(rpSessionsList.get(key));
+                        logoutReqDTO.setIssuer(value.getIssuer());
                         singleLogoutReqDTOs.add(logoutReqDTO);
                     } else {
                         reqValidationResponseDTO.setIssuer(value.getIssuer());
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.sso.saml.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.xml.security.signature.XMLSignature;
+import org.wso2.carbon.base.ServerConfiguration;
+import org.wso2.carbon.core.util.KeyStoreManager;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.sso.saml.builders.SignKeyDataHolder;
+import org.wso2.carbon.identity.sso.saml.builders.X509CredentialImpl;
+import org.wso2.carbon.security.keystore.KeyStoreAdmin;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps the signing keys and the certificate credentials loaded from the tenant key stores, by
+ * tenant domain and alias, so that the private key is not read and decrypted again for each SAML message.
+ * The entries are kept in this node only, as private keys must not be replicated through the cluster.
+ * An entry is used only while the key store instance returned by the KeyStoreManager and the certificate
+ * stored under its alias are unchanged; otherwise it is loaded again from the key store.
+ */
+public enum SAMLSSOCredentialCache {
+
+    INSTANCE;
+
+    private static final String DSA_ENCRYPTION_ALGORITHM = "DSA";
+
+    private static Log log = LogFactory.getLog(SAMLSSOCredentialCache.class);
+
+    // signing credentials against the tenant domain
+    private ConcurrentHashMap<String, SigningCredential> signingCredentialMap;
+
+    // certificate credentials against the tenant domain and the alias
+    private ConcurrentHashMap<CredentialKey, CertificateCredential> certificateCredentialMap;
+
+    private SAMLSSOCredentialCache() {
+        this.signingCredentialMap = new ConcurrentHashMap<String, SigningCredential>();
+        this.certificateCredentialMap = new ConcurrentHashMap<CredentialKey, CertificateCredential>();
+    }
+
+    public static SAMLSSOCredentialCache getInstance() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Get the private key and the certificate chain used to sign the SAML messages of the tenant
+     *
+     * @param tenantId     tenant id
+     * @param tenantDomain tenant domain
+     * @return signing credential of the tenant
+     * @throws IdentityException Error when loading the key from the key store
+     */
+    public SigningCredential getSigningCredential(int tenantId, String tenantDomain) throws IdentityException {
+
+        try {
+            KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+            String keyStoreName = null;
+            String keyAlias;
+            KeyStore keyStore;
+
+            if (tenantId != MultitenantConstants.SUPER_TENANT_ID) {
+                keyStoreName = SAMLSSOUtil.generateKSNameFromDomainName(tenantDomain);
+                keyAlias = tenantDomain;
+                keyStore = keyStoreManager.getKeyStore(keyStoreName);
+            } else {
+                keyAlias = ServerConfiguration.getInstance().getFirstProperty(
+                        SignKeyDataHolder.SECURITY_KEY_STORE_KEY_ALIAS);
+                keyStore = keyStoreManager.getPrimaryKeyStore();
+            }
+
+            SigningCredential credential = signingCredentialMap.get(tenantDomain);
+            if (credential != null && credential.isValid(keyStore, keyAlias)) {
+                return credential;
+            }
+
+            PrivateKey privateKey;
+            if (tenantId != MultitenantConstants.SUPER_TENANT_ID) {
+                privateKey = (PrivateKey) keyStoreManager.getPrivateKey(keyStoreName, keyAlias);
+            } else {
+                KeyStoreAdmin keyAdmin = new KeyStoreAdmin(tenantId,
+                        SAMLSSOUtil.getRegistryService().getGovernanceSystemRegistry());
+                privateKey = (PrivateKey) keyAdmin.getPrivateKey(keyAlias, true);
+            }
+
+            Certificate[] certificates = keyStore.getCertificateChain(keyAlias);
+            X509Certificate[] certificateChain = new X509Certificate[certificates.length];
+            int i = 0;
+            for (Certificate certificate : certificates) {
+                certificateChain[i++] = (X509Certificate) certificate;
+            }
+
+            credential = new SigningCredential(keyStore, keyAlias, privateKey, certificateChain);
+            signingCredentialMap.put(tenantDomain, credential);
+            if (log.isDebugEnabled()) {
+                log.debug("Signing credential of the tenant : " + tenantDomain + " is loaded from the key store");
+            }
+            return credential;
+        } catch (IdentityException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IdentityException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the credential of the public certificate stored under the given alias in the tenant key store
+     *
+     * @param tenantId     tenant id
+     * @param tenantDomain tenant domain
+     * @param alias        alias of the certificate
+     * @return X509CredentialImpl object containing the public certificate
+     * @throws Exception Error when loading the certificate from the key store
+     */
+    public X509CredentialImpl getCertificateCredential(int tenantId, String tenantDomain, String alias)
+            throws Exception {
+
+        KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+        KeyStore keyStore;
+        if (tenantId != MultitenantConstants.SUPER_TENANT_ID) {
+            keyStore = keyStoreManager.getKeyStore(SAMLSSOUtil.generateKSNameFromDomainName(tenantDomain));
+        } else {
+            keyStore = keyStoreManager.getPrimaryKeyStore();
+        }
+
+        X509Certificate cert = (X509Certificate) keyStore.getCertificate(alias);
+        if (cert == null) {
+            throw new IdentityException("Certificate not found for the alias : " + alias + " in the key store of " +
+                    tenantDomain);
+        }
+
+        CredentialKey key = new CredentialKey(tenantDomain, alias);
+        CertificateCredential credential = certificateCredentialMap.get(key);
+        if (credential != null && cert.equals(credential.certificate)) {
+            return credential.credential;
+        }
+
+        credential = new CertificateCredential(cert, new X509CredentialImpl(cert));
+        certificateCredentialMap.put(key, credential);
+        return credential.credential;
+    }
+
+    /**
+     * Remove the credentials of the given tenant
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void clear(String tenantDomain) {
+
+        signingCredentialMap.remove(tenantDomain);
+        for (CredentialKey key : certificateCredentialMap.keySet()) {
+            if (key.tenantDomain.equals(tenantDomain)) {
+                certificateCredentialMap.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove the credentials of all the tenants
+     */
+    public void clear() {
+
+        signingCredentialMap.clear();
+        certificateCredentialMap.clear();
+    }
+
+    /**
+     * Private key, certificate chain and signature algorithm of a tenant. Instances are shared between threads
+     * and must not be modified.
+     */
+    public static class SigningCredential {
+
+        private KeyStore keyStore;
+        private String keyAlias;
+        private PrivateKey privateKey;
+        private X509Certificate[] certificateChain;
+        private String signatureAlgorithm;
+
+        private SigningCredential(KeyStore keyStore, String keyAlias, PrivateKey privateKey,
+                                  X509Certificate[] certificateChain) {
+            this.keyStore = keyStore;
+            this.keyAlias = keyAlias;
+            this.privateKey = privateKey;
+            this.certificateChain = certificateChain;
+
+            signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_RSA;
+            String pubKeyAlgo = certificateChain[0].getPublicKey().getAlgorithm();
+            if (DSA_ENCRYPTION_ALGORITHM.equalsIgnoreCase(pubKeyAlgo)) {
+                signatureAlgorithm = XMLSignature.ALGO_ID_SIGNATURE_DSA;
+            }
+        }
+
+        private boolean isValid(KeyStore currentKeyStore, String currentKeyAlias) throws Exception {
+            // the key store instance is replaced when it is reloaded, while an update done through the key
+            // store admin may change the same instance. A new key pair always comes with a new certificate.
+            return keyStore == currentKeyStore && keyAlias.equals(currentKeyAlias) &&
+                    certificateChain[0].equals(currentKeyStore.getCertificate(currentKeyAlias));
+        }
+
+        public PrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        public X509Certificate[] getCertificateChain() {
+            return certificateChain.clone();
+        }
+
+        public String getSignatureAlgorithm() {
+            return signatureAlgorithm;
+        }
+    }
+
+    private static class CertificateCredential {
+
+        private X509Certificate certificate;
+        private X509CredentialImpl credential;
+
+        private CertificateCredential(X509Certificate certificate, X509CredentialImpl credential) {
+            this.certificate = certificate;
+            this.credential = credential;
+        }
+    }
+
+    private static class CredentialKey {
+
+        private String tenantDomain;
+        private String alias;
+
+        private CredentialKey(String tenantDomain, String alias) {
+            this.tenantDomain = tenantDomain;
+            this.alias = alias;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((tenantDomain == null) ? 0 : tenantDomain.hashCode());
+            result = prime * result + ((alias == null) ? 0 : alias.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            CredentialKey other = (CredentialKey) obj;
+            if (tenantDomain == null) {
+                if (other.tenantDomain != null)
+                    return false;
+            } else if (!tenantDomain.equals(other.tenantDomain))
+                return false;
+            if (alias == null) {
+                if (other.alias != null)
+                    return false;
+            } else if (!alias.equals(other.alias))
+                return false;
+            return true;
+        }
+    }
+}
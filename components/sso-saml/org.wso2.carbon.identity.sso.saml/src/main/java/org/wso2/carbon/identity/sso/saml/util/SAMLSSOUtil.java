@@ -20,10 +20,7 @@ package org.wso2.carbon.identity.sso.saml.util;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.xerces.impl.Constants;
-import org.apache.xerces.util.SecurityManager;
 import org.joda.time.DateTime;
-import org.opensaml.Configuration;
 import org.opensaml.DefaultBootstrap;
 import org.opensaml.saml2.core.Assertion;
 import org.opensaml.saml2.core.AuthnRequest;
@@ -36,25 +33,14 @@ import org.opensaml.saml2.core.Response;
 import org.opensaml.saml2.core.impl.IssuerBuilder;
 import org.opensaml.xml.ConfigurationException;
 import org.opensaml.xml.XMLObject;
-import org.opensaml.xml.io.Marshaller;
-import org.opensaml.xml.io.MarshallerFactory;
-import org.opensaml.xml.io.Unmarshaller;
-import org.opensaml.xml.io.UnmarshallerFactory;
 import org.opensaml.xml.security.SecurityException;
 import org.opensaml.xml.security.x509.X509Credential;
 import org.opensaml.xml.signature.SignableXMLObject;
 import org.opensaml.xml.util.Base64;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.http.HttpService;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.bootstrap.DOMImplementationRegistry;
-import org.w3c.dom.ls.DOMImplementationLS;
-import org.w3c.dom.ls.LSOutput;
-import org.w3c.dom.ls.LSSerializer;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.context.RegistryType;
-import org.wso2.carbon.core.util.KeyStoreManager;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.IdentityProvider;
@@ -67,6 +53,7 @@ import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.persistence.IdentityPersistenceManager;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.core.util.IdentityXMLUtil;
 import org.wso2.carbon.identity.sso.saml.SAMLSSOConstants;
 import org.wso2.carbon.identity.sso.saml.SSOServiceProviderConfigManager;
 import org.wso2.carbon.identity.sso.saml.builders.DefaultResponseBuilder;
@@ -98,13 +85,9 @@ import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.ConfigurationContextService;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
@@ -113,7 +96,6 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyStore;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -136,9 +118,6 @@ public class SAMLSSOUtil {
     private static final ThreadLocal<Boolean> isSaaSApplication = new ThreadLocal<>();
     private static final ThreadLocal<String> userTenantDomainThreadLocal = new ThreadLocal<>();
     private static final String DefaultAssertionBuilder = "org.wso2.carbon.identity.sso.saml.builders.assertion.DefaultSAMLAssertionBuilder";
-    private static final String SECURITY_MANAGER_PROPERTY = Constants.XERCES_PROPERTY_PREFIX +
-            Constants.SECURITY_MANAGER_PROPERTY;
-    private static final int ENTITY_EXPANSION_LIMIT = 0;
 
     static {
         for (char c = 'a'; c <= 'z'; c++)
@@ -168,10 +147,12 @@ public class SAMLSSOUtil {
     private static int singleLogoutRetryCount = 5;
     private static long singleLogoutRetryInterval = 60000;
     private static String responseBuilderClassName = null;
-    private static SAMLAssertionBuilder samlAssertionBuilder = null;
-    private static SSOEncrypter ssoEncrypter = null;
-    private static SSOSigner ssoSigner = null;
-    private static SAML2HTTPRedirectSignatureValidator samlHTTPRedirectSignatureValidator = null;
+    // extension instances are created once and shared between the requests, see the thread safety
+    // requirement documented on their interfaces
+    private static volatile SAMLAssertionBuilder samlAssertionBuilder = null;
+    private static volatile SSOEncrypter ssoEncrypter = null;
+    private static volatile SSOSigner ssoSigner = null;
+    private static volatile SAML2HTTPRedirectSignatureValidator samlHTTPRedirectSignatureValidator = null;
     private static String sPInitSSOAuthnRequestValidatorClassName = null;
     private static String iDPInitSSOAuthnRequestValidatorClassName = null;
     private static ThreadLocal tenantDomainInThreadLocal = new ThreadLocal();
@@ -285,39 +266,15 @@ public class SAMLSSOUtil {
      * @throws org.wso2.carbon.identity.base.IdentityException
      */
     public static XMLObject unmarshall(String authReqStr) throws IdentityException {
-        InputStream inputStream = null;
+
+        doBootstrap();
         try {
-            doBootstrap();
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            documentBuilderFactory.setNamespaceAware(true);
-
-            documentBuilderFactory.setExpandEntityReferences(false);
-            documentBuilderFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-            SecurityManager securityManager = new SecurityManager();
-            securityManager.setEntityExpansionLimit(ENTITY_EXPANSION_LIMIT);
-            documentBuilderFactory.setAttribute(SECURITY_MANAGER_PROPERTY, securityManager);
-
-            DocumentBuilder docBuilder = documentBuilderFactory.newDocumentBuilder();
-            docBuilder.setEntityResolver(new CarbonEntityResolver());
-            inputStream = new ByteArrayInputStream(authReqStr.trim().getBytes(StandardCharsets.UTF_8));
-            Document document = docBuilder.parse(inputStream);
-            Element element = document.getDocumentElement();
-            UnmarshallerFactory unmarshallerFactory = Configuration.getUnmarshallerFactory();
-            Unmarshaller unmarshaller = unmarshallerFactory.getUnmarshaller(element);
-            return unmarshaller.unmarshall(element);
-        } catch (Exception e) {
+            return IdentityXMLUtil.unmarshall(authReqStr);
+        } catch (IdentityException e) {
             log.error("Error in constructing AuthRequest from the encoded String", e);
             throw new IdentityException(
                     "Error in constructing AuthRequest from the encoded String ",
                     e);
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    log.error("Error while closing the stream", e);
-                }
-            }
         }
     }
 
@@ -329,35 +286,12 @@ public class SAMLSSOUtil {
      */
     public static String marshall(XMLObject xmlObject) throws IdentityException {
 
-        ByteArrayOutputStream byteArrayOutputStrm = null;
+        doBootstrap();
         try {
-            doBootstrap();
-            System.setProperty("javax.xml.parsers.DocumentBuilderFactory",
-                    "org.apache.xerces.jaxp.DocumentBuilderFactoryImpl");
-
-            MarshallerFactory marshallerFactory = org.opensaml.xml.Configuration.getMarshallerFactory();
-            Marshaller marshaller = marshallerFactory.getMarshaller(xmlObject);
-            Element element = marshaller.marshall(xmlObject);
-
-            byteArrayOutputStrm = new ByteArrayOutputStream();
-            DOMImplementationRegistry registry = DOMImplementationRegistry.newInstance();
-            DOMImplementationLS impl = (DOMImplementationLS) registry.getDOMImplementation("LS");
-            LSSerializer writer = impl.createLSSerializer();
-            LSOutput output = impl.createLSOutput();
-            output.setByteStream(byteArrayOutputStrm);
-            writer.write(element, output);
-            return byteArrayOutputStrm.toString("UTF-8");
-        } catch (Exception e) {
+            return IdentityXMLUtil.marshall(xmlObject);
+        } catch (IdentityException e) {
             log.error("Error Serializing the SAML Response");
             throw new IdentityException("Error Serializing the SAML Response", e);
-        } finally {
-            if (byteArrayOutputStrm != null) {
-                try {
-                    byteArrayOutputStrm.close();
-                } catch (IOException e) {
-                    log.error("Error while closing the stream", e);
-                }
-            }
         }
     }
 
@@ -547,6 +481,10 @@ public class SAMLSSOUtil {
             } catch (ConfigurationException e) {
                 log.error("Error in bootstrapping the OpenSAML2 library", e);
             }
+            // OpenSAML creates the documents of the objects it marshalls, e.g. when signing, with this factory.
+            // This used to be set for each marshalled message, it is enough to set it once.
+            System.setProperty("javax.xml.parsers.DocumentBuilderFactory",
+                    "org.apache.xerces.jaxp.DocumentBuilderFactoryImpl");
         }
     }
 
@@ -629,13 +567,7 @@ public class SAMLSSOUtil {
 
             doBootstrap();
             try {
-                synchronized (Runtime.getRuntime().getClass()) {
-                    ssoSigner = (SSOSigner) Class.forName(IdentityUtil.getProperty(
-                            "SSOService.SAMLSSOSigner").trim()).newInstance();
-                    ssoSigner.init();
-                }
-
-                return ssoSigner.setSignature(request, signatureAlgorithm, digestAlgorithm, cred);
+                return getSSOSigner().setSignature(request, signatureAlgorithm, digestAlgorithm, cred);
 
             } catch (ClassNotFoundException e) {
                 throw new IdentityException("Class not found: "
@@ -657,12 +589,7 @@ public class SAMLSSOUtil {
         try {
             X509Credential cred = SAMLSSOUtil.getX509CredentialImplForTenant(domainName, alias);
 
-            synchronized (Runtime.getRuntime().getClass()) {
-                ssoEncrypter = (SSOEncrypter) Class.forName(IdentityUtil.getProperty(
-                        "SSOService.SAMLSSOEncrypter").trim()).newInstance();
-                ssoEncrypter.init();
-            }
-            return ssoEncrypter.doEncryptedAssertion(assertion, cred, alias, encryptionAlgorithm);
+            return getSSOEncrypter().doEncryptedAssertion(assertion, cred, alias, encryptionAlgorithm);
         } catch (ClassNotFoundException e) {
             throw new IdentityException("Class not found: "
                     + IdentityUtil.getProperty("SSOService.SAMLSSOEncrypter"), e);
@@ -681,26 +608,12 @@ public class SAMLSSOUtil {
                                                String sessionId) throws IdentityException {
 
         doBootstrap();
-        String assertionBuilderClass = null;
-        try {
-            assertionBuilderClass = IdentityUtil.getProperty("SSOService.SAMLSSOAssertionBuilder").trim();
-            if (StringUtils.isBlank(assertionBuilderClass)) {
-                assertionBuilderClass = DefaultAssertionBuilder;
-            }
-        } catch (Exception e) {
-            if (log.isDebugEnabled()) {
-                log.debug("SAMLSSOAssertionBuilder configuration is set to default builder ", e);
-            }
-            assertionBuilderClass = DefaultAssertionBuilder;
-        }
+        String assertionBuilderClass = getAssertionBuilderClassName();
 
         try {
 
-            synchronized (Runtime.getRuntime().getClass()) {
-                samlAssertionBuilder = (SAMLAssertionBuilder) Class.forName(assertionBuilderClass).newInstance();
-                samlAssertionBuilder.init();
-            }
-            return samlAssertionBuilder.buildAssertion(authReqDTO, notOnOrAfter, sessionId);
+            return getSAMLAssertionBuilder(assertionBuilderClass).buildAssertion(authReqDTO, notOnOrAfter,
+                    sessionId);
 
         } catch (ClassNotFoundException e) {
             throw new IdentityException("Class not found: "
@@ -716,6 +629,88 @@ public class SAMLSSOUtil {
         }
     }
 
+    private static String getAssertionBuilderClassName() {
+
+        String assertionBuilderClass;
+        try {
+            assertionBuilderClass = IdentityUtil.getProperty("SSOService.SAMLSSOAssertionBuilder").trim();
+            if (StringUtils.isBlank(assertionBuilderClass)) {
+                assertionBuilderClass = DefaultAssertionBuilder;
+            }
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("SAMLSSOAssertionBuilder configuration is set to default builder ", e);
+            }
+            assertionBuilderClass = DefaultAssertionBuilder;
+        }
+        return assertionBuilderClass;
+    }
+
+    private static SAMLAssertionBuilder getSAMLAssertionBuilder(String assertionBuilderClass)
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException, IdentityException {
+
+        if (samlAssertionBuilder == null) {
+            synchronized (SAMLAssertionBuilder.class) {
+                if (samlAssertionBuilder == null) {
+                    SAMLAssertionBuilder builder =
+                            (SAMLAssertionBuilder) Class.forName(assertionBuilderClass).newInstance();
+                    builder.init();
+                    samlAssertionBuilder = builder;
+                }
+            }
+        }
+        return samlAssertionBuilder;
+    }
+
+    private static SSOSigner getSSOSigner()
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException, IdentityException {
+
+        if (ssoSigner == null) {
+            synchronized (SSOSigner.class) {
+                if (ssoSigner == null) {
+                    SSOSigner signer = (SSOSigner) Class.forName(IdentityUtil.getProperty(
+                            "SSOService.SAMLSSOSigner").trim()).newInstance();
+                    signer.init();
+                    ssoSigner = signer;
+                }
+            }
+        }
+        return ssoSigner;
+    }
+
+    private static SSOEncrypter getSSOEncrypter()
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException, IdentityException {
+
+        if (ssoEncrypter == null) {
+            synchronized (SSOEncrypter.class) {
+                if (ssoEncrypter == null) {
+                    SSOEncrypter encrypter = (SSOEncrypter) Class.forName(IdentityUtil.getProperty(
+                            "SSOService.SAMLSSOEncrypter").trim()).newInstance();
+                    encrypter.init();
+                    ssoEncrypter = encrypter;
+                }
+            }
+        }
+        return ssoEncrypter;
+    }
+
+    private static SAML2HTTPRedirectSignatureValidator getSAMLHTTPRedirectSignatureValidator()
+            throws ClassNotFoundException, InstantiationException, IllegalAccessException, IdentityException {
+
+        if (samlHTTPRedirectSignatureValidator == null) {
+            synchronized (SAML2HTTPRedirectSignatureValidator.class) {
+                if (samlHTTPRedirectSignatureValidator == null) {
+                    SAML2HTTPRedirectSignatureValidator validator = (SAML2HTTPRedirectSignatureValidator) Class
+                            .forName(IdentityUtil.getProperty("SSOService.SAML2HTTPRedirectSignatureValidator")
+                                    .trim()).newInstance();
+                    validator.init();
+                    samlHTTPRedirectSignatureValidator = validator;
+                }
+            }
+        }
+        return samlHTTPRedirectSignatureValidator;
+    }
+
     public static String createID() {
 
         byte[] bytes = new byte[20]; // 160 bits
@@ -768,23 +763,13 @@ public class SAMLSSOUtil {
             throw new IdentitySAML2SSOException(errorMsg, e);
         }
 
-        KeyStoreManager keyStoreManager;
-        // get an instance of the corresponding Key Store Manager instance
-        keyStoreManager = KeyStoreManager.getInstance(tenantId);
-
         X509CredentialImpl credentialImpl = null;
-        KeyStore keyStore;
 
         try {
-            if (tenantId != -1234) {// for tenants, load private key from their generated key store
-                keyStore = keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
-            } else { // for super tenant, load the default pub. cert using the
-                // config. in carbon.xml
-                keyStore = keyStoreManager.getPrimaryKeyStore();
-            }
-            java.security.cert.X509Certificate cert =
-                    (java.security.cert.X509Certificate) keyStore.getCertificate(alias);
-            credentialImpl = new X509CredentialImpl(cert);
+            // for tenants the certificate is loaded from their generated key store and for super tenant from
+            // the primary key store configured in carbon.xml. The credential is reused until the certificate changes.
+            credentialImpl = SAMLSSOCredentialCache.getInstance().getCertificateCredential(tenantId, tenantDomain,
+                    alias);
 
         } catch (Exception e) {
             String errorMsg = "Error instantiating an X509CredentialImpl object for the public certificate of " + tenantDomain;
@@ -879,13 +864,7 @@ public class SAMLSSOUtil {
                                                    String alias, String domainName) throws IdentityException {
         try {
 
-            synchronized (Runtime.getRuntime().getClass()) {
-                samlHTTPRedirectSignatureValidator = (SAML2HTTPRedirectSignatureValidator) Class.forName(IdentityUtil.getProperty(
-                        "SSOService.SAML2HTTPRedirectSignatureValidator").trim()).newInstance();
-                samlHTTPRedirectSignatureValidator.init();
-            }
-
-            return samlHTTPRedirectSignatureValidator.validateSignature(queryString, issuer,
+            return getSAMLHTTPRedirectSignatureValidator().validateSignature(queryString, issuer,
                     alias, domainName);
 
         } catch (SecurityException e) {
@@ -925,13 +904,7 @@ public class SAMLSSOUtil {
             try {
                 X509Credential cred = SAMLSSOUtil.getX509CredentialImplForTenant(domainName, alias);
 
-                synchronized (Runtime.getRuntime().getClass()) {
-                    ssoSigner = (SSOSigner) Class.forName(IdentityUtil.getProperty(
-                            "SSOService.SAMLSSOSigner").trim()).newInstance();
-                    ssoSigner.init();
-                }
-
-                return ssoSigner.validateXMLSignature(request, cred, alias);
+                return getSSOSigner().validateXMLSignature(request, cred, alias);
             } catch (IdentitySAML2SSOException e) {
                 if (log.isDebugEnabled()) {
                     log.debug("Signature validation failed for the SAML Message : Failed to construct the X509CredentialImpl for the alias " +
@@ -976,12 +949,7 @@ public class SAMLSSOUtil {
         SAMLSSOServiceProviderDO spDO = spConfigManager.getServiceProvider(authnReqDTO.getIssuer());
 
         if (spDO == null) {
-            IdentityPersistenceManager persistenceManager =
-                    IdentityPersistenceManager.getPersistanceManager();
-
-            Registry registry = (Registry) PrivilegedCarbonContext.getThreadLocalCarbonContext().
-                    getRegistry(RegistryType.SYSTEM_CONFIGURATION);
-            spDO = persistenceManager.getServiceProvider(registry, authnReqDTO.getIssuer());
+            spDO = getServiceProviderConfig(authnReqDTO.getIssuer());
         }
 
         if (!authnReqDTO.isIdPInitSSOEnabled()) {
@@ -1318,6 +1286,23 @@ public class SAMLSSOUtil {
         return defaultLogoutLocation;
     }
 
+    /**
+     * Returns the configuration of the SAML SSO service provider with the given issuer, from the registry of the
+     * tenant of the current carbon context. Configurations are cached by the identity persistence manager, which
+     * removes them from the cache when the service provider is added or removed.
+     *
+     * @param issuer issuer of the service provider
+     * @return configuration of the service provider, or null if there is none. It must not be modified.
+     * @throws IdentityException
+     */
+    public static SAMLSSOServiceProviderDO getServiceProviderConfig(String issuer) throws IdentityException {
+
+        IdentityPersistenceManager persistenceManager = IdentityPersistenceManager.getPersistanceManager();
+        Registry registry = (Registry) PrivilegedCarbonContext.getThreadLocalCarbonContext().
+                getRegistry(RegistryType.SYSTEM_CONFIGURATION);
+        return persistenceManager.getCachedServiceProvider(registry, issuer);
+    }
+
     public static boolean isSAMLIssuerExists(String issuerName, String tenantDomain) throws IdentitySAML2SSOException {
 
         SSOServiceProviderConfigManager stratosIdpConfigManager = SSOServiceProviderConfigManager.getInstance();
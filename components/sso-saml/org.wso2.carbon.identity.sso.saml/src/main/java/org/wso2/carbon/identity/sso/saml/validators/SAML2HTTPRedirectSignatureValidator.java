@@ -20,6 +20,10 @@ package org.wso2.carbon.identity.sso.saml.validators;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.sso.saml.exception.IdentitySAML2SSOException;
 
+/**
+ * Validates the signature of a request sent with the HTTP redirect binding. The configured class is created
+ * once and shared between the requests; an implementation must not keep per request state in its fields.
+ */
 public interface SAML2HTTPRedirectSignatureValidator {
 
     public void init() throws IdentityException;
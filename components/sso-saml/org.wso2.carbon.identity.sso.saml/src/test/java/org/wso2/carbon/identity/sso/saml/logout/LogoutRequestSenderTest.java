@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.sso.saml.logout;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.wso2.carbon.identity.core.util.IdentityConfigParser;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.sso.saml.dto.SingleLogoutRequestDTO;
+import org.wso2.carbon.identity.sso.saml.util.SAMLSSOUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogoutRequestSenderTest {
+
+    private static final String ISSUER = "travelocity.com";
+    private static final String LOGOUT_REQUEST = "<samlp:LogoutRequest/>";
+    private static final String SESSION_ID = "session-id";
+    private static final long TIMEOUT = 10000;
+
+    private StubParticipant participant;
+    private HttpServer server;
+
+    @BeforeClass
+    public static void setUpConfiguration() throws Exception {
+
+        // a pool of two threads with short timeouts, statistics are not logged
+        File identityConfig = new File(LogoutRequestSenderTest.class.getResource("/identity.xml").toURI());
+        IdentityConfigParser.getInstance(identityConfig.getAbsolutePath());
+        IdentityUtil.populateProperties();
+        if (System.getProperty("carbon.home") == null) {
+            System.setProperty("carbon.home", identityConfig.getParentFile().getAbsolutePath());
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        SAMLSSOUtil.setSingleLogoutRetryCount(3);
+        SAMLSSOUtil.setSingleLogoutRetryInterval(10);
+        participant = new StubParticipant();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/logout", participant);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        LogoutRequestSender.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testLogoutRequestIsDelivered() throws Exception {
+
+        participant.respondWith(200);
+        LogoutRequestSender.getInstance().sendLogoutRequests(new SingleLogoutRequestDTO[]{logoutRequest()});
+        SingleLogoutStatistics statistics = waitUntilCompleted();
+
+        Assert.assertEquals(1, participant.getRequestCount());
+        Assert.assertEquals("JSESSIONID=" + SESSION_ID, participant.getCookie(0));
+        Assert.assertEquals("SAMLRequest=" + SAMLSSOUtil.encode(LOGOUT_REQUEST), participant.getBody(0));
+        Assert.assertEquals(1, statistics.getAttemptCount());
+        Assert.assertEquals(1, statistics.getSuccessCount());
+        Assert.assertEquals(0, statistics.getRetryCount());
+    }
+
+    @Test
+    public void testTransientFailureIsRetried() throws Exception {
+
+        participant.respondWith(503, 503, 200);
+        LogoutRequestSender.getInstance().sendLogoutRequests(new SingleLogoutRequestDTO[]{logoutRequest()});
+        SingleLogoutStatistics statistics = waitUntilCompleted();
+
+        Assert.assertEquals(3, participant.getRequestCount());
+        Assert.assertEquals(participant.getBody(0), participant.getBody(2));
+        Assert.assertEquals(3, statistics.getAttemptCount());
+        Assert.assertEquals(2, statistics.getRetryCount());
+        Assert.assertEquals(1, statistics.getSuccessCount());
+        Assert.assertEquals(0, statistics.getFailureCount());
+    }
+
+    @Test
+    public void testRequestFailsAfterRetryCount() throws Exception {
+
+        participant.respondWith(503, 503, 503, 200);
+        LogoutRequestSender.getInstance().sendLogoutRequests(new SingleLogoutRequestDTO[]{logoutRequest()});
+        SingleLogoutStatistics statistics = waitUntilCompleted();
+
+        Assert.assertEquals(3, participant.getRequestCount());
+        Assert.assertEquals(0, statistics.getSuccessCount());
+        Assert.assertEquals(1, statistics.getFailureCount());
+    }
+
+    @Test
+    public void testClientErrorIsNotRetried() throws Exception {
+
+        participant.respondWith(400, 200);
+        LogoutRequestSender.getInstance().sendLogoutRequests(new SingleLogoutRequestDTO[]{logoutRequest()});
+        SingleLogoutStatistics statistics = waitUntilCompleted();
+
+        Assert.assertEquals(1, participant.getRequestCount());
+        Assert.assertEquals(0, statistics.getRetryCount());
+        Assert.assertEquals(1, statistics.getFailureCount());
+    }
+
+    private SingleLogoutRequestDTO logoutRequest() {
+
+        SingleLogoutRequestDTO logoutRequestDTO = new SingleLogoutRequestDTO();
+        logoutRequestDTO.setIssuer(ISSUER);
+        logoutRequestDTO.setAssertionConsumerURL("http://localhost:" + server.getAddress().getPort() + "/logout");
+        logoutRequestDTO.setLogoutResponse(LOGOUT_REQUEST);
+        logoutRequestDTO.setRpSessionId(SESSION_ID);
+        return logoutRequestDTO;
+    }
+
+    private SingleLogoutStatistics waitUntilCompleted() throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        SingleLogoutStatistics statistics = LogoutRequestSender.getInstance().getStatistics().get(ISSUER);
+        while (statistics.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("logout request is not completed in time", 0, statistics.getPendingCount());
+        return statistics;
+    }
+
+    /**
+     * Session participant which answers with the given status codes in order, and records the requests.
+     */
+    private static class StubParticipant implements HttpHandler {
+
+        private final List<Integer> statusCodes = new ArrayList<>();
+        private final List<String> cookies = new ArrayList<>();
+        private final List<String> bodies = new ArrayList<>();
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+
+            int statusCode;
+            synchronized (this) {
+                cookies.add(exchange.getRequestHeaders().getFirst("Cookie"));
+                bodies.add(URLDecoder.decode(read(exchange.getRequestBody()), "UTF-8"));
+                statusCode = statusCodes.isEmpty() ? 200 : statusCodes.remove(0);
+            }
+            exchange.sendResponseHeaders(statusCode, -1);
+            exchange.close();
+        }
+
+        private synchronized void respondWith(Integer... statusCodes) {
+            for (Integer statusCode : statusCodes) {
+                this.statusCodes.add(statusCode);
+            }
+        }
+
+        private synchronized int getRequestCount() {
+            return bodies.size();
+        }
+
+        private synchronized String getCookie(int index) {
+            return cookies.get(index);
+        }
+
+        private synchronized String getBody(int index) {
+            return bodies.get(index);
+        }
+
+        private static String read(InputStream in) throws IOException {
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
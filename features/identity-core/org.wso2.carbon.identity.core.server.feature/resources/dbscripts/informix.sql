@@ -198,6 +198,8 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
             PRIMARY KEY (SESSION_ID, SESSION_TYPE, TIME_CREATED, OPERATION)
 );
 
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED);
+
 CREATE TABLE SP_APP (
             ID SERIAL,
             TENANT_ID INTEGER NOT NULL,
@@ -439,6 +441,17 @@ CREATE TABLE IDP_PROVISIONING_ENTITY (
             UNIQUE (PROVISIONING_CONFIG_ID, ENTITY_TYPE, ENTITY_VALUE),
             FOREIGN KEY (PROVISIONING_CONFIG_ID) REFERENCES IDP_PROVISIONING_CONFIG(ID) ON DELETE CASCADE);
 
+CREATE TABLE IDP_PROVISIONING_OUTBOX (
+            ID LVARCHAR(100) NOT NULL,
+            TENANT_DOMAIN LVARCHAR(255) NOT NULL,
+            IDP_NAME LVARCHAR(254) NOT NULL,
+            CONNECTOR_TYPE LVARCHAR(255) NOT NULL,
+            PROVISIONING_ENTITY BLOB,
+            TIME_CREATED BIGINT NOT NULL,
+            OWNER LVARCHAR(100) NOT NULL,
+            LEASE_EXPIRY BIGINT NOT NULL,
+            PRIMARY KEY (ID));
+
 CREATE TABLE IDP_LOCAL_CLAIM (
             ID SERIAL,
             TENANT_ID INTEGER,